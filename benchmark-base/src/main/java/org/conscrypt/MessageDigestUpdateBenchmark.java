@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.security.MessageDigest;
+
+/**
+ * Benchmark for comparing the throughput of many small message digest updates.
+ */
+public final class MessageDigestUpdateBenchmark {
+    /**
+     * Number of updates that make up one message in {@link #updateAndDigest()}.
+     */
+    static final int UPDATES_PER_MESSAGE = 16;
+
+    /**
+     * Provider for the benchmark configuration
+     */
+    interface Config {
+        String algorithm();
+        int updateSize();
+        MessageDigestFactory messageDigestFactory();
+    }
+
+    private final MessageDigest digest;
+    private final byte[] input;
+
+    MessageDigestUpdateBenchmark(Config config) throws Exception {
+        digest = config.messageDigestFactory().newMessageDigest(config.algorithm());
+        input = TestUtils.newTextMessage(config.updateSize());
+    }
+
+    /**
+     * Adds one small update to a running digest.
+     */
+    void update() {
+        digest.update(input, 0, input.length);
+    }
+
+    /**
+     * Digests a message supplied in {@link #UPDATES_PER_MESSAGE} small updates.
+     */
+    byte[] updateAndDigest() {
+        for (int i = 0; i < UPDATES_PER_MESSAGE; i++) {
+            digest.update(input, 0, input.length);
+        }
+        return digest.digest();
+    }
+}
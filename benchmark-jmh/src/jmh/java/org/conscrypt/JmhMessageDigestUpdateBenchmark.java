@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import org.conscrypt.MessageDigestUpdateBenchmark.Config;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark comparing the throughput of small MessageDigest updates.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Threads(1)
+public class JmhMessageDigestUpdateBenchmark {
+    private final JmhConfig config = new JmhConfig();
+
+    @Param({"SHA-1", "SHA-256"})
+    public String a_algorithm;
+
+    @Param({"8", "32", "128"})
+    public int b_updateSize;
+
+    @Param
+    public OpenJdkMessageDigestFactory c_provider;
+
+    private MessageDigestUpdateBenchmark benchmark;
+
+    @Setup(Level.Iteration)
+    public void setup() throws Exception {
+        benchmark = new MessageDigestUpdateBenchmark(config);
+    }
+
+    @Benchmark
+    public void update() {
+        benchmark.update();
+    }
+
+    @Benchmark
+    public void updateAndDigest(Blackhole bh) {
+        bh.consume(benchmark.updateAndDigest());
+    }
+
+    private final class JmhConfig implements Config {
+        @Override
+        public String algorithm() {
+            return a_algorithm;
+        }
+
+        @Override
+        public int updateSize() {
+            return b_updateSize;
+        }
+
+        @Override
+        public MessageDigestFactory messageDigestFactory() {
+            return c_provider;
+        }
+    }
+}
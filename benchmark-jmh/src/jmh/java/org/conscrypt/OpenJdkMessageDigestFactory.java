@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Enumeration for creating message digests with various providers.
+ */
+public enum OpenJdkMessageDigestFactory implements MessageDigestFactory {
+  JDK {
+    @Override
+    public MessageDigest newMessageDigest(String algorithm) throws NoSuchAlgorithmException {
+      return MessageDigest.getInstance(algorithm);
+    }
+  },
+  CONSCRYPT {
+    @Override
+    public MessageDigest newMessageDigest(String algorithm) throws NoSuchAlgorithmException {
+      return MessageDigest.getInstance(algorithm, TestUtils.getConscryptProvider());
+    }
+  };
+}
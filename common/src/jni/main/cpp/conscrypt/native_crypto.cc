@@ -35,20 +35,31 @@
 #include <limits.h>
 
 #include <openssl/aead.h>
+#include <openssl/aes.h>
 #include <openssl/asn1.h>
 #include <openssl/chacha.h>
+#include <openssl/cmac.h>
 #include <openssl/engine.h>
 #include <openssl/err.h>
 #include <openssl/evp.h>
+#include <openssl/hkdf.h>
 #include <openssl/hmac.h>
+#include <openssl/mem.h>
 #include <openssl/pkcs7.h>
 #include <openssl/pkcs8.h>
+#include <openssl/poly1305.h>
 #include <openssl/rand.h>
 #include <openssl/rsa.h>
 #include <openssl/ssl.h>
 #include <openssl/x509v3.h>
 
+#ifdef __linux__
+#include <sys/mman.h>
+#include <unistd.h>
+#endif
+
 #include <limits>
+#include <mutex>  // NOLINT(build/c++11)
 #include <vector>
 
 using conscrypt::AppData;
@@ -1666,6 +1677,143 @@ static void NativeCrypto_chacha20_encrypt_decrypt(JNIEnv* env, jclass, jbyteArra
             blockCounter);
 }
 
+/*
+ * Wraps or unwraps |inLength| bytes at |inOffset| of |inArray| into |outArray| at |outOffset|
+ * with AES key wrap (RFC 3394) or, if |padded|, AES key wrap with padding (RFC 5649). |ivArray|
+ * may be null to use the default initial value and must be null if |padded|.
+ */
+static jint aes_key_wrap_op(JNIEnv* env, jbyteArray keyArray, jbyteArray ivArray,
+                            jbyteArray outArray, jint outOffset, jbyteArray inArray,
+                            jint inOffset, jint inLength, bool wrap, bool padded,
+                            const char* opName) {
+    JNI_TRACE("%s(%p, %p, %p, %d, %p, %d, %d)", opName, keyArray, ivArray, outArray, outOffset,
+              inArray, inOffset, inLength);
+
+    ScopedByteArrayRO keyBytes(env, keyArray);
+    if (keyBytes.get() == nullptr) {
+        JNI_TRACE("%s => threw exception: could not read key bytes", opName);
+        return 0;
+    }
+    std::unique_ptr<ScopedByteArrayRO> ivBytes;
+    const uint8_t* iv = nullptr;
+    if (ivArray != nullptr) {
+        ivBytes.reset(new ScopedByteArrayRO(env, ivArray));
+        if (ivBytes->get() == nullptr) {
+            JNI_TRACE("%s => threw exception: could not read iv bytes", opName);
+            return 0;
+        }
+        if (ivBytes->size() != 8) {
+            conscrypt::jniutil::throwException(env, "java/lang/IllegalArgumentException",
+                                               "iv.length != 8");
+            return 0;
+        }
+        iv = reinterpret_cast<const uint8_t*>(ivBytes->get());
+    }
+    ScopedByteArrayRO inBytes(env, inArray);
+    if (inBytes.get() == nullptr) {
+        JNI_TRACE("%s => threw exception: could not read input bytes", opName);
+        return 0;
+    }
+    if (ARRAY_OFFSET_LENGTH_INVALID(inBytes, inOffset, inLength)) {
+        conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                           "inBytes");
+        return 0;
+    }
+    ScopedByteArrayRW outBytes(env, outArray);
+    if (outBytes.get() == nullptr) {
+        JNI_TRACE("%s => threw exception: could not read output bytes", opName);
+        return 0;
+    }
+    if (ARRAY_OFFSET_INVALID(outBytes, outOffset)) {
+        conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                           "outBytes");
+        return 0;
+    }
+    size_t maxOut = outBytes.size() - static_cast<size_t>(outOffset);
+    size_t inLen = static_cast<size_t>(inLength);
+    if (!padded && (wrap ? maxOut < inLen + 8 : maxOut + 8 < inLen)) {
+        conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                           "outBytes");
+        return 0;
+    }
+
+    AES_KEY aesKey;
+    int keyResult;
+    if (wrap) {
+        keyResult = AES_set_encrypt_key(reinterpret_cast<const uint8_t*>(keyBytes.get()),
+                                        static_cast<unsigned>(keyBytes.size() * 8), &aesKey);
+    } else {
+        keyResult = AES_set_decrypt_key(reinterpret_cast<const uint8_t*>(keyBytes.get()),
+                                        static_cast<unsigned>(keyBytes.size() * 8), &aesKey);
+    }
+    if (keyResult != 0) {
+        conscrypt::jniutil::throwException(env, "java/security/InvalidKeyException",
+                                           "Invalid AES key length");
+        return 0;
+    }
+
+    uint8_t* out = reinterpret_cast<uint8_t*>(outBytes.get()) + outOffset;
+    const uint8_t* in = reinterpret_cast<const uint8_t*>(inBytes.get()) + inOffset;
+    int result;
+    if (padded) {
+        size_t outLen;
+        int ok = wrap ? AES_wrap_key_padded(&aesKey, out, &outLen, maxOut, in, inLen)
+                      : AES_unwrap_key_padded(&aesKey, out, &outLen, maxOut, in, inLen);
+        result = ok ? static_cast<int>(outLen) : -1;
+    } else {
+        result = wrap ? AES_wrap_key(&aesKey, iv, out, in, inLen)
+                      : AES_unwrap_key(&aesKey, iv, out, in, inLen);
+    }
+    OPENSSL_cleanse(&aesKey, sizeof(aesKey));
+
+    if (result < 0) {
+        ERR_clear_error();
+        if (wrap) {
+            conscrypt::jniutil::throwException(env, "javax/crypto/IllegalBlockSizeException",
+                                               "Invalid input length");
+        } else {
+            conscrypt::jniutil::throwBadPaddingException(env, "Integrity check failed");
+        }
+        JNI_TRACE("%s => threw exception", opName);
+        return 0;
+    }
+    JNI_TRACE("%s => %d", opName, result);
+    return result;
+}
+
+static jint NativeCrypto_AES_wrap_key(JNIEnv* env, jclass, jbyteArray keyArray,
+                                      jbyteArray ivArray, jbyteArray outArray, jint outOffset,
+                                      jbyteArray inArray, jint inOffset, jint inLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    return aes_key_wrap_op(env, keyArray, ivArray, outArray, outOffset, inArray, inOffset,
+                           inLength, true, false, "AES_wrap_key");
+}
+
+static jint NativeCrypto_AES_unwrap_key(JNIEnv* env, jclass, jbyteArray keyArray,
+                                        jbyteArray ivArray, jbyteArray outArray, jint outOffset,
+                                        jbyteArray inArray, jint inOffset, jint inLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    return aes_key_wrap_op(env, keyArray, ivArray, outArray, outOffset, inArray, inOffset,
+                           inLength, false, false, "AES_unwrap_key");
+}
+
+static jint NativeCrypto_AES_wrap_key_padded(JNIEnv* env, jclass, jbyteArray keyArray,
+                                             jbyteArray outArray, jint outOffset,
+                                             jbyteArray inArray, jint inOffset, jint inLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    return aes_key_wrap_op(env, keyArray, nullptr, outArray, outOffset, inArray, inOffset,
+                           inLength, true, true, "AES_wrap_key_padded");
+}
+
+static jint NativeCrypto_AES_unwrap_key_padded(JNIEnv* env, jclass, jbyteArray keyArray,
+                                               jbyteArray outArray, jint outOffset,
+                                               jbyteArray inArray, jint inOffset,
+                                               jint inLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    return aes_key_wrap_op(env, keyArray, nullptr, outArray, outOffset, inArray, inOffset,
+                           inLength, false, true, "AES_unwrap_key_padded");
+}
+
 static jlong NativeCrypto_EC_GROUP_new_by_curve_name(JNIEnv* env, jclass, jstring curveNameJava) {
     CHECK_ERROR_QUEUE_ON_RETURN;
     JNI_TRACE("EC_GROUP_new_by_curve_name(%p)", curveNameJava);
@@ -3291,6 +3439,104 @@ static jint NativeCrypto_EVP_CipherUpdate(JNIEnv* env, jclass, jobject ctxRef, j
     return outl;
 }
 
+static jint NativeCrypto_EVP_CipherUpdateDirect(JNIEnv* env, jclass, jobject ctxRef,
+                                                jlong outPtr, jlong inPtr, jint inLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    EVP_CIPHER_CTX* ctx = fromContextObject<EVP_CIPHER_CTX>(env, ctxRef);
+    uint8_t* out = reinterpret_cast<uint8_t*>(outPtr);
+    const uint8_t* in = reinterpret_cast<const uint8_t*>(inPtr);
+    JNI_TRACE("EVP_CipherUpdateDirect(%p, %p, %p, %d)", ctx, out, in, inLength);
+
+    if (ctx == nullptr) {
+        JNI_TRACE("ctx=%p EVP_CipherUpdateDirect => ctx == null", ctx);
+        return 0;
+    }
+
+    if (out == nullptr || in == nullptr) {
+        conscrypt::jniutil::throwNullPointerException(env, nullptr);
+        return 0;
+    }
+
+    int outl;
+    if (!EVP_CipherUpdate(ctx, out, &outl, in, inLength)) {
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "EVP_CipherUpdateDirect");
+        JNI_TRACE("ctx=%p EVP_CipherUpdateDirect => threw error", ctx);
+        return 0;
+    }
+
+    JNI_TRACE("EVP_CipherUpdateDirect(%p, %p, %p, %d) => %d", ctx, out, in, inLength, outl);
+    return outl;
+}
+
+/**
+ * Like EVP_CipherUpdate, but only reads and writes the given regions of the arrays, streaming
+ * them through a bounded buffer, so that several threads may process disjoint regions of the
+ * same arrays at once. Only for modes whose output length always equals the input length.
+ */
+static jint NativeCrypto_EVP_CipherUpdateRegion(JNIEnv* env, jclass, jobject ctxRef,
+                                                jbyteArray outArray, jint outOffset,
+                                                jbyteArray inArray, jint inOffset,
+                                                jint inLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    EVP_CIPHER_CTX* ctx = fromContextObject<EVP_CIPHER_CTX>(env, ctxRef);
+    JNI_TRACE("EVP_CipherUpdateRegion(%p, %p, %d, %p, %d, %d)", ctx, outArray, outOffset, inArray,
+              inOffset, inLength);
+
+    if (ctx == nullptr) {
+        JNI_TRACE("ctx=%p EVP_CipherUpdateRegion => ctx == null", ctx);
+        return 0;
+    }
+
+    if (outArray == nullptr || inArray == nullptr) {
+        conscrypt::jniutil::throwNullPointerException(env, nullptr);
+        return 0;
+    }
+    if (ARRAY_CHUNK_INVALID(env->GetArrayLength(inArray), inOffset, inLength)) {
+        conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                              "inBytes");
+        return 0;
+    }
+    if (ARRAY_CHUNK_INVALID(env->GetArrayLength(outArray), outOffset, inLength)) {
+        conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                              "outBytes");
+        return 0;
+    }
+    if (inLength == 0) {
+        return 0;
+    }
+
+    jint bufSize = (inLength >= 65536) ? 65536 : inLength;
+    std::unique_ptr<jbyte[]> buf(new jbyte[static_cast<unsigned int>(bufSize)]);
+    if (buf.get() == nullptr) {
+        conscrypt::jniutil::throwOutOfMemory(env, "Unable to allocate chunk buffer");
+        return 0;
+    }
+    uint8_t* bufBytes = reinterpret_cast<uint8_t*>(buf.get());
+
+    jint done = 0;
+    while (done < inLength) {
+        jint chunkSize = (inLength - done >= bufSize) ? bufSize : inLength - done;
+        env->GetByteArrayRegion(inArray, inOffset + done, chunkSize, buf.get());
+        int outl;
+        if (!EVP_CipherUpdate(ctx, bufBytes, &outl, bufBytes, chunkSize)) {
+            conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "EVP_CipherUpdateRegion");
+            JNI_TRACE("ctx=%p EVP_CipherUpdateRegion => threw error", ctx);
+            return 0;
+        }
+        if (outl != chunkSize) {
+            conscrypt::jniutil::throwException(env, "java/lang/IllegalStateException",
+                                                  "EVP_CipherUpdateRegion on a block mode");
+            return 0;
+        }
+        env->SetByteArrayRegion(outArray, outOffset + done, chunkSize, buf.get());
+        done += chunkSize;
+    }
+
+    JNI_TRACE("EVP_CipherUpdateRegion(%p, %p, %d, %p, %d, %d) => %d", ctx, outArray, outOffset,
+              inArray, inOffset, inLength, done);
+    return done;
+}
+
 static jint NativeCrypto_EVP_CipherFinal_ex(JNIEnv* env, jclass, jobject ctxRef,
                                             jbyteArray outArray, jint outOffset) {
     CHECK_ERROR_QUEUE_ON_RETURN;
@@ -3321,6 +3567,35 @@ static jint NativeCrypto_EVP_CipherFinal_ex(JNIEnv* env, jclass, jobject ctxRef,
     return outl;
 }
 
+static jint NativeCrypto_EVP_CipherFinal_exDirect(JNIEnv* env, jclass, jobject ctxRef,
+                                                  jlong outPtr) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    EVP_CIPHER_CTX* ctx = fromContextObject<EVP_CIPHER_CTX>(env, ctxRef);
+    uint8_t* out = reinterpret_cast<uint8_t*>(outPtr);
+    JNI_TRACE("EVP_CipherFinal_exDirect(%p, %p)", ctx, out);
+
+    if (ctx == nullptr) {
+        JNI_TRACE("ctx=%p EVP_CipherFinal_exDirect => ctx == null", ctx);
+        return 0;
+    }
+
+    if (out == nullptr) {
+        conscrypt::jniutil::throwNullPointerException(env, nullptr);
+        return 0;
+    }
+
+    int outl;
+    if (!EVP_CipherFinal_ex(ctx, out, &outl)) {
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "EVP_CipherFinal_exDirect",
+                conscrypt::jniutil::throwBadPaddingException);
+        JNI_TRACE("ctx=%p EVP_CipherFinal_exDirect => threw error", ctx);
+        return 0;
+    }
+
+    JNI_TRACE("EVP_CipherFinal_exDirect(%p, %p) => %d", ctx, out, outl);
+    return outl;
+}
+
 static jint NativeCrypto_EVP_CIPHER_iv_length(JNIEnv* env, jclass, jlong evpCipherRef) {
     CHECK_ERROR_QUEUE_ON_RETURN;
     const EVP_CIPHER* evpCipher = reinterpret_cast<const EVP_CIPHER*>(evpCipherRef);
@@ -3433,6 +3708,119 @@ static void NativeCrypto_EVP_CIPHER_CTX_set_key_length(JNIEnv* env, jclass, jobj
     JNI_TRACE("EVP_CIPHER_CTX_set_key_length(%p, %d) => success", ctx, keySizeBits);
 }
 
+static void NativeCrypto_EVP_CIPHER_CTX_set_aead_iv_length(JNIEnv* env, jclass, jobject ctxRef,
+                                                          jint ivLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    EVP_CIPHER_CTX* ctx = fromContextObject<EVP_CIPHER_CTX>(env, ctxRef);
+    JNI_TRACE("EVP_CIPHER_CTX_set_aead_iv_length(%p, %d)", ctx, ivLength);
+
+    if (ctx == nullptr) {
+        JNI_TRACE("ctx=%p EVP_CIPHER_CTX_set_aead_iv_length => ctx == null", ctx);
+        return;
+    }
+
+    if (!EVP_CIPHER_CTX_ctrl(ctx, EVP_CTRL_AEAD_SET_IVLEN, ivLength, nullptr)) {
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(
+                env, "EVP_CIPHER_CTX_set_aead_iv_length",
+                conscrypt::jniutil::throwInvalidAlgorithmParameterException);
+        JNI_TRACE("EVP_CIPHER_CTX_set_aead_iv_length => threw error");
+        return;
+    }
+    JNI_TRACE("EVP_CIPHER_CTX_set_aead_iv_length(%p, %d) => success", ctx, ivLength);
+}
+
+static void NativeCrypto_EVP_CipherUpdateAAD(JNIEnv* env, jclass, jobject ctxRef,
+                                             jbyteArray inArray, jint inOffset, jint inLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    EVP_CIPHER_CTX* ctx = fromContextObject<EVP_CIPHER_CTX>(env, ctxRef);
+    JNI_TRACE("EVP_CipherUpdateAAD(%p, %p, %d, %d)", ctx, inArray, inOffset, inLength);
+
+    if (ctx == nullptr) {
+        JNI_TRACE("ctx=%p EVP_CipherUpdateAAD => ctx == null", ctx);
+        return;
+    }
+
+    ScopedByteArrayRO inBytes(env, inArray);
+    if (inBytes.get() == nullptr) {
+        return;
+    }
+    if (ARRAY_OFFSET_LENGTH_INVALID(inBytes, inOffset, inLength)) {
+        conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                              "inBytes");
+        return;
+    }
+
+    const unsigned char* in = reinterpret_cast<const unsigned char*>(inBytes.get());
+    int outl;
+    // A null output buffer makes AEAD modes treat the input as additional data.
+    if (!EVP_CipherUpdate(ctx, nullptr, &outl, in + inOffset, inLength)) {
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "EVP_CipherUpdateAAD");
+        JNI_TRACE("ctx=%p EVP_CipherUpdateAAD => threw error", ctx);
+        return;
+    }
+    JNI_TRACE("EVP_CipherUpdateAAD(%p, %p, %d, %d) => success", ctx, inArray, inOffset, inLength);
+}
+
+static jbyteArray NativeCrypto_EVP_CIPHER_CTX_get_aead_tag(JNIEnv* env, jclass, jobject ctxRef,
+                                                           jint tagLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    EVP_CIPHER_CTX* ctx = fromContextObject<EVP_CIPHER_CTX>(env, ctxRef);
+    JNI_TRACE("EVP_CIPHER_CTX_get_aead_tag(%p, %d)", ctx, tagLength);
+
+    if (ctx == nullptr) {
+        JNI_TRACE("ctx=%p EVP_CIPHER_CTX_get_aead_tag => ctx == null", ctx);
+        return nullptr;
+    }
+
+    if (tagLength <= 0 || tagLength > EVP_AEAD_MAX_OVERHEAD) {
+        conscrypt::jniutil::throwException(env, "java/lang/IllegalArgumentException",
+                                              "tagLength");
+        return nullptr;
+    }
+
+    uint8_t tag[EVP_AEAD_MAX_OVERHEAD];
+    if (!EVP_CIPHER_CTX_ctrl(ctx, EVP_CTRL_AEAD_GET_TAG, tagLength, tag)) {
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "EVP_CIPHER_CTX_get_aead_tag");
+        JNI_TRACE("EVP_CIPHER_CTX_get_aead_tag => threw error");
+        return nullptr;
+    }
+
+    ScopedLocalRef<jbyteArray> tagArray(env, env->NewByteArray(tagLength));
+    if (tagArray.get() == nullptr) {
+        return nullptr;
+    }
+    env->SetByteArrayRegion(tagArray.get(), 0, tagLength, reinterpret_cast<const jbyte*>(tag));
+    JNI_TRACE("EVP_CIPHER_CTX_get_aead_tag(%p, %d) => success", ctx, tagLength);
+    return tagArray.release();
+}
+
+static void NativeCrypto_EVP_CIPHER_CTX_set_aead_tag(JNIEnv* env, jclass, jobject ctxRef,
+                                                     jbyteArray tagArray) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    EVP_CIPHER_CTX* ctx = fromContextObject<EVP_CIPHER_CTX>(env, ctxRef);
+    JNI_TRACE("EVP_CIPHER_CTX_set_aead_tag(%p, %p)", ctx, tagArray);
+
+    if (ctx == nullptr) {
+        JNI_TRACE("ctx=%p EVP_CIPHER_CTX_set_aead_tag => ctx == null", ctx);
+        return;
+    }
+
+    ScopedByteArrayRO tagBytes(env, tagArray);
+    if (tagBytes.get() == nullptr) {
+        return;
+    }
+
+    // The tag is copied into the context, so the cast away from const is safe.
+    void* tag = const_cast<jbyte*>(tagBytes.get());
+    if (!EVP_CIPHER_CTX_ctrl(ctx, EVP_CTRL_AEAD_SET_TAG, static_cast<int>(tagBytes.size()),
+                             tag)) {
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "EVP_CIPHER_CTX_set_aead_tag");
+        JNI_TRACE("EVP_CIPHER_CTX_set_aead_tag => threw error");
+        return;
+    }
+    JNI_TRACE("EVP_CIPHER_CTX_set_aead_tag(%p, %p) => success", ctx, tagArray);
+}
+
 static void NativeCrypto_EVP_CIPHER_CTX_free(JNIEnv* env, jclass, jlong ctxRef) {
     CHECK_ERROR_QUEUE_ON_RETURN;
     EVP_CIPHER_CTX* ctx = reinterpret_cast<EVP_CIPHER_CTX*>(ctxRef);
@@ -3462,6 +3850,27 @@ static jlong NativeCrypto_EVP_aead_chacha20_poly1305(JNIEnv* env, jclass) {
     return reinterpret_cast<jlong>(ctx);
 }
 
+static jlong NativeCrypto_EVP_aead_xchacha20_poly1305(JNIEnv* env, jclass) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    const EVP_AEAD* ctx = EVP_aead_xchacha20_poly1305();
+    JNI_TRACE("EVP_aead_xchacha20_poly1305 => ctx=%p", ctx);
+    return reinterpret_cast<jlong>(ctx);
+}
+
+static jlong NativeCrypto_EVP_aead_aes_128_gcm_siv(JNIEnv* env, jclass) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    const EVP_AEAD* ctx = EVP_aead_aes_128_gcm_siv();
+    JNI_TRACE("EVP_aead_aes_128_gcm_siv => ctx=%p", ctx);
+    return reinterpret_cast<jlong>(ctx);
+}
+
+static jlong NativeCrypto_EVP_aead_aes_256_gcm_siv(JNIEnv* env, jclass) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    const EVP_AEAD* ctx = EVP_aead_aes_256_gcm_siv();
+    JNI_TRACE("EVP_aead_aes_256_gcm_siv => ctx=%p", ctx);
+    return reinterpret_cast<jlong>(ctx);
+}
+
 static jint NativeCrypto_EVP_AEAD_max_overhead(JNIEnv* env, jclass, jlong evpAeadRef) {
     CHECK_ERROR_QUEUE_ON_RETURN;
     const EVP_AEAD* evpAead = reinterpret_cast<const EVP_AEAD*>(evpAeadRef);
@@ -3493,18 +3902,14 @@ typedef int (*evp_aead_ctx_op_func)(const EVP_AEAD_CTX* ctx, uint8_t* out, size_
                                     const uint8_t* in, size_t in_len, const uint8_t* ad,
                                     size_t ad_len);
 
-static jint evp_aead_ctx_op(JNIEnv* env, jlong evpAeadRef, jbyteArray keyArray, jint tagLen,
-                            jbyteArray outArray, jint outOffset, jbyteArray nonceArray,
-                            jbyteArray inArray, jint inOffset, jint inLength, jbyteArray aadArray,
-                            evp_aead_ctx_op_func realFunc) {
-    const EVP_AEAD* evpAead = reinterpret_cast<const EVP_AEAD*>(evpAeadRef);
-    JNI_TRACE("evp_aead_ctx_op(%p, %p, %d, %p, %d, %p, %p, %d, %d, %p)", evpAead, keyArray, tagLen,
-              outArray, outOffset, nonceArray, inArray, inOffset, inLength, aadArray);
-
-    ScopedByteArrayRO keyBytes(env, keyArray);
-    if (keyBytes.get() == nullptr) {
-        return 0;
-    }
+static jint evp_aead_ctx_op_with_ctx(JNIEnv* env, const EVP_AEAD_CTX* aeadCtx,
+                                     jbyteArray outArray, jint outOffset, jbyteArray nonceArray,
+                                     jbyteArray inArray, jint inOffset, jint inLength,
+                                     jbyteArray aadArray, jint aadOffset, jint aadLength,
+                                     evp_aead_ctx_op_func realFunc) {
+    JNI_TRACE("evp_aead_ctx_op_with_ctx(%p, %p, %d, %p, %p, %d, %d, %p, %d, %d)", aeadCtx,
+              outArray, outOffset, nonceArray, inArray, inOffset, inLength, aadArray, aadOffset,
+              aadLength);
 
     ScopedByteArrayRW outBytes(env, outArray);
     if (outBytes.get() == nullptr) {
@@ -3512,9 +3917,8 @@ static jint evp_aead_ctx_op(JNIEnv* env, jlong evpAeadRef, jbyteArray keyArray,
     }
 
     if (ARRAY_OFFSET_INVALID(outBytes, outOffset)) {
-        JNI_TRACE("evp_aead_ctx_op(%p, %p, %d, %p, %d, %p, %p, %d, %d, %p) => out offset invalid",
-                  evpAead, keyArray, tagLen, outArray, outOffset, nonceArray, inArray, inOffset,
-                  inLength, aadArray);
+        JNI_TRACE("evp_aead_ctx_op_with_ctx(%p, %p, %d, %p, %p, %d, %d, %p) => out offset invalid",
+                  aeadCtx, outArray, outOffset, nonceArray, inArray, inOffset, inLength, aadArray);
         conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
                                               "out");
         return 0;
@@ -3527,10 +3931,9 @@ static jint evp_aead_ctx_op(JNIEnv* env, jlong evpAeadRef, jbyteArray keyArray,
 
     if (ARRAY_OFFSET_LENGTH_INVALID(inBytes, inOffset, inLength)) {
         JNI_TRACE(
-                "evp_aead_ctx_op(%p, %p, %d, %p, %d, %p, %p, %d, %d, %p) => in offset/length "
+                "evp_aead_ctx_op_with_ctx(%p, %p, %d, %p, %p, %d, %d, %p) => in offset/length "
                 "invalid",
-                evpAead, keyArray, tagLen, outArray, outOffset, nonceArray, inArray, inOffset,
-                inLength, aadArray);
+                aeadCtx, outArray, outOffset, nonceArray, inArray, inOffset, inLength, aadArray);
         conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
                                               "in");
         return 0;
@@ -3545,7 +3948,13 @@ static jint evp_aead_ctx_op(JNIEnv* env, jlong evpAeadRef, jbyteArray keyArray,
         if (aad_chars == nullptr) {
             return 0;
         }
-        aad_chars_size = aad->size();
+        if (ARRAY_OFFSET_LENGTH_INVALID(*aad, aadOffset, aadLength)) {
+            conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                                  "aad");
+            return 0;
+        }
+        aad_chars += aadOffset;
+        aad_chars_size = static_cast<size_t>(aadLength);
     }
 
     ScopedByteArrayRO nonceBytes(env, nonceArray);
@@ -3553,44 +3962,62 @@ static jint evp_aead_ctx_op(JNIEnv* env, jlong evpAeadRef, jbyteArray keyArray,
         return 0;
     }
 
-    bssl::ScopedEVP_AEAD_CTX aeadCtx;
-    const uint8_t* keyTmp = reinterpret_cast<const uint8_t*>(keyBytes.get());
-    if (!EVP_AEAD_CTX_init(aeadCtx.get(), evpAead, keyTmp, keyBytes.size(),
-                           static_cast<size_t>(tagLen), nullptr)) {
-        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "failure initializing AEAD context");
-        JNI_TRACE(
-                "evp_aead_ctx_op(%p, %p, %d, %p, %d, %p, %p, %d, %d, %p) => fail EVP_AEAD_CTX_init",
-                evpAead, keyArray, tagLen, outArray, outOffset, nonceArray, inArray, inOffset,
-                inLength, aadArray);
-        return 0;
-    }
-
     uint8_t* outTmp = reinterpret_cast<uint8_t*>(outBytes.get());
     const uint8_t* inTmp = reinterpret_cast<const uint8_t*>(inBytes.get());
     const uint8_t* nonceTmp = reinterpret_cast<const uint8_t*>(nonceBytes.get());
     size_t actualOutLength;
-    if (!realFunc(aeadCtx.get(), outTmp + outOffset, &actualOutLength, outBytes.size() - outOffset,
+    if (!realFunc(aeadCtx, outTmp + outOffset, &actualOutLength, outBytes.size() - outOffset,
                   nonceTmp, nonceBytes.size(), inTmp + inOffset, static_cast<size_t>(inLength),
                   aad_chars, aad_chars_size)) {
         conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "evp_aead_ctx_op");
         return 0;
     }
 
-    JNI_TRACE("evp_aead_ctx_op(%p, %p, %d, %p, %d, %p, %p, %d, %d, %p) => success outlength=%zd",
-              evpAead, keyArray, tagLen, outArray, outOffset, nonceArray, inArray, inOffset,
-              inLength, aadArray, actualOutLength);
+    JNI_TRACE("evp_aead_ctx_op_with_ctx(%p, %p, %d, %p, %p, %d, %d, %p) => success outlength=%zd",
+              aeadCtx, outArray, outOffset, nonceArray, inArray, inOffset, inLength, aadArray,
+              actualOutLength);
     return static_cast<jint>(actualOutLength);
 }
 
-static jint NativeCrypto_EVP_AEAD_CTX_seal(JNIEnv* env, jclass, jlong evpAeadRef,
-                                           jbyteArray keyArray, jint tagLen, jbyteArray outArray,
-                                           jint outOffset, jbyteArray nonceArray,
-                                           jbyteArray inArray, jint inOffset, jint inLength,
-                                           jbyteArray aadArray) {
-    CHECK_ERROR_QUEUE_ON_RETURN;
-    return evp_aead_ctx_op(env, evpAeadRef, keyArray, tagLen, outArray, outOffset, nonceArray,
-                           inArray, inOffset, inLength, aadArray, EVP_AEAD_CTX_seal);
-}
+static jint evp_aead_ctx_op(JNIEnv* env, jlong evpAeadRef, jbyteArray keyArray, jint tagLen,
+                            jbyteArray outArray, jint outOffset, jbyteArray nonceArray,
+                            jbyteArray inArray, jint inOffset, jint inLength, jbyteArray aadArray,
+                            evp_aead_ctx_op_func realFunc) {
+    const EVP_AEAD* evpAead = reinterpret_cast<const EVP_AEAD*>(evpAeadRef);
+    JNI_TRACE("evp_aead_ctx_op(%p, %p, %d, %p, %d, %p, %p, %d, %d, %p)", evpAead, keyArray, tagLen,
+              outArray, outOffset, nonceArray, inArray, inOffset, inLength, aadArray);
+
+    ScopedByteArrayRO keyBytes(env, keyArray);
+    if (keyBytes.get() == nullptr) {
+        return 0;
+    }
+
+    bssl::ScopedEVP_AEAD_CTX aeadCtx;
+    const uint8_t* keyTmp = reinterpret_cast<const uint8_t*>(keyBytes.get());
+    if (!EVP_AEAD_CTX_init(aeadCtx.get(), evpAead, keyTmp, keyBytes.size(),
+                           static_cast<size_t>(tagLen), nullptr)) {
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "failure initializing AEAD context");
+        JNI_TRACE(
+                "evp_aead_ctx_op(%p, %p, %d, %p, %d, %p, %p, %d, %d, %p) => fail EVP_AEAD_CTX_init",
+                evpAead, keyArray, tagLen, outArray, outOffset, nonceArray, inArray, inOffset,
+                inLength, aadArray);
+        return 0;
+    }
+
+    jint aadLength = aadArray == nullptr ? 0 : env->GetArrayLength(aadArray);
+    return evp_aead_ctx_op_with_ctx(env, aeadCtx.get(), outArray, outOffset, nonceArray, inArray,
+                                    inOffset, inLength, aadArray, 0, aadLength, realFunc);
+}
+
+static jint NativeCrypto_EVP_AEAD_CTX_seal(JNIEnv* env, jclass, jlong evpAeadRef,
+                                           jbyteArray keyArray, jint tagLen, jbyteArray outArray,
+                                           jint outOffset, jbyteArray nonceArray,
+                                           jbyteArray inArray, jint inOffset, jint inLength,
+                                           jbyteArray aadArray) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    return evp_aead_ctx_op(env, evpAeadRef, keyArray, tagLen, outArray, outOffset, nonceArray,
+                           inArray, inOffset, inLength, aadArray, EVP_AEAD_CTX_seal);
+}
 
 static jint NativeCrypto_EVP_AEAD_CTX_open(JNIEnv* env, jclass, jlong evpAeadRef,
                                            jbyteArray keyArray, jint tagLen, jbyteArray outArray,
@@ -3602,132 +4029,1184 @@ static jint NativeCrypto_EVP_AEAD_CTX_open(JNIEnv* env, jclass, jlong evpAeadRef
                            inArray, inOffset, inLength, aadArray, EVP_AEAD_CTX_open);
 }
 
-static jlong NativeCrypto_HMAC_CTX_new(JNIEnv* env, jclass) {
+static jlong NativeCrypto_EVP_AEAD_CTX_new(JNIEnv* env, jclass, jlong evpAeadRef,
+                                           jbyteArray keyArray, jint tagLen) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    const EVP_AEAD* evpAead = reinterpret_cast<const EVP_AEAD*>(evpAeadRef);
+    JNI_TRACE("EVP_AEAD_CTX_new(%p, %p, %d)", evpAead, keyArray, tagLen);
+
+    ScopedByteArrayRO keyBytes(env, keyArray);
+    if (keyBytes.get() == nullptr) {
+        return 0;
+    }
+
+    bssl::UniquePtr<EVP_AEAD_CTX> aeadCtx(
+            EVP_AEAD_CTX_new(evpAead, reinterpret_cast<const uint8_t*>(keyBytes.get()),
+                             keyBytes.size(), static_cast<size_t>(tagLen)));
+    if (aeadCtx.get() == nullptr) {
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env,
+                                                             "failure initializing AEAD context");
+        JNI_TRACE("EVP_AEAD_CTX_new(%p, %p, %d) => fail EVP_AEAD_CTX_new", evpAead, keyArray,
+                  tagLen);
+        return 0;
+    }
+
+    JNI_TRACE("EVP_AEAD_CTX_new(%p, %p, %d) => %p", evpAead, keyArray, tagLen, aeadCtx.get());
+    return reinterpret_cast<uintptr_t>(aeadCtx.release());
+}
+
+static void NativeCrypto_EVP_AEAD_CTX_free(JNIEnv* env, jclass, jlong ctxRef) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    EVP_AEAD_CTX* aeadCtx = reinterpret_cast<EVP_AEAD_CTX*>(ctxRef);
+    JNI_TRACE("EVP_AEAD_CTX_free(%p)", aeadCtx);
+
+    EVP_AEAD_CTX_free(aeadCtx);
+}
+
+static jint NativeCrypto_EVP_AEAD_CTX_seal_with_ctx(JNIEnv* env, jclass, jobject ctxRef,
+                                                    jbyteArray outArray, jint outOffset,
+                                                    jbyteArray nonceArray, jbyteArray inArray,
+                                                    jint inOffset, jint inLength,
+                                                    jbyteArray aadArray, jint aadOffset,
+                                                    jint aadLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    const EVP_AEAD_CTX* aeadCtx = fromContextObject<EVP_AEAD_CTX>(env, ctxRef);
+    if (aeadCtx == nullptr) {
+        return 0;
+    }
+    return evp_aead_ctx_op_with_ctx(env, aeadCtx, outArray, outOffset, nonceArray, inArray,
+                                    inOffset, inLength, aadArray, aadOffset, aadLength,
+                                    EVP_AEAD_CTX_seal);
+}
+
+static jint NativeCrypto_EVP_AEAD_CTX_open_with_ctx(JNIEnv* env, jclass, jobject ctxRef,
+                                                    jbyteArray outArray, jint outOffset,
+                                                    jbyteArray nonceArray, jbyteArray inArray,
+                                                    jint inOffset, jint inLength,
+                                                    jbyteArray aadArray, jint aadOffset,
+                                                    jint aadLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    const EVP_AEAD_CTX* aeadCtx = fromContextObject<EVP_AEAD_CTX>(env, ctxRef);
+    if (aeadCtx == nullptr) {
+        return 0;
+    }
+    return evp_aead_ctx_op_with_ctx(env, aeadCtx, outArray, outOffset, nonceArray, inArray,
+                                    inOffset, inLength, aadArray, aadOffset, aadLength,
+                                    EVP_AEAD_CTX_open);
+}
+
+static jint evp_aead_ctx_op_direct(JNIEnv* env, jobject ctxRef, jlong outPtr, jint outLength,
+                                   jbyteArray nonceArray, jlong inPtr, jint inLength,
+                                   jbyteArray aadArray, jint aadLength,
+                                   evp_aead_ctx_op_func realFunc) {
+    const EVP_AEAD_CTX* aeadCtx = fromContextObject<EVP_AEAD_CTX>(env, ctxRef);
+    uint8_t* out = reinterpret_cast<uint8_t*>(outPtr);
+    const uint8_t* in = reinterpret_cast<const uint8_t*>(inPtr);
+    JNI_TRACE("evp_aead_ctx_op_direct(%p, %p, %d, %p, %p, %d, %p)", aeadCtx, out, outLength,
+              nonceArray, in, inLength, aadArray);
+
+    if (aeadCtx == nullptr) {
+        return 0;
+    }
+
+    if (out == nullptr || in == nullptr) {
+        conscrypt::jniutil::throwNullPointerException(env, nullptr);
+        return 0;
+    }
+
+    std::unique_ptr<ScopedByteArrayRO> aad;
+    const uint8_t* aad_chars = nullptr;
+    size_t aad_chars_size = 0;
+    if (aadArray != nullptr) {
+        aad.reset(new ScopedByteArrayRO(env, aadArray));
+        aad_chars = reinterpret_cast<const uint8_t*>(aad->get());
+        if (aad_chars == nullptr) {
+            return 0;
+        }
+        if (ARRAY_OFFSET_LENGTH_INVALID(*aad, 0, aadLength)) {
+            conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                                  "aad");
+            return 0;
+        }
+        aad_chars_size = static_cast<size_t>(aadLength);
+    }
+
+    ScopedByteArrayRO nonceBytes(env, nonceArray);
+    if (nonceBytes.get() == nullptr) {
+        return 0;
+    }
+
+    const uint8_t* nonceTmp = reinterpret_cast<const uint8_t*>(nonceBytes.get());
+    size_t actualOutLength;
+    if (!realFunc(aeadCtx, out, &actualOutLength, static_cast<size_t>(outLength), nonceTmp,
+                  nonceBytes.size(), in, static_cast<size_t>(inLength), aad_chars,
+                  aad_chars_size)) {
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "evp_aead_ctx_op_direct");
+        return 0;
+    }
+
+    JNI_TRACE("evp_aead_ctx_op_direct(%p, %p, %d, %p, %p, %d, %p) => success outlength=%zd",
+              aeadCtx, out, outLength, nonceArray, in, inLength, aadArray, actualOutLength);
+    return static_cast<jint>(actualOutLength);
+}
+
+static jint NativeCrypto_EVP_AEAD_CTX_sealDirect(JNIEnv* env, jclass, jobject ctxRef,
+                                                 jlong outPtr, jint outLength,
+                                                 jbyteArray nonceArray, jlong inPtr,
+                                                 jint inLength, jbyteArray aadArray,
+                                                 jint aadLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    return evp_aead_ctx_op_direct(env, ctxRef, outPtr, outLength, nonceArray, inPtr, inLength,
+                                  aadArray, aadLength, EVP_AEAD_CTX_seal);
+}
+
+static jint NativeCrypto_EVP_AEAD_CTX_openDirect(JNIEnv* env, jclass, jobject ctxRef,
+                                                 jlong outPtr, jint outLength,
+                                                 jbyteArray nonceArray, jlong inPtr,
+                                                 jint inLength, jbyteArray aadArray,
+                                                 jint aadLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    return evp_aead_ctx_op_direct(env, ctxRef, outPtr, outLength, nonceArray, inPtr, inLength,
+                                  aadArray, aadLength, EVP_AEAD_CTX_open);
+}
+
+/**
+ * Seals or opens each record i of a batch: inLengths[i] bytes at inOffsets[i] of inArray, with
+ * the i-th nonceLength bytes of noncesArray as nonce and, if aadArray is non-null,
+ * aadLengths[i] bytes at aadOffsets[i] of aadArray as additional data. Outputs are written
+ * back to back from outOffset and their lengths stored in outLengthsArray. When opening, a
+ * record that fails authentication gets an output length of -1 and the remaining records are
+ * still processed. Returns the total number of bytes written.
+ */
+static jint evp_aead_ctx_batch_op(JNIEnv* env, jobject ctxRef, jint nonceLength,
+                                  jbyteArray noncesArray, jbyteArray inArray,
+                                  jintArray inOffsetsArray, jintArray inLengthsArray,
+                                  jbyteArray aadArray, jintArray aadOffsetsArray,
+                                  jintArray aadLengthsArray, jbyteArray outArray, jint outOffset,
+                                  jintArray outLengthsArray, evp_aead_ctx_op_func realFunc,
+                                  bool opening) {
+    const EVP_AEAD_CTX* aeadCtx = fromContextObject<EVP_AEAD_CTX>(env, ctxRef);
+    JNI_TRACE("evp_aead_ctx_batch_op(%p, %d, %p, %p, %p, %d)", aeadCtx, nonceLength, noncesArray,
+              inArray, outArray, outOffset);
+    if (aeadCtx == nullptr) {
+        return 0;
+    }
+
+    ScopedIntArrayRO inOffsets(env, inOffsetsArray);
+    if (inOffsets.get() == nullptr) {
+        return 0;
+    }
+    ScopedIntArrayRO inLengths(env, inLengthsArray);
+    if (inLengths.get() == nullptr) {
+        return 0;
+    }
+    ScopedIntArrayRW outLengths(env, outLengthsArray);
+    if (outLengths.get() == nullptr) {
+        return 0;
+    }
+    size_t count = inOffsets.size();
+    if (inLengths.size() != count || outLengths.size() != count) {
+        conscrypt::jniutil::throwException(env, "java/lang/IllegalArgumentException",
+                                              "record array lengths differ");
+        return 0;
+    }
+
+    std::unique_ptr<ScopedByteArrayRO> aad;
+    std::unique_ptr<ScopedIntArrayRO> aadOffsets;
+    std::unique_ptr<ScopedIntArrayRO> aadLengths;
+    if (aadArray != nullptr) {
+        aad.reset(new ScopedByteArrayRO(env, aadArray));
+        if (aad->get() == nullptr) {
+            return 0;
+        }
+        aadOffsets.reset(new ScopedIntArrayRO(env, aadOffsetsArray));
+        if (aadOffsets->get() == nullptr) {
+            return 0;
+        }
+        aadLengths.reset(new ScopedIntArrayRO(env, aadLengthsArray));
+        if (aadLengths->get() == nullptr) {
+            return 0;
+        }
+        if (aadOffsets->size() != count || aadLengths->size() != count) {
+            conscrypt::jniutil::throwException(env, "java/lang/IllegalArgumentException",
+                                                  "record array lengths differ");
+            return 0;
+        }
+    }
+
+    ScopedByteArrayRO nonces(env, noncesArray);
+    if (nonces.get() == nullptr) {
+        return 0;
+    }
+    if (nonceLength < 0 || nonces.size() != count * static_cast<size_t>(nonceLength)) {
+        conscrypt::jniutil::throwException(env, "java/lang/IllegalArgumentException",
+                                              "nonces");
+        return 0;
+    }
+
+    ScopedByteArrayRO inBytes(env, inArray);
+    if (inBytes.get() == nullptr) {
+        return 0;
+    }
+    ScopedByteArrayRW outBytes(env, outArray);
+    if (outBytes.get() == nullptr) {
+        return 0;
+    }
+    if (ARRAY_OFFSET_INVALID(outBytes, outOffset)) {
+        conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                              "out");
+        return 0;
+    }
+
+    const uint8_t* in = reinterpret_cast<const uint8_t*>(inBytes.get());
+    const uint8_t* nonce = reinterpret_cast<const uint8_t*>(nonces.get());
+    uint8_t* out = reinterpret_cast<uint8_t*>(outBytes.get());
+    size_t outPos = static_cast<size_t>(outOffset);
+    for (size_t i = 0; i < count; i++) {
+        if (ARRAY_OFFSET_LENGTH_INVALID(inBytes, inOffsets[i], inLengths[i])) {
+            conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                                  "in");
+            return 0;
+        }
+        const uint8_t* recordAad = nullptr;
+        size_t recordAadLength = 0;
+        if (aad) {
+            if (ARRAY_OFFSET_LENGTH_INVALID(*aad, (*aadOffsets)[i], (*aadLengths)[i])) {
+                conscrypt::jniutil::throwException(
+                        env, "java/lang/ArrayIndexOutOfBoundsException", "aad");
+                return 0;
+            }
+            recordAad = reinterpret_cast<const uint8_t*>(aad->get()) + (*aadOffsets)[i];
+            recordAadLength = static_cast<size_t>((*aadLengths)[i]);
+        }
+
+        size_t actualOutLength;
+        if (!realFunc(aeadCtx, out + outPos, &actualOutLength, outBytes.size() - outPos,
+                      nonce + i * static_cast<size_t>(nonceLength),
+                      static_cast<size_t>(nonceLength), in + inOffsets[i],
+                      static_cast<size_t>(inLengths[i]), recordAad, recordAadLength)) {
+            if (opening && ERR_GET_LIB(ERR_peek_last_error()) == ERR_LIB_CIPHER &&
+                ERR_GET_REASON(ERR_peek_last_error()) == CIPHER_R_BAD_DECRYPT) {
+                JNI_TRACE("evp_aead_ctx_batch_op(%p) => record %zu failed authentication",
+                          aeadCtx, i);
+                ERR_clear_error();
+                outLengths[i] = -1;
+                continue;
+            }
+            conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "evp_aead_ctx_batch_op");
+            return 0;
+        }
+        outLengths[i] = static_cast<jint>(actualOutLength);
+        outPos += actualOutLength;
+    }
+
+    JNI_TRACE("evp_aead_ctx_batch_op(%p) => %zu records, %zu bytes", aeadCtx, count,
+              outPos - static_cast<size_t>(outOffset));
+    return static_cast<jint>(outPos - static_cast<size_t>(outOffset));
+}
+
+static jint NativeCrypto_EVP_AEAD_CTX_seal_batch(
+        JNIEnv* env, jclass, jobject ctxRef, jint nonceLength, jbyteArray noncesArray,
+        jbyteArray inArray, jintArray inOffsetsArray, jintArray inLengthsArray,
+        jbyteArray aadArray, jintArray aadOffsetsArray, jintArray aadLengthsArray,
+        jbyteArray outArray, jint outOffset, jintArray outLengthsArray) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    return evp_aead_ctx_batch_op(env, ctxRef, nonceLength, noncesArray, inArray, inOffsetsArray,
+                                 inLengthsArray, aadArray, aadOffsetsArray, aadLengthsArray,
+                                 outArray, outOffset, outLengthsArray, EVP_AEAD_CTX_seal, false);
+}
+
+static jint NativeCrypto_EVP_AEAD_CTX_open_batch(
+        JNIEnv* env, jclass, jobject ctxRef, jint nonceLength, jbyteArray noncesArray,
+        jbyteArray inArray, jintArray inOffsetsArray, jintArray inLengthsArray,
+        jbyteArray aadArray, jintArray aadOffsetsArray, jintArray aadLengthsArray,
+        jbyteArray outArray, jint outOffset, jintArray outLengthsArray) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    return evp_aead_ctx_batch_op(env, ctxRef, nonceLength, noncesArray, inArray, inOffsetsArray,
+                                 inLengthsArray, aadArray, aadOffsetsArray, aadLengthsArray,
+                                 outArray, outOffset, outLengthsArray, EVP_AEAD_CTX_open, true);
+}
+
+static jlong NativeCrypto_HMAC_CTX_new(JNIEnv* env, jclass) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    JNI_TRACE("HMAC_CTX_new");
+    auto hmacCtx = new HMAC_CTX;
+    if (hmacCtx == nullptr) {
+        conscrypt::jniutil::throwOutOfMemory(env, "Unable to allocate HMAC_CTX");
+        return 0;
+    }
+
+    HMAC_CTX_init(hmacCtx);
+    return reinterpret_cast<jlong>(hmacCtx);
+}
+
+static void NativeCrypto_HMAC_CTX_free(JNIEnv* env, jclass, jlong hmacCtxRef) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    HMAC_CTX* hmacCtx = reinterpret_cast<HMAC_CTX*>(hmacCtxRef);
+    JNI_TRACE("HMAC_CTX_free(%p)", hmacCtx);
+    if (hmacCtx == nullptr) {
+        return;
+    }
+    HMAC_CTX_cleanup(hmacCtx);
+    delete hmacCtx;
+}
+
+static void NativeCrypto_HMAC_Init_ex(JNIEnv* env, jclass, jobject hmacCtxRef, jbyteArray keyArray,
+                                      jobject evpMdRef) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    HMAC_CTX* hmacCtx = fromContextObject<HMAC_CTX>(env, hmacCtxRef);
+    const EVP_MD* md = reinterpret_cast<const EVP_MD*>(evpMdRef);
+    JNI_TRACE("HMAC_Init_ex(%p, %p, %p)", hmacCtx, keyArray, md);
+    if (hmacCtx == nullptr) {
+        return;
+    }
+    ScopedByteArrayRO keyBytes(env, keyArray);
+    if (keyBytes.get() == nullptr) {
+        return;
+    }
+
+    const uint8_t* keyPtr = reinterpret_cast<const uint8_t*>(keyBytes.get());
+    if (!HMAC_Init_ex(hmacCtx, keyPtr, keyBytes.size(), md, nullptr)) {
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "HMAC_Init_ex");
+        JNI_TRACE("HMAC_Init_ex(%p, %p, %p) => fail HMAC_Init_ex", hmacCtx, keyArray, md);
+        return;
+    }
+}
+
+/*
+ * Restores |hmacCtxRef| to its state just after it was initialized with a key, without hashing
+ * the key again.
+ */
+static void NativeCrypto_HMAC_Reset(JNIEnv* env, jclass, jobject hmacCtxRef) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    HMAC_CTX* hmacCtx = fromContextObject<HMAC_CTX>(env, hmacCtxRef);
+    JNI_TRACE("HMAC_Reset(%p)", hmacCtx);
+    if (hmacCtx == nullptr) {
+        return;
+    }
+
+    // With no key and no digest, HMAC_Init_ex reuses the precomputed inner and outer states.
+    if (!HMAC_Init_ex(hmacCtx, nullptr, 0, nullptr, nullptr)) {
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "HMAC_Reset");
+        JNI_TRACE("HMAC_Reset(%p) => fail HMAC_Init_ex", hmacCtx);
+        return;
+    }
+}
+
+static void NativeCrypto_HMAC_CTX_copy(JNIEnv* env, jclass, jobject dstCtxRef,
+                                       jobject srcCtxRef) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    HMAC_CTX* dstCtx = fromContextObject<HMAC_CTX>(env, dstCtxRef);
+    JNI_TRACE("HMAC_CTX_copy(%p, %p)", dstCtxRef, srcCtxRef);
+    if (dstCtx == nullptr) {
+        return;
+    }
+    const HMAC_CTX* srcCtx = fromContextObject<HMAC_CTX>(env, srcCtxRef);
+    if (srcCtx == nullptr) {
+        return;
+    }
+
+    if (!HMAC_CTX_copy_ex(dstCtx, srcCtx)) {
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "HMAC_CTX_copy");
+        JNI_TRACE("HMAC_CTX_copy(%p, %p) => fail HMAC_CTX_copy_ex", dstCtx, srcCtx);
+        return;
+    }
+}
+
+static void NativeCrypto_HMAC_UpdateDirect(JNIEnv* env, jclass, jobject hmacCtxRef, jlong inPtr,
+                                           int inLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    HMAC_CTX* hmacCtx = fromContextObject<HMAC_CTX>(env, hmacCtxRef);
+    const uint8_t* p = reinterpret_cast<const uint8_t*>(inPtr);
+    JNI_TRACE("HMAC_UpdateDirect(%p, %p, %d)", hmacCtx, p, inLength);
+
+    if (hmacCtx == nullptr) {
+        return;
+    }
+
+    if (p == nullptr) {
+        conscrypt::jniutil::throwNullPointerException(env, nullptr);
+        return;
+    }
+
+    if (!HMAC_Update(hmacCtx, p, static_cast<size_t>(inLength))) {
+        JNI_TRACE("HMAC_UpdateDirect(%p, %p, %d) => threw exception", hmacCtx, p, inLength);
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "HMAC_UpdateDirect");
+        return;
+    }
+}
+
+static void NativeCrypto_HMAC_Update(JNIEnv* env, jclass, jobject hmacCtxRef, jbyteArray inArray,
+                                     jint inOffset, int inLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    HMAC_CTX* hmacCtx = fromContextObject<HMAC_CTX>(env, hmacCtxRef);
+    JNI_TRACE("HMAC_Update(%p, %p, %d, %d)", hmacCtx, inArray, inOffset, inLength);
+
+    if (hmacCtx == nullptr) {
+        return;
+    }
+
+    ScopedByteArrayRO inBytes(env, inArray);
+    if (inBytes.get() == nullptr) {
+        return;
+    }
+
+    if (ARRAY_OFFSET_LENGTH_INVALID(inBytes, inOffset, inLength)) {
+        conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                              "inBytes");
+        return;
+    }
+
+    const uint8_t* inPtr = reinterpret_cast<const uint8_t*>(inBytes.get());
+    if (!HMAC_Update(hmacCtx, inPtr + inOffset, static_cast<size_t>(inLength))) {
+        JNI_TRACE("HMAC_Update(%p, %p, %d, %d) => threw exception", hmacCtx, inArray, inOffset,
+                  inLength);
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "HMAC_Update");
+        return;
+    }
+}
+
+static jbyteArray NativeCrypto_HMAC_Final(JNIEnv* env, jclass, jobject hmacCtxRef) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    HMAC_CTX* hmacCtx = fromContextObject<HMAC_CTX>(env, hmacCtxRef);
+    JNI_TRACE("HMAC_Final(%p)", hmacCtx);
+
+    if (hmacCtx == nullptr) {
+        return nullptr;
+    }
+
+    uint8_t result[EVP_MAX_MD_SIZE];
+    unsigned len;
+    if (!HMAC_Final(hmacCtx, result, &len)) {
+        JNI_TRACE("HMAC_Final(%p) => threw exception", hmacCtx);
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "HMAC_Final");
+        return nullptr;
+    }
+
+    ScopedLocalRef<jbyteArray> resultArray(env, env->NewByteArray(static_cast<jsize>(len)));
+    if (resultArray.get() == nullptr) {
+        return nullptr;
+    }
+    ScopedByteArrayRW resultBytes(env, resultArray.get());
+    if (resultBytes.get() == nullptr) {
+        return nullptr;
+    }
+    memcpy(resultBytes.get(), result, len);
+    return resultArray.release();
+}
+
+/*
+ * Collects the |inLengthsArray[i]| bytes at |inOffsetsArray[i]| of |inBytes| as the inputs of a
+ * batch.
+ */
+static bool hash_batch_array_inputs(JNIEnv* env, const ScopedByteArrayRO& inBytes,
+                                    jintArray inOffsetsArray, jintArray inLengthsArray,
+                                    std::vector<const uint8_t*>* inputs,
+                                    std::vector<size_t>* lengths) {
+    ScopedIntArrayRO inOffsets(env, inOffsetsArray);
+    if (inOffsets.get() == nullptr) {
+        return false;
+    }
+    ScopedIntArrayRO inLengths(env, inLengthsArray);
+    if (inLengths.get() == nullptr) {
+        return false;
+    }
+    if (inLengths.size() != inOffsets.size()) {
+        conscrypt::jniutil::throwException(env, "java/lang/IllegalArgumentException",
+                                           "input array lengths differ");
+        return false;
+    }
+    const uint8_t* in = reinterpret_cast<const uint8_t*>(inBytes.get());
+    for (size_t i = 0; i < inOffsets.size(); i++) {
+        if (ARRAY_OFFSET_LENGTH_INVALID(inBytes, inOffsets[i], inLengths[i])) {
+            conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                               "in");
+            return false;
+        }
+        inputs->push_back(in + inOffsets[i]);
+        lengths->push_back(static_cast<size_t>(inLengths[i]));
+    }
+    return true;
+}
+
+/*
+ * Collects the |inLengthsArray[i]| bytes at native address |inPtrsArray[i]| as the inputs of a
+ * batch.
+ */
+static bool hash_batch_direct_inputs(JNIEnv* env, jlongArray inPtrsArray,
+                                     jintArray inLengthsArray,
+                                     std::vector<const uint8_t*>* inputs,
+                                     std::vector<size_t>* lengths) {
+    ScopedLongArrayRO inPtrs(env, inPtrsArray);
+    if (inPtrs.get() == nullptr) {
+        return false;
+    }
+    ScopedIntArrayRO inLengths(env, inLengthsArray);
+    if (inLengths.get() == nullptr) {
+        return false;
+    }
+    if (inLengths.size() != inPtrs.size()) {
+        conscrypt::jniutil::throwException(env, "java/lang/IllegalArgumentException",
+                                           "input array lengths differ");
+        return false;
+    }
+    for (size_t i = 0; i < inPtrs.size(); i++) {
+        if (inPtrs[i] == 0 || inLengths[i] < 0) {
+            conscrypt::jniutil::throwException(env, "java/lang/IllegalArgumentException",
+                                               "invalid input");
+            return false;
+        }
+        inputs->push_back(reinterpret_cast<const uint8_t*>(inPtrs[i]));
+        lengths->push_back(static_cast<size_t>(inLengths[i]));
+    }
+    return true;
+}
+
+/*
+ * Writes the digest of each input with |md|, or its HMAC under the key |hmacTemplate| was
+ * initialized with if that is not null, or the digest of the data already hashed into
+ * |mdTemplate| followed by the input if that is not null, to |outArray| starting at |outOffset|,
+ * back to back. Templates are copied rather than used, so one context may serve concurrent
+ * calls.
+ */
+static void hash_batch(JNIEnv* env, const EVP_MD* md, const HMAC_CTX* hmacTemplate,
+                       const EVP_MD_CTX* mdTemplate, const std::vector<const uint8_t*>& inputs,
+                       const std::vector<size_t>& lengths, jbyteArray outArray, jint outOffset,
+                       const char* opName) {
+    bssl::ScopedHMAC_CTX hmacCtx;
+    bssl::ScopedEVP_MD_CTX mdCtx;
+    size_t outLength;
+    if (hmacTemplate != nullptr) {
+        if (!HMAC_CTX_copy_ex(hmacCtx.get(), hmacTemplate)) {
+            conscrypt::jniutil::throwExceptionFromBoringSSLError(env, opName);
+            return;
+        }
+        outLength = HMAC_size(hmacCtx.get());
+    } else if (mdTemplate != nullptr) {
+        if (EVP_MD_CTX_md(mdTemplate) == nullptr) {
+            conscrypt::jniutil::throwException(env, "java/lang/IllegalStateException",
+                                               "digest not initialized");
+            return;
+        }
+        outLength = EVP_MD_CTX_size(mdTemplate);
+    } else {
+        outLength = EVP_MD_size(md);
+    }
+
+    ScopedByteArrayRW outBytes(env, outArray);
+    if (outBytes.get() == nullptr) {
+        return;
+    }
+    if (ARRAY_OFFSET_INVALID(outBytes, outOffset) ||
+        (outBytes.size() - static_cast<size_t>(outOffset)) / outLength < inputs.size()) {
+        conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                           "out");
+        return;
+    }
+
+    uint8_t* out = reinterpret_cast<uint8_t*>(outBytes.get()) + outOffset;
+    for (size_t i = 0; i < inputs.size(); i++, out += outLength) {
+        int ok;
+        if (hmacTemplate != nullptr) {
+            unsigned len;
+            ok = HMAC_Init_ex(hmacCtx.get(), nullptr, 0, nullptr, nullptr) &&
+                 HMAC_Update(hmacCtx.get(), inputs[i], lengths[i]) &&
+                 HMAC_Final(hmacCtx.get(), out, &len);
+        } else if (mdTemplate != nullptr) {
+            // After the first input this reuses mdCtx's digest state rather than allocating.
+            ok = EVP_MD_CTX_copy_ex(mdCtx.get(), mdTemplate) &&
+                 EVP_DigestUpdate(mdCtx.get(), inputs[i], lengths[i]) &&
+                 EVP_DigestFinal_ex(mdCtx.get(), out, nullptr);
+        } else {
+            ok = EVP_Digest(inputs[i], lengths[i], out, nullptr, md, nullptr);
+        }
+        if (!ok) {
+            conscrypt::jniutil::throwExceptionFromBoringSSLError(env, opName);
+            JNI_TRACE("%s => threw exception at input %zu", opName, i);
+            return;
+        }
+    }
+    JNI_TRACE("%s => %zu inputs", opName, inputs.size());
+}
+
+static void NativeCrypto_EVP_Digest_batch(JNIEnv* env, jclass, jlong evpMdRef,
+                                          jbyteArray inArray, jintArray inOffsetsArray,
+                                          jintArray inLengthsArray, jbyteArray outArray,
+                                          jint outOffset) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    const EVP_MD* md = reinterpret_cast<const EVP_MD*>(evpMdRef);
+    JNI_TRACE("EVP_Digest_batch(%p, %p, %p, %d)", md, inArray, outArray, outOffset);
+    if (md == nullptr) {
+        conscrypt::jniutil::throwNullPointerException(env, "md == null");
+        return;
+    }
+    ScopedByteArrayRO inBytes(env, inArray);
+    if (inBytes.get() == nullptr) {
+        return;
+    }
+    std::vector<const uint8_t*> inputs;
+    std::vector<size_t> lengths;
+    if (!hash_batch_array_inputs(env, inBytes, inOffsetsArray, inLengthsArray, &inputs,
+                                 &lengths)) {
+        return;
+    }
+    hash_batch(env, md, nullptr, nullptr, inputs, lengths, outArray, outOffset, "EVP_Digest_batch");
+}
+
+static void NativeCrypto_EVP_Digest_batchDirect(JNIEnv* env, jclass, jlong evpMdRef,
+                                                jlongArray inPtrsArray, jintArray inLengthsArray,
+                                                jbyteArray outArray, jint outOffset) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    const EVP_MD* md = reinterpret_cast<const EVP_MD*>(evpMdRef);
+    JNI_TRACE("EVP_Digest_batchDirect(%p, %p, %d)", md, outArray, outOffset);
+    if (md == nullptr) {
+        conscrypt::jniutil::throwNullPointerException(env, "md == null");
+        return;
+    }
+    std::vector<const uint8_t*> inputs;
+    std::vector<size_t> lengths;
+    if (!hash_batch_direct_inputs(env, inPtrsArray, inLengthsArray, &inputs, &lengths)) {
+        return;
+    }
+    hash_batch(env, md, nullptr, nullptr, inputs, lengths, outArray, outOffset,
+               "EVP_Digest_batchDirect");
+}
+
+static void NativeCrypto_EVP_Digest_batchFromPrefix(JNIEnv* env, jclass, jobject prefixCtxRef,
+                                                    jbyteArray inArray, jintArray inOffsetsArray,
+                                                    jintArray inLengthsArray, jbyteArray outArray,
+                                                    jint outOffset) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    const EVP_MD_CTX* prefixCtx = fromContextObject<EVP_MD_CTX>(env, prefixCtxRef);
+    JNI_TRACE("EVP_Digest_batchFromPrefix(%p, %p, %p, %d)", prefixCtx, inArray, outArray,
+              outOffset);
+    if (prefixCtx == nullptr) {
+        return;
+    }
+    ScopedByteArrayRO inBytes(env, inArray);
+    if (inBytes.get() == nullptr) {
+        return;
+    }
+    std::vector<const uint8_t*> inputs;
+    std::vector<size_t> lengths;
+    if (!hash_batch_array_inputs(env, inBytes, inOffsetsArray, inLengthsArray, &inputs,
+                                 &lengths)) {
+        return;
+    }
+    hash_batch(env, nullptr, nullptr, prefixCtx, inputs, lengths, outArray, outOffset,
+               "EVP_Digest_batchFromPrefix");
+}
+
+static void NativeCrypto_EVP_Digest_batchFromPrefixDirect(JNIEnv* env, jclass,
+                                                          jobject prefixCtxRef,
+                                                          jlongArray inPtrsArray,
+                                                          jintArray inLengthsArray,
+                                                          jbyteArray outArray, jint outOffset) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    const EVP_MD_CTX* prefixCtx = fromContextObject<EVP_MD_CTX>(env, prefixCtxRef);
+    JNI_TRACE("EVP_Digest_batchFromPrefixDirect(%p, %p, %d)", prefixCtx, outArray, outOffset);
+    if (prefixCtx == nullptr) {
+        return;
+    }
+    std::vector<const uint8_t*> inputs;
+    std::vector<size_t> lengths;
+    if (!hash_batch_direct_inputs(env, inPtrsArray, inLengthsArray, &inputs, &lengths)) {
+        return;
+    }
+    hash_batch(env, nullptr, nullptr, prefixCtx, inputs, lengths, outArray, outOffset,
+               "EVP_Digest_batchFromPrefixDirect");
+}
+
+static void NativeCrypto_HMAC_batch(JNIEnv* env, jclass, jobject hmacCtxRef, jbyteArray inArray,
+                                    jintArray inOffsetsArray, jintArray inLengthsArray,
+                                    jbyteArray outArray, jint outOffset) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    const HMAC_CTX* hmacCtx = fromContextObject<HMAC_CTX>(env, hmacCtxRef);
+    JNI_TRACE("HMAC_batch(%p, %p, %p, %d)", hmacCtx, inArray, outArray, outOffset);
+    if (hmacCtx == nullptr) {
+        return;
+    }
+    ScopedByteArrayRO inBytes(env, inArray);
+    if (inBytes.get() == nullptr) {
+        return;
+    }
+    std::vector<const uint8_t*> inputs;
+    std::vector<size_t> lengths;
+    if (!hash_batch_array_inputs(env, inBytes, inOffsetsArray, inLengthsArray, &inputs,
+                                 &lengths)) {
+        return;
+    }
+    hash_batch(env, nullptr, hmacCtx, nullptr, inputs, lengths, outArray, outOffset, "HMAC_batch");
+}
+
+static void NativeCrypto_HMAC_batchDirect(JNIEnv* env, jclass, jobject hmacCtxRef,
+                                          jlongArray inPtrsArray, jintArray inLengthsArray,
+                                          jbyteArray outArray, jint outOffset) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    const HMAC_CTX* hmacCtx = fromContextObject<HMAC_CTX>(env, hmacCtxRef);
+    JNI_TRACE("HMAC_batchDirect(%p, %p, %d)", hmacCtx, outArray, outOffset);
+    if (hmacCtx == nullptr) {
+        return;
+    }
+    std::vector<const uint8_t*> inputs;
+    std::vector<size_t> lengths;
+    if (!hash_batch_direct_inputs(env, inPtrsArray, inLengthsArray, &inputs, &lengths)) {
+        return;
+    }
+    hash_batch(env, nullptr, hmacCtx, nullptr, inputs, lengths, outArray, outOffset,
+               "HMAC_batchDirect");
+}
+
+static jlong NativeCrypto_CMAC_CTX_new(JNIEnv* env, jclass) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    JNI_TRACE("CMAC_CTX_new");
+    CMAC_CTX* cmacCtx = CMAC_CTX_new();
+    if (cmacCtx == nullptr) {
+        conscrypt::jniutil::throwOutOfMemory(env, "Unable to allocate CMAC_CTX");
+        return 0;
+    }
+    return reinterpret_cast<jlong>(cmacCtx);
+}
+
+static void NativeCrypto_CMAC_CTX_free(JNIEnv* env, jclass, jlong cmacCtxRef) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    CMAC_CTX* cmacCtx = reinterpret_cast<CMAC_CTX*>(cmacCtxRef);
+    JNI_TRACE("CMAC_CTX_free(%p)", cmacCtx);
+    CMAC_CTX_free(cmacCtx);
+}
+
+static void NativeCrypto_CMAC_Init(JNIEnv* env, jclass, jobject cmacCtxRef, jbyteArray keyArray) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    CMAC_CTX* cmacCtx = fromContextObject<CMAC_CTX>(env, cmacCtxRef);
+    JNI_TRACE("CMAC_Init(%p, %p)", cmacCtx, keyArray);
+    if (cmacCtx == nullptr) {
+        return;
+    }
+    ScopedByteArrayRO keyBytes(env, keyArray);
+    if (keyBytes.get() == nullptr) {
+        return;
+    }
+
+    const EVP_CIPHER* cipher;
+    switch (keyBytes.size()) {
+        case 16:
+            cipher = EVP_aes_128_cbc();
+            break;
+        case 24:
+            cipher = EVP_aes_192_cbc();
+            break;
+        case 32:
+            cipher = EVP_aes_256_cbc();
+            break;
+        default:
+            conscrypt::jniutil::throwException(env, "java/security/InvalidKeyException",
+                                               "Invalid AES key length");
+            return;
+    }
+    if (!CMAC_Init(cmacCtx, keyBytes.get(), keyBytes.size(), cipher, nullptr)) {
+        JNI_TRACE("CMAC_Init(%p) => threw exception", cmacCtx);
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "CMAC_Init");
+        return;
+    }
+}
+
+static void NativeCrypto_CMAC_Reset(JNIEnv* env, jclass, jobject cmacCtxRef) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    CMAC_CTX* cmacCtx = fromContextObject<CMAC_CTX>(env, cmacCtxRef);
+    JNI_TRACE("CMAC_Reset(%p)", cmacCtx);
+    if (cmacCtx == nullptr) {
+        return;
+    }
+    if (!CMAC_Reset(cmacCtx)) {
+        JNI_TRACE("CMAC_Reset(%p) => threw exception", cmacCtx);
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "CMAC_Reset");
+        return;
+    }
+}
+
+static void NativeCrypto_CMAC_CTX_copy(JNIEnv* env, jclass, jobject dstCtxRef,
+                                       jobject srcCtxRef) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    CMAC_CTX* dstCtx = fromContextObject<CMAC_CTX>(env, dstCtxRef);
+    JNI_TRACE("CMAC_CTX_copy(%p, %p)", dstCtxRef, srcCtxRef);
+    if (dstCtx == nullptr) {
+        return;
+    }
+    const CMAC_CTX* srcCtx = fromContextObject<CMAC_CTX>(env, srcCtxRef);
+    if (srcCtx == nullptr) {
+        return;
+    }
+    if (!CMAC_CTX_copy(dstCtx, srcCtx)) {
+        JNI_TRACE("CMAC_CTX_copy(%p, %p) => threw exception", dstCtx, srcCtx);
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "CMAC_CTX_copy");
+        return;
+    }
+}
+
+static void NativeCrypto_CMAC_Update(JNIEnv* env, jclass, jobject cmacCtxRef, jbyteArray inArray,
+                                     jint inOffset, jint inLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    CMAC_CTX* cmacCtx = fromContextObject<CMAC_CTX>(env, cmacCtxRef);
+    JNI_TRACE("CMAC_Update(%p, %p, %d, %d)", cmacCtx, inArray, inOffset, inLength);
+    if (cmacCtx == nullptr) {
+        return;
+    }
+    ScopedByteArrayRO inBytes(env, inArray);
+    if (inBytes.get() == nullptr) {
+        return;
+    }
+    if (ARRAY_OFFSET_LENGTH_INVALID(inBytes, inOffset, inLength)) {
+        conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                           "inBytes");
+        return;
+    }
+
+    const uint8_t* inPtr = reinterpret_cast<const uint8_t*>(inBytes.get());
+    if (!CMAC_Update(cmacCtx, inPtr + inOffset, static_cast<size_t>(inLength))) {
+        JNI_TRACE("CMAC_Update(%p) => threw exception", cmacCtx);
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "CMAC_Update");
+        return;
+    }
+}
+
+static void NativeCrypto_CMAC_UpdateDirect(JNIEnv* env, jclass, jobject cmacCtxRef, jlong inPtr,
+                                           jint inLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    CMAC_CTX* cmacCtx = fromContextObject<CMAC_CTX>(env, cmacCtxRef);
+    const uint8_t* p = reinterpret_cast<const uint8_t*>(inPtr);
+    JNI_TRACE("CMAC_UpdateDirect(%p, %p, %d)", cmacCtx, p, inLength);
+    if (cmacCtx == nullptr) {
+        return;
+    }
+    if (p == nullptr) {
+        conscrypt::jniutil::throwNullPointerException(env, nullptr);
+        return;
+    }
+
+    if (!CMAC_Update(cmacCtx, p, static_cast<size_t>(inLength))) {
+        JNI_TRACE("CMAC_UpdateDirect(%p) => threw exception", cmacCtx);
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "CMAC_UpdateDirect");
+        return;
+    }
+}
+
+static jbyteArray NativeCrypto_CMAC_Final(JNIEnv* env, jclass, jobject cmacCtxRef) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    CMAC_CTX* cmacCtx = fromContextObject<CMAC_CTX>(env, cmacCtxRef);
+    JNI_TRACE("CMAC_Final(%p)", cmacCtx);
+    if (cmacCtx == nullptr) {
+        return nullptr;
+    }
+
+    uint8_t result[EVP_MAX_BLOCK_LENGTH];
+    size_t len;
+    if (!CMAC_Final(cmacCtx, result, &len)) {
+        JNI_TRACE("CMAC_Final(%p) => threw exception", cmacCtx);
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "CMAC_Final");
+        return nullptr;
+    }
+
+    ScopedLocalRef<jbyteArray> resultArray(env, env->NewByteArray(static_cast<jsize>(len)));
+    if (resultArray.get() == nullptr) {
+        return nullptr;
+    }
+    env->SetByteArrayRegion(resultArray.get(), 0, static_cast<jsize>(len),
+                            reinterpret_cast<const jbyte*>(result));
+    return resultArray.release();
+}
+
+static jlong NativeCrypto_Poly1305_new(JNIEnv* env, jclass) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    JNI_TRACE("Poly1305_new");
+    void* state = OPENSSL_malloc(sizeof(poly1305_state));
+    if (state == nullptr) {
+        conscrypt::jniutil::throwOutOfMemory(env, "Unable to allocate poly1305_state");
+        return 0;
+    }
+    return reinterpret_cast<jlong>(state);
+}
+
+static void NativeCrypto_Poly1305_free(JNIEnv* env, jclass, jlong stateRef) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    void* state = reinterpret_cast<void*>(stateRef);
+    JNI_TRACE("Poly1305_free(%p)", state);
+    if (state == nullptr) {
+        return;
+    }
+    OPENSSL_cleanse(state, sizeof(poly1305_state));
+    OPENSSL_free(state);
+}
+
+static void NativeCrypto_Poly1305_init(JNIEnv* env, jclass, jobject stateRef,
+                                       jbyteArray keyArray) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    poly1305_state* state = fromContextObject<poly1305_state>(env, stateRef);
+    JNI_TRACE("Poly1305_init(%p, %p)", state, keyArray);
+    if (state == nullptr) {
+        return;
+    }
+    ScopedByteArrayRO keyBytes(env, keyArray);
+    if (keyBytes.get() == nullptr) {
+        return;
+    }
+    if (keyBytes.size() != 32) {
+        conscrypt::jniutil::throwException(env, "java/security/InvalidKeyException",
+                                           "Poly1305 keys must be 32 bytes");
+        return;
+    }
+    CRYPTO_poly1305_init(state, reinterpret_cast<const uint8_t*>(keyBytes.get()));
+}
+
+static void NativeCrypto_Poly1305_update(JNIEnv* env, jclass, jobject stateRef,
+                                         jbyteArray inArray, jint inOffset, jint inLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    poly1305_state* state = fromContextObject<poly1305_state>(env, stateRef);
+    JNI_TRACE("Poly1305_update(%p, %p, %d, %d)", state, inArray, inOffset, inLength);
+    if (state == nullptr) {
+        return;
+    }
+    ScopedByteArrayRO inBytes(env, inArray);
+    if (inBytes.get() == nullptr) {
+        return;
+    }
+    if (ARRAY_OFFSET_LENGTH_INVALID(inBytes, inOffset, inLength)) {
+        conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                           "inBytes");
+        return;
+    }
+    const uint8_t* inPtr = reinterpret_cast<const uint8_t*>(inBytes.get());
+    CRYPTO_poly1305_update(state, inPtr + inOffset, static_cast<size_t>(inLength));
+}
+
+static void NativeCrypto_Poly1305_updateDirect(JNIEnv* env, jclass, jobject stateRef,
+                                               jlong inPtr, jint inLength) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    poly1305_state* state = fromContextObject<poly1305_state>(env, stateRef);
+    const uint8_t* p = reinterpret_cast<const uint8_t*>(inPtr);
+    JNI_TRACE("Poly1305_updateDirect(%p, %p, %d)", state, p, inLength);
+    if (state == nullptr) {
+        return;
+    }
+    if (p == nullptr || inLength < 0) {
+        conscrypt::jniutil::throwNullPointerException(env, nullptr);
+        return;
+    }
+    CRYPTO_poly1305_update(state, p, static_cast<size_t>(inLength));
+}
+
+static jbyteArray NativeCrypto_Poly1305_finish(JNIEnv* env, jclass, jobject stateRef) {
     CHECK_ERROR_QUEUE_ON_RETURN;
-    JNI_TRACE("HMAC_CTX_new");
-    auto hmacCtx = new HMAC_CTX;
-    if (hmacCtx == nullptr) {
-        conscrypt::jniutil::throwOutOfMemory(env, "Unable to allocate HMAC_CTX");
-        return 0;
+    poly1305_state* state = fromContextObject<poly1305_state>(env, stateRef);
+    JNI_TRACE("Poly1305_finish(%p)", state);
+    if (state == nullptr) {
+        return nullptr;
     }
 
-    HMAC_CTX_init(hmacCtx);
-    return reinterpret_cast<jlong>(hmacCtx);
+    uint8_t mac[16];
+    CRYPTO_poly1305_finish(state, mac);
+
+    ScopedLocalRef<jbyteArray> resultArray(env, env->NewByteArray(sizeof(mac)));
+    if (resultArray.get() == nullptr) {
+        return nullptr;
+    }
+    env->SetByteArrayRegion(resultArray.get(), 0, sizeof(mac), reinterpret_cast<jbyte*>(mac));
+    return resultArray.release();
 }
 
-static void NativeCrypto_HMAC_CTX_free(JNIEnv* env, jclass, jlong hmacCtxRef) {
-    CHECK_ERROR_QUEUE_ON_RETURN;
-    HMAC_CTX* hmacCtx = reinterpret_cast<HMAC_CTX*>(hmacCtxRef);
-    JNI_TRACE("HMAC_CTX_free(%p)", hmacCtx);
-    if (hmacCtx == nullptr) {
-        return;
+/*
+ * Points |data| and |len| at the contents of |array|, or at an empty input if |array| is null.
+ * |bytes| keeps the contents readable. Returns false if an exception was thrown.
+ */
+static bool hkdf_optional_input(JNIEnv* env, jbyteArray array,
+                                std::unique_ptr<ScopedByteArrayRO>* bytes, const uint8_t** data,
+                                size_t* len) {
+    *data = nullptr;
+    *len = 0;
+    if (array == nullptr) {
+        return true;
     }
-    HMAC_CTX_cleanup(hmacCtx);
-    delete hmacCtx;
+    bytes->reset(new ScopedByteArrayRO(env, array));
+    if ((*bytes)->get() == nullptr) {
+        return false;
+    }
+    *data = reinterpret_cast<const uint8_t*>((*bytes)->get());
+    *len = (*bytes)->size();
+    return true;
 }
 
-static void NativeCrypto_HMAC_Init_ex(JNIEnv* env, jclass, jobject hmacCtxRef, jbyteArray keyArray,
-                                      jobject evpMdRef) {
+/*
+ * Checks that |outLength| bytes fit at |outOffset| of |outBytes| and returns where they start,
+ * or null if an exception was thrown.
+ */
+static uint8_t* hkdf_output(JNIEnv* env, ScopedByteArrayRW& outBytes, jint outOffset,
+                            jint outLength) {
+    if (outBytes.get() == nullptr) {
+        return nullptr;
+    }
+    if (outLength < 0 || ARRAY_OFFSET_LENGTH_INVALID(outBytes, outOffset, outLength)) {
+        conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
+                                           "out");
+        return nullptr;
+    }
+    return reinterpret_cast<uint8_t*>(outBytes.get()) + outOffset;
+}
+
+static void NativeCrypto_HKDF(JNIEnv* env, jclass, jlong evpMdRef, jbyteArray secretArray,
+                              jbyteArray saltArray, jbyteArray infoArray, jbyteArray outArray,
+                              jint outOffset, jint outLength) {
     CHECK_ERROR_QUEUE_ON_RETURN;
-    HMAC_CTX* hmacCtx = fromContextObject<HMAC_CTX>(env, hmacCtxRef);
     const EVP_MD* md = reinterpret_cast<const EVP_MD*>(evpMdRef);
-    JNI_TRACE("HMAC_Init_ex(%p, %p, %p)", hmacCtx, keyArray, md);
-    if (hmacCtx == nullptr) {
+    JNI_TRACE("HKDF(%p, %p, %p, %p, %p, %d, %d)", md, secretArray, saltArray, infoArray,
+              outArray, outOffset, outLength);
+
+    if (md == nullptr) {
+        conscrypt::jniutil::throwNullPointerException(env, "md == null");
         return;
     }
-    ScopedByteArrayRO keyBytes(env, keyArray);
-    if (keyBytes.get() == nullptr) {
+    ScopedByteArrayRO secret(env, secretArray);
+    if (secret.get() == nullptr) {
+        return;
+    }
+    std::unique_ptr<ScopedByteArrayRO> saltBytes;
+    const uint8_t* salt;
+    size_t saltLen;
+    if (!hkdf_optional_input(env, saltArray, &saltBytes, &salt, &saltLen)) {
+        return;
+    }
+    std::unique_ptr<ScopedByteArrayRO> infoBytes;
+    const uint8_t* info;
+    size_t infoLen;
+    if (!hkdf_optional_input(env, infoArray, &infoBytes, &info, &infoLen)) {
+        return;
+    }
+    ScopedByteArrayRW outBytes(env, outArray);
+    uint8_t* out = hkdf_output(env, outBytes, outOffset, outLength);
+    if (out == nullptr) {
         return;
     }
 
-    const uint8_t* keyPtr = reinterpret_cast<const uint8_t*>(keyBytes.get());
-    if (!HMAC_Init_ex(hmacCtx, keyPtr, keyBytes.size(), md, nullptr)) {
-        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "HMAC_Init_ex");
-        JNI_TRACE("HMAC_Init_ex(%p, %p, %p) => fail HMAC_Init_ex", hmacCtx, keyArray, md);
+    if (!HKDF(out, static_cast<size_t>(outLength), md,
+              reinterpret_cast<const uint8_t*>(secret.get()), secret.size(), salt, saltLen, info,
+              infoLen)) {
+        JNI_TRACE("HKDF(%p) => threw exception", md);
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "HKDF");
         return;
     }
 }
 
-static void NativeCrypto_HMAC_UpdateDirect(JNIEnv* env, jclass, jobject hmacCtxRef, jlong inPtr,
-                                           int inLength) {
+static jint NativeCrypto_HKDF_extract(JNIEnv* env, jclass, jlong evpMdRef,
+                                      jbyteArray secretArray, jbyteArray saltArray,
+                                      jbyteArray outArray, jint outOffset) {
     CHECK_ERROR_QUEUE_ON_RETURN;
-    HMAC_CTX* hmacCtx = fromContextObject<HMAC_CTX>(env, hmacCtxRef);
-    const uint8_t* p = reinterpret_cast<const uint8_t*>(inPtr);
-    JNI_TRACE("HMAC_UpdateDirect(%p, %p, %d)", hmacCtx, p, inLength);
+    const EVP_MD* md = reinterpret_cast<const EVP_MD*>(evpMdRef);
+    JNI_TRACE("HKDF_extract(%p, %p, %p, %p, %d)", md, secretArray, saltArray, outArray,
+              outOffset);
 
-    if (hmacCtx == nullptr) {
-        return;
+    if (md == nullptr) {
+        conscrypt::jniutil::throwNullPointerException(env, "md == null");
+        return 0;
     }
-
-    if (p == nullptr) {
-        conscrypt::jniutil::throwNullPointerException(env, nullptr);
-        return;
+    ScopedByteArrayRO secret(env, secretArray);
+    if (secret.get() == nullptr) {
+        return 0;
+    }
+    std::unique_ptr<ScopedByteArrayRO> saltBytes;
+    const uint8_t* salt;
+    size_t saltLen;
+    if (!hkdf_optional_input(env, saltArray, &saltBytes, &salt, &saltLen)) {
+        return 0;
+    }
+    ScopedByteArrayRW outBytes(env, outArray);
+    uint8_t* out = hkdf_output(env, outBytes, outOffset, static_cast<jint>(EVP_MD_size(md)));
+    if (out == nullptr) {
+        return 0;
     }
 
-    if (!HMAC_Update(hmacCtx, p, static_cast<size_t>(inLength))) {
-        JNI_TRACE("HMAC_UpdateDirect(%p, %p, %d) => threw exception", hmacCtx, p, inLength);
-        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "HMAC_UpdateDirect");
-        return;
+    size_t prkLen;
+    if (!HKDF_extract(out, &prkLen, md, reinterpret_cast<const uint8_t*>(secret.get()),
+                      secret.size(), salt, saltLen)) {
+        JNI_TRACE("HKDF_extract(%p) => threw exception", md);
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "HKDF_extract");
+        return 0;
     }
+    JNI_TRACE("HKDF_extract(%p) => %zu", md, prkLen);
+    return static_cast<jint>(prkLen);
 }
 
-static void NativeCrypto_HMAC_Update(JNIEnv* env, jclass, jobject hmacCtxRef, jbyteArray inArray,
-                                     jint inOffset, int inLength) {
+static void NativeCrypto_HKDF_expand(JNIEnv* env, jclass, jlong evpMdRef, jbyteArray prkArray,
+                                     jbyteArray infoArray, jbyteArray outArray, jint outOffset,
+                                     jint outLength) {
     CHECK_ERROR_QUEUE_ON_RETURN;
-    HMAC_CTX* hmacCtx = fromContextObject<HMAC_CTX>(env, hmacCtxRef);
-    JNI_TRACE("HMAC_Update(%p, %p, %d, %d)", hmacCtx, inArray, inOffset, inLength);
+    const EVP_MD* md = reinterpret_cast<const EVP_MD*>(evpMdRef);
+    JNI_TRACE("HKDF_expand(%p, %p, %p, %p, %d, %d)", md, prkArray, infoArray, outArray,
+              outOffset, outLength);
 
-    if (hmacCtx == nullptr) {
+    if (md == nullptr) {
+        conscrypt::jniutil::throwNullPointerException(env, "md == null");
         return;
     }
-
-    ScopedByteArrayRO inBytes(env, inArray);
-    if (inBytes.get() == nullptr) {
+    ScopedByteArrayRO prk(env, prkArray);
+    if (prk.get() == nullptr) {
         return;
     }
-
-    if (ARRAY_OFFSET_LENGTH_INVALID(inBytes, inOffset, inLength)) {
-        conscrypt::jniutil::throwException(env, "java/lang/ArrayIndexOutOfBoundsException",
-                                              "inBytes");
+    std::unique_ptr<ScopedByteArrayRO> infoBytes;
+    const uint8_t* info;
+    size_t infoLen;
+    if (!hkdf_optional_input(env, infoArray, &infoBytes, &info, &infoLen)) {
+        return;
+    }
+    ScopedByteArrayRW outBytes(env, outArray);
+    uint8_t* out = hkdf_output(env, outBytes, outOffset, outLength);
+    if (out == nullptr) {
         return;
     }
 
-    const uint8_t* inPtr = reinterpret_cast<const uint8_t*>(inBytes.get());
-    if (!HMAC_Update(hmacCtx, inPtr + inOffset, static_cast<size_t>(inLength))) {
-        JNI_TRACE("HMAC_Update(%p, %p, %d, %d) => threw exception", hmacCtx, inArray, inOffset,
-                  inLength);
-        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "HMAC_Update");
+    if (!HKDF_expand(out, static_cast<size_t>(outLength), md,
+                     reinterpret_cast<const uint8_t*>(prk.get()), prk.size(), info, infoLen)) {
+        JNI_TRACE("HKDF_expand(%p) => threw exception", md);
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "HKDF_expand");
         return;
     }
 }
 
-static jbyteArray NativeCrypto_HMAC_Final(JNIEnv* env, jclass, jobject hmacCtxRef) {
+static void NativeCrypto_PKCS5_PBKDF2_HMAC(JNIEnv* env, jclass, jlong evpMdRef,
+                                           jbyteArray passwordArray, jbyteArray saltArray,
+                                           jint iterations, jbyteArray outArray) {
     CHECK_ERROR_QUEUE_ON_RETURN;
-    HMAC_CTX* hmacCtx = fromContextObject<HMAC_CTX>(env, hmacCtxRef);
-    JNI_TRACE("HMAC_Final(%p)", hmacCtx);
+    const EVP_MD* md = reinterpret_cast<const EVP_MD*>(evpMdRef);
+    JNI_TRACE("PKCS5_PBKDF2_HMAC(%p, %p, %p, %d, %p)", md, passwordArray, saltArray, iterations,
+              outArray);
 
-    if (hmacCtx == nullptr) {
-        return nullptr;
+    if (md == nullptr) {
+        conscrypt::jniutil::throwNullPointerException(env, "md == null");
+        return;
     }
-
-    uint8_t result[EVP_MAX_MD_SIZE];
-    unsigned len;
-    if (!HMAC_Final(hmacCtx, result, &len)) {
-        JNI_TRACE("HMAC_Final(%p) => threw exception", hmacCtx);
-        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "HMAC_Final");
-        return nullptr;
+    if (iterations <= 0) {
+        conscrypt::jniutil::throwException(env, "java/lang/IllegalArgumentException",
+                                           "iterations <= 0");
+        return;
     }
-
-    ScopedLocalRef<jbyteArray> resultArray(env, env->NewByteArray(static_cast<jsize>(len)));
-    if (resultArray.get() == nullptr) {
-        return nullptr;
+    ScopedByteArrayRO password(env, passwordArray);
+    if (password.get() == nullptr) {
+        return;
     }
-    ScopedByteArrayRW resultBytes(env, resultArray.get());
-    if (resultBytes.get() == nullptr) {
-        return nullptr;
+    ScopedByteArrayRO salt(env, saltArray);
+    if (salt.get() == nullptr) {
+        return;
+    }
+    ScopedByteArrayRW out(env, outArray);
+    if (out.get() == nullptr) {
+        return;
+    }
+
+    if (!PKCS5_PBKDF2_HMAC(reinterpret_cast<const char*>(password.get()), password.size(),
+                           reinterpret_cast<const uint8_t*>(salt.get()), salt.size(),
+                           static_cast<unsigned>(iterations), md, out.size(),
+                           reinterpret_cast<uint8_t*>(out.get()))) {
+        JNI_TRACE("PKCS5_PBKDF2_HMAC(%p) => threw exception", md);
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "PKCS5_PBKDF2_HMAC");
+        return;
     }
-    memcpy(resultBytes.get(), result, len);
-    return resultArray.release();
 }
 
 static void NativeCrypto_RAND_bytes(JNIEnv* env, jclass, jbyteArray output) {
@@ -3749,6 +5228,96 @@ static void NativeCrypto_RAND_bytes(JNIEnv* env, jclass, jbyteArray output) {
     JNI_TRACE("NativeCrypto_RAND_bytes(%p) => success", output);
 }
 
+static void NativeCrypto_RAND_bytesDirect(JNIEnv* env, jclass, jlong outPtr, jint length) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    uint8_t* out = reinterpret_cast<uint8_t*>(outPtr);
+    JNI_TRACE("RAND_bytesDirect(%p, %d)", out, length);
+
+    if (out == nullptr || length < 0) {
+        conscrypt::jniutil::throwException(env, "java/lang/IllegalArgumentException",
+                                           "invalid output");
+        return;
+    }
+    if (RAND_bytes(out, static_cast<size_t>(length)) <= 0) {
+        conscrypt::jniutil::throwExceptionFromBoringSSLError(env, "RAND_bytesDirect");
+        JNI_TRACE("RAND_bytesDirect(%p) => threw error", out);
+        return;
+    }
+}
+
+/*
+ * Returns a direct ByteBuffer over |size| bytes of fresh memory that the kernel zeroes in the
+ * child of a fork, or null if the platform can't provide such memory.
+ */
+static jboolean NativeCrypto_RAND_forkSafeBuffersSupported(JNIEnv* env, jclass) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    JNI_TRACE("RAND_forkSafeBuffersSupported");
+#if defined(__linux__) && defined(MADV_WIPEONFORK)
+    size_t len = static_cast<size_t>(sysconf(_SC_PAGESIZE));
+    void* buf = mmap(nullptr, len, PROT_READ | PROT_WRITE, MAP_PRIVATE | MAP_ANONYMOUS, -1, 0);
+    if (buf == MAP_FAILED) {
+        // Out of memory says nothing about the kernel; let each allocation find out.
+        JNI_TRACE("RAND_forkSafeBuffersSupported => mmap failed");
+        return JNI_TRUE;
+    }
+    // Kernels before 4.14 reject MADV_WIPEONFORK with EINVAL.
+    bool supported = madvise(buf, len, MADV_WIPEONFORK) == 0 || errno != EINVAL;
+    munmap(buf, len);
+    JNI_TRACE("RAND_forkSafeBuffersSupported => %d", supported);
+    return supported ? JNI_TRUE : JNI_FALSE;
+#else
+    return JNI_FALSE;
+#endif
+}
+
+static jobject NativeCrypto_RAND_newForkSafeBuffer(JNIEnv* env, jclass, jint size) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    JNI_TRACE("RAND_newForkSafeBuffer(%d)", size);
+
+    if (size <= 0) {
+        conscrypt::jniutil::throwException(env, "java/lang/IllegalArgumentException", "size <= 0");
+        return nullptr;
+    }
+#if defined(__linux__) && defined(MADV_WIPEONFORK)
+    size_t len = static_cast<size_t>(size);
+    void* buf = mmap(nullptr, len, PROT_READ | PROT_WRITE, MAP_PRIVATE | MAP_ANONYMOUS, -1, 0);
+    if (buf == MAP_FAILED) {
+        JNI_TRACE("RAND_newForkSafeBuffer(%d) => mmap failed", size);
+        return nullptr;
+    }
+    // Kernels before 4.14 reject MADV_WIPEONFORK.
+    if (madvise(buf, len, MADV_WIPEONFORK) != 0) {
+        JNI_TRACE("RAND_newForkSafeBuffer(%d) => MADV_WIPEONFORK failed", size);
+        munmap(buf, len);
+        return nullptr;
+    }
+    jobject result = env->NewDirectByteBuffer(buf, static_cast<jlong>(len));
+    if (result == nullptr) {
+        munmap(buf, len);
+        return nullptr;
+    }
+    JNI_TRACE("RAND_newForkSafeBuffer(%d) => %p", size, buf);
+    return result;
+#else
+    return nullptr;
+#endif
+}
+
+static void NativeCrypto_RAND_freeForkSafeBuffer(JNIEnv* env, jclass, jlong address,
+                                                 jint size) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    void* buf = reinterpret_cast<void*>(address);
+    JNI_TRACE("RAND_freeForkSafeBuffer(%p, %d)", buf, size);
+
+    if (buf == nullptr || size <= 0) {
+        return;
+    }
+    OPENSSL_cleanse(buf, static_cast<size_t>(size));
+#if defined(__linux__) && defined(MADV_WIPEONFORK)
+    munmap(buf, static_cast<size_t>(size));
+#endif
+}
+
 static jstring ASN1_OBJECT_to_OID_string(JNIEnv* env, const ASN1_OBJECT* obj) {
     /*
      * The OBJ_obj2txt API doesn't "measure" if you pass in nullptr as the buffer.
@@ -6616,6 +8185,190 @@ static jlong NativeCrypto_SSL_CTX_set_timeout(JNIEnv* env, jclass, jlong ssl_ctx
     return SSL_CTX_set_timeout(ssl_ctx, static_cast<uint32_t>(seconds));
 }
 
+static void NativeCrypto_SSL_CTX_set_session_cache_mode(JNIEnv* env, jclass,
+                                                        jlong ssl_ctx_address,
+                                                        CONSCRYPT_UNUSED jobject holder,
+                                                        jint mode) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    SSL_CTX* ssl_ctx = to_SSL_CTX(env, ssl_ctx_address, true);
+    JNI_TRACE("ssl_ctx=%p NativeCrypto_SSL_CTX_set_session_cache_mode mode=0x%x", ssl_ctx, mode);
+    if (ssl_ctx == nullptr) {
+        return;
+    }
+
+    SSL_CTX_set_session_cache_mode(ssl_ctx, mode);
+}
+
+// TicketKey is a single session ticket encryption key in the layout used by
+// SSL_CTX_set_tlsext_ticket_keys: a 16-byte key name followed by equal-length
+// HMAC-SHA256 and AES-CBC keys (16 bytes each for AES-128, 32 for AES-256).
+struct TicketKey {
+    uint8_t name[16];
+    uint8_t hmac_key[32];
+    uint8_t aes_key[32];
+    size_t key_len;
+};
+
+// TicketKeys is stored in the ex_data of an SSL_CTX once keys have been set
+// with SSL_CTX_set_ticket_keys. The first key encrypts new tickets; all keys
+// decrypt.
+struct TicketKeys {
+    std::mutex mutex;
+    std::vector<TicketKey> keys;
+};
+
+static int g_ssl_ctx_ticket_keys_index = -1;
+static std::once_flag g_ssl_ctx_ticket_keys_once;
+
+static void TicketKeysExDataFree(void* /* parent */, void* ptr, CRYPTO_EX_DATA* /* ad */,
+                                 int /* index */, long /* argl */ /* NOLINT(runtime/int) */,
+                                 void* /* argp */) {
+    TicketKeys* ticket_keys = reinterpret_cast<TicketKeys*>(ptr);
+    if (ticket_keys != nullptr) {
+        for (TicketKey& key : ticket_keys->keys) {
+            OPENSSL_cleanse(&key, sizeof(key));
+        }
+        delete ticket_keys;
+    }
+}
+
+static void init_ticket_keys_index() {
+    g_ssl_ctx_ticket_keys_index = SSL_CTX_get_ex_new_index(
+            0 /* argl */, nullptr /* argp */, nullptr /* new_func */, nullptr /* dup_func */,
+            TicketKeysExDataFree);
+}
+
+static const EVP_CIPHER* ticket_key_cipher(const TicketKey& key) {
+    return key.key_len == 32 ? EVP_aes_256_cbc() : EVP_aes_128_cbc();
+}
+
+// Called by BoringSSL to set up ticket encryption or decryption. See
+// SSL_CTX_set_tlsext_ticket_key_cb for the meaning of the return values.
+static int ticket_key_callback(SSL* ssl, uint8_t* key_name, uint8_t* iv, EVP_CIPHER_CTX* ctx,
+                               HMAC_CTX* hmac_ctx, int encrypt) {
+    TicketKeys* ticket_keys = reinterpret_cast<TicketKeys*>(
+            SSL_CTX_get_ex_data(SSL_get_SSL_CTX(ssl), g_ssl_ctx_ticket_keys_index));
+    if (ticket_keys == nullptr) {
+        return encrypt ? -1 : 0;
+    }
+
+    std::lock_guard<std::mutex> lock(ticket_keys->mutex);
+    if (ticket_keys->keys.empty()) {
+        return encrypt ? -1 : 0;
+    }
+
+    if (encrypt) {
+        const TicketKey& key = ticket_keys->keys[0];
+        if (!RAND_bytes(iv, EVP_MAX_IV_LENGTH)) {
+            return -1;
+        }
+        memcpy(key_name, key.name, sizeof(key.name));
+        if (!EVP_EncryptInit_ex(ctx, ticket_key_cipher(key), nullptr, key.aes_key, iv) ||
+            !HMAC_Init_ex(hmac_ctx, key.hmac_key, key.key_len, EVP_sha256(), nullptr)) {
+            return -1;
+        }
+        JNI_TRACE("ssl=%p ticket_key_callback => encrypted", ssl);
+        return 1;
+    }
+
+    for (size_t i = 0; i < ticket_keys->keys.size(); i++) {
+        const TicketKey& key = ticket_keys->keys[i];
+        if (CRYPTO_memcmp(key_name, key.name, sizeof(key.name)) != 0) {
+            continue;
+        }
+        if (!EVP_DecryptInit_ex(ctx, ticket_key_cipher(key), nullptr, key.aes_key, iv) ||
+            !HMAC_Init_ex(hmac_ctx, key.hmac_key, key.key_len, EVP_sha256(), nullptr)) {
+            return -1;
+        }
+        JNI_TRACE("ssl=%p ticket_key_callback => decrypted with key %zu", ssl, i);
+        // Ask for a fresh ticket under the current key if an older key was used.
+        return i == 0 ? 1 : 2;
+    }
+    JNI_TRACE("ssl=%p ticket_key_callback => unknown key name", ssl);
+    return 0;
+}
+
+/*
+ * public static native void SSL_CTX_set_ticket_keys(long ssl_ctx, byte[] keys, int keyLength,
+ *         boolean retainCurrent);
+ */
+static void NativeCrypto_SSL_CTX_set_ticket_keys(JNIEnv* env, jclass, jlong ssl_ctx_address,
+                                                 CONSCRYPT_UNUSED jobject holder,
+                                                 jbyteArray keysArray, jint keyLength,
+                                                 jboolean retainCurrent) {
+    CHECK_ERROR_QUEUE_ON_RETURN;
+    SSL_CTX* ssl_ctx = to_SSL_CTX(env, ssl_ctx_address, true);
+    JNI_TRACE("ssl_ctx=%p NativeCrypto_SSL_CTX_set_ticket_keys keys=%p keyLength=%d "
+              "retainCurrent=%d",
+              ssl_ctx, keysArray, keyLength, retainCurrent);
+    if (ssl_ctx == nullptr) {
+        return;
+    }
+
+    ScopedByteArrayRO keys(env, keysArray);
+    if (keys.get() == nullptr) {
+        JNI_TRACE("ssl_ctx=%p NativeCrypto_SSL_CTX_set_ticket_keys => threw exception", ssl_ctx);
+        return;
+    }
+    if ((keyLength != 48 && keyLength != 80) || keys.size() == 0 ||
+        keys.size() % static_cast<size_t>(keyLength) != 0) {
+        conscrypt::jniutil::throwException(env, "java/lang/IllegalArgumentException",
+                                           "Invalid ticket key length");
+        return;
+    }
+
+    std::vector<TicketKey> new_keys(keys.size() / static_cast<size_t>(keyLength));
+    // Leave room for a retained key so that adding it never leaves a stray copy behind.
+    new_keys.reserve(new_keys.size() + 1);
+    const uint8_t* in = reinterpret_cast<const uint8_t*>(keys.get());
+    size_t secret_len = (static_cast<size_t>(keyLength) - 16) / 2;
+    for (TicketKey& key : new_keys) {
+        memcpy(key.name, in, sizeof(key.name));
+        memcpy(key.hmac_key, in + 16, secret_len);
+        memcpy(key.aes_key, in + 16 + secret_len, secret_len);
+        key.key_len = secret_len;
+        in += keyLength;
+    }
+
+    std::call_once(g_ssl_ctx_ticket_keys_once, init_ticket_keys_index);
+    TicketKeys* ticket_keys = reinterpret_cast<TicketKeys*>(
+            SSL_CTX_get_ex_data(ssl_ctx, g_ssl_ctx_ticket_keys_index));
+    if (ticket_keys == nullptr) {
+        ticket_keys = new TicketKeys();
+        if (!SSL_CTX_set_ex_data(ssl_ctx, g_ssl_ctx_ticket_keys_index, ticket_keys)) {
+            delete ticket_keys;
+            conscrypt::jniutil::throwExceptionFromBoringSSLError(
+                    env, "NativeCrypto_SSL_CTX_set_ticket_keys");
+            return;
+        }
+        SSL_CTX_set_tlsext_ticket_key_cb(ssl_ctx, ticket_key_callback);
+    }
+
+    {
+        std::lock_guard<std::mutex> lock(ticket_keys->mutex);
+        if (retainCurrent && !ticket_keys->keys.empty()) {
+            const TicketKey& current = ticket_keys->keys[0];
+            if (CRYPTO_memcmp(&current, &new_keys[0], sizeof(TicketKey)) == 0) {
+                // Already current: the swap below puts the installed keys back unchanged.
+                new_keys.swap(ticket_keys->keys);
+            } else {
+                bool name_taken = false;
+                for (const TicketKey& key : new_keys) {
+                    name_taken |= memcmp(key.name, current.name, sizeof(key.name)) == 0;
+                }
+                if (!name_taken) {
+                    new_keys.push_back(current);
+                }
+            }
+        }
+        ticket_keys->keys.swap(new_keys);
+    }
+    for (TicketKey& key : new_keys) {
+        OPENSSL_cleanse(&key, sizeof(key));
+    }
+    JNI_TRACE("ssl_ctx=%p NativeCrypto_SSL_CTX_set_ticket_keys => ok", ssl_ctx);
+}
+
 /**
  * public static native int SSL_new(long ssl_ctx) throws SSLException;
  */
@@ -9908,10 +11661,15 @@ static jlong NativeCrypto_SSL_get1_session(JNIEnv* env, jclass, jlong ssl_addres
 #define REF_EC_POINT "L" TO_STRING(JNI_JARJAR_PREFIX) "org/conscrypt/NativeRef$EC_POINT;"
 #define REF_EVP_CIPHER_CTX \
     "L" TO_STRING(JNI_JARJAR_PREFIX) "org/conscrypt/NativeRef$EVP_CIPHER_CTX;"
+#define REF_EVP_AEAD_CTX \
+    "L" TO_STRING(JNI_JARJAR_PREFIX) "org/conscrypt/NativeRef$EVP_AEAD_CTX;"
 #define REF_EVP_MD_CTX "L" TO_STRING(JNI_JARJAR_PREFIX) "org/conscrypt/NativeRef$EVP_MD_CTX;"
 #define REF_EVP_PKEY "L" TO_STRING(JNI_JARJAR_PREFIX) "org/conscrypt/NativeRef$EVP_PKEY;"
 #define REF_EVP_PKEY_CTX "L" TO_STRING(JNI_JARJAR_PREFIX) "org/conscrypt/NativeRef$EVP_PKEY_CTX;"
 #define REF_HMAC_CTX "L" TO_STRING(JNI_JARJAR_PREFIX) "org/conscrypt/NativeRef$HMAC_CTX;"
+#define REF_CMAC_CTX "L" TO_STRING(JNI_JARJAR_PREFIX) "org/conscrypt/NativeRef$CMAC_CTX;"
+#define REF_POLY1305_STATE \
+    "L" TO_STRING(JNI_JARJAR_PREFIX) "org/conscrypt/NativeRef$POLY1305_STATE;"
 #define REF_BIO_IN_STREAM "L" TO_STRING(JNI_JARJAR_PREFIX) "org/conscrypt/OpenSSLBIOInputStream;"
 #define REF_X509 "L" TO_STRING(JNI_JARJAR_PREFIX) "org/conscrypt/OpenSSLX509Certificate;"
 #define REF_X509_CRL "L" TO_STRING(JNI_JARJAR_PREFIX) "org/conscrypt/OpenSSLX509CRL;"
@@ -9944,6 +11702,10 @@ static JNINativeMethod sNativeCryptoMethods[] = {
         CONSCRYPT_NATIVE_METHOD(get_RSA_private_params, "(" REF_EVP_PKEY ")[[B"),
         CONSCRYPT_NATIVE_METHOD(get_RSA_public_params, "(" REF_EVP_PKEY ")[[B"),
         CONSCRYPT_NATIVE_METHOD(chacha20_encrypt_decrypt, "([BI[BII[B[BI)V"),
+        CONSCRYPT_NATIVE_METHOD(AES_wrap_key, "([B[B[BI[BII)I"),
+        CONSCRYPT_NATIVE_METHOD(AES_unwrap_key, "([B[B[BI[BII)I"),
+        CONSCRYPT_NATIVE_METHOD(AES_wrap_key_padded, "([B[BI[BII)I"),
+        CONSCRYPT_NATIVE_METHOD(AES_unwrap_key_padded, "([B[BI[BII)I"),
         CONSCRYPT_NATIVE_METHOD(EC_GROUP_new_by_curve_name, "(Ljava/lang/String;)J"),
         CONSCRYPT_NATIVE_METHOD(EC_GROUP_new_arbitrary, "([B[B[B[B[B[BI)J"),
         CONSCRYPT_NATIVE_METHOD(EC_GROUP_get_curve_name, "(" REF_EC_GROUP ")Ljava/lang/String;"),
@@ -9977,6 +11739,12 @@ static JNINativeMethod sNativeCryptoMethods[] = {
         CONSCRYPT_NATIVE_METHOD(EVP_DigestUpdate, "(" REF_EVP_MD_CTX "[BII)V"),
         CONSCRYPT_NATIVE_METHOD(EVP_DigestUpdateDirect, "(" REF_EVP_MD_CTX "JI)V"),
         CONSCRYPT_NATIVE_METHOD(EVP_DigestFinal_ex, "(" REF_EVP_MD_CTX "[BI)I"),
+        CONSCRYPT_NATIVE_METHOD(EVP_Digest_batch, "(J[B[I[I[BI)V"),
+        CONSCRYPT_NATIVE_METHOD(EVP_Digest_batchDirect, "(J[J[I[BI)V"),
+        CONSCRYPT_NATIVE_METHOD(EVP_Digest_batchFromPrefix,
+                                "(" REF_EVP_MD_CTX "[B[I[I[BI)V"),
+        CONSCRYPT_NATIVE_METHOD(EVP_Digest_batchFromPrefixDirect,
+                                "(" REF_EVP_MD_CTX "[J[I[BI)V"),
         CONSCRYPT_NATIVE_METHOD(EVP_get_digestbyname, "(Ljava/lang/String;)J"),
         CONSCRYPT_NATIVE_METHOD(EVP_MD_size, "(J)I"),
         CONSCRYPT_NATIVE_METHOD(EVP_DigestSignInit, "(" REF_EVP_MD_CTX "J" REF_EVP_PKEY ")J"),
@@ -10001,6 +11769,10 @@ static JNINativeMethod sNativeCryptoMethods[] = {
         CONSCRYPT_NATIVE_METHOD(EVP_CipherInit_ex, "(" REF_EVP_CIPHER_CTX "J[B[BZ)V"),
         CONSCRYPT_NATIVE_METHOD(EVP_CipherUpdate, "(" REF_EVP_CIPHER_CTX "[BI[BII)I"),
         CONSCRYPT_NATIVE_METHOD(EVP_CipherFinal_ex, "(" REF_EVP_CIPHER_CTX "[BI)I"),
+        CONSCRYPT_NATIVE_METHOD(EVP_CipherUpdateDirect, "(" REF_EVP_CIPHER_CTX "JJI)I"),
+        CONSCRYPT_NATIVE_METHOD(EVP_CipherUpdateRegion, "(" REF_EVP_CIPHER_CTX "[BI[BII)I"),
+        CONSCRYPT_NATIVE_METHOD(EVP_CipherFinal_exDirect, "(" REF_EVP_CIPHER_CTX "J)I"),
+        CONSCRYPT_NATIVE_METHOD(EVP_CipherUpdateAAD, "(" REF_EVP_CIPHER_CTX "[BII)V"),
         CONSCRYPT_NATIVE_METHOD(EVP_CIPHER_iv_length, "(J)I"),
         CONSCRYPT_NATIVE_METHOD(EVP_CIPHER_CTX_new, "()J"),
         CONSCRYPT_NATIVE_METHOD(EVP_CIPHER_CTX_block_size, "(" REF_EVP_CIPHER_CTX ")I"),
@@ -10008,21 +11780,63 @@ static JNINativeMethod sNativeCryptoMethods[] = {
         CONSCRYPT_NATIVE_METHOD(get_EVP_CIPHER_CTX_final_used, "(" REF_EVP_CIPHER_CTX ")Z"),
         CONSCRYPT_NATIVE_METHOD(EVP_CIPHER_CTX_set_padding, "(" REF_EVP_CIPHER_CTX "Z)V"),
         CONSCRYPT_NATIVE_METHOD(EVP_CIPHER_CTX_set_key_length, "(" REF_EVP_CIPHER_CTX "I)V"),
+        CONSCRYPT_NATIVE_METHOD(EVP_CIPHER_CTX_set_aead_iv_length, "(" REF_EVP_CIPHER_CTX "I)V"),
+        CONSCRYPT_NATIVE_METHOD(EVP_CIPHER_CTX_get_aead_tag, "(" REF_EVP_CIPHER_CTX "I)[B"),
+        CONSCRYPT_NATIVE_METHOD(EVP_CIPHER_CTX_set_aead_tag, "(" REF_EVP_CIPHER_CTX "[B)V"),
         CONSCRYPT_NATIVE_METHOD(EVP_CIPHER_CTX_free, "(J)V"),
         CONSCRYPT_NATIVE_METHOD(EVP_aead_aes_128_gcm, "()J"),
         CONSCRYPT_NATIVE_METHOD(EVP_aead_aes_256_gcm, "()J"),
         CONSCRYPT_NATIVE_METHOD(EVP_aead_chacha20_poly1305, "()J"),
+        CONSCRYPT_NATIVE_METHOD(EVP_aead_xchacha20_poly1305, "()J"),
+        CONSCRYPT_NATIVE_METHOD(EVP_aead_aes_128_gcm_siv, "()J"),
+        CONSCRYPT_NATIVE_METHOD(EVP_aead_aes_256_gcm_siv, "()J"),
         CONSCRYPT_NATIVE_METHOD(EVP_AEAD_max_overhead, "(J)I"),
         CONSCRYPT_NATIVE_METHOD(EVP_AEAD_nonce_length, "(J)I"),
         CONSCRYPT_NATIVE_METHOD(EVP_AEAD_CTX_seal, "(J[BI[BI[B[BII[B)I"),
         CONSCRYPT_NATIVE_METHOD(EVP_AEAD_CTX_open, "(J[BI[BI[B[BII[B)I"),
+        CONSCRYPT_NATIVE_METHOD(EVP_AEAD_CTX_new, "(J[BI)J"),
+        CONSCRYPT_NATIVE_METHOD(EVP_AEAD_CTX_free, "(J)V"),
+        CONSCRYPT_NATIVE_METHOD(EVP_AEAD_CTX_seal_with_ctx, "(" REF_EVP_AEAD_CTX "[BI[B[BII[BII)I"),
+        CONSCRYPT_NATIVE_METHOD(EVP_AEAD_CTX_open_with_ctx, "(" REF_EVP_AEAD_CTX "[BI[B[BII[BII)I"),
+        CONSCRYPT_NATIVE_METHOD(EVP_AEAD_CTX_sealDirect, "(" REF_EVP_AEAD_CTX "JI[BJI[BI)I"),
+        CONSCRYPT_NATIVE_METHOD(EVP_AEAD_CTX_openDirect, "(" REF_EVP_AEAD_CTX "JI[BJI[BI)I"),
+        CONSCRYPT_NATIVE_METHOD(EVP_AEAD_CTX_seal_batch,
+                                "(" REF_EVP_AEAD_CTX "I[B[B[I[I[B[I[I[BI[I)I"),
+        CONSCRYPT_NATIVE_METHOD(EVP_AEAD_CTX_open_batch,
+                                "(" REF_EVP_AEAD_CTX "I[B[B[I[I[B[I[I[BI[I)I"),
         CONSCRYPT_NATIVE_METHOD(HMAC_CTX_new, "()J"),
         CONSCRYPT_NATIVE_METHOD(HMAC_CTX_free, "(J)V"),
         CONSCRYPT_NATIVE_METHOD(HMAC_Init_ex, "(" REF_HMAC_CTX "[BJ)V"),
+        CONSCRYPT_NATIVE_METHOD(HMAC_Reset, "(" REF_HMAC_CTX ")V"),
+        CONSCRYPT_NATIVE_METHOD(HMAC_CTX_copy, "(" REF_HMAC_CTX REF_HMAC_CTX ")V"),
         CONSCRYPT_NATIVE_METHOD(HMAC_Update, "(" REF_HMAC_CTX "[BII)V"),
         CONSCRYPT_NATIVE_METHOD(HMAC_UpdateDirect, "(" REF_HMAC_CTX "JI)V"),
         CONSCRYPT_NATIVE_METHOD(HMAC_Final, "(" REF_HMAC_CTX ")[B"),
+        CONSCRYPT_NATIVE_METHOD(HMAC_batch, "(" REF_HMAC_CTX "[B[I[I[BI)V"),
+        CONSCRYPT_NATIVE_METHOD(HMAC_batchDirect, "(" REF_HMAC_CTX "[J[I[BI)V"),
+        CONSCRYPT_NATIVE_METHOD(CMAC_CTX_new, "()J"),
+        CONSCRYPT_NATIVE_METHOD(CMAC_CTX_free, "(J)V"),
+        CONSCRYPT_NATIVE_METHOD(CMAC_Init, "(" REF_CMAC_CTX "[B)V"),
+        CONSCRYPT_NATIVE_METHOD(CMAC_Reset, "(" REF_CMAC_CTX ")V"),
+        CONSCRYPT_NATIVE_METHOD(CMAC_CTX_copy, "(" REF_CMAC_CTX REF_CMAC_CTX ")V"),
+        CONSCRYPT_NATIVE_METHOD(CMAC_Update, "(" REF_CMAC_CTX "[BII)V"),
+        CONSCRYPT_NATIVE_METHOD(CMAC_UpdateDirect, "(" REF_CMAC_CTX "JI)V"),
+        CONSCRYPT_NATIVE_METHOD(CMAC_Final, "(" REF_CMAC_CTX ")[B"),
+        CONSCRYPT_NATIVE_METHOD(Poly1305_new, "()J"),
+        CONSCRYPT_NATIVE_METHOD(Poly1305_free, "(J)V"),
+        CONSCRYPT_NATIVE_METHOD(Poly1305_init, "(" REF_POLY1305_STATE "[B)V"),
+        CONSCRYPT_NATIVE_METHOD(Poly1305_update, "(" REF_POLY1305_STATE "[BII)V"),
+        CONSCRYPT_NATIVE_METHOD(Poly1305_updateDirect, "(" REF_POLY1305_STATE "JI)V"),
+        CONSCRYPT_NATIVE_METHOD(Poly1305_finish, "(" REF_POLY1305_STATE ")[B"),
+        CONSCRYPT_NATIVE_METHOD(HKDF, "(J[B[B[B[BII)V"),
+        CONSCRYPT_NATIVE_METHOD(HKDF_extract, "(J[B[B[BI)I"),
+        CONSCRYPT_NATIVE_METHOD(HKDF_expand, "(J[B[B[BII)V"),
+        CONSCRYPT_NATIVE_METHOD(PKCS5_PBKDF2_HMAC, "(J[B[BI[B)V"),
         CONSCRYPT_NATIVE_METHOD(RAND_bytes, "([B)V"),
+        CONSCRYPT_NATIVE_METHOD(RAND_bytesDirect, "(JI)V"),
+        CONSCRYPT_NATIVE_METHOD(RAND_forkSafeBuffersSupported, "()Z"),
+        CONSCRYPT_NATIVE_METHOD(RAND_newForkSafeBuffer, "(I)Ljava/nio/ByteBuffer;"),
+        CONSCRYPT_NATIVE_METHOD(RAND_freeForkSafeBuffer, "(JI)V"),
         CONSCRYPT_NATIVE_METHOD(create_BIO_InputStream, ("(" REF_BIO_IN_STREAM "Z)J")),
         CONSCRYPT_NATIVE_METHOD(create_BIO_OutputStream, "(Ljava/io/OutputStream;)J"),
         CONSCRYPT_NATIVE_METHOD(BIO_free_all, "(J)V"),
@@ -10120,6 +11934,8 @@ static JNINativeMethod sNativeCryptoMethods[] = {
         CONSCRYPT_NATIVE_METHOD(SSL_CTX_free, "(J" REF_SSL_CTX ")V"),
         CONSCRYPT_NATIVE_METHOD(SSL_CTX_set_session_id_context, "(J" REF_SSL_CTX "[B)V"),
         CONSCRYPT_NATIVE_METHOD(SSL_CTX_set_timeout, "(J" REF_SSL_CTX "J)J"),
+        CONSCRYPT_NATIVE_METHOD(SSL_CTX_set_ticket_keys, "(J" REF_SSL_CTX "[BIZ)V"),
+        CONSCRYPT_NATIVE_METHOD(SSL_CTX_set_session_cache_mode, "(J" REF_SSL_CTX "I)V"),
         CONSCRYPT_NATIVE_METHOD(SSL_new, "(J" REF_SSL_CTX ")J"),
         CONSCRYPT_NATIVE_METHOD(SSL_enable_tls_channel_id, "(J" REF_SSL ")V"),
         CONSCRYPT_NATIVE_METHOD(SSL_get_tls_channel_id, "(J" REF_SSL ")[B"),
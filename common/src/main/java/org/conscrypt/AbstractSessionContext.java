@@ -41,6 +41,14 @@ abstract class AbstractSessionContext implements SSLSessionContext {
 
     final long sslCtxNativePointer = NativeCrypto.SSL_CTX_new();
 
+    final SessionCacheMetrics metrics = new SessionCacheMetrics();
+
+    /**
+     * The cache used in place of this one by connections created from the owning
+     * {@code SSLContext}, or {@code null}. See {@link SSLParametersImpl#getSessionContext()}.
+     */
+    volatile SharedSessionCache sharedCache;
+
     @SuppressWarnings("serial")
     private final Map<ByteArray, NativeSslSession> sessions =
             new LinkedHashMap<ByteArray, NativeSslSession>() {
@@ -52,6 +60,7 @@ abstract class AbstractSessionContext implements SSLSessionContext {
                     if (maximumSize > 0 && size() > maximumSize) {
                         // Let the subclass know.
                         onBeforeRemoveSession(eldest.getValue());
+                        metrics.recordEviction();
                         return true;
                     }
                     return false;
@@ -167,6 +176,7 @@ abstract class AbstractSessionContext implements SSLSessionContext {
                     // Let the subclass know.
                     onBeforeRemoveSession(session);
                     i.remove();
+                    metrics.recordEviction();
                 }
             }
         }
@@ -187,6 +197,13 @@ abstract class AbstractSessionContext implements SSLSessionContext {
         }
     }
 
+    /**
+     * Returns a snapshot of this context's resumption counters.
+     */
+    final SessionCacheStats getStats() {
+        return metrics.snapshot();
+    }
+
     @Override
     protected void finalize() throws Throwable {
         try {
@@ -213,7 +230,9 @@ abstract class AbstractSessionContext implements SSLSessionContext {
             // Let the subclass know.
             onBeforeAddSession(session);
 
-            sessions.put(key, session);
+            if (retainsSessions()) {
+                sessions.put(key, session);
+            }
         }
     }
 
@@ -243,6 +262,9 @@ abstract class AbstractSessionContext implements SSLSessionContext {
             return null;
         }
 
+        // Lookups, hits and misses are only counted for clients: most server resumptions are
+        // served by BoringSSL's internal cache or session tickets and never get here.
+
         // First, look in the in-memory cache.
         NativeSslSession session;
         synchronized (sessions) {
@@ -251,6 +273,7 @@ abstract class AbstractSessionContext implements SSLSessionContext {
         if (session != null && session.isValid()) {
             if (session.isSingleUse()) {
                 removeSession(session);
+                metrics.recordSingleUseConsumed();
             }
             return session;
         }
@@ -277,6 +300,15 @@ abstract class AbstractSessionContext implements SSLSessionContext {
      */
     abstract void onBeforeRemoveSession(NativeSslSession session);
 
+    /**
+     * Whether sessions passed to {@link #cacheSession} are kept in the in-memory cache after
+     * {@link #onBeforeAddSession} has been called. Overridden by {@link ServerSessionContext}
+     * when it stores sessions off-heap instead.
+     */
+    boolean retainsSessions() {
+        return true;
+    }
+
     /**
      * Called for server sessions only. Retrieves the session by ID from the persistent cache.
      *
@@ -284,6 +316,21 @@ abstract class AbstractSessionContext implements SSLSessionContext {
      */
     abstract NativeSslSession getSessionFromPersistentCache(byte[] sessionId);
 
+    /**
+     * Removes every session from the cache.
+     */
+    final void removeAllSessions() {
+        synchronized (sessions) {
+            Iterator<NativeSslSession> i = sessions.values().iterator();
+            while (i.hasNext()) {
+                NativeSslSession session = i.next();
+                onBeforeRemoveSession(session);
+                i.remove();
+                metrics.recordEviction();
+            }
+        }
+    }
+
     /**
      * Makes sure cache size is < maximumSize.
      */
@@ -297,6 +344,7 @@ abstract class AbstractSessionContext implements SSLSessionContext {
                     NativeSslSession session = i.next();
                     onBeforeRemoveSession(session);
                     i.remove();
+                    metrics.recordEviction();
                 }
             }
         }
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+
+/**
+ * Seals or opens many AEAD records under one key in a single call, for packet-oriented
+ * protocols where the per-call overhead of {@link javax.crypto.Cipher} dominates.
+ *
+ * <p>A batch of {@code n} records is described by flat arrays: record {@code i} is the
+ * {@code inLengths[i]} bytes at {@code inOffsets[i]} of {@code in}, its nonce is bytes
+ * {@code [i * getNonceLength(), (i + 1) * getNonceLength())} of {@code nonces}, and its
+ * additional data, if {@code aad} is not {@code null}, is the {@code aadLengths[i]} bytes at
+ * {@code aadOffsets[i]} of {@code aad}. Outputs are written back to back into {@code out}
+ * starting at {@code outOffset}, and the length of each is stored in {@code outLengths}.
+ *
+ * <p>Instances are safe for use by multiple threads.
+ *
+ * @see Conscrypt#newAeadBatch(String, SecretKey, int)
+ */
+@ExperimentalApi
+public final class AeadBatch {
+    private final String algorithm;
+    private final int nonceLength;
+    private final int tagLengthInBytes;
+    private final NativeRef.EVP_AEAD_CTX ctx;
+
+    private AeadBatch(String algorithm, long evpAead, byte[] key, int tagLengthInBytes) {
+        this.algorithm = algorithm;
+        this.nonceLength = NativeCrypto.EVP_AEAD_nonce_length(evpAead);
+        this.tagLengthInBytes = tagLengthInBytes;
+        this.ctx = new NativeRef.EVP_AEAD_CTX(
+                NativeCrypto.EVP_AEAD_CTX_new(evpAead, key, tagLengthInBytes));
+    }
+
+    /**
+     * Returns a batch for {@code algorithm}, which is one of {@code "AES/GCM/NoPadding"},
+     * {@code "AES/GCM-SIV/NoPadding"}, {@code "ChaCha20/Poly1305/NoPadding"} or
+     * {@code "XChaCha20/Poly1305/NoPadding"}, using {@code key} and tags of
+     * {@code tagLengthInBits} bits.
+     */
+    static AeadBatch getInstance(String algorithm, SecretKey key, int tagLengthInBits)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        if (algorithm == null) {
+            throw new NullPointerException("algorithm == null");
+        }
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+        byte[] encodedKey = key.getEncoded();
+        if (encodedKey == null) {
+            throw new InvalidKeyException("key.getEncoded() == null");
+        }
+        if (tagLengthInBits % 8 != 0) {
+            throw new IllegalArgumentException(
+                    "Tag length must be a multiple of 8; was " + tagLengthInBits);
+        }
+        int tagLengthInBytes = tagLengthInBits / 8;
+
+        long evpAead;
+        String upper = algorithm.toUpperCase(Locale.US);
+        if (upper.equals("AES/GCM/NOPADDING") || upper.equals("AES/GCM-SIV/NOPADDING")) {
+            boolean siv = upper.equals("AES/GCM-SIV/NOPADDING");
+            switch (encodedKey.length) {
+                case 16:
+                    evpAead = siv ? NativeCrypto.EVP_aead_aes_128_gcm_siv()
+                                  : NativeCrypto.EVP_aead_aes_128_gcm();
+                    break;
+                case 32:
+                    evpAead = siv ? NativeCrypto.EVP_aead_aes_256_gcm_siv()
+                                  : NativeCrypto.EVP_aead_aes_256_gcm();
+                    break;
+                default:
+                    throw new InvalidKeyException("Unsupported key size: " + encodedKey.length
+                            + " bytes (must be 16 or 32)");
+            }
+        } else if (upper.equals("CHACHA20/POLY1305/NOPADDING")
+                || upper.equals("XCHACHA20/POLY1305/NOPADDING")) {
+            if (encodedKey.length != 32) {
+                throw new InvalidKeyException("Unsupported key size: " + encodedKey.length
+                        + " bytes (must be 32)");
+            }
+            evpAead = upper.startsWith("X") ? NativeCrypto.EVP_aead_xchacha20_poly1305()
+                                            : NativeCrypto.EVP_aead_chacha20_poly1305();
+        } else {
+            throw new NoSuchAlgorithmException("Unsupported algorithm: " + algorithm);
+        }
+        int maxTagLength = NativeCrypto.EVP_AEAD_max_overhead(evpAead);
+        if (tagLengthInBytes <= 0 || tagLengthInBytes > maxTagLength) {
+            throw new IllegalArgumentException("Unsupported tag length: " + tagLengthInBits);
+        }
+        return new AeadBatch(algorithm, evpAead, encodedKey, tagLengthInBytes);
+    }
+
+    /**
+     * Returns the algorithm this batch was created for.
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the length in bytes of each record's nonce.
+     */
+    public int getNonceLength() {
+        return nonceLength;
+    }
+
+    /**
+     * Returns the number of bytes sealing adds to each record.
+     */
+    public int getTagLength() {
+        return tagLengthInBytes;
+    }
+
+    /**
+     * Seals every record of the batch. Each output is the record's ciphertext followed by its
+     * tag, so {@code out} needs room for the total input length plus {@link #getTagLength()}
+     * bytes per record.
+     *
+     * @return the total number of bytes written to {@code out}
+     */
+    public int seal(byte[] nonces, byte[] in, int[] inOffsets, int[] inLengths, byte[] aad,
+            int[] aadOffsets, int[] aadLengths, byte[] out, int outOffset, int[] outLengths)
+            throws ShortBufferException {
+        long required = checkBatch(nonces, in, inOffsets, inLengths, aad, aadOffsets,
+                aadLengths, out, outOffset, outLengths)
+                + (long) inOffsets.length * tagLengthInBytes;
+        if (required > out.length - outOffset) {
+            throw new ShortBufferException(
+                    "Insufficient output space: " + (out.length - outOffset) + " < " + required);
+        }
+        return NativeCrypto.EVP_AEAD_CTX_seal_batch(ctx, nonceLength, nonces, in, inOffsets,
+                inLengths, aad, aadOffsets, aadLengths, out, outOffset, outLengths);
+    }
+
+    /**
+     * Opens every record of the batch. Each input is a record's ciphertext followed by its
+     * tag. A record that fails authentication does not stop the batch: its output length is
+     * set to {@code -1} and nothing is written for it.
+     *
+     * @return the total number of bytes written to {@code out}
+     */
+    public int open(byte[] nonces, byte[] in, int[] inOffsets, int[] inLengths, byte[] aad,
+            int[] aadOffsets, int[] aadLengths, byte[] out, int outOffset, int[] outLengths)
+            throws ShortBufferException {
+        long inputLength = checkBatch(nonces, in, inOffsets, inLengths, aad, aadOffsets,
+                aadLengths, out, outOffset, outLengths);
+        long required = Math.max(0, inputLength - (long) inOffsets.length * tagLengthInBytes);
+        if (required > out.length - outOffset) {
+            throw new ShortBufferException(
+                    "Insufficient output space: " + (out.length - outOffset) + " < " + required);
+        }
+        return NativeCrypto.EVP_AEAD_CTX_open_batch(ctx, nonceLength, nonces, in, inOffsets,
+                inLengths, aad, aadOffsets, aadLengths, out, outOffset, outLengths);
+    }
+
+    /**
+     * Validates the shape of a batch and returns the total length of its inputs.
+     */
+    private long checkBatch(byte[] nonces, byte[] in, int[] inOffsets, int[] inLengths,
+            byte[] aad, int[] aadOffsets, int[] aadLengths, byte[] out, int outOffset,
+            int[] outLengths) {
+        if (nonces == null) {
+            throw new NullPointerException("nonces == null");
+        }
+        if (in == null) {
+            throw new NullPointerException("in == null");
+        }
+        if (inOffsets == null) {
+            throw new NullPointerException("inOffsets == null");
+        }
+        if (inLengths == null) {
+            throw new NullPointerException("inLengths == null");
+        }
+        if (out == null) {
+            throw new NullPointerException("out == null");
+        }
+        if (outLengths == null) {
+            throw new NullPointerException("outLengths == null");
+        }
+        int count = inOffsets.length;
+        if (inLengths.length != count || outLengths.length != count) {
+            throw new IllegalArgumentException("Record array lengths differ");
+        }
+        if (nonces.length != (long) count * nonceLength) {
+            throw new IllegalArgumentException("nonces.length != " + count + " * " + nonceLength);
+        }
+        if (aad != null) {
+            if (aadOffsets == null) {
+                throw new NullPointerException("aadOffsets == null");
+            }
+            if (aadLengths == null) {
+                throw new NullPointerException("aadLengths == null");
+            }
+            if (aadOffsets.length != count || aadLengths.length != count) {
+                throw new IllegalArgumentException("Record array lengths differ");
+            }
+        }
+        if (outOffset < 0 || outOffset > out.length) {
+            throw new ArrayIndexOutOfBoundsException("outOffset: " + outOffset);
+        }
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            ArrayUtils.checkOffsetAndCount(in.length, inOffsets[i], inLengths[i]);
+            if (aad != null) {
+                ArrayUtils.checkOffsetAndCount(aad.length, aadOffsets[i], aadLengths[i]);
+            }
+            total += inLengths[i];
+        }
+        return total;
+    }
+}
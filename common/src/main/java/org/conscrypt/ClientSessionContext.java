@@ -62,6 +62,7 @@ public final class ClientSessionContext extends AbstractSessionContext {
             return null;
         }
 
+        metrics.recordLookup();
         NativeSslSession session = getSession(hostName, port);
         if (session == null) {
             return null;
@@ -76,6 +77,7 @@ public final class ClientSessionContext extends AbstractSessionContext {
             }
         }
         if (!protocolFound) {
+            metrics.recordMissProtocol();
             return null;
         }
 
@@ -88,12 +90,15 @@ public final class ClientSessionContext extends AbstractSessionContext {
             }
         }
         if (!cipherSuiteFound) {
+            metrics.recordMissCipherSuite();
             return null;
         }
 
         if (session.isSingleUse()) {
             removeSession(session);
+            metrics.recordSingleUseConsumed();
         }
+        metrics.recordHit();
         return session;
     }
 
@@ -108,7 +113,8 @@ public final class ClientSessionContext extends AbstractSessionContext {
     }
 
     /**
-     * Finds a cached session for the given host name and port.
+     * Finds a cached session for the given host name and port. Records a miss in
+     * {@link #metrics} if none is found.
      *
      * @param host of server
      * @param port of server
@@ -130,21 +136,32 @@ public final class ClientSessionContext extends AbstractSessionContext {
         if (session != null && session.isValid()) {
             return session;
         }
+        boolean expired = session != null;
 
         // Look in persistent cache.  We don't currently delete sessions from the persistent
         // cache, so we may find a multi-use (aka TLS 1.2) session after having received and
         // then used up one or more single-use (aka TLS 1.3) sessions.
         if (persistentCache != null) {
+            long start = System.nanoTime();
             byte[] data = persistentCache.getSessionData(host, port);
+            session = null;
             if (data != null) {
                 session = NativeSslSession.newInstance(this, data, host, port);
-                if (session != null && session.isValid()) {
-                    putSession(key, session);
-                    return session;
-                }
+                expired |= session != null;
+            }
+            boolean valid = session != null && session.isValid();
+            metrics.recordPersistentRead(start, valid);
+            if (valid) {
+                putSession(key, session);
+                return session;
             }
         }
 
+        if (expired) {
+            metrics.recordMissExpired();
+        } else {
+            metrics.recordMissNotFound();
+        }
         return null;
     }
 
@@ -197,7 +214,9 @@ public final class ClientSessionContext extends AbstractSessionContext {
         if (persistentCache != null && !session.isSingleUse()) {
             byte[] data = session.toBytes();
             if (data != null) {
+                long start = System.nanoTime();
                 persistentCache.putSessionData(session.toSSLSession(), data);
+                metrics.recordPersistentWrite(start);
             }
         }
     }
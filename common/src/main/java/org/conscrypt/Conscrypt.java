@@ -18,10 +18,21 @@ package org.conscrypt;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.InvalidKeyException;
 import java.security.KeyManagementException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.Provider;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLContextSpi;
@@ -195,6 +206,132 @@ public final class Conscrypt {
         return SSLParametersImpl.getDefaultX509TrustManager();
     }
 
+    /**
+     * Returns an {@link AeadBatch} that seals and opens many records of the given AEAD
+     * algorithm under {@code key} in a single call. The supported algorithms are
+     * {@code "AES/GCM/NoPadding"}, {@code "AES/GCM-SIV/NoPadding"},
+     * {@code "ChaCha20/Poly1305/NoPadding"} and {@code "XChaCha20/Poly1305/NoPadding"}.
+     */
+    @ExperimentalApi
+    public static AeadBatch newAeadBatch(String algorithm, SecretKey key, int tagLengthInBits)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        checkAvailability();
+        return AeadBatch.getInstance(algorithm, key, tagLengthInBits);
+    }
+
+    /**
+     * Returns an {@link Hkdf} that derives keys with HKDF over the HMAC algorithm
+     * {@code algorithm}, such as {@code "HmacSHA256"}.
+     */
+    @ExperimentalApi
+    public static Hkdf newHkdf(String algorithm) throws NoSuchAlgorithmException {
+        checkAvailability();
+        return Hkdf.getInstance(algorithm);
+    }
+
+    /**
+     * Returns a {@link DigestBatch} that computes the {@code algorithm} digests, such as
+     * {@code "SHA-256"}, of many inputs in a single call.
+     */
+    @ExperimentalApi
+    public static DigestBatch newDigestBatch(String algorithm) throws NoSuchAlgorithmException {
+        checkAvailability();
+        return DigestBatch.getInstance(algorithm);
+    }
+
+    /**
+     * Returns an empty {@link DigestState} for the digest {@code algorithm}, such as
+     * {@code "SHA-256"}, for hashing many messages that share a prefix.
+     */
+    @ExperimentalApi
+    public static DigestState newDigestState(String algorithm) throws NoSuchAlgorithmException {
+        checkAvailability();
+        return DigestState.getInstance(algorithm);
+    }
+
+    /**
+     * Returns a {@link TreeHash} that hashes inputs split into {@code leafSize}-byte leaves,
+     * such as {@link TreeHash#DEFAULT_LEAF_SIZE}, with the {@code algorithm} digest,
+     * {@code "SHA-256"} or {@code "SHA-512"}, using the threads of {@code pool}.
+     */
+    @ExperimentalApi
+    public static TreeHash newTreeHash(String algorithm, int leafSize, ForkJoinPool pool)
+            throws NoSuchAlgorithmException {
+        checkAvailability();
+        return TreeHash.getInstance(algorithm, leafSize, pool);
+    }
+
+    /**
+     * Returns a {@link DigestBatch} that computes the {@code algorithm} HMACs, such as
+     * {@code "HmacSHA256"}, of many inputs under {@code key} in a single call.
+     */
+    @ExperimentalApi
+    public static DigestBatch newMacBatch(String algorithm, SecretKey key)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        checkAvailability();
+        return DigestBatch.getHmacInstance(algorithm, key);
+    }
+
+    /**
+     * Updates {@code digest} with the {@code length} bytes of {@code channel} starting at
+     * {@code position}, reading them through memory-mapped windows of the file. Conscrypt's
+     * digests hash each window in place with a single native call. The channel's position is
+     * not changed.
+     */
+    @ExperimentalApi
+    public static void updateFromFile(MessageDigest digest, FileChannel channel, long position,
+            long length) throws IOException {
+        MappedFileHasher.update(
+                digest, channel, position, length, MappedFileHasher.DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Like {@link #updateFromFile(MessageDigest, FileChannel, long, long)}, but for a {@link Mac}.
+     */
+    @ExperimentalApi
+    public static void updateFromFile(Mac mac, FileChannel channel, long position,
+            long length) throws IOException {
+        MappedFileHasher.update(
+                mac, channel, position, length, MappedFileHasher.DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Makes AES/CTR ciphers from Conscrypt split updates of at least {@code minimumLength}
+     * bytes into chunks that are processed concurrently on {@code pool}, or, if {@code pool}
+     * is {@code null}, process all input on the calling thread, which is the default. Updates
+     * shorter than 128 KiB are always processed on the calling thread. This applies to every
+     * Conscrypt provider in the process.
+     */
+    @ExperimentalApi
+    public static void setParallelCtr(ForkJoinPool pool, int minimumLength) {
+        ParallelCtr.configure(pool, minimumLength);
+    }
+
+    /**
+     * Makes {@link java.security.SecureRandom} instances from Conscrypt serve requests of up
+     * to 64 bytes from a per-thread buffer that is refilled in bulk, rather than calling into
+     * BoringSSL for each request. Buffers are kept in memory that is wiped in the child of a
+     * fork, and on platforms that can't provide such memory this has no effect. Disabled by
+     * default. This applies to every Conscrypt provider in the process.
+     */
+    @ExperimentalApi
+    public static void setRandomBuffering(boolean enabled) {
+        RandomBuffer.setEnabled(enabled);
+    }
+
+    /**
+     * Returns a {@link QuicPacketProtector} for one direction of a QUIC connection using the
+     * TLS 1.3 cipher suite {@code cipherSuite} and the packet protection key, IV and header
+     * protection key derived for it.
+     */
+    @ExperimentalApi
+    public static QuicPacketProtector newQuicPacketProtector(String cipherSuite, byte[] key,
+            byte[] iv, byte[] headerProtectionKey)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        checkAvailability();
+        return QuicPacketProtector.getInstance(cipherSuite, key, iv, headerProtectionKey);
+    }
+
     /**
      * Indicates whether the given {@link SSLContext} was created by this distribution of Conscrypt.
      */
@@ -234,6 +371,110 @@ public final class Conscrypt {
         ((ServerSessionContext) serverContext).setPersistentCache(cache);
     }
 
+    /**
+     * Returns the process-wide session cache with the given name, creating it if necessary.
+     *
+     * @see #setSharedSessionCache(SSLContext, SharedSessionCache)
+     */
+    @ExperimentalApi
+    public static SharedSessionCache getSharedSessionCache(String name) {
+        return SharedSessionCache.named(name);
+    }
+
+    /**
+     * Makes connections created from the context use the given shared session cache instead
+     * of the context's own client and server session caches, or go back to the context's own
+     * caches if {@code cache} is {@code null}. Sessions are only resumed across contexts that
+     * use the same trust and key managers. Settings applied to the context's own session
+     * contexts, such as persistent caches or ticket keys, do not carry over.
+     */
+    @ExperimentalApi
+    public static void setSharedSessionCache(SSLContext context, SharedSessionCache cache) {
+        SSLSessionContext clientContext = context.getClientSessionContext();
+        SSLSessionContext serverContext = context.getServerSessionContext();
+        if (!(clientContext instanceof ClientSessionContext)
+                || !(serverContext instanceof ServerSessionContext)) {
+            throw new IllegalArgumentException(
+                    "Not a conscrypt context: " + context.getProvider().getName());
+        }
+        ((ClientSessionContext) clientContext).sharedCache = cache;
+        ((ServerSessionContext) serverContext).sharedCache = cache;
+    }
+
+    /**
+     * Returns a snapshot of the session resumption counters of the given client or server
+     * session context, as returned by {@link SSLContext#getClientSessionContext()} or
+     * {@link SSLContext#getServerSessionContext()}. Lookup, hit and miss counts are only kept
+     * for client contexts.
+     */
+    @ExperimentalApi
+    public static SessionCacheStats getSessionCacheStats(SSLSessionContext sessionContext) {
+        if (!(sessionContext instanceof AbstractSessionContext)) {
+            throw new IllegalArgumentException("Not a conscrypt session context: "
+                    + sessionContext.getClass().getName());
+        }
+        return ((AbstractSessionContext) sessionContext).getStats();
+    }
+
+    private static ServerSessionContext toConscryptServerSessionContext(SSLContext context) {
+        SSLSessionContext serverContext = context.getServerSessionContext();
+        if (!(serverContext instanceof ServerSessionContext)) {
+            throw new IllegalArgumentException(
+                    "Not a conscrypt server context: " + serverContext.getClass().getName());
+        }
+        return (ServerSessionContext) serverContext;
+    }
+
+    /**
+     * Makes the server session cache of the context keep sessions serialized in off-heap
+     * memory rather than as Java objects. Room is reserved up front for {@code capacity}
+     * sessions of up to {@code maxSessionSize} bytes each, which suits caches of hundreds of
+     * thousands of sessions or more.
+     */
+    @ExperimentalApi
+    public static void setServerSessionCacheOffHeap(
+            SSLContext context, int capacity, int maxSessionSize) {
+        toConscryptServerSessionContext(context).setOffHeapCache(capacity, maxSessionSize);
+    }
+
+    /**
+     * Sets the keys used to encrypt and decrypt session tickets issued by servers created from
+     * the context. The first key encrypts new tickets and all keys are accepted for decryption.
+     * Each key is 48 bytes (16-byte name, 16-byte HMAC secret, 16-byte AES-128 key) or 80 bytes
+     * (16-byte name, 32-byte HMAC secret, 32-byte AES-256 key), and all keys must have the same
+     * length.
+     */
+    @ExperimentalApi
+    public static void setSessionTicketKeys(SSLContext context, byte[][] keys) {
+        toConscryptServerSessionContext(context).setTicketKeys(keys);
+    }
+
+    /**
+     * Makes {@code key} the session ticket encryption key for the context, keeping the previous
+     * key for decryption only.
+     *
+     * @see #setSessionTicketKeys(SSLContext, byte[][])
+     */
+    @ExperimentalApi
+    public static void rotateSessionTicketKey(SSLContext context, byte[] key) {
+        toConscryptServerSessionContext(context).rotateTicketKey(key);
+    }
+
+    /**
+     * Schedules {@link #rotateSessionTicketKey(SSLContext, byte[])} on {@code executor} every
+     * {@code period}, using the key returned by {@code keySource}. Servers that share a key
+     * source can resume each other's sessions.
+     *
+     * @return a future that can be used to cancel the rotation
+     */
+    @ExperimentalApi
+    public static ScheduledFuture<?> scheduleSessionTicketKeyRotation(SSLContext context,
+            ScheduledExecutorService executor, Callable<byte[]> keySource, long period,
+            TimeUnit unit) {
+        return toConscryptServerSessionContext(context).scheduleTicketKeyRotation(
+                executor, keySource, period, unit);
+    }
+
     /**
      * Indicates whether the given {@link SSLSocketFactory} was created by this distribution of
      * Conscrypt.
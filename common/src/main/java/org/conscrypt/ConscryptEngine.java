@@ -1628,7 +1628,12 @@ final class ConscryptEngine extends AbstractConscryptEngine implements NativeCry
 
     @Override
     public long serverSessionRequested(byte[] id) {
-        // TODO(nathanmittler): Implement server-side caching for TLS < 1.3
+        // TODO(nathanmittler): Implement server-side caching for TLS < 1.3 for the in-memory
+        // cache. Until then only the optional off-heap cache is served from here.
+        AbstractSessionContext ctx = sessionContext();
+        if (ctx instanceof ServerSessionContext) {
+            return ((ServerSessionContext) ctx).getSessionForResumption(id);
+        }
         return 0;
     }
 
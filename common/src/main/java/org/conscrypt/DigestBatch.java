@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+
+/**
+ * Computes the message digests or HMACs of many independent inputs in a single call, for
+ * small inputs where the per-call overhead of {@link java.security.MessageDigest} or
+ * {@link javax.crypto.Mac} exceeds the cost of hashing.
+ *
+ * <p>Outputs are written back to back, {@link #getOutputLength()} bytes per input, in the
+ * order of the inputs.
+ *
+ * <p>Instances are safe for use by multiple threads.
+ *
+ * @see Conscrypt#newDigestBatch(String)
+ * @see Conscrypt#newMacBatch(String, SecretKey)
+ */
+@ExperimentalApi
+public final class DigestBatch {
+    private final String algorithm;
+    private final int outputLength;
+    private final long evpMd;
+    private final NativeRef.HMAC_CTX hmacCtx;
+
+    private DigestBatch(String algorithm, int outputLength, long evpMd,
+            NativeRef.HMAC_CTX hmacCtx) {
+        this.algorithm = algorithm;
+        this.outputLength = outputLength;
+        this.evpMd = evpMd;
+        this.hmacCtx = hmacCtx;
+    }
+
+    /**
+     * Returns a batch computing digests with {@code algorithm}, such as {@code "SHA-256"}.
+     */
+    static DigestBatch getInstance(String algorithm) throws NoSuchAlgorithmException {
+        if (algorithm == null) {
+            throw new NullPointerException("algorithm == null");
+        }
+        String jcaName = EvpMdRef.getJcaDigestAlgorithmStandardName(algorithm);
+        if (jcaName == null) {
+            throw new NoSuchAlgorithmException("Unsupported algorithm: " + algorithm);
+        }
+        return new DigestBatch(algorithm,
+                EvpMdRef.getDigestSizeBytesByJcaDigestAlgorithmStandardName(jcaName),
+                EvpMdRef.getEVP_MDByJcaDigestAlgorithmStandardName(jcaName), null);
+    }
+
+    /**
+     * Returns a batch computing HMACs with {@code algorithm}, such as {@code "HmacSHA256"},
+     * under {@code key}.
+     */
+    static DigestBatch getHmacInstance(String algorithm, SecretKey key)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        if (algorithm == null) {
+            throw new NullPointerException("algorithm == null");
+        }
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+        String jcaName = EvpMdRef.getJcaDigestAlgorithmStandardNameFromHmac(algorithm);
+        if (jcaName == null) {
+            throw new NoSuchAlgorithmException("Unsupported algorithm: " + algorithm);
+        }
+        byte[] keyBytes = key.getEncoded();
+        if (keyBytes == null) {
+            throw new InvalidKeyException("key cannot be encoded");
+        }
+        long evpMd = EvpMdRef.getEVP_MDByJcaDigestAlgorithmStandardName(jcaName);
+        NativeRef.HMAC_CTX ctx = new NativeRef.HMAC_CTX(NativeCrypto.HMAC_CTX_new());
+        NativeCrypto.HMAC_Init_ex(ctx, keyBytes, evpMd);
+        return new DigestBatch(algorithm,
+                EvpMdRef.getDigestSizeBytesByJcaDigestAlgorithmStandardName(jcaName), evpMd,
+                ctx);
+    }
+
+    /**
+     * Returns the algorithm this batch was created for.
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the length in bytes of each output.
+     */
+    public int getOutputLength() {
+        return outputLength;
+    }
+
+    /**
+     * Hashes the {@code inLengths[i]} bytes at {@code inOffsets[i]} of {@code in} for each
+     * {@code i}.
+     *
+     * @return the number of bytes written to {@code out}
+     */
+    public int process(byte[] in, int[] inOffsets, int[] inLengths, byte[] out, int outOffset)
+            throws ShortBufferException {
+        checkArrayInputs(in, inOffsets, inLengths);
+        int outputSize = checkOutput(inOffsets.length, outputLength, out, outOffset);
+        if (hmacCtx != null) {
+            NativeCrypto.HMAC_batch(hmacCtx, in, inOffsets, inLengths, out, outOffset);
+        } else {
+            NativeCrypto.EVP_Digest_batch(evpMd, in, inOffsets, inLengths, out, outOffset);
+        }
+        return outputSize;
+    }
+
+    /**
+     * Hashes the remaining bytes of each of {@code inputs}, which must be direct buffers, and
+     * advances their positions to their limits.
+     *
+     * @return the number of bytes written to {@code out}
+     */
+    public int process(ByteBuffer[] inputs, byte[] out, int outOffset)
+            throws ShortBufferException {
+        if (inputs == null) {
+            throw new NullPointerException("inputs == null");
+        }
+        int[] inLengths = new int[inputs.length];
+        long[] inPtrs = directInputs(inputs, inLengths);
+        int outputSize = checkOutput(inputs.length, outputLength, out, outOffset);
+        if (hmacCtx != null) {
+            NativeCrypto.HMAC_batchDirect(hmacCtx, inPtrs, inLengths, out, outOffset);
+        } else {
+            NativeCrypto.EVP_Digest_batchDirect(evpMd, inPtrs, inLengths, out, outOffset);
+        }
+        for (ByteBuffer input : inputs) {
+            input.position(input.limit());
+        }
+        return outputSize;
+    }
+
+    /**
+     * Checks that the arrays describe inputs within {@code in}.
+     */
+    static void checkArrayInputs(byte[] in, int[] inOffsets, int[] inLengths) {
+        if (in == null) {
+            throw new NullPointerException("in == null");
+        }
+        if (inOffsets == null) {
+            throw new NullPointerException("inOffsets == null");
+        }
+        if (inLengths == null) {
+            throw new NullPointerException("inLengths == null");
+        }
+        if (inLengths.length != inOffsets.length) {
+            throw new IllegalArgumentException("inOffsets.length != inLengths.length");
+        }
+        for (int i = 0; i < inOffsets.length; i++) {
+            ArrayUtils.checkOffsetAndCount(in.length, inOffsets[i], inLengths[i]);
+        }
+    }
+
+    /**
+     * Returns the native address of the remaining bytes of each of {@code inputs}, which must
+     * be direct buffers, and stores their lengths in {@code inLengths}.
+     */
+    static long[] directInputs(ByteBuffer[] inputs, int[] inLengths) {
+        long[] inPtrs = new long[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            ByteBuffer input = inputs[i];
+            if (input == null) {
+                throw new NullPointerException("inputs[" + i + "] == null");
+            }
+            long address = input.isDirect() ? NativeCrypto.getDirectBufferAddress(input) : 0;
+            if (address == 0) {
+                throw new IllegalArgumentException("inputs[" + i + "] is not a direct buffer");
+            }
+            inPtrs[i] = address + input.position();
+            inLengths[i] = input.remaining();
+        }
+        return inPtrs;
+    }
+
+    /**
+     * Checks that {@code out} has room for {@code count} outputs of {@code outputLength} bytes
+     * from {@code outOffset} and returns their total length.
+     */
+    static int checkOutput(int count, int outputLength, byte[] out, int outOffset)
+            throws ShortBufferException {
+        if (out == null) {
+            throw new NullPointerException("out == null");
+        }
+        if (outOffset < 0 || outOffset > out.length) {
+            throw new ArrayIndexOutOfBoundsException("outOffset: " + outOffset);
+        }
+        long required = (long) count * outputLength;
+        if (required > out.length - outOffset) {
+            throw new ShortBufferException(
+                    "Insufficient output space: " + (out.length - outOffset) + " < " + required);
+        }
+        return (int) required;
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.nio.ByteBuffer;
+import java.security.NoSuchAlgorithmException;
+import javax.crypto.ShortBufferException;
+
+/**
+ * The state of a message digest computation, for hashing many messages that share a prefix,
+ * such as Merkle tree nodes under a domain separation byte or the chunks of an upload.
+ *
+ * <p>Each instance owns one native context for its lifetime. {@link #copyFrom} snapshots or
+ * restores state between instances by copying into that context, so unlike
+ * {@link java.security.MessageDigest#clone()} it does not allocate once both instances have
+ * been used. {@link #digestEach} finishes a copy of the state with each of many suffixes in a
+ * single native call.
+ *
+ * <p>Instances are not safe for use by multiple threads.
+ *
+ * @see Conscrypt#newDigestState(String)
+ */
+@ExperimentalApi
+public final class DigestState {
+    private final String algorithm;
+    private final long evpMd;
+    private final int digestLength;
+    private final NativeRef.EVP_MD_CTX ctx;
+
+    /**
+     * Holds a dummy buffer for writing single bytes to the digest.
+     */
+    private final byte[] singleByte = new byte[1];
+
+    /**
+     * Whether the digest has been initialized in {@link #ctx}. It isn't after construction or
+     * {@link #digest}, which both leave an empty state.
+     */
+    private boolean initialized;
+
+    private DigestState(String algorithm, long evpMd, int digestLength) {
+        this.algorithm = algorithm;
+        this.evpMd = evpMd;
+        this.digestLength = digestLength;
+        this.ctx = new NativeRef.EVP_MD_CTX(NativeCrypto.EVP_MD_CTX_create());
+    }
+
+    /**
+     * Returns an empty state for the digest {@code algorithm}, such as {@code "SHA-256"}.
+     */
+    static DigestState getInstance(String algorithm) throws NoSuchAlgorithmException {
+        if (algorithm == null) {
+            throw new NullPointerException("algorithm == null");
+        }
+        String jcaName = EvpMdRef.getJcaDigestAlgorithmStandardName(algorithm);
+        if (jcaName == null) {
+            throw new NoSuchAlgorithmException("Unsupported algorithm: " + algorithm);
+        }
+        return new DigestState(algorithm,
+                EvpMdRef.getEVP_MDByJcaDigestAlgorithmStandardName(jcaName),
+                EvpMdRef.getDigestSizeBytesByJcaDigestAlgorithmStandardName(jcaName));
+    }
+
+    /**
+     * Returns the algorithm this state was created for.
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the length in bytes of each digest.
+     */
+    public int getDigestLength() {
+        return digestLength;
+    }
+
+    private void ensureInitialized() {
+        if (!initialized) {
+            NativeCrypto.EVP_DigestInit_ex(ctx, evpMd);
+            initialized = true;
+        }
+    }
+
+    /**
+     * Hashes {@code input}.
+     */
+    public void update(byte input) {
+        singleByte[0] = input;
+        update(singleByte, 0, 1);
+    }
+
+    /**
+     * Hashes {@code len} bytes of {@code input} from {@code offset}.
+     */
+    public void update(byte[] input, int offset, int len) {
+        if (input == null) {
+            throw new NullPointerException("input == null");
+        }
+        ArrayUtils.checkOffsetAndCount(input.length, offset, len);
+        ensureInitialized();
+        NativeCrypto.EVP_DigestUpdate(ctx, input, offset, len);
+    }
+
+    /**
+     * Hashes the remaining bytes of {@code input} and advances its position to its limit.
+     * Direct buffers are hashed in place.
+     */
+    public void update(ByteBuffer input) {
+        if (input == null) {
+            throw new NullPointerException("input == null");
+        }
+        if (!input.hasRemaining()) {
+            return;
+        }
+        long baseAddress = input.isDirect() ? NativeCrypto.getDirectBufferAddress(input) : 0;
+        if (baseAddress == 0) {
+            if (input.hasArray()) {
+                update(input.array(), input.arrayOffset() + input.position(), input.remaining());
+            } else {
+                byte[] bytes = new byte[input.remaining()];
+                input.duplicate().get(bytes);
+                update(bytes, 0, bytes.length);
+            }
+            input.position(input.limit());
+            return;
+        }
+        int position = input.position();
+        int len = input.remaining();
+        ensureInitialized();
+        NativeCrypto.EVP_DigestUpdateDirect(ctx, baseAddress + position, len);
+        input.position(position + len);
+    }
+
+    /**
+     * Replaces this state with a copy of {@code other}, which must be for the same algorithm.
+     */
+    public void copyFrom(DigestState other) {
+        if (other == null) {
+            throw new NullPointerException("other == null");
+        }
+        if (other.evpMd != evpMd) {
+            throw new IllegalArgumentException(
+                    "Cannot copy " + other.algorithm + " state to " + algorithm);
+        }
+        if (other == this) {
+            return;
+        }
+        other.ensureInitialized();
+        NativeCrypto.EVP_MD_CTX_copy_ex(ctx, other.ctx);
+        initialized = true;
+    }
+
+    /**
+     * Writes the digest of everything hashed so far to {@code out} at {@code outOffset} and
+     * resets this state to empty.
+     *
+     * @return the number of bytes written, {@link #getDigestLength()}
+     */
+    public int digest(byte[] out, int outOffset) throws ShortBufferException {
+        DigestBatch.checkOutput(1, digestLength, out, outOffset);
+        ensureInitialized();
+        NativeCrypto.EVP_DigestFinal_ex(ctx, out, outOffset);
+        initialized = false;
+        return digestLength;
+    }
+
+    /**
+     * Returns the digest of everything hashed so far and resets this state to empty.
+     */
+    public byte[] digest() {
+        byte[] out = new byte[digestLength];
+        try {
+            digest(out, 0);
+        } catch (ShortBufferException e) {
+            // We sized the output ourselves.
+            throw new IllegalStateException(e);
+        }
+        return out;
+    }
+
+    /**
+     * For each {@code i}, writes the digest of everything hashed so far followed by the
+     * {@code inLengths[i]} bytes at {@code inOffsets[i]} of {@code in} to {@code out}, back to
+     * back from {@code outOffset}. This state is left unchanged.
+     *
+     * @return the number of bytes written to {@code out}
+     */
+    public int digestEach(byte[] in, int[] inOffsets, int[] inLengths, byte[] out,
+            int outOffset) throws ShortBufferException {
+        DigestBatch.checkArrayInputs(in, inOffsets, inLengths);
+        int outputSize = DigestBatch.checkOutput(inOffsets.length, digestLength, out, outOffset);
+        ensureInitialized();
+        NativeCrypto.EVP_Digest_batchFromPrefix(ctx, in, inOffsets, inLengths, out, outOffset);
+        return outputSize;
+    }
+
+    /**
+     * Like {@link #digestEach(byte[], int[], int[], byte[], int)}, but with the remaining bytes
+     * of each of {@code inputs}, which must be direct buffers, as the suffixes. Their positions
+     * are advanced to their limits.
+     *
+     * @return the number of bytes written to {@code out}
+     */
+    public int digestEach(ByteBuffer[] inputs, byte[] out, int outOffset)
+            throws ShortBufferException {
+        if (inputs == null) {
+            throw new NullPointerException("inputs == null");
+        }
+        int[] inLengths = new int[inputs.length];
+        long[] inPtrs = DigestBatch.directInputs(inputs, inLengths);
+        int outputSize = DigestBatch.checkOutput(inputs.length, digestLength, out, outOffset);
+        ensureInitialized();
+        NativeCrypto.EVP_Digest_batchFromPrefixDirect(ctx, inPtrs, inLengths, out, outOffset);
+        for (ByteBuffer input : inputs) {
+            input.position(input.limit());
+        }
+        return outputSize;
+    }
+}
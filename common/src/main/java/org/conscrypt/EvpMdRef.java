@@ -52,6 +52,20 @@ final class EvpMdRef {
         }
     }
 
+    /**
+     * Returns the canonical JCA name of the digest underlying the HMAC algorithm
+     * {@code hmacAlgorithm}, such as {@code "SHA-256"} for {@code "HmacSHA256"}, or {@code null}
+     * if it is not known.
+     */
+    static String getJcaDigestAlgorithmStandardNameFromHmac(String hmacAlgorithm) {
+        String algorithmUpper = hmacAlgorithm.toUpperCase(Locale.US);
+        if (!algorithmUpper.startsWith("HMACSHA")) {
+            return null;
+        }
+        return getJcaDigestAlgorithmStandardName(
+                "SHA-" + algorithmUpper.substring("HMACSHA".length()));
+    }
+
     static long getEVP_MDByJcaDigestAlgorithmStandardName(String algorithm)
             throws NoSuchAlgorithmException {
         String algorithmUpper = algorithm.toUpperCase(Locale.US);
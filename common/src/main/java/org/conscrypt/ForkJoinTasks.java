@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs batches of native work on a {@link ForkJoinPool}.
+ */
+final class ForkJoinTasks {
+    private ForkJoinTasks() {}
+
+    /**
+     * Runs {@code tasks} on {@code pool} and returns once all have completed, rethrowing the
+     * first failure. Runs them on the calling thread instead if {@code pool} is {@code null} or
+     * there is only one task.
+     */
+    static void invokeAll(ForkJoinPool pool, List<Callable<Void>> tasks) {
+        if (pool == null || tasks.size() == 1) {
+            for (Callable<Void> task : tasks) {
+                try {
+                    task.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return;
+        }
+        // ForkJoinPool.invokeAll returns once every task has completed.
+        for (Future<Void> result : pool.invokeAll(tasks)) {
+            try {
+                result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.security.NoSuchAlgorithmException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * HKDF (RFC 5869). Each operation, including a full extract-and-expand derivation, is a single
+ * native call.
+ *
+ * <p>A {@code null} salt is treated as empty, which HKDF defines to be equivalent to a salt of
+ * {@link #getMacLength()} zero bytes, and a {@code null} info as empty.
+ *
+ * <p>Instances are safe for use by multiple threads.
+ *
+ * @see Conscrypt#newHkdf(String)
+ */
+@ExperimentalApi
+public final class Hkdf {
+    private final String algorithm;
+    private final long evpMd;
+    private final int macLength;
+
+    private Hkdf(String algorithm, long evpMd, int macLength) {
+        this.algorithm = algorithm;
+        this.evpMd = evpMd;
+        this.macLength = macLength;
+    }
+
+    /**
+     * Returns an HKDF instance using the HMAC algorithm {@code algorithm}, such as
+     * {@code "HmacSHA256"}.
+     */
+    static Hkdf getInstance(String algorithm) throws NoSuchAlgorithmException {
+        if (algorithm == null) {
+            throw new NullPointerException("algorithm == null");
+        }
+        String jcaName = EvpMdRef.getJcaDigestAlgorithmStandardNameFromHmac(algorithm);
+        if (jcaName == null) {
+            throw new NoSuchAlgorithmException("Unsupported algorithm: " + algorithm);
+        }
+        return new Hkdf(algorithm, EvpMdRef.getEVP_MDByJcaDigestAlgorithmStandardName(jcaName),
+                EvpMdRef.getDigestSizeBytesByJcaDigestAlgorithmStandardName(jcaName));
+    }
+
+    /**
+     * Returns the HMAC algorithm this instance was created for.
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the length in bytes of the underlying HMAC, which is the length of a
+     * pseudorandom key and 1/255 of the longest output.
+     */
+    public int getMacLength() {
+        return macLength;
+    }
+
+    /**
+     * Returns the pseudorandom key extracted from {@code ikm} with {@code salt}.
+     */
+    public byte[] extract(byte[] salt, byte[] ikm) {
+        if (ikm == null) {
+            throw new NullPointerException("ikm == null");
+        }
+        byte[] prk = new byte[macLength];
+        NativeCrypto.HKDF_extract(evpMd, ikm, salt, prk, 0);
+        return prk;
+    }
+
+    /**
+     * Returns {@code length} bytes expanded from the pseudorandom key {@code prk} with
+     * {@code info}.
+     */
+    public byte[] expand(byte[] prk, byte[] info, int length) {
+        byte[] out = new byte[checkLength(length)];
+        expand(prk, info, out, 0, length);
+        return out;
+    }
+
+    /**
+     * Writes {@code length} bytes expanded from the pseudorandom key {@code prk} with
+     * {@code info} to {@code out} at {@code outOffset}.
+     */
+    public void expand(byte[] prk, byte[] info, byte[] out, int outOffset, int length) {
+        if (prk == null) {
+            throw new NullPointerException("prk == null");
+        }
+        checkOutput(out, outOffset, length);
+        NativeCrypto.HKDF_expand(evpMd, prk, info, out, outOffset, length);
+    }
+
+    /**
+     * Returns {@code length} bytes derived from {@code ikm}, extracting with {@code salt} and
+     * expanding with {@code info}.
+     */
+    public byte[] derive(byte[] salt, byte[] ikm, byte[] info, int length) {
+        byte[] out = new byte[checkLength(length)];
+        derive(salt, ikm, info, out, 0, length);
+        return out;
+    }
+
+    /**
+     * Writes {@code length} bytes derived from {@code ikm}, extracting with {@code salt} and
+     * expanding with {@code info}, to {@code out} at {@code outOffset}.
+     */
+    public void derive(byte[] salt, byte[] ikm, byte[] info, byte[] out, int outOffset,
+            int length) {
+        if (ikm == null) {
+            throw new NullPointerException("ikm == null");
+        }
+        checkOutput(out, outOffset, length);
+        NativeCrypto.HKDF(evpMd, ikm, salt, info, out, outOffset, length);
+    }
+
+    /**
+     * Returns a {@code keyAlgorithm} key of {@code length} bytes derived as by
+     * {@link #derive(byte[], byte[], byte[], int)}.
+     */
+    public SecretKey deriveKey(byte[] salt, byte[] ikm, byte[] info, int length,
+            String keyAlgorithm) {
+        if (keyAlgorithm == null) {
+            throw new NullPointerException("keyAlgorithm == null");
+        }
+        return new SecretKeySpec(derive(salt, ikm, info, length), keyAlgorithm);
+    }
+
+    private int checkLength(int length) {
+        if (length < 0 || length > 255 * macLength) {
+            throw new IllegalArgumentException(
+                    "length must be between 0 and " + 255 * macLength + "; was " + length);
+        }
+        return length;
+    }
+
+    private void checkOutput(byte[] out, int outOffset, int length) {
+        if (out == null) {
+            throw new NullPointerException("out == null");
+        }
+        ArrayUtils.checkOffsetAndCount(out.length, outOffset, checkLength(length));
+    }
+}
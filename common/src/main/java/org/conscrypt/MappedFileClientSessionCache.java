@@ -0,0 +1,410 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import javax.net.ssl.SSLSession;
+
+/**
+ * Client session cache backed by a single memory-mapped file. Only one process
+ * should access the underlying file at a time.
+ *
+ * <p>The file is a fixed-size hash table. Each "host:port" key hashes to a
+ * bucket of {@link #WAYS} fixed-size slots, so lookups touch at most one bucket
+ * and never list or open files. When a bucket is full, the least-recently-used
+ * slot in that bucket is overwritten.
+ *
+ * <p>Every slot carries a CRC32 over its key and data. A slot is invalidated
+ * before it is rewritten and only marked as used once the new contents and
+ * checksum are in place, so a process that dies mid-write leaves behind either
+ * the old entry, an empty slot or an entry that fails its checksum and is
+ * ignored on the next read.
+ */
+@Internal
+public final class MappedFileClientSessionCache {
+    private static final Logger logger =
+            Logger.getLogger(MappedFileClientSessionCache.class.getName());
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** Default number of sessions the cache holds. */
+    public static final int DEFAULT_CAPACITY = 16384;
+
+    /** Default maximum size of the encoded form of a single session. */
+    public static final int DEFAULT_MAX_SESSION_SIZE = 8192;
+
+    /** Number of slots in each hash bucket. */
+    static final int WAYS = 8;
+
+    /** Maximum length of the UTF-8 encoded "host:port" key. */
+    static final int MAX_KEY_LENGTH = 255;
+
+    private static final int FILE_MAGIC = 0x43534d43; // "CSMC"
+    private static final int FILE_VERSION = 1;
+
+    // File header: magic, version, capacity, max session size, access clock.
+    private static final int HEADER_MAGIC_OFFSET = 0;
+    private static final int HEADER_VERSION_OFFSET = 4;
+    private static final int HEADER_CAPACITY_OFFSET = 8;
+    private static final int HEADER_MAX_SESSION_SIZE_OFFSET = 12;
+    private static final int HEADER_CLOCK_OFFSET = 16;
+    private static final int HEADER_SIZE = 64;
+
+    // Slot header: state, key hash, last access, CRC32 of key and data, key length, data length.
+    private static final int SLOT_STATE_OFFSET = 0;
+    private static final int SLOT_HASH_OFFSET = 4;
+    private static final int SLOT_ACCESS_OFFSET = 8;
+    private static final int SLOT_CRC_OFFSET = 16;
+    private static final int SLOT_KEY_LENGTH_OFFSET = 20;
+    private static final int SLOT_DATA_LENGTH_OFFSET = 24;
+    private static final int SLOT_HEADER_SIZE = 28;
+
+    private static final int SLOT_EMPTY = 0;
+    private static final int SLOT_USED = 0x55534544; // "USED"
+
+    private MappedFileClientSessionCache() {}
+
+    static final class Impl implements SSLClientSessionCache {
+        /** File the cache is mapped from. */
+        final File file;
+
+        /** Number of slots, always a multiple of {@link #WAYS}. */
+        final int capacity;
+
+        /** Maximum encoded session size that fits in a slot. */
+        final int maxSessionSize;
+
+        private final int slotSize;
+        private final int buckets;
+        private final MappedByteBuffer map;
+        private final CRC32 crc = new CRC32();
+
+        /** Logical clock used to order slot accesses; persisted in the file header. */
+        private long clock;
+
+        Impl(File file, int capacity, int maxSessionSize) throws IOException {
+            if (capacity < WAYS) {
+                throw new IllegalArgumentException("capacity < " + WAYS);
+            }
+            if (maxSessionSize <= 0) {
+                throw new IllegalArgumentException("maxSessionSize <= 0");
+            }
+            this.capacity = roundUpToMultiple(capacity, WAYS);
+            this.maxSessionSize = maxSessionSize;
+            this.slotSize =
+                    roundUpToMultiple(SLOT_HEADER_SIZE + MAX_KEY_LENGTH + maxSessionSize, 8);
+            this.buckets = this.capacity / WAYS;
+
+            long length = HEADER_SIZE + (long) this.capacity * slotSize;
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        "capacity * maxSessionSize too large: " + length + " bytes");
+            }
+
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Creation of " + parent + " directory failed.");
+            }
+
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                FileChannel channel = raf.getChannel();
+                boolean compatible = channel.size() == length;
+                if (!compatible) {
+                    raf.setLength(length);
+                }
+                map = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+                if (compatible) {
+                    compatible = map.getInt(HEADER_MAGIC_OFFSET) == FILE_MAGIC
+                            && map.getInt(HEADER_VERSION_OFFSET) == FILE_VERSION
+                            && map.getInt(HEADER_CAPACITY_OFFSET) == this.capacity
+                            && map.getInt(HEADER_MAX_SESSION_SIZE_OFFSET) == maxSessionSize;
+                }
+                if (compatible) {
+                    clock = map.getLong(HEADER_CLOCK_OFFSET);
+                } else {
+                    format();
+                }
+            } finally {
+                // The mapping stays valid after the channel is closed.
+                raf.close();
+            }
+            this.file = file;
+        }
+
+        /**
+         * Clears the mapped region and writes a fresh header. Called when the file is new or
+         * was written with a different layout.
+         */
+        private void format() {
+            map.putInt(HEADER_MAGIC_OFFSET, 0);
+            for (int slot = 0; slot < capacity; slot++) {
+                map.putInt(slotOffset(slot) + SLOT_STATE_OFFSET, SLOT_EMPTY);
+            }
+            map.putInt(HEADER_VERSION_OFFSET, FILE_VERSION);
+            map.putInt(HEADER_CAPACITY_OFFSET, capacity);
+            map.putInt(HEADER_MAX_SESSION_SIZE_OFFSET, maxSessionSize);
+            map.putLong(HEADER_CLOCK_OFFSET, 0);
+            clock = 0;
+            map.putInt(HEADER_MAGIC_OFFSET, FILE_MAGIC);
+        }
+
+        private static int roundUpToMultiple(int value, int multiple) {
+            return ((value + multiple - 1) / multiple) * multiple;
+        }
+
+        /**
+         * Gets the key for the given host and port.
+         */
+        private static byte[] key(String host, int port) {
+            if (host == null) {
+                throw new NullPointerException("host == null");
+            }
+            return (host + ":" + port).getBytes(UTF_8);
+        }
+
+        private static int hash(byte[] key) {
+            int h = 1;
+            for (byte b : key) {
+                h = 31 * h + b;
+            }
+            // Spread the higher bits downwards since the bucket index uses the low bits.
+            return h ^ (h >>> 16);
+        }
+
+        private int slotOffset(int slot) {
+            return HEADER_SIZE + slot * slotSize;
+        }
+
+        private int firstSlot(int hash) {
+            return ((hash & Integer.MAX_VALUE) % buckets) * WAYS;
+        }
+
+        private long tick() {
+            long now = ++clock;
+            map.putLong(HEADER_CLOCK_OFFSET, now);
+            return now;
+        }
+
+        /**
+         * Returns the slot holding {@code key}, or -1 if it is not cached.
+         */
+        private int find(byte[] key, int hash) {
+            int first = firstSlot(hash);
+            for (int slot = first; slot < first + WAYS; slot++) {
+                int offset = slotOffset(slot);
+                if (map.getInt(offset + SLOT_STATE_OFFSET) == SLOT_USED
+                        && map.getInt(offset + SLOT_HASH_OFFSET) == hash
+                        && keyEquals(offset, key)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private boolean keyEquals(int offset, byte[] key) {
+            if (map.getInt(offset + SLOT_KEY_LENGTH_OFFSET) != key.length) {
+                return false;
+            }
+            int keyOffset = offset + SLOT_HEADER_SIZE;
+            for (int i = 0; i < key.length; i++) {
+                if (map.get(keyOffset + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns an empty slot in the bucket for {@code hash}, or its least-recently-used slot
+         * if the bucket is full.
+         */
+        private int victim(int hash) {
+            int first = firstSlot(hash);
+            int victim = first;
+            long oldest = Long.MAX_VALUE;
+            for (int slot = first; slot < first + WAYS; slot++) {
+                int offset = slotOffset(slot);
+                if (map.getInt(offset + SLOT_STATE_OFFSET) != SLOT_USED) {
+                    return slot;
+                }
+                long lastAccess = map.getLong(offset + SLOT_ACCESS_OFFSET);
+                if (lastAccess < oldest) {
+                    oldest = lastAccess;
+                    victim = slot;
+                }
+            }
+            return victim;
+        }
+
+        private int checksum(byte[] key, byte[] data) {
+            crc.reset();
+            crc.update(key);
+            crc.update(data);
+            return (int) crc.getValue();
+        }
+
+        @Override
+        public synchronized byte[] getSessionData(String host, int port) {
+            byte[] key = key(host, port);
+            int hash = hash(key);
+            int slot = find(key, hash);
+            if (slot < 0) {
+                return null;
+            }
+
+            int offset = slotOffset(slot);
+            int dataLength = map.getInt(offset + SLOT_DATA_LENGTH_OFFSET);
+            byte[] data = null;
+            if (dataLength >= 0 && dataLength <= maxSessionSize) {
+                data = new byte[dataLength];
+                ByteBuffer contents = map.duplicate();
+                contents.position(offset + SLOT_HEADER_SIZE + key.length);
+                contents.get(data);
+            }
+            if (data == null || checksum(key, data) != map.getInt(offset + SLOT_CRC_OFFSET)) {
+                // Left behind by an interrupted write.
+                logger.log(Level.WARNING,
+                        "MappedFileClientSessionCache: Discarding corrupt session data for "
+                                + host + " in " + file + ".");
+                map.putInt(offset + SLOT_STATE_OFFSET, SLOT_EMPTY);
+                return null;
+            }
+            map.putLong(offset + SLOT_ACCESS_OFFSET, tick());
+            return data;
+        }
+
+        @Override
+        public synchronized void putSessionData(SSLSession session, byte[] sessionData) {
+            String host = session.getPeerHost();
+            if (sessionData == null) {
+                throw new NullPointerException("sessionData == null");
+            }
+            byte[] key = key(host, session.getPeerPort());
+            if (key.length > MAX_KEY_LENGTH || sessionData.length > maxSessionSize) {
+                logger.log(Level.FINE,
+                        "MappedFileClientSessionCache: Not caching " + sessionData.length
+                                + " bytes of session data for " + host + ".");
+                return;
+            }
+
+            int hash = hash(key);
+            int slot = find(key, hash);
+            if (slot < 0) {
+                slot = victim(hash);
+            }
+            int offset = slotOffset(slot);
+
+            // Invalidate the slot first so that a partial write is never mistaken for data.
+            map.putInt(offset + SLOT_STATE_OFFSET, SLOT_EMPTY);
+            map.putInt(offset + SLOT_HASH_OFFSET, hash);
+            map.putInt(offset + SLOT_KEY_LENGTH_OFFSET, key.length);
+            map.putInt(offset + SLOT_DATA_LENGTH_OFFSET, sessionData.length);
+            ByteBuffer contents = map.duplicate();
+            contents.position(offset + SLOT_HEADER_SIZE);
+            contents.put(key);
+            contents.put(sessionData);
+            map.putInt(offset + SLOT_CRC_OFFSET, checksum(key, sessionData));
+            map.putLong(offset + SLOT_ACCESS_OFFSET, tick());
+            map.putInt(offset + SLOT_STATE_OFFSET, SLOT_USED);
+        }
+
+        /**
+         * Returns the number of sessions currently stored in the file.
+         */
+        synchronized int size() {
+            int size = 0;
+            for (int slot = 0; slot < capacity; slot++) {
+                if (map.getInt(slotOffset(slot) + SLOT_STATE_OFFSET) == SLOT_USED) {
+                    size++;
+                }
+            }
+            return size;
+        }
+
+        /**
+         * Forces any changes to the mapped file out to the storage device.
+         */
+        synchronized void flush() {
+            map.force();
+        }
+    }
+
+    /**
+     * Maps files to the cache instances that are backed by those files. We
+     * synchronize access using the cache instance, so it's important that
+     * everyone shares the same instance.
+     */
+    static final Map<File, MappedFileClientSessionCache.Impl> caches =
+            new HashMap<File, MappedFileClientSessionCache.Impl>();
+
+    /**
+     * Returns a cache backed by the given file with {@link #DEFAULT_CAPACITY} slots of up to
+     * {@link #DEFAULT_MAX_SESSION_SIZE} bytes each.
+     *
+     * @see #usingFile(File, int, int)
+     */
+    public static SSLClientSessionCache usingFile(File file) throws IOException {
+        return usingFile(file, DEFAULT_CAPACITY, DEFAULT_MAX_SESSION_SIZE);
+    }
+
+    /**
+     * Returns a cache backed by the given file. Creates the file (including
+     * parent directories) if necessary. If the file exists but was created
+     * with a different capacity or maximum session size, its contents are
+     * discarded. This cache should have exclusive access to the given file.
+     *
+     * @param file to store sessions in
+     * @param capacity maximum number of sessions, rounded up to a multiple of 8
+     * @param maxSessionSize maximum size in bytes of a single session's data;
+     *  larger sessions are not cached
+     * @return a cache backed by the given file
+     * @throws IOException if the file cannot be created or mapped
+     * @throws IllegalArgumentException if the requested size cannot be mapped
+     * @throws IllegalStateException if the file is already in use by a cache
+     *  with a different capacity or maximum session size
+     */
+    public static synchronized SSLClientSessionCache usingFile(
+            File file, int capacity, int maxSessionSize) throws IOException {
+        MappedFileClientSessionCache.Impl cache = caches.get(file);
+        if (cache == null) {
+            cache = new MappedFileClientSessionCache.Impl(file, capacity, maxSessionSize);
+            caches.put(file, cache);
+        } else if (cache.capacity != Impl.roundUpToMultiple(capacity, WAYS)
+                || cache.maxSessionSize != maxSessionSize) {
+            throw new IllegalStateException(
+                    file + " is already in use with a different capacity or session size.");
+        }
+        return cache;
+    }
+
+    /** For testing. */
+    static synchronized void reset() {
+        caches.clear();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import javax.crypto.Mac;
+
+/**
+ * Feeds regions of files to digests and MACs by memory-mapping them. Conscrypt's digests and
+ * MACs hash a mapped window straight from its pages in a single native call, so a file is
+ * neither copied into Java buffers nor crosses into native code more than once per window.
+ */
+final class MappedFileHasher {
+    /**
+     * Size of each mapped window. Large enough that the per-window cost is negligible, small
+     * enough to find address space for on 32-bit platforms.
+     */
+    static final long DEFAULT_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private MappedFileHasher() {}
+
+    private interface Sink {
+        void update(ByteBuffer window);
+    }
+
+    static void update(final MessageDigest digest, FileChannel channel, long position,
+            long length, long windowSize) throws IOException {
+        if (digest == null) {
+            throw new NullPointerException("digest == null");
+        }
+        update(new Sink() {
+            @Override
+            public void update(ByteBuffer window) {
+                digest.update(window);
+            }
+        }, channel, position, length, windowSize);
+    }
+
+    static void update(final Mac mac, FileChannel channel, long position, long length,
+            long windowSize) throws IOException {
+        if (mac == null) {
+            throw new NullPointerException("mac == null");
+        }
+        update(new Sink() {
+            @Override
+            public void update(ByteBuffer window) {
+                mac.update(window);
+            }
+        }, channel, position, length, windowSize);
+    }
+
+    private static void update(Sink sink, FileChannel channel, long position, long length,
+            long windowSize) throws IOException {
+        if (channel == null) {
+            throw new NullPointerException("channel == null");
+        }
+        if (position < 0) {
+            throw new IllegalArgumentException("position < 0");
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("length < 0");
+        }
+        if (windowSize <= 0 || windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("windowSize: " + windowSize);
+        }
+        if (position > channel.size() - length) {
+            throw new EOFException("Region ends after the end of the file");
+        }
+        long end = position + length;
+        for (long start = position; start < end; start += windowSize) {
+            sink.update(channel.map(
+                    FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, end - start)));
+        }
+    }
+}
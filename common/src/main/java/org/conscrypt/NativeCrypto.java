@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.SocketTimeoutException;
 import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
@@ -147,6 +148,29 @@ public final class NativeCrypto {
     static native void chacha20_encrypt_decrypt(byte[] in, int inOffset, byte[] out, int outOffset,
             int length, byte[] key, byte[] nonce, int blockCounter);
 
+    // --- AES key wrap -------------------
+
+    /**
+     * Wraps {@code inLength} bytes of {@code in} with AES key wrap (RFC 3394) and returns the
+     * number of bytes written to {@code out}. A {@code null} {@code iv} selects the default
+     * initial value.
+     */
+    static native int AES_wrap_key(byte[] key, byte[] iv, byte[] out, int outOffset, byte[] in,
+            int inOffset, int inLength) throws IllegalBlockSizeException;
+
+    static native int AES_unwrap_key(byte[] key, byte[] iv, byte[] out, int outOffset, byte[] in,
+            int inOffset, int inLength) throws BadPaddingException;
+
+    /**
+     * Like {@link #AES_wrap_key}, but with padding (RFC 5649), so any non-empty input can be
+     * wrapped.
+     */
+    static native int AES_wrap_key_padded(byte[] key, byte[] out, int outOffset, byte[] in,
+            int inOffset, int inLength) throws IllegalBlockSizeException;
+
+    static native int AES_unwrap_key_padded(byte[] key, byte[] out, int outOffset, byte[] in,
+            int inOffset, int inLength) throws BadPaddingException;
+
     // --- EC functions --------------------------
 
     static native long EVP_PKEY_new_EC_KEY(
@@ -231,6 +255,30 @@ public final class NativeCrypto {
 
     static native int EVP_DigestFinal_ex(NativeRef.EVP_MD_CTX ctx, byte[] hash, int offset);
 
+    /**
+     * Writes the digest of each of the {@code inLengths[i]} bytes at {@code inOffsets[i]} of
+     * {@code in} to {@code out}, back to back from {@code outOffset}.
+     */
+    static native void EVP_Digest_batch(long evpMdRef, byte[] in, int[] inOffsets,
+            int[] inLengths, byte[] out, int outOffset);
+
+    /**
+     * Like {@link #EVP_Digest_batch}, but reads input {@code i} from native address
+     * {@code inPtrs[i]}.
+     */
+    static native void EVP_Digest_batchDirect(long evpMdRef, long[] inPtrs, int[] inLengths,
+            byte[] out, int outOffset);
+
+    /**
+     * Like {@link #EVP_Digest_batch}, but each digest covers the data already hashed into
+     * {@code prefix} followed by the input. {@code prefix} itself is left unchanged.
+     */
+    static native void EVP_Digest_batchFromPrefix(NativeRef.EVP_MD_CTX prefix, byte[] in,
+            int[] inOffsets, int[] inLengths, byte[] out, int outOffset);
+
+    static native void EVP_Digest_batchFromPrefixDirect(NativeRef.EVP_MD_CTX prefix,
+            long[] inPtrs, int[] inLengths, byte[] out, int outOffset);
+
     // --- Signature handling functions ----------------------------------------
 
     static native long EVP_DigestSignInit(
@@ -294,9 +342,22 @@ public final class NativeCrypto {
     static native int EVP_CipherUpdate(NativeRef.EVP_CIPHER_CTX ctx, byte[] out, int outOffset,
             byte[] in, int inOffset, int inLength) throws IndexOutOfBoundsException;
 
+    static native int EVP_CipherUpdateDirect(NativeRef.EVP_CIPHER_CTX ctx, long outPtr, long inPtr,
+            int inLength);
+
+    static native int EVP_CipherUpdateRegion(NativeRef.EVP_CIPHER_CTX ctx, byte[] out,
+            int outOffset, byte[] in, int inOffset, int inLength)
+            throws IndexOutOfBoundsException;
+
     static native int EVP_CipherFinal_ex(NativeRef.EVP_CIPHER_CTX ctx, byte[] out, int outOffset)
             throws BadPaddingException, IllegalBlockSizeException;
 
+    static native int EVP_CipherFinal_exDirect(NativeRef.EVP_CIPHER_CTX ctx, long outPtr)
+            throws BadPaddingException, IllegalBlockSizeException;
+
+    static native void EVP_CipherUpdateAAD(NativeRef.EVP_CIPHER_CTX ctx, byte[] in, int inOffset,
+            int inLength) throws IndexOutOfBoundsException;
+
     static native int EVP_CIPHER_iv_length(long evpCipher);
 
     static native long EVP_CIPHER_CTX_new();
@@ -312,6 +373,13 @@ public final class NativeCrypto {
 
     static native void EVP_CIPHER_CTX_set_key_length(NativeRef.EVP_CIPHER_CTX ctx, int keyBitSize);
 
+    static native void EVP_CIPHER_CTX_set_aead_iv_length(NativeRef.EVP_CIPHER_CTX ctx,
+            int ivLength) throws InvalidAlgorithmParameterException;
+
+    static native byte[] EVP_CIPHER_CTX_get_aead_tag(NativeRef.EVP_CIPHER_CTX ctx, int tagLength);
+
+    static native void EVP_CIPHER_CTX_set_aead_tag(NativeRef.EVP_CIPHER_CTX ctx, byte[] tag);
+
     static native void EVP_CIPHER_CTX_free(long ctx);
 
     // --- AEAD ----------------------------------------------------------------
@@ -321,6 +389,12 @@ public final class NativeCrypto {
 
     static native long EVP_aead_chacha20_poly1305();
 
+    static native long EVP_aead_xchacha20_poly1305();
+
+    static native long EVP_aead_aes_128_gcm_siv();
+
+    static native long EVP_aead_aes_256_gcm_siv();
+
     static native int EVP_AEAD_max_overhead(long evpAead);
 
     static native int EVP_AEAD_nonce_length(long evpAead);
@@ -333,6 +407,40 @@ public final class NativeCrypto {
             int outOffset, byte[] nonce, byte[] in, int inOffset, int inLength, byte[] ad)
             throws ShortBufferException, BadPaddingException, IndexOutOfBoundsException;
 
+    static native long EVP_AEAD_CTX_new(long evpAead, byte[] key, int tagLengthInBytes);
+
+    static native void EVP_AEAD_CTX_free(long ctx);
+
+    static native int EVP_AEAD_CTX_seal_with_ctx(NativeRef.EVP_AEAD_CTX ctx, byte[] out,
+            int outOffset, byte[] nonce, byte[] in, int inOffset, int inLength, byte[] ad,
+            int adOffset, int adLength)
+            throws ShortBufferException, BadPaddingException, IndexOutOfBoundsException;
+
+    static native int EVP_AEAD_CTX_open_with_ctx(NativeRef.EVP_AEAD_CTX ctx, byte[] out,
+            int outOffset, byte[] nonce, byte[] in, int inOffset, int inLength, byte[] ad,
+            int adOffset, int adLength)
+            throws ShortBufferException, BadPaddingException, IndexOutOfBoundsException;
+
+    static native int EVP_AEAD_CTX_sealDirect(NativeRef.EVP_AEAD_CTX ctx, long outPtr,
+            int outLength, byte[] nonce, long inPtr, int inLength, byte[] ad,
+            int adLength)
+            throws ShortBufferException, BadPaddingException;
+
+    static native int EVP_AEAD_CTX_openDirect(NativeRef.EVP_AEAD_CTX ctx, long outPtr,
+            int outLength, byte[] nonce, long inPtr, int inLength, byte[] ad,
+            int adLength)
+            throws ShortBufferException, BadPaddingException;
+
+    static native int EVP_AEAD_CTX_seal_batch(NativeRef.EVP_AEAD_CTX ctx, int nonceLength,
+            byte[] nonces, byte[] in, int[] inOffsets, int[] inLengths, byte[] aad,
+            int[] aadOffsets, int[] aadLengths, byte[] out, int outOffset, int[] outLengths)
+            throws ShortBufferException;
+
+    static native int EVP_AEAD_CTX_open_batch(NativeRef.EVP_AEAD_CTX ctx, int nonceLength,
+            byte[] nonces, byte[] in, int[] inOffsets, int[] inLengths, byte[] aad,
+            int[] aadOffsets, int[] aadLengths, byte[] out, int outOffset, int[] outLengths)
+            throws ShortBufferException;
+
     // --- HMAC functions ------------------------------------------------------
 
     static native long HMAC_CTX_new();
@@ -341,16 +449,121 @@ public final class NativeCrypto {
 
     static native void HMAC_Init_ex(NativeRef.HMAC_CTX ctx, byte[] key, long evp_md);
 
+    /**
+     * Restores {@code ctx} to its state just after the last {@link #HMAC_Init_ex} call, reusing
+     * the already hashed key.
+     */
+    static native void HMAC_Reset(NativeRef.HMAC_CTX ctx);
+
+    static native void HMAC_CTX_copy(NativeRef.HMAC_CTX dst, NativeRef.HMAC_CTX src);
+
     static native void HMAC_Update(NativeRef.HMAC_CTX ctx, byte[] in, int inOffset, int inLength);
 
     static native void HMAC_UpdateDirect(NativeRef.HMAC_CTX ctx, long inPtr, int inLength);
 
     static native byte[] HMAC_Final(NativeRef.HMAC_CTX ctx);
 
+    /**
+     * Like {@link #EVP_Digest_batch}, but computes HMACs under the key {@code ctx} was
+     * initialized with. {@code ctx} itself is left unchanged.
+     */
+    static native void HMAC_batch(NativeRef.HMAC_CTX ctx, byte[] in, int[] inOffsets,
+            int[] inLengths, byte[] out, int outOffset);
+
+    static native void HMAC_batchDirect(NativeRef.HMAC_CTX ctx, long[] inPtrs, int[] inLengths,
+            byte[] out, int outOffset);
+
+    // --- CMAC functions ------------------------------------------------------
+
+    static native long CMAC_CTX_new();
+
+    static native void CMAC_CTX_free(long ctx);
+
+    /**
+     * Initializes {@code ctx} for AES-CMAC with {@code key}, which selects AES-128, AES-192 or
+     * AES-256 by its length.
+     */
+    static native void CMAC_Init(NativeRef.CMAC_CTX ctx, byte[] key) throws InvalidKeyException;
+
+    static native void CMAC_Reset(NativeRef.CMAC_CTX ctx);
+
+    static native void CMAC_CTX_copy(NativeRef.CMAC_CTX dst, NativeRef.CMAC_CTX src);
+
+    static native void CMAC_Update(NativeRef.CMAC_CTX ctx, byte[] in, int inOffset, int inLength);
+
+    static native void CMAC_UpdateDirect(NativeRef.CMAC_CTX ctx, long inPtr, int inLength);
+
+    static native byte[] CMAC_Final(NativeRef.CMAC_CTX ctx);
+
+    // --- Poly1305 functions --------------------------------------------------
+
+    static native long Poly1305_new();
+
+    static native void Poly1305_free(long state);
+
+    static native void Poly1305_init(NativeRef.POLY1305_STATE state, byte[] key);
+
+    static native void Poly1305_update(NativeRef.POLY1305_STATE state, byte[] in, int inOffset,
+            int inLength);
+
+    static native void Poly1305_updateDirect(NativeRef.POLY1305_STATE state, long inPtr,
+            int inLength);
+
+    static native byte[] Poly1305_finish(NativeRef.POLY1305_STATE state);
+
+    // --- HKDF ----------------------------------------------------------------
+
+    /**
+     * Derives {@code outLength} bytes into {@code out} at {@code outOffset} from
+     * {@code secret} with HKDF (RFC 5869) over {@code evpMdRef}. A null {@code salt} or
+     * {@code info} is treated as empty.
+     */
+    static native void HKDF(long evpMdRef, byte[] secret, byte[] salt, byte[] info, byte[] out,
+            int outOffset, int outLength);
+
+    /**
+     * Writes the HKDF pseudorandom key for {@code secret} and {@code salt} into {@code out}
+     * at {@code outOffset} and returns its length, the digest size of {@code evpMdRef}.
+     */
+    static native int HKDF_extract(long evpMdRef, byte[] secret, byte[] salt, byte[] out,
+            int outOffset);
+
+    static native void HKDF_expand(long evpMdRef, byte[] prk, byte[] info, byte[] out,
+            int outOffset, int outLength);
+
+    // --- PBKDF2 --------------------------------------------------------------
+
+    /**
+     * Fills {@code out} with the PBKDF2 (RFC 8018) derivation of {@code password} and
+     * {@code salt} over HMAC with {@code evpMdRef}.
+     */
+    static native void PKCS5_PBKDF2_HMAC(long evpMdRef, byte[] password, byte[] salt,
+            int iterations, byte[] out);
+
     // --- RAND ----------------------------------------------------------------
 
     static native void RAND_bytes(byte[] output);
 
+    static native void RAND_bytesDirect(long outPtr, int length);
+
+    /**
+     * Returns whether the platform can zero memory in the child of a fork, as needed by
+     * {@link #RAND_newForkSafeBuffer}.
+     */
+    static native boolean RAND_forkSafeBuffersSupported();
+
+    /**
+     * Returns a direct buffer over {@code size} bytes of native memory that is zeroed in the
+     * child of a fork, or {@code null} if the platform doesn't support that or the memory could
+     * not be allocated. It must be released with {@link #RAND_freeForkSafeBuffer}.
+     */
+    static native ByteBuffer RAND_newForkSafeBuffer(int size);
+
+    /**
+     * Zeroes and releases a buffer returned by {@link #RAND_newForkSafeBuffer}.
+     */
+    static native void RAND_freeForkSafeBuffer(long address, int size);
+
     // --- X509_NAME -----------------------------------------------------------
 
     static int X509_NAME_hash(X500Principal principal) {
@@ -883,6 +1096,19 @@ public final class NativeCrypto {
 
     static native long SSL_CTX_set_timeout(long ssl_ctx, AbstractSessionContext holder, long seconds);
 
+    static native void SSL_CTX_set_session_cache_mode(
+            long ssl_ctx, AbstractSessionContext holder, int mode);
+
+    /**
+     * Replaces the session ticket keys of the context. {@code keys} holds one or more
+     * concatenated keys of {@code keyLength} bytes (48 or 80); the first encrypts new tickets
+     * and all of them are accepted for decryption. If {@code retainCurrent} is set, the key
+     * that was current before the call is kept after the new keys for decryption, unless it has
+     * the same name as one of them; if it is identical to the first new key nothing changes.
+     */
+    static native void SSL_CTX_set_ticket_keys(long ssl_ctx, AbstractSessionContext holder,
+            byte[] keys, int keyLength, boolean retainCurrent);
+
     static native long SSL_new(long ssl_ctx, AbstractSessionContext holder) throws SSLException;
 
     static native void SSL_enable_tls_channel_id(long ssl, NativeSsl ssl_holder) throws SSLException;
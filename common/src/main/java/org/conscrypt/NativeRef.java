@@ -80,6 +80,17 @@ abstract class NativeRef {
         }
     }
 
+    static final class EVP_AEAD_CTX extends NativeRef {
+        EVP_AEAD_CTX(long nativePointer) {
+            super(nativePointer);
+        }
+
+        @Override
+        void doFree(long context) {
+            NativeCrypto.EVP_AEAD_CTX_free(context);
+        }
+    }
+
     static final class EVP_CIPHER_CTX extends NativeRef {
         EVP_CIPHER_CTX(long nativePointer) {
             super(nativePointer);
@@ -135,6 +146,28 @@ abstract class NativeRef {
         }
     }
 
+    static final class CMAC_CTX extends NativeRef {
+        CMAC_CTX(long nativePointer) {
+            super(nativePointer);
+        }
+
+        @Override
+        void doFree(long context) {
+            NativeCrypto.CMAC_CTX_free(context);
+        }
+    }
+
+    static final class POLY1305_STATE extends NativeRef {
+        POLY1305_STATE(long nativePointer) {
+            super(nativePointer);
+        }
+
+        @Override
+        void doFree(long context) {
+            NativeCrypto.Poly1305_free(context);
+        }
+    }
+
     static final class SSL_SESSION extends NativeRef {
         SSL_SESSION(long nativePointer) {
             super(nativePointer);
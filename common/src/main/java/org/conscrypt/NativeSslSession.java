@@ -162,6 +162,23 @@ abstract class NativeSslSession {
         }
     }
 
+    /**
+     * Creates a new server session from the DER encoding of an {@code SSL_SESSION}, as
+     * returned by {@link #toSslSessionBytes()}.
+     *
+     * @return The new instance if successful, otherwise {@code null}.
+     */
+    static NativeSslSession newServerInstance(AbstractSessionContext context, byte[] data) {
+        try {
+            NativeRef.SSL_SESSION ref =
+                    new NativeRef.SSL_SESSION(NativeCrypto.d2i_SSL_SESSION(data));
+            return new Impl(context, ref, null, -1, null, null, null);
+        } catch (IOException e) {
+            log(e);
+            return null;
+        }
+    }
+
     abstract byte[] getId();
 
     abstract boolean isValid();
@@ -205,6 +222,19 @@ abstract class NativeSslSession {
      */
     abstract byte[] toBytes();
 
+    /**
+     * Returns the DER encoding of the underlying {@code SSL_SESSION} only, without the peer
+     * information added by {@link #toBytes()}.
+     */
+    abstract byte[] toSslSessionBytes();
+
+    /**
+     * Takes a new reference to the underlying {@code SSL_SESSION} and returns its address. The
+     * caller owns the new reference, e.g. when handing the session to BoringSSL's session
+     * lookup callback.
+     */
+    abstract long upRef();
+
     /**
      * Converts this object to a {@link SSLSession}. The returned session will support only a
      * subset of the {@link SSLSession} API.
@@ -352,6 +382,17 @@ abstract class NativeSslSession {
             }
         }
 
+        @Override
+        byte[] toSslSessionBytes() {
+            return NativeCrypto.i2d_SSL_SESSION(ref.address);
+        }
+
+        @Override
+        long upRef() {
+            NativeCrypto.SSL_SESSION_up_ref(ref.address);
+            return ref.address;
+        }
+
         @Override
         SSLSession toSSLSession() {
             return new SSLSession() {
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stores serialized sessions keyed by session ID in direct (off-heap) memory, so that a very
+ * large server cache costs a handful of Java objects rather than one finalizable object per
+ * session.
+ *
+ * <p>The store is a fixed-size hash table of {@link #WAYS}-slot buckets spread over one or
+ * more direct buffer slabs. Each session ID hashes to one bucket; when the bucket is full its
+ * least-recently-used slot is overwritten. Buckets never span slabs, and each slab is guarded
+ * by its own lock so lookups for different slabs do not contend.
+ */
+final class OffHeapSessionStore {
+    /** Number of slots in each hash bucket. */
+    static final int WAYS = 8;
+
+    /** Maximum session ID length, from {@code SSL_MAX_SSL_SESSION_ID_LENGTH}. */
+    static final int MAX_ID_LENGTH = 32;
+
+    /** Upper bound on the size of a single slab. */
+    private static final int MAX_SLAB_SIZE = 1 << 30;
+
+    // Slot layout: state, ID hash, last access, ID length, data length, ID, data.
+    private static final int SLOT_STATE_OFFSET = 0;
+    private static final int SLOT_HASH_OFFSET = 4;
+    private static final int SLOT_ACCESS_OFFSET = 8;
+    private static final int SLOT_ID_LENGTH_OFFSET = 16;
+    private static final int SLOT_DATA_LENGTH_OFFSET = 20;
+    private static final int SLOT_ID_OFFSET = 24;
+    private static final int SLOT_DATA_OFFSET = SLOT_ID_OFFSET + MAX_ID_LENGTH;
+
+    private static final int SLOT_EMPTY = 0;
+    private static final int SLOT_USED = 1;
+
+    private final int maxSessionSize;
+    private final int slotSize;
+    private final int buckets;
+    private final int bucketsPerSlab;
+    private final ByteBuffer[] slabs;
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * Allocates a store for {@code capacity} sessions (rounded up to a multiple of
+     * {@link #WAYS}) of up to {@code maxSessionSize} bytes each.
+     */
+    OffHeapSessionStore(int capacity, int maxSessionSize) {
+        if (capacity < WAYS) {
+            throw new IllegalArgumentException("capacity < " + WAYS);
+        }
+        if (maxSessionSize <= 0) {
+            throw new IllegalArgumentException("maxSessionSize <= 0");
+        }
+        this.maxSessionSize = maxSessionSize;
+        this.slotSize = ((SLOT_DATA_OFFSET + maxSessionSize + 7) / 8) * 8;
+        if ((long) slotSize * WAYS > MAX_SLAB_SIZE) {
+            throw new IllegalArgumentException("maxSessionSize too large: " + maxSessionSize);
+        }
+        this.buckets = (capacity + WAYS - 1) / WAYS;
+        this.bucketsPerSlab = Math.min(buckets, MAX_SLAB_SIZE / (slotSize * WAYS));
+
+        int slabCount = (buckets + bucketsPerSlab - 1) / bucketsPerSlab;
+        slabs = new ByteBuffer[slabCount];
+        for (int i = 0; i < slabCount; i++) {
+            int slabBuckets = Math.min(bucketsPerSlab, buckets - i * bucketsPerSlab);
+            // Direct buffers are zero-filled, so every slot starts out as SLOT_EMPTY.
+            slabs[i] = ByteBuffer.allocateDirect(slabBuckets * WAYS * slotSize);
+        }
+    }
+
+    /** Returns the number of slots in the store. */
+    int capacity() {
+        return buckets * WAYS;
+    }
+
+    /** Returns the largest session, in bytes, that {@link #put} will store. */
+    int maxSessionSize() {
+        return maxSessionSize;
+    }
+
+    private static int hash(byte[] id) {
+        int h = 1;
+        for (byte b : id) {
+            h = 31 * h + b;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private int bucket(int hash) {
+        return (hash & Integer.MAX_VALUE) % buckets;
+    }
+
+    private ByteBuffer slab(int bucket) {
+        return slabs[bucket / bucketsPerSlab];
+    }
+
+    private int firstSlotOffset(int bucket) {
+        return (bucket % bucketsPerSlab) * WAYS * slotSize;
+    }
+
+    /**
+     * Returns the offset within {@code slab} of the slot holding {@code id}, or -1. Must be
+     * called with the slab's lock held.
+     */
+    private int find(ByteBuffer slab, int first, byte[] id, int hash) {
+        for (int i = 0, offset = first; i < WAYS; i++, offset += slotSize) {
+            if (slab.getInt(offset + SLOT_STATE_OFFSET) == SLOT_USED
+                    && slab.getInt(offset + SLOT_HASH_OFFSET) == hash
+                    && idEquals(slab, offset, id)) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean idEquals(ByteBuffer slab, int offset, byte[] id) {
+        if (slab.getInt(offset + SLOT_ID_LENGTH_OFFSET) != id.length) {
+            return false;
+        }
+        for (int i = 0; i < id.length; i++) {
+            if (slab.get(offset + SLOT_ID_OFFSET + i) != id[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the serialized session stored under {@code id}, or {@code null}.
+     */
+    byte[] get(byte[] id) {
+        if (id == null) {
+            throw new NullPointerException("id == null");
+        }
+        int hash = hash(id);
+        int bucket = bucket(hash);
+        ByteBuffer slab = slab(bucket);
+        synchronized (slab) {
+            int offset = find(slab, firstSlotOffset(bucket), id, hash);
+            if (offset < 0) {
+                return null;
+            }
+            byte[] data = new byte[slab.getInt(offset + SLOT_DATA_LENGTH_OFFSET)];
+            ByteBuffer contents = slab.duplicate();
+            contents.position(offset + SLOT_DATA_OFFSET);
+            contents.get(data);
+            slab.putLong(offset + SLOT_ACCESS_OFFSET, clock.incrementAndGet());
+            return data;
+        }
+    }
+
+    /**
+     * Stores {@code data} under {@code id}, replacing any previous value. Returns {@code false}
+     * without storing anything if the ID or data is too large.
+     */
+    boolean put(byte[] id, byte[] data) {
+        if (id == null) {
+            throw new NullPointerException("id == null");
+        }
+        if (data == null) {
+            throw new NullPointerException("data == null");
+        }
+        if (id.length > MAX_ID_LENGTH || data.length > maxSessionSize) {
+            return false;
+        }
+        int hash = hash(id);
+        int bucket = bucket(hash);
+        ByteBuffer slab = slab(bucket);
+        synchronized (slab) {
+            int first = firstSlotOffset(bucket);
+            int offset = find(slab, first, id, hash);
+            if (offset < 0) {
+                offset = victim(slab, first);
+            }
+            slab.putInt(offset + SLOT_STATE_OFFSET, SLOT_USED);
+            slab.putInt(offset + SLOT_HASH_OFFSET, hash);
+            slab.putLong(offset + SLOT_ACCESS_OFFSET, clock.incrementAndGet());
+            slab.putInt(offset + SLOT_ID_LENGTH_OFFSET, id.length);
+            slab.putInt(offset + SLOT_DATA_LENGTH_OFFSET, data.length);
+            ByteBuffer contents = slab.duplicate();
+            contents.position(offset + SLOT_ID_OFFSET);
+            contents.put(id);
+            contents.position(offset + SLOT_DATA_OFFSET);
+            contents.put(data);
+            return true;
+        }
+    }
+
+    /**
+     * Returns the offset of an empty slot in the bucket starting at {@code first}, or of the
+     * least-recently-used slot if the bucket is full.
+     */
+    private int victim(ByteBuffer slab, int first) {
+        int victim = first;
+        long oldest = Long.MAX_VALUE;
+        for (int i = 0, offset = first; i < WAYS; i++, offset += slotSize) {
+            if (slab.getInt(offset + SLOT_STATE_OFFSET) != SLOT_USED) {
+                return offset;
+            }
+            long lastAccess = slab.getLong(offset + SLOT_ACCESS_OFFSET);
+            if (lastAccess < oldest) {
+                oldest = lastAccess;
+                victim = offset;
+            }
+        }
+        return victim;
+    }
+
+    /**
+     * Removes the session stored under {@code id}, if any.
+     */
+    void remove(byte[] id) {
+        if (id == null) {
+            throw new NullPointerException("id == null");
+        }
+        int hash = hash(id);
+        int bucket = bucket(hash);
+        ByteBuffer slab = slab(bucket);
+        synchronized (slab) {
+            int offset = find(slab, firstSlotOffset(bucket), id, hash);
+            if (offset >= 0) {
+                slab.putInt(offset + SLOT_STATE_OFFSET, SLOT_EMPTY);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of stored sessions. This walks every slot and is meant for tests and
+     * diagnostics.
+     */
+    int size() {
+        int size = 0;
+        for (ByteBuffer slab : slabs) {
+            synchronized (slab) {
+                for (int offset = 0; offset < slab.capacity(); offset += slotSize) {
+                    if (slab.getInt(offset + SLOT_STATE_OFFSET) == SLOT_USED) {
+                        size++;
+                    }
+                }
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.spec.AlgorithmParameterSpec;
+import javax.crypto.MacSpi;
+import javax.crypto.SecretKey;
+
+/**
+ * AES-CMAC (RFC 4493, NIST SP 800-38B) using BoringSSL's CMAC implementation. The key length
+ * selects AES-128, AES-192 or AES-256.
+ */
+@Internal
+public final class OpenSSLAesCmac extends MacSpi implements Cloneable {
+    private static final int MAC_LENGTH = 16;
+
+    /**
+     * The native context, created on the first {@code engineInit} and kept for the lifetime of
+     * this instance.
+     */
+    private NativeRef.CMAC_CTX ctx;
+
+    /**
+     * Whether {@link #ctx} has been initialized with a key.
+     */
+    private boolean initialized;
+
+    /**
+     * Holds a dummy buffer for writing single bytes to the MAC.
+     */
+    private byte[] singleByte = new byte[1];
+
+    public OpenSSLAesCmac() {}
+
+    @Override
+    protected int engineGetMacLength() {
+        return MAC_LENGTH;
+    }
+
+    @Override
+    protected void engineInit(Key key, AlgorithmParameterSpec params) throws InvalidKeyException,
+            InvalidAlgorithmParameterException {
+        if (!(key instanceof SecretKey)) {
+            throw new InvalidKeyException("key must be a SecretKey");
+        }
+        if (params != null) {
+            throw new InvalidAlgorithmParameterException("unknown parameter type");
+        }
+        byte[] keyBytes = key.getEncoded();
+        if (keyBytes == null) {
+            throw new InvalidKeyException("key cannot be encoded");
+        }
+        if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
+            throw new InvalidKeyException("Unsupported key size: " + keyBytes.length + " bytes");
+        }
+
+        if (ctx == null) {
+            ctx = new NativeRef.CMAC_CTX(NativeCrypto.CMAC_CTX_new());
+        }
+        initialized = false;
+        NativeCrypto.CMAC_Init(ctx, keyBytes);
+        initialized = true;
+    }
+
+    private void resetContext() {
+        if (initialized) {
+            NativeCrypto.CMAC_Reset(ctx);
+        }
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        singleByte[0] = input;
+        engineUpdate(singleByte, 0, 1);
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        NativeCrypto.CMAC_Update(ctx, input, offset, len);
+    }
+
+    @Override
+    protected void engineUpdate(ByteBuffer input) {
+        // Optimization: Avoid copying/allocation for direct buffers because their contents are
+        // stored as a contiguous region in memory and thus can be efficiently accessed from native
+        // code.
+
+        if (!input.hasRemaining()) {
+            return;
+        }
+
+        if (!input.isDirect()) {
+            super.engineUpdate(input);
+            return;
+        }
+
+        long baseAddress = NativeCrypto.getDirectBufferAddress(input);
+        if (baseAddress == 0) {
+            // Direct buffer's contents can't be accessed from JNI  -- superclass's implementation
+            // is good enough to handle this.
+            super.engineUpdate(input);
+            return;
+        }
+
+        int position = input.position();
+        int len = input.remaining();
+        NativeCrypto.CMAC_UpdateDirect(ctx, baseAddress + position, len);
+        input.position(position + len);
+    }
+
+    @Override
+    protected byte[] engineDoFinal() {
+        final byte[] output = NativeCrypto.CMAC_Final(ctx);
+        resetContext();
+        return output;
+    }
+
+    @Override
+    protected void engineReset() {
+        resetContext();
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        OpenSSLAesCmac clone = (OpenSSLAesCmac) super.clone();
+        clone.singleByte = new byte[1];
+        if (ctx != null) {
+            clone.ctx = new NativeRef.CMAC_CTX(NativeCrypto.CMAC_CTX_new());
+            if (initialized) {
+                NativeCrypto.CMAC_CTX_copy(clone.ctx, ctx);
+            }
+        }
+        return clone;
+    }
+}
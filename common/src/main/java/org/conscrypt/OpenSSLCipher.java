@@ -60,6 +60,9 @@ public abstract class OpenSSLCipher extends CipherSpi {
         CTR,
         ECB,
         GCM,
+        GCM_SIV,
+        KW,
+        KWP,
         POLY1305,
     }
 
@@ -150,6 +153,15 @@ public abstract class OpenSSLCipher extends CipherSpi {
     abstract int doFinalInternal(byte[] output, int outputOffset, int maximumLen)
             throws IllegalBlockSizeException, BadPaddingException, ShortBufferException;
 
+    /**
+     * Whether native code may process direct buffers with the output at the same address as
+     * the input in the cipher's current state. Only consulted by ciphers that override the
+     * {@code ByteBuffer} methods to pass direct buffers to native code by address.
+     */
+    boolean supportsDirectInPlace() {
+        return false;
+    }
+
     /**
      * Returns the standard name for the particular algorithm.
      */
@@ -187,7 +199,7 @@ public abstract class OpenSSLCipher extends CipherSpi {
     protected void engineSetMode(String modeStr) throws NoSuchAlgorithmException {
         final Mode mode;
         try {
-            mode = Mode.valueOf(modeStr.toUpperCase(Locale.US));
+            mode = Mode.valueOf(modeStr.toUpperCase(Locale.US).replace('-', '_'));
         } catch (IllegalArgumentException e) {
             NoSuchAlgorithmException newE = new NoSuchAlgorithmException("No such mode: " + modeStr);
             newE.initCause(e);
@@ -397,6 +409,72 @@ public abstract class OpenSSLCipher extends CipherSpi {
         return bytesWritten + doFinalInternal(output, outputOffset, maximumLen);
     }
 
+    /**
+     * Returns whether {@code input} and {@code output} can be passed to native code by address.
+     * The output may start at the same address as the input if the cipher allows it, but must
+     * not otherwise overlap it.
+     */
+    final boolean canUseDirect(ByteBuffer input, ByteBuffer output) {
+        if (input == null || output == null || !input.isDirect() || !output.isDirect()
+                || output.isReadOnly()) {
+            return false;
+        }
+        long inputPtr = directAddress(input);
+        long outputPtr = directAddress(output);
+        if (inputPtr == 0 || outputPtr == 0) {
+            // The buffers' contents can't be accessed from JNI -- the superclass's implementation
+            // is good enough to handle this.
+            return false;
+        }
+        if (inputPtr == outputPtr) {
+            return supportsDirectInPlace();
+        }
+        return inputPtr + input.remaining() <= outputPtr
+                || outputPtr + output.remaining() <= inputPtr;
+    }
+
+    /**
+     * Finishes an operation whose input and output are in native memory.
+     */
+    interface DirectFinal {
+        /**
+         * Like {@link #updateInternal} followed by {@link #doFinalInternal}, but reads
+         * {@code inputLen} bytes from native address {@code inputPtr} and writes to native
+         * address {@code outputPtr}, which has room for at least {@code maximumLen} bytes.
+         */
+        int doFinal(long inputPtr, int inputLen, long outputPtr, int maximumLen)
+                throws ShortBufferException, IllegalBlockSizeException, BadPaddingException;
+    }
+
+    /**
+     * Implements {@link #engineDoFinal(ByteBuffer, ByteBuffer)} with {@code op} for buffers that
+     * {@link #canUseDirect} accepted.
+     */
+    final int doFinalDirect(ByteBuffer input, ByteBuffer output, DirectFinal op)
+            throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+        final int inputLen = input.remaining();
+        final int maximumLen = getOutputSizeForFinal(inputLen);
+        checkDirectOutputSpace(output, maximumLen);
+        final int bytesWritten =
+                op.doFinal(directAddress(input), inputLen, directAddress(output), maximumLen);
+        input.position(input.limit());
+        output.position(output.position() + bytesWritten);
+        return bytesWritten;
+    }
+
+    static long directAddress(ByteBuffer buffer) {
+        long baseAddress = NativeCrypto.getDirectBufferAddress(buffer);
+        return baseAddress == 0 ? 0 : baseAddress + buffer.position();
+    }
+
+    static void checkDirectOutputSpace(ByteBuffer output, int maximumLen)
+            throws ShortBufferException {
+        if (output.remaining() < maximumLen) {
+            throw new ShortBufferException("Need at least " + maximumLen
+                    + " bytes of space in output buffer");
+        }
+    }
+
     @Override
     protected byte[] engineWrap(Key key) throws IllegalBlockSizeException, InvalidKeyException {
         try {
@@ -474,6 +552,20 @@ public abstract class OpenSSLCipher extends CipherSpi {
         return encrypting;
     }
 
+    /** Constant-time array comparison.  Since we are using this to compare keys, we want to
+     * ensure there's no opportunity for a timing attack. */
+    static boolean arraysAreEqual(byte[] a, byte[] b) {
+        if (a.length != b.length) {
+            return false;
+        }
+
+        int diff = 0;
+        for (int i = 0; i < a.length; i++) {
+            diff |= a[i] ^ b[i];
+        }
+        return diff == 0;
+    }
+
     public static abstract class EVP_CIPHER extends OpenSSLCipher {
         /**
          * Native pointer for the OpenSSL EVP_CIPHER context.
@@ -493,6 +585,23 @@ public abstract class OpenSSLCipher extends CipherSpi {
          */
         private int modeBlockSize;
 
+        /**
+         * The OpenSSL cipher the context was initialized with.
+         */
+        private long evpCipher;
+
+        /**
+         * The key and direction the context's key schedule was set up for.
+         */
+        private byte[] ctxKey;
+        private boolean ctxEncrypting;
+
+        /**
+         * Number of bytes processed since the IV was last set, used to locate the counter
+         * when CTR mode input is split across threads.
+         */
+        private long ctrPosition;
+
         public EVP_CIPHER(Mode mode, Padding padding) {
             super(mode, padding);
         }
@@ -540,21 +649,101 @@ public abstract class OpenSSLCipher extends CipherSpi {
 
             this.iv = iv;
 
-            if (supportsVariableSizeKey()) {
-                NativeCrypto.EVP_CipherInit_ex(cipherCtx, cipherType, null, null, encrypting);
-                NativeCrypto.EVP_CIPHER_CTX_set_key_length(cipherCtx, encodedKey.length);
-                NativeCrypto.EVP_CipherInit_ex(cipherCtx, 0, encodedKey, iv, isEncrypting());
+            if (canKeepKeySchedule(cipherType, encodedKey, encrypting)) {
+                // Only the IV changed, so skip key expansion.
+                NativeCrypto.EVP_CipherInit_ex(cipherCtx, 0, null, iv, encrypting);
             } else {
-                NativeCrypto.EVP_CipherInit_ex(cipherCtx, cipherType, encodedKey, iv, encrypting);
+                // Forget the old key first in case initialization fails part way.
+                ctxKey = null;
+                if (supportsVariableSizeKey()) {
+                    NativeCrypto.EVP_CipherInit_ex(cipherCtx, cipherType, null, null, encrypting);
+                    NativeCrypto.EVP_CIPHER_CTX_set_key_length(cipherCtx, encodedKey.length);
+                    NativeCrypto.EVP_CipherInit_ex(cipherCtx, 0, encodedKey, iv, isEncrypting());
+                } else {
+                    NativeCrypto.EVP_CipherInit_ex(
+                            cipherCtx, cipherType, encodedKey, iv, encrypting);
+                }
             }
+            ctxKey = encodedKey;
+            ctxEncrypting = encrypting;
 
             // OpenSSL only supports PKCS5 Padding.
             NativeCrypto
                     .EVP_CIPHER_CTX_set_padding(cipherCtx, getPadding() == Padding.PKCS5PADDING);
             modeBlockSize = NativeCrypto.EVP_CIPHER_CTX_block_size(cipherCtx);
+            evpCipher = cipherType;
+            ctrPosition = 0;
             calledUpdate = false;
         }
 
+        /**
+         * Returns whether the context already holds the key schedule for {@code key} in the
+         * given direction, so that re-initializing it only needs the new IV.
+         */
+        private boolean canKeepKeySchedule(long cipherType, byte[] key, boolean encrypting) {
+            // ARC4, the only cipher with a variable-size key, keeps its stream position in the
+            // key schedule, so it must always be rekeyed.
+            return !supportsVariableSizeKey() && ctxKey != null && evpCipher == cipherType
+                    && ctxEncrypting == encrypting && arraysAreEqual(ctxKey, key);
+        }
+
+        /**
+         * Returns whether this cipher is a CTR mode cipher with 16-byte blocks whose large
+         * updates may be split across threads by {@link ParallelCtr}.
+         */
+        boolean supportsParallelCtr() {
+            return false;
+        }
+
+        private boolean shouldProcessInParallel(int inputLen) {
+            return supportsParallelCtr() && ParallelCtr.shouldProcess(inputLen);
+        }
+
+        /**
+         * Processes an update in CTR mode, sending its block-aligned middle to
+         * {@link ParallelCtr} and the unaligned head and tail through the context, which is
+         * then moved past the part processed elsewhere.
+         */
+        private int updateParallelCtr(byte[] input, int inputOffset, int inputLen,
+                byte[] output, int outputOffset, long inputPtr, long outputPtr) {
+            final int blockSize = ParallelCtr.BLOCK_SIZE;
+            final int head = (int) ((blockSize - ctrPosition % blockSize) % blockSize);
+            final int middle = (inputLen - head) / blockSize * blockSize;
+            final int tail = inputLen - head - middle;
+            final long firstBlock = (ctrPosition + head) / blockSize;
+            final boolean direct = input == null;
+
+            if (head > 0) {
+                updateContext(input, inputOffset, output, outputOffset, inputPtr, outputPtr, 0,
+                        head);
+            }
+            if (direct) {
+                ParallelCtr.processDirect(evpCipher, encodedKey, iv, firstBlock, isEncrypting(),
+                        inputPtr + head, outputPtr + head, middle);
+            } else {
+                ParallelCtr.process(evpCipher, encodedKey, iv, firstBlock, isEncrypting(), input,
+                        inputOffset + head, output, outputOffset + head, middle);
+            }
+            NativeCrypto.EVP_CipherInit_ex(cipherCtx, 0, null,
+                    ParallelCtr.counterAt(iv, firstBlock + middle / blockSize), isEncrypting());
+            if (tail > 0) {
+                updateContext(input, inputOffset, output, outputOffset, inputPtr, outputPtr,
+                        head + middle, tail);
+            }
+            return inputLen;
+        }
+
+        private void updateContext(byte[] input, int inputOffset, byte[] output,
+                int outputOffset, long inputPtr, long outputPtr, int start, int length) {
+            if (input == null) {
+                NativeCrypto.EVP_CipherUpdateDirect(
+                        cipherCtx, outputPtr + start, inputPtr + start, length);
+            } else {
+                NativeCrypto.EVP_CipherUpdate(cipherCtx, output, outputOffset + start, input,
+                        inputOffset + start, length);
+            }
+        }
+
         @Override
         int updateInternal(byte[] input, int inputOffset, int inputLen, byte[] output,
                 int outputOffset, int maximumLen) throws ShortBufferException {
@@ -566,8 +755,17 @@ public abstract class OpenSSLCipher extends CipherSpi {
                         + bytesLeft + " < " + maximumLen);
             }
 
-            outputOffset += NativeCrypto.EVP_CipherUpdate(cipherCtx, output, outputOffset, input,
-                    inputOffset, inputLen);
+            // Parallel chunks read and write their own regions, so partially overlapping input
+            // and output would let one chunk clobber another's input.
+            if (shouldProcessInParallel(inputLen)
+                    && (input != output || inputOffset == outputOffset)) {
+                outputOffset += updateParallelCtr(
+                        input, inputOffset, inputLen, output, outputOffset, 0, 0);
+            } else {
+                outputOffset += NativeCrypto.EVP_CipherUpdate(cipherCtx, output, outputOffset,
+                        input, inputOffset, inputLen);
+            }
+            ctrPosition += inputLen;
 
             calledUpdate = true;
 
@@ -610,6 +808,92 @@ public abstract class OpenSSLCipher extends CipherSpi {
             return outputOffset - initialOutputOffset;
         }
 
+        @Override
+        protected int engineUpdate(ByteBuffer input, ByteBuffer output)
+                throws ShortBufferException {
+            // Optimization: Avoid copying to and from temporary arrays when both buffers are
+            // direct, since their contents can be accessed from native code in place.
+            if (!canUseDirect(input, output)) {
+                return super.engineUpdate(input, output);
+            }
+
+            final int inputLen = input.remaining();
+            final int maximumLen = getOutputSizeForUpdate(inputLen);
+            checkDirectOutputSpace(output, maximumLen);
+            final int bytesWritten = updateInternalDirect(directAddress(input), inputLen,
+                    directAddress(output), maximumLen);
+            input.position(input.limit());
+            output.position(output.position() + bytesWritten);
+            return bytesWritten;
+        }
+
+        @Override
+        protected int engineDoFinal(ByteBuffer input, ByteBuffer output)
+                throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+            if (!canUseDirect(input, output)) {
+                return super.engineDoFinal(input, output);
+            }
+            return doFinalDirect(input, output, directFinal);
+        }
+
+        @Override
+        boolean supportsDirectInPlace() {
+            // With a partial block buffered, or a decrypted block held back for padding removal,
+            // EVP_CipherUpdate writes output ahead of the input it has yet to read.
+            return modeBlockSize == 1
+                    || (NativeCrypto.get_EVP_CIPHER_CTX_buf_len(cipherCtx) == 0
+                            && !NativeCrypto.get_EVP_CIPHER_CTX_final_used(cipherCtx));
+        }
+
+        /**
+         * Like {@link #updateInternal}, but reads {@code inputLen} bytes from native address
+         * {@code inputPtr} and writes to native address {@code outputPtr}, which has room for at
+         * least {@code maximumLen} bytes.
+         */
+        private int updateInternalDirect(long inputPtr, int inputLen, long outputPtr,
+                int maximumLen) {
+            // canUseDirect only lets through buffers that are the same or do not overlap.
+            final int bytesWritten;
+            if (shouldProcessInParallel(inputLen)) {
+                bytesWritten = updateParallelCtr(null, 0, inputLen, null, 0, inputPtr, outputPtr);
+            } else {
+                bytesWritten = NativeCrypto.EVP_CipherUpdateDirect(
+                        cipherCtx, outputPtr, inputPtr, inputLen);
+            }
+            ctrPosition += inputLen;
+            calledUpdate = true;
+            return bytesWritten;
+        }
+
+        private final DirectFinal directFinal = new DirectFinal() {
+            @Override
+            public int doFinal(long inputPtr, int inputLen, long outputPtr, int maximumLen)
+                    throws IllegalBlockSizeException, BadPaddingException {
+                return doFinalInternalDirect(inputPtr, inputLen, outputPtr, maximumLen);
+            }
+        };
+
+        private int doFinalInternalDirect(long inputPtr, int inputLen, long outputPtr,
+                int maximumLen) throws IllegalBlockSizeException, BadPaddingException {
+            int bytesWritten = 0;
+            if (inputLen > 0) {
+                bytesWritten = updateInternalDirect(inputPtr, inputLen, outputPtr, maximumLen);
+            }
+
+            /*
+             * If we're decrypting and haven't had any input, we should return
+             * null. Otherwise OpenSSL will complain if we call final.
+             */
+            if (!isEncrypting() && !calledUpdate) {
+                return 0;
+            }
+
+            bytesWritten += NativeCrypto.EVP_CipherFinal_exDirect(cipherCtx,
+                    outputPtr + bytesWritten);
+            reset();
+            return bytesWritten;
+        }
+
         @Override
         int getOutputSizeForFinal(int inputLen) {
             if (modeBlockSize == 1) {
@@ -649,7 +933,12 @@ public abstract class OpenSSLCipher extends CipherSpi {
          * Reset this Cipher instance state to process a new chunk of data.
          */
         private void reset() {
-            NativeCrypto.EVP_CipherInit_ex(cipherCtx, 0, encodedKey, iv, isEncrypting());
+            if (supportsVariableSizeKey()) {
+                NativeCrypto.EVP_CipherInit_ex(cipherCtx, 0, encodedKey, iv, isEncrypting());
+            } else {
+                NativeCrypto.EVP_CipherInit_ex(cipherCtx, 0, null, iv, isEncrypting());
+            }
+            ctrPosition = 0;
             calledUpdate = false;
         }
 
@@ -660,6 +949,11 @@ public abstract class OpenSSLCipher extends CipherSpi {
                 super(mode, padding);
             }
 
+            @Override
+            boolean supportsParallelCtr() {
+                return mode == Mode.CTR;
+            }
+
             @Override
             void checkSupportedMode(Mode mode) throws NoSuchAlgorithmException {
                 switch (mode) {
@@ -1035,10 +1329,27 @@ public abstract class OpenSSLCipher extends CipherSpi {
         long evpAead;
 
         /**
-         * Additional authenticated data.
+         * Native AEAD context keyed with {@link #aeadCtxKey}, kept across initializations that
+         * only change the IV so the key schedule is not recomputed for every message. Created
+         * lazily on the first operation.
+         */
+        private NativeRef.EVP_AEAD_CTX aeadCtx;
+
+        /**
+         * The key, AEAD and tag length {@link #aeadCtx} was created with.
+         */
+        private byte[] aeadCtxKey;
+        private long aeadCtxEvpAead;
+        private int aeadCtxTagLength;
+
+        /**
+         * Additional authenticated data. The first {@code aadLength} bytes are valid; the array
+         * is kept across messages so that repeated {@code updateAAD} calls do not allocate.
          */
         private byte[] aad;
 
+        private int aadLength;
+
         /**
          * The length of the AEAD cipher tag in bytes.
          */
@@ -1055,20 +1366,6 @@ public abstract class OpenSSLCipher extends CipherSpi {
             }
         }
 
-        /** Constant-time array comparison.  Since we are using this to compare keys, we want to
-         * ensure there's no opportunity for a timing attack. */
-        private boolean arraysAreEqual(byte[] a, byte[] b) {
-            if (a.length != b.length) {
-                return false;
-            }
-
-            int diff = 0;
-            for (int i = 0; i < a.length; i++) {
-                diff |= a[i] ^ b[i];
-            }
-            return diff == 0;
-        }
-
         private void expand(int i) {
             /* Can the buffer handle i more bytes, if not expand it */
             if (bufCount + i <= buf.length) {
@@ -1081,7 +1378,7 @@ public abstract class OpenSSLCipher extends CipherSpi {
         }
 
         private void reset() {
-            aad = null;
+            aadLength = 0;
             final int lastBufSize = lastGlobalMessageSize;
             if (buf == null) {
                 buf = new byte[lastBufSize];
@@ -1149,7 +1446,7 @@ public abstract class OpenSSLCipher extends CipherSpi {
                         + expectedIvLength + " but was " + iv.length);
             }
 
-            if (isEncrypting() && iv != null) {
+            if (isEncrypting() && iv != null && !allowsNonceReuse()) {
                 if (previousKey != null && previousIv != null
                         && arraysAreEqual(previousKey, encodedKey)
                         && arraysAreEqual(previousIv, iv)) {
@@ -1161,11 +1458,28 @@ public abstract class OpenSSLCipher extends CipherSpi {
                 this.previousKey = encodedKey;
                 this.previousIv = iv;
             }
+            if (aeadCtx != null
+                    && (aeadCtxEvpAead != evpAead || aeadCtxTagLength != tagLengthInBytes
+                            || !arraysAreEqual(aeadCtxKey, encodedKey))) {
+                aeadCtx = null;
+                aeadCtxKey = null;
+            }
             mustInitialize = false;
             this.iv = iv;
             reset();
         }
 
+        private NativeRef.EVP_AEAD_CTX getAeadCtx() {
+            if (aeadCtx == null) {
+                aeadCtx = new NativeRef.EVP_AEAD_CTX(
+                        NativeCrypto.EVP_AEAD_CTX_new(evpAead, encodedKey, tagLengthInBytes));
+                aeadCtxKey = encodedKey;
+                aeadCtxEvpAead = evpAead;
+                aeadCtxTagLength = tagLengthInBytes;
+            }
+            return aeadCtx;
+        }
+
         @Override
         protected int engineDoFinal(byte[] input, int inputOffset, int inputLen, byte[] output,
                 int outputOffset) throws ShortBufferException, IllegalBlockSizeException,
@@ -1200,7 +1514,7 @@ public abstract class OpenSSLCipher extends CipherSpi {
         }
 
         @SuppressWarnings("LiteralClassName")
-        private void throwAEADBadTagExceptionIfAvailable(String message, Throwable cause)
+        static void throwAEADBadTagExceptionIfAvailable(String message, Throwable cause)
                 throws BadPaddingException {
             Constructor<?> aeadBadTagConstructor;
             try {
@@ -1234,17 +1548,68 @@ public abstract class OpenSSLCipher extends CipherSpi {
             final int bytesWritten;
             try {
                 if (isEncrypting()) {
-                    bytesWritten = NativeCrypto.EVP_AEAD_CTX_seal(evpAead, encodedKey,
-                            tagLengthInBytes, output, outputOffset, iv, buf, 0, bufCount, aad);
+                    bytesWritten = NativeCrypto.EVP_AEAD_CTX_seal_with_ctx(getAeadCtx(), output,
+                            outputOffset, iv, buf, 0, bufCount, aad, 0, aadLength);
+                } else {
+                    bytesWritten = NativeCrypto.EVP_AEAD_CTX_open_with_ctx(getAeadCtx(), output,
+                            outputOffset, iv, buf, 0, bufCount, aad, 0, aadLength);
+                }
+            } catch (BadPaddingException e) {
+                throwAEADBadTagExceptionIfAvailable(e.getMessage(), e.getCause());
+                throw e;
+            }
+            if (isEncrypting() && !allowsNonceReuse()) {
+                mustInitialize = true;
+            }
+            reset();
+            return bytesWritten;
+        }
+
+        @Override
+        protected int engineDoFinal(ByteBuffer input, ByteBuffer output)
+                throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+            // Input passed to update() has already been buffered on the heap, so only a
+            // one-shot operation can read its input from native memory in place.
+            if (bufCount != 0 || !canUseDirect(input, output)) {
+                return super.engineDoFinal(input, output);
+            }
+            return doFinalDirect(input, output, directFinal);
+        }
+
+        @Override
+        boolean supportsDirectInPlace() {
+            return true;
+        }
+
+        private final DirectFinal directFinal = new DirectFinal() {
+            @Override
+            public int doFinal(long inputPtr, int inputLen, long outputPtr, int maximumLen)
+                    throws ShortBufferException, BadPaddingException {
+                return doFinalInternalDirect(inputPtr, inputLen, outputPtr, maximumLen);
+            }
+        };
+
+        /**
+         * Seals or opens {@code inputLen} bytes at native address {@code inputPtr} into native
+         * address {@code outputPtr}, which has room for at least {@code maximumLen} bytes.
+         */
+        private int doFinalInternalDirect(long inputPtr, int inputLen, long outputPtr,
+                int maximumLen) throws ShortBufferException, BadPaddingException {
+            checkInitialization();
+            final int bytesWritten;
+            try {
+                if (isEncrypting()) {
+                    bytesWritten = NativeCrypto.EVP_AEAD_CTX_sealDirect(getAeadCtx(), outputPtr,
+                            maximumLen, iv, inputPtr, inputLen, aad, aadLength);
                 } else {
-                    bytesWritten = NativeCrypto.EVP_AEAD_CTX_open(evpAead, encodedKey,
-                            tagLengthInBytes, output, outputOffset, iv, buf, 0, bufCount, aad);
+                    bytesWritten = NativeCrypto.EVP_AEAD_CTX_openDirect(getAeadCtx(), outputPtr,
+                            maximumLen, iv, inputPtr, inputLen, aad, aadLength);
                 }
             } catch (BadPaddingException e) {
                 throwAEADBadTagExceptionIfAvailable(e.getMessage(), e.getCause());
                 throw e;
             }
-            if (isEncrypting()) {
+            if (isEncrypting() && !allowsNonceReuse()) {
                 mustInitialize = true;
             }
             reset();
@@ -1276,35 +1641,44 @@ public abstract class OpenSSLCipher extends CipherSpi {
         @SuppressWarnings("MissingOverride")
         protected void engineUpdateAAD(byte[] input, int inputOffset, int inputLen) {
             checkInitialization();
-            if (aad == null) {
-                aad = Arrays.copyOfRange(input, inputOffset, inputOffset + inputLen);
-            } else {
-                int newSize = aad.length + inputLen;
-                byte[] newaad = new byte[newSize];
-                System.arraycopy(aad, 0, newaad, 0, aad.length);
-                System.arraycopy(input, inputOffset, newaad, aad.length, inputLen);
-                aad = newaad;
-            }
+            expandAad(inputLen);
+            System.arraycopy(input, inputOffset, aad, aadLength, inputLen);
+            aadLength += inputLen;
         }
 
         // Intentionally missing Override to compile on old versions of Android
         @SuppressWarnings("MissingOverride")
         protected void engineUpdateAAD(ByteBuffer buf) {
             checkInitialization();
-            if (aad == null) {
-                aad = new byte[buf.remaining()];
-                buf.get(aad);
-            } else {
-                int newSize = aad.length + buf.remaining();
-                byte[] newaad = new byte[newSize];
-                System.arraycopy(aad, 0, newaad, 0, aad.length);
-                buf.get(newaad, aad.length, buf.remaining());
-                aad = newaad;
+            // The caller may reuse buf as soon as this returns, so even direct buffers are
+            // copied, but straight into the AAD array without an intermediate one.
+            int inputLen = buf.remaining();
+            expandAad(inputLen);
+            buf.get(aad, aadLength, inputLen);
+            aadLength += inputLen;
+        }
+
+        private void expandAad(int i) {
+            if (aad != null && aadLength + i <= aad.length) {
+                return;
+            }
+            byte[] newaad = new byte[Math.max(aadLength + i, aad == null ? 0 : aad.length * 2)];
+            if (aadLength > 0) {
+                System.arraycopy(aad, 0, newaad, 0, aadLength);
             }
+            aad = newaad;
         }
 
         abstract long getEVP_AEAD(int keyLength) throws InvalidKeyException;
 
+        /**
+         * Returns whether encrypting twice with the same key and IV is safe, which is the case
+         * for nonce-misuse-resistant AEADs.
+         */
+        boolean allowsNonceReuse() {
+            return false;
+        }
+
         public abstract static class AES extends EVP_AEAD {
             private static final int AES_BLOCK_SIZE = 16;
 
@@ -1340,6 +1714,10 @@ public abstract class OpenSSLCipher extends CipherSpi {
                     super(Mode.GCM);
                 }
 
+                GCM(Mode mode) {
+                    super(mode);
+                }
+
                 @Override
                 void checkSupportedMode(Mode mode) throws NoSuchAlgorithmException {
                     if (mode != Mode.GCM) {
@@ -1436,6 +1814,55 @@ public abstract class OpenSSLCipher extends CipherSpi {
                     }
                 }
             }
+
+            /**
+             * AES-GCM-SIV (RFC 8452). Takes the same parameters as GCM, but repeating an IV
+             * under the same key only reveals whether the messages were equal, so random IVs
+             * can be used for far more messages per key and reuse is not rejected.
+             */
+            public static class GCM_SIV extends GCM {
+                public GCM_SIV() {
+                    super(Mode.GCM_SIV);
+                }
+
+                @Override
+                void checkSupportedMode(Mode mode) throws NoSuchAlgorithmException {
+                    if (mode != Mode.GCM_SIV) {
+                        throw new NoSuchAlgorithmException("Mode must be GCM-SIV");
+                    }
+                }
+
+                @Override
+                void engineInitInternal(byte[] encodedKey, AlgorithmParameterSpec params,
+                        SecureRandom random) throws InvalidKeyException,
+                        InvalidAlgorithmParameterException {
+                    // BoringSSL only implements the full-length tag of RFC 8452.
+                    GCMParameters gcmParams =
+                            params == null ? null : Platform.fromGCMParameterSpec(params);
+                    if (gcmParams != null && gcmParams.getTLen() != DEFAULT_TAG_SIZE_BITS) {
+                        throw new InvalidAlgorithmParameterException(
+                                "Tag length must be " + DEFAULT_TAG_SIZE_BITS + " bits; was "
+                                + gcmParams.getTLen());
+                    }
+                    super.engineInitInternal(encodedKey, params, random);
+                }
+
+                @Override
+                long getEVP_AEAD(int keyLength) throws InvalidKeyException {
+                    if (keyLength == 16) {
+                        return NativeCrypto.EVP_aead_aes_128_gcm_siv();
+                    } else if (keyLength == 32) {
+                        return NativeCrypto.EVP_aead_aes_256_gcm_siv();
+                    } else {
+                        throw new RuntimeException("Unexpected key length: " + keyLength);
+                    }
+                }
+
+                @Override
+                boolean allowsNonceReuse() {
+                    return true;
+                }
+            }
         }
 
         public static class ChaCha20 extends EVP_AEAD {
@@ -1489,5 +1916,27 @@ public abstract class OpenSSLCipher extends CipherSpi {
                 }
             }
         }
+
+        /**
+         * XChaCha20-Poly1305, which uses 24-byte nonces so that random nonces can be used
+         * without risk of collision.
+         */
+        public static class XChaCha20 extends ChaCha20 {
+            public XChaCha20() {}
+
+            @Override
+            String getBaseCipherName() {
+                return "XChaCha20";
+            }
+
+            @Override
+            long getEVP_AEAD(int keyLength) throws InvalidKeyException {
+                if (keyLength == 32) {
+                    return NativeCrypto.EVP_aead_xchacha20_poly1305();
+                } else {
+                    throw new RuntimeException("Unexpected key length: " + keyLength);
+                }
+            }
+        }
     }
 }
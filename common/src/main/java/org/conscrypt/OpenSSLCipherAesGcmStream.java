@@ -0,0 +1,370 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.nio.ByteBuffer;
+import java.security.AlgorithmParameters;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.InvalidParameterSpecException;
+import java.util.Arrays;
+import javax.crypto.BadPaddingException;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+import org.conscrypt.NativeRef.EVP_CIPHER_CTX;
+
+/**
+ * AES-GCM that processes data as it arrives rather than buffering the whole message, registered
+ * as {@code AES/GCM-STREAM/NoPadding}. The ciphertext format is the same as
+ * {@code AES/GCM/NoPadding}, so either can decrypt what the other encrypted.
+ *
+ * <p>Encryption returns ciphertext from every {@code update} and appends the tag in
+ * {@code doFinal}. Decryption returns plaintext from every {@code update}, holding back only
+ * the bytes that may be the tag, and checks the tag in {@code doFinal}. <strong>Plaintext
+ * returned before {@code doFinal} is unauthenticated</strong>: if {@code doFinal} throws
+ * {@link javax.crypto.AEADBadTagException}, callers must discard everything this cipher
+ * returned for the message. Use {@code AES/GCM/NoPadding} to decrypt when that isn't possible.
+ *
+ * <p>Additional authenticated data must be supplied before any input.
+ */
+@Internal
+public class OpenSSLCipherAesGcmStream extends OpenSSLCipher {
+    private static final int AES_BLOCK_SIZE = 16;
+    private static final int DEFAULT_IV_SIZE_BYTES = 12;
+    private static final int MAX_TAG_SIZE_BYTES = 16;
+
+    private final EVP_CIPHER_CTX cipherCtx = new EVP_CIPHER_CTX(NativeCrypto.EVP_CIPHER_CTX_new());
+
+    /**
+     * The length of the tag in bytes.
+     */
+    private int tagLengthInBytes;
+
+    /**
+     * When decrypting, the last input bytes seen, which may turn out to be the tag.
+     */
+    private final byte[] heldBack = new byte[MAX_TAG_SIZE_BYTES];
+    private int heldBackCount;
+
+    /**
+     * Whether any input has been processed since initialization, after which no more AAD may be
+     * supplied.
+     */
+    private boolean calledUpdate;
+
+    /**
+     * The previously used key and IV, to prevent key and IV reuse when encrypting.
+     */
+    private byte[] previousKey;
+    private byte[] previousIv;
+
+    /**
+     * When set this instance must be initialized before use again. This prevents key and IV
+     * reuse.
+     */
+    private boolean mustInitialize;
+
+    public OpenSSLCipherAesGcmStream() {
+        super(Mode.GCM, Padding.NOPADDING);
+    }
+
+    @Override
+    void engineInitInternal(byte[] encodedKey, AlgorithmParameterSpec params, SecureRandom random)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+        byte[] iv = null;
+        int tagLenBits = MAX_TAG_SIZE_BYTES * 8;
+        if (params != null) {
+            GCMParameters gcmParams = Platform.fromGCMParameterSpec(params);
+            if (gcmParams != null) {
+                iv = gcmParams.getIV();
+                tagLenBits = gcmParams.getTLen();
+            } else if (params instanceof IvParameterSpec) {
+                iv = ((IvParameterSpec) params).getIV();
+            }
+        }
+
+        if (tagLenBits % 8 != 0 || tagLenBits <= 0 || tagLenBits > MAX_TAG_SIZE_BYTES * 8) {
+            throw new InvalidAlgorithmParameterException(
+                    "Tag length must be a multiple of 8 of at most 128 bits; was " + tagLenBits);
+        }
+
+        if (iv == null) {
+            if (!isEncrypting()) {
+                throw new InvalidAlgorithmParameterException("IV must be specified in " + mode
+                        + " mode");
+            }
+            iv = new byte[DEFAULT_IV_SIZE_BYTES];
+            if (random != null) {
+                random.nextBytes(iv);
+            } else {
+                NativeCrypto.RAND_bytes(iv);
+            }
+        } else if (iv.length == 0) {
+            throw new InvalidAlgorithmParameterException("IV must not be empty");
+        }
+
+        if (isEncrypting()) {
+            if (previousKey != null && previousIv != null
+                    && MessageDigest.isEqual(previousKey, encodedKey)
+                    && MessageDigest.isEqual(previousIv, iv)) {
+                mustInitialize = true;
+                throw new InvalidAlgorithmParameterException(
+                        "When using AEAD key and IV must not be re-used");
+            }
+            previousKey = encodedKey;
+            previousIv = iv;
+        }
+
+        final long cipherType = NativeCrypto.EVP_get_cipherbyname(
+                "aes-" + (encodedKey.length * 8) + "-gcm");
+        if (cipherType == 0) {
+            throw new InvalidAlgorithmParameterException("Cannot find name for key length = "
+                    + (encodedKey.length * 8) + " and mode = " + mode);
+        }
+        NativeCrypto.EVP_CipherInit_ex(cipherCtx, cipherType, null, null, isEncrypting());
+        NativeCrypto.EVP_CIPHER_CTX_set_aead_iv_length(cipherCtx, iv.length);
+        NativeCrypto.EVP_CipherInit_ex(cipherCtx, 0, encodedKey, iv, isEncrypting());
+
+        this.iv = iv;
+        tagLengthInBytes = tagLenBits / 8;
+        mustInitialize = false;
+        heldBackCount = 0;
+        calledUpdate = false;
+    }
+
+    private void checkInitialization() {
+        if (mustInitialize) {
+            throw new IllegalStateException(
+                    "Cannot re-use same key and IV for multiple encryptions");
+        }
+    }
+
+    @Override
+    protected int engineDoFinal(byte[] input, int inputOffset, int inputLen, byte[] output,
+            int outputOffset) throws ShortBufferException, IllegalBlockSizeException,
+            BadPaddingException {
+        // Check up front so that a short output buffer is reported before any input is consumed.
+        if (output != null && getOutputSizeForFinal(inputLen) > output.length - outputOffset) {
+            throw new ShortBufferException("Insufficient output space");
+        }
+        return super.engineDoFinal(input, inputOffset, inputLen, output, outputOffset);
+    }
+
+    @Override
+    int updateInternal(byte[] input, int inputOffset, int inputLen, byte[] output,
+            int outputOffset, int maximumLen) throws ShortBufferException {
+        checkInitialization();
+        ArrayUtils.checkOffsetAndCount(input.length, inputOffset, inputLen);
+        final int outputLen = getOutputSizeForUpdate(inputLen);
+        if (outputLen > output.length - outputOffset) {
+            throw new ShortBufferException("Insufficient output space");
+        }
+        calledUpdate = true;
+
+        if (isEncrypting()) {
+            return NativeCrypto.EVP_CipherUpdate(
+                    cipherCtx, output, outputOffset, input, inputOffset, inputLen);
+        }
+
+        // The held-back bytes are written first, so output runs ahead of input; an overlapping
+        // input would be overwritten before it is read.
+        if (input == output && heldBackCount > 0 && inputOffset < outputOffset + outputLen
+                && outputOffset < inputOffset + inputLen) {
+            input = Arrays.copyOfRange(input, inputOffset, inputOffset + inputLen);
+            inputOffset = 0;
+        }
+
+        // Release everything except the last tagLengthInBytes bytes seen, which are kept in
+        // heldBack in case they are the tag.
+        int written = 0;
+        final int fromHeldBack = Math.min(heldBackCount, outputLen);
+        if (fromHeldBack > 0) {
+            written += NativeCrypto.EVP_CipherUpdate(
+                    cipherCtx, output, outputOffset, heldBack, 0, fromHeldBack);
+            System.arraycopy(heldBack, fromHeldBack, heldBack, 0, heldBackCount - fromHeldBack);
+            heldBackCount -= fromHeldBack;
+        }
+        final int fromInput = outputLen - fromHeldBack;
+        if (fromInput > 0) {
+            written += NativeCrypto.EVP_CipherUpdate(
+                    cipherCtx, output, outputOffset + written, input, inputOffset, fromInput);
+        }
+        System.arraycopy(input, inputOffset + fromInput, heldBack, heldBackCount,
+                inputLen - fromInput);
+        heldBackCount += inputLen - fromInput;
+        return written;
+    }
+
+    @Override
+    int doFinalInternal(byte[] output, int outputOffset, int maximumLen)
+            throws IllegalBlockSizeException, BadPaddingException, ShortBufferException {
+        checkInitialization();
+        if (isEncrypting()) {
+            if (tagLengthInBytes > output.length - outputOffset) {
+                throw new ShortBufferException("Insufficient output space");
+            }
+            NativeCrypto.EVP_CipherFinal_ex(cipherCtx, output, outputOffset);
+            byte[] tag = NativeCrypto.EVP_CIPHER_CTX_get_aead_tag(cipherCtx, tagLengthInBytes);
+            System.arraycopy(tag, 0, output, outputOffset, tag.length);
+            mustInitialize = true;
+            return tag.length;
+        }
+
+        try {
+            if (heldBackCount < tagLengthInBytes) {
+                BadPaddingException e = new BadPaddingException("Ciphertext shorter than tag");
+                EVP_AEAD.throwAEADBadTagExceptionIfAvailable(e.getMessage(), null);
+                throw e;
+            }
+            NativeCrypto.EVP_CIPHER_CTX_set_aead_tag(
+                    cipherCtx, Arrays.copyOf(heldBack, heldBackCount));
+            try {
+                NativeCrypto.EVP_CipherFinal_ex(cipherCtx, output, outputOffset);
+            } catch (BadPaddingException e) {
+                EVP_AEAD.throwAEADBadTagExceptionIfAvailable(e.getMessage(), e.getCause());
+                throw e;
+            }
+            return 0;
+        } finally {
+            // Ready the cipher to decrypt another message with the same key and IV.
+            NativeCrypto.EVP_CipherInit_ex(cipherCtx, 0, encodedKey, iv, false);
+            heldBackCount = 0;
+            calledUpdate = false;
+        }
+    }
+
+    // Intentionally missing Override to compile on old versions of Android
+    @SuppressWarnings("MissingOverride")
+    protected void engineUpdateAAD(byte[] input, int inputOffset, int inputLen) {
+        checkInitialization();
+        if (calledUpdate) {
+            throw new IllegalStateException("AAD must be supplied before any input");
+        }
+        NativeCrypto.EVP_CipherUpdateAAD(cipherCtx, input, inputOffset, inputLen);
+    }
+
+    // Intentionally missing Override to compile on old versions of Android
+    @SuppressWarnings("MissingOverride")
+    protected void engineUpdateAAD(ByteBuffer buf) {
+        if (buf.hasArray()) {
+            engineUpdateAAD(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+            buf.position(buf.limit());
+        } else {
+            byte[] aad = new byte[buf.remaining()];
+            buf.get(aad);
+            engineUpdateAAD(aad, 0, aad.length);
+        }
+    }
+
+    @Override
+    int getOutputSizeForUpdate(int inputLen) {
+        if (isEncrypting()) {
+            return inputLen;
+        }
+        return Math.max(0, heldBackCount + inputLen - tagLengthInBytes);
+    }
+
+    @Override
+    int getOutputSizeForFinal(int inputLen) {
+        if (isEncrypting()) {
+            return inputLen + tagLengthInBytes;
+        }
+        return Math.max(0, heldBackCount + inputLen - tagLengthInBytes);
+    }
+
+    @Override
+    protected AlgorithmParameters engineGetParameters() {
+        // iv will be non-null after initialization.
+        if (iv == null) {
+            return null;
+        }
+
+        AlgorithmParameterSpec spec = Platform.toGCMParameterSpec(tagLengthInBytes * 8, iv);
+        if (spec == null) {
+            // The platform doesn't support GCMParameterSpec. Fall back to the generic AES
+            // parameters so at least the caller can get the IV.
+            return super.engineGetParameters();
+        }
+
+        try {
+            AlgorithmParameters params = AlgorithmParameters.getInstance("GCM");
+            params.init(spec);
+            return params;
+        } catch (NoSuchAlgorithmException e) {
+            // We should not get here.
+            throw (Error) new AssertionError("GCM not supported").initCause(e);
+        } catch (InvalidParameterSpecException e) {
+            // This may happen since Conscrypt doesn't provide this itself.
+            return null;
+        }
+    }
+
+    @Override
+    protected AlgorithmParameterSpec getParameterSpec(AlgorithmParameters params)
+            throws InvalidAlgorithmParameterException {
+        if (params != null) {
+            AlgorithmParameterSpec spec = Platform.fromGCMParameters(params);
+            if (spec != null) {
+                return spec;
+            }
+            return super.getParameterSpec(params);
+        }
+        return null;
+    }
+
+    @Override
+    String getBaseCipherName() {
+        return "AES";
+    }
+
+    @Override
+    void checkSupportedKeySize(int keyLength) throws InvalidKeyException {
+        switch (keyLength) {
+            case 16: // AES 128
+            case 32: // AES 256
+                return;
+            default:
+                throw new InvalidKeyException("Unsupported key size: " + keyLength
+                        + " bytes (must be 16 or 32)");
+        }
+    }
+
+    @Override
+    void checkSupportedMode(Mode mode) throws NoSuchAlgorithmException {
+        if (mode != Mode.GCM) {
+            throw new NoSuchAlgorithmException("Mode must be GCM");
+        }
+    }
+
+    @Override
+    void checkSupportedPadding(Padding padding) throws NoSuchPaddingException {
+        if (padding != Padding.NOPADDING) {
+            throw new NoSuchPaddingException("Must be NoPadding for AEAD ciphers");
+        }
+    }
+
+    @Override
+    int getCipherBlockSize() {
+        return AES_BLOCK_SIZE;
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
+import javax.crypto.BadPaddingException;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+
+/**
+ * Implementation of AES key wrap (RFC 3394) and AES key wrap with padding (RFC 5649). Both are
+ * one-shot operations over the whole input, so updates are buffered until {@code doFinal}, which
+ * works on the caller's array directly when nothing was buffered.
+ */
+@Internal
+public abstract class OpenSSLCipherAesKeyWrap extends OpenSSLCipher {
+    private static final int SEMIBLOCK_SIZE = 8;
+
+    /**
+     * Input buffered by {@code update} calls.
+     */
+    private byte[] buf = EmptyArray.BYTE;
+
+    /**
+     * The number of bytes in {@link #buf}.
+     */
+    private int bufCount;
+
+    OpenSSLCipherAesKeyWrap(Mode mode) {
+        super(mode, Padding.NOPADDING);
+    }
+
+    /**
+     * AES key wrap without padding, whose input is a multiple of eight bytes and at least
+     * sixteen.
+     */
+    public static class KW extends OpenSSLCipherAesKeyWrap {
+        public KW() {
+            super(Mode.KW);
+        }
+
+        @Override
+        int getOutputSizeForTotal(long total) {
+            return (int) (isEncrypting() ? total + SEMIBLOCK_SIZE
+                                         : Math.max(0, total - SEMIBLOCK_SIZE));
+        }
+
+        @Override
+        int process(byte[] input, int inputOffset, int inputLen, byte[] output, int outputOffset)
+                throws IllegalBlockSizeException, BadPaddingException {
+            if (inputLen % SEMIBLOCK_SIZE != 0
+                    || inputLen < (isEncrypting() ? 2 : 3) * SEMIBLOCK_SIZE) {
+                throw new IllegalBlockSizeException("Input length must be a multiple of "
+                        + SEMIBLOCK_SIZE + " and at least "
+                        + (isEncrypting() ? 2 : 3) * SEMIBLOCK_SIZE + " bytes; was " + inputLen);
+            }
+            if (isEncrypting()) {
+                return NativeCrypto.AES_wrap_key(
+                        encodedKey, iv, output, outputOffset, input, inputOffset, inputLen);
+            }
+            return NativeCrypto.AES_unwrap_key(
+                    encodedKey, iv, output, outputOffset, input, inputOffset, inputLen);
+        }
+
+        public static class AES_128 extends KW {
+            public AES_128() {}
+
+            @Override
+            void checkSupportedKeySize(int keyLength) throws InvalidKeyException {
+                if (keyLength != 16) { // 128 bits
+                    throw new InvalidKeyException(
+                            "Unsupported key size: " + keyLength + " bytes (must be 16)");
+                }
+            }
+        }
+
+        public static class AES_192 extends KW {
+            public AES_192() {}
+
+            @Override
+            void checkSupportedKeySize(int keyLength) throws InvalidKeyException {
+                if (keyLength != 24) { // 192 bits
+                    throw new InvalidKeyException(
+                            "Unsupported key size: " + keyLength + " bytes (must be 24)");
+                }
+            }
+        }
+
+        public static class AES_256 extends KW {
+            public AES_256() {}
+
+            @Override
+            void checkSupportedKeySize(int keyLength) throws InvalidKeyException {
+                if (keyLength != 32) { // 256 bits
+                    throw new InvalidKeyException(
+                            "Unsupported key size: " + keyLength + " bytes (must be 32)");
+                }
+            }
+        }
+    }
+
+    /**
+     * AES key wrap with padding, which accepts any non-empty input.
+     */
+    public static class KWP extends OpenSSLCipherAesKeyWrap {
+        public KWP() {
+            super(Mode.KWP);
+        }
+
+        @Override
+        int getOutputSizeForTotal(long total) {
+            if (isEncrypting()) {
+                return (int) ((total + SEMIBLOCK_SIZE - 1) / SEMIBLOCK_SIZE * SEMIBLOCK_SIZE
+                        + SEMIBLOCK_SIZE);
+            }
+            return (int) Math.max(0, total - SEMIBLOCK_SIZE);
+        }
+
+        @Override
+        int process(byte[] input, int inputOffset, int inputLen, byte[] output, int outputOffset)
+                throws IllegalBlockSizeException, BadPaddingException {
+            if (isEncrypting()) {
+                if (inputLen == 0) {
+                    throw new IllegalBlockSizeException("Input must not be empty");
+                }
+                return NativeCrypto.AES_wrap_key_padded(
+                        encodedKey, output, outputOffset, input, inputOffset, inputLen);
+            }
+            if (inputLen % SEMIBLOCK_SIZE != 0 || inputLen < 2 * SEMIBLOCK_SIZE) {
+                throw new IllegalBlockSizeException("Input length must be a multiple of "
+                        + SEMIBLOCK_SIZE + " and at least " + 2 * SEMIBLOCK_SIZE
+                        + " bytes; was " + inputLen);
+            }
+            return NativeCrypto.AES_unwrap_key_padded(
+                    encodedKey, output, outputOffset, input, inputOffset, inputLen);
+        }
+
+        public static class AES_128 extends KWP {
+            public AES_128() {}
+
+            @Override
+            void checkSupportedKeySize(int keyLength) throws InvalidKeyException {
+                if (keyLength != 16) { // 128 bits
+                    throw new InvalidKeyException(
+                            "Unsupported key size: " + keyLength + " bytes (must be 16)");
+                }
+            }
+        }
+
+        public static class AES_192 extends KWP {
+            public AES_192() {}
+
+            @Override
+            void checkSupportedKeySize(int keyLength) throws InvalidKeyException {
+                if (keyLength != 24) { // 192 bits
+                    throw new InvalidKeyException(
+                            "Unsupported key size: " + keyLength + " bytes (must be 24)");
+                }
+            }
+        }
+
+        public static class AES_256 extends KWP {
+            public AES_256() {}
+
+            @Override
+            void checkSupportedKeySize(int keyLength) throws InvalidKeyException {
+                if (keyLength != 32) { // 256 bits
+                    throw new InvalidKeyException(
+                            "Unsupported key size: " + keyLength + " bytes (must be 32)");
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the output size of wrapping or unwrapping {@code total} bytes of input.
+     */
+    abstract int getOutputSizeForTotal(long total);
+
+    @Override
+    final int getOutputSizeForFinal(int inputLen) {
+        return getOutputSizeForTotal((long) bufCount + inputLen);
+    }
+
+    /**
+     * Wraps or unwraps all of the input at once into {@code output}, which has room for
+     * {@link #getOutputSizeForFinal} bytes.
+     */
+    abstract int process(byte[] input, int inputOffset, int inputLen, byte[] output,
+            int outputOffset) throws IllegalBlockSizeException, BadPaddingException;
+
+    @Override
+    void engineInitInternal(byte[] encodedKey, AlgorithmParameterSpec params, SecureRandom random)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+        // Drop anything buffered by an abandoned operation; it may hold key material.
+        Arrays.fill(buf, 0, bufCount, (byte) 0);
+        bufCount = 0;
+        if (params == null) {
+            iv = null;
+        } else if (!(params instanceof IvParameterSpec)) {
+            throw new InvalidAlgorithmParameterException("Only IvParameterSpec is supported");
+        } else if (mode != Mode.KW) {
+            throw new InvalidAlgorithmParameterException(
+                    "AES/KWP does not support a custom initial value");
+        } else {
+            byte[] newIv = ((IvParameterSpec) params).getIV();
+            if (newIv.length != SEMIBLOCK_SIZE) {
+                throw new InvalidAlgorithmParameterException(
+                        "IV must be " + SEMIBLOCK_SIZE + " bytes long");
+            }
+            iv = newIv;
+        }
+    }
+
+    @Override
+    int updateInternal(byte[] input, int inputOffset, int inputLen, byte[] output,
+            int outputOffset, int maximumLen) throws ShortBufferException {
+        ArrayUtils.checkOffsetAndCount(input.length, inputOffset, inputLen);
+        if (bufCount + inputLen > buf.length) {
+            byte[] newBuf = new byte[Math.max(bufCount + inputLen, buf.length * 2)];
+            System.arraycopy(buf, 0, newBuf, 0, bufCount);
+            Arrays.fill(buf, 0, bufCount, (byte) 0);
+            buf = newBuf;
+        }
+        System.arraycopy(input, inputOffset, buf, bufCount, inputLen);
+        bufCount += inputLen;
+        return 0;
+    }
+
+    @Override
+    int doFinalInternal(byte[] output, int outputOffset, int maximumLen)
+            throws IllegalBlockSizeException, BadPaddingException, ShortBufferException {
+        try {
+            return processChecked(buf, 0, bufCount, output, outputOffset, maximumLen);
+        } finally {
+            // The buffer may hold key material.
+            Arrays.fill(buf, 0, bufCount, (byte) 0);
+            bufCount = 0;
+        }
+    }
+
+    @Override
+    protected byte[] engineDoFinal(byte[] input, int inputOffset, int inputLen)
+            throws IllegalBlockSizeException, BadPaddingException {
+        // The base class handles buffered input and the null input of doFinal().
+        if (bufCount != 0 || inputLen == 0) {
+            return super.engineDoFinal(input, inputOffset, inputLen);
+        }
+        // Nothing buffered: process the caller's array without copying it.
+        ArrayUtils.checkOffsetAndCount(input.length, inputOffset, inputLen);
+        byte[] output = new byte[getOutputSizeForFinal(inputLen)];
+        int bytesWritten;
+        try {
+            bytesWritten = processChecked(input, inputOffset, inputLen, output, 0, output.length);
+        } catch (ShortBufferException e) {
+            /* This should not happen since we sized our own buffer. */
+            throw new RuntimeException("our calculated buffer was too small", e);
+        }
+        if (bytesWritten == output.length) {
+            return output;
+        }
+        return Arrays.copyOf(output, bytesWritten);
+    }
+
+    @Override
+    protected int engineDoFinal(byte[] input, int inputOffset, int inputLen, byte[] output,
+            int outputOffset) throws ShortBufferException, IllegalBlockSizeException,
+            BadPaddingException {
+        if (bufCount != 0 || inputLen == 0) {
+            return super.engineDoFinal(input, inputOffset, inputLen, output, outputOffset);
+        }
+        if (output == null) {
+            throw new NullPointerException("output == null");
+        }
+        ArrayUtils.checkOffsetAndCount(input.length, inputOffset, inputLen);
+        return processChecked(input, inputOffset, inputLen, output, outputOffset,
+                getOutputSizeForFinal(inputLen));
+    }
+
+    private int processChecked(byte[] input, int inputOffset, int inputLen, byte[] output,
+            int outputOffset, int maximumLen)
+            throws IllegalBlockSizeException, BadPaddingException, ShortBufferException {
+        if (outputOffset < 0 || output.length - outputOffset < maximumLen) {
+            throw new ShortBufferException("Need at least " + maximumLen
+                    + " bytes of space in output buffer");
+        }
+        return process(input, inputOffset, inputLen, output, outputOffset);
+    }
+
+    @Override
+    String getBaseCipherName() {
+        return "AES";
+    }
+
+    @Override
+    void checkSupportedKeySize(int keySize) throws InvalidKeyException {
+        switch (keySize) {
+            case 16:
+            case 24:
+            case 32:
+                return;
+            default:
+                throw new InvalidKeyException("Unsupported key size: " + keySize + " bytes");
+        }
+    }
+
+    @Override
+    void checkSupportedMode(Mode mode) throws NoSuchAlgorithmException {
+        if (mode != this.mode) {
+            throw new NoSuchAlgorithmException("Unsupported mode " + mode);
+        }
+    }
+
+    @Override
+    void checkSupportedPadding(Padding padding) throws NoSuchPaddingException {
+        if (padding != Padding.NOPADDING) {
+            throw new NoSuchPaddingException("Must be NoPadding");
+        }
+    }
+
+    @Override
+    int getCipherBlockSize() {
+        return SEMIBLOCK_SIZE;
+    }
+
+    @Override
+    int getOutputSizeForUpdate(int inputLen) {
+        return 0;
+    }
+}
@@ -29,7 +29,11 @@ import javax.crypto.SecretKey;
  * An implementation of {@link javax.crypto.Mac} which uses BoringSSL to perform all the operations.
  */
 @Internal
-public abstract class OpenSSLMac extends MacSpi {
+public abstract class OpenSSLMac extends MacSpi implements Cloneable {
+    /**
+     * The native context, created on the first {@code engineInit} and kept for the lifetime of
+     * this instance.
+     */
     private NativeRef.HMAC_CTX ctx;
 
     /**
@@ -39,9 +43,9 @@ public abstract class OpenSSLMac extends MacSpi {
     private final long evp_md;
 
     /**
-     * The secret key used in this keyed MAC.
+     * Whether {@link #ctx} has been initialized with a key.
      */
-    private byte[] keyBytes;
+    private boolean initialized;
 
     /**
      * Holds the output size of the message digest.
@@ -51,7 +55,7 @@ public abstract class OpenSSLMac extends MacSpi {
     /**
      * Holds a dummy buffer for writing single bytes to the digest.
      */
-    private final byte[] singleByte = new byte[1];
+    private byte[] singleByte = new byte[1];
 
     private OpenSSLMac(long evp_md, int size) {
         this.evp_md = evp_md;
@@ -74,21 +78,27 @@ public abstract class OpenSSLMac extends MacSpi {
             throw new InvalidAlgorithmParameterException("unknown parameter type");
         }
 
-        keyBytes = key.getEncoded();
+        byte[] keyBytes = key.getEncoded();
         if (keyBytes == null) {
             throw new InvalidKeyException("key cannot be encoded");
         }
 
-        resetContext();
+        if (ctx == null) {
+            ctx = new NativeRef.HMAC_CTX(NativeCrypto.HMAC_CTX_new());
+        }
+        initialized = false;
+        NativeCrypto.HMAC_Init_ex(ctx, keyBytes, evp_md);
+        initialized = true;
     }
 
-    private final void resetContext() {
-        NativeRef.HMAC_CTX ctxLocal = new NativeRef.HMAC_CTX(NativeCrypto.HMAC_CTX_new());
-        if (keyBytes != null) {
-            NativeCrypto.HMAC_Init_ex(ctxLocal, keyBytes, evp_md);
+    /**
+     * Restores the context to its freshly keyed state. The inner and outer padded keys were
+     * hashed by {@code engineInit}, so this neither allocates nor hashes the key again.
+     */
+    private void resetContext() {
+        if (initialized) {
+            NativeCrypto.HMAC_Reset(ctx);
         }
-
-        this.ctx = ctxLocal;
     }
 
     @Override
@@ -155,6 +165,19 @@ public abstract class OpenSSLMac extends MacSpi {
         resetContext();
     }
 
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        OpenSSLMac clone = (OpenSSLMac) super.clone();
+        clone.singleByte = new byte[1];
+        if (ctx != null) {
+            clone.ctx = new NativeRef.HMAC_CTX(NativeCrypto.HMAC_CTX_new());
+            if (initialized) {
+                NativeCrypto.HMAC_CTX_copy(clone.ctx, ctx);
+            }
+        }
+        return clone;
+    }
+
     public static final class HmacMD5 extends OpenSSLMac {
         public HmacMD5() {
             super(EvpMdRef.MD5.EVP_MD, EvpMdRef.MD5.SIZE_BYTES);
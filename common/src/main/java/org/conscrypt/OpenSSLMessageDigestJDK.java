@@ -22,6 +22,11 @@ import java.security.NoSuchAlgorithmException;
 
 /**
  * Implements the JDK MessageDigest interface using OpenSSL's EVP API.
+ *
+ * <p>Like {@link java.security.MessageDigest} itself, instances are not safe for use by multiple
+ * threads, so no method takes a lock. The native context cannot be freed in the middle of an
+ * operation, since every native call receives its {@link NativeRef}, which keeps it reachable
+ * until the call returns.
  */
 @Internal
 public class OpenSSLMessageDigestJDK extends MessageDigestSpi implements Cloneable {
@@ -65,7 +70,7 @@ public class OpenSSLMessageDigestJDK extends MessageDigestSpi implements Cloneab
         this.digestInitializedInContext = digestInitializedInContext;
     }
 
-    private synchronized void ensureDigestInitializedInContext() {
+    private void ensureDigestInitializedInContext() {
         if (!digestInitializedInContext) {
             final NativeRef.EVP_MD_CTX ctxLocal = ctx;
             NativeCrypto.EVP_DigestInit_ex(ctxLocal, evp_md);
@@ -74,7 +79,7 @@ public class OpenSSLMessageDigestJDK extends MessageDigestSpi implements Cloneab
     }
 
     @Override
-    protected synchronized void engineReset() {
+    protected void engineReset() {
         // Reset to the same state as at the end of the <init>(long evp_md, int size). We can avoid
         // allocating a new EVP_MD_CTX by invoking EVP_MD_CTX_cleanup on the existing one.
         // EVP_MD_CTX_cleanup cleans up and reinitializes the EVP_MD_CTX.
@@ -89,19 +94,19 @@ public class OpenSSLMessageDigestJDK extends MessageDigestSpi implements Cloneab
     }
 
     @Override
-    protected synchronized void engineUpdate(byte input) {
+    protected void engineUpdate(byte input) {
         singleByte[0] = input;
         engineUpdate(singleByte, 0, 1);
     }
 
     @Override
-    protected synchronized void engineUpdate(byte[] input, int offset, int len) {
+    protected void engineUpdate(byte[] input, int offset, int len) {
         ensureDigestInitializedInContext();
         NativeCrypto.EVP_DigestUpdate(ctx, input, offset, len);
     }
 
     @Override
-    protected synchronized void engineUpdate(ByteBuffer input) {
+    protected void engineUpdate(ByteBuffer input) {
         // Optimization: Avoid copying/allocation for direct buffers because their contents are
         // stored as a contiguous region in memory and thus can be efficiently accessed from native
         // code.
@@ -140,7 +145,7 @@ public class OpenSSLMessageDigestJDK extends MessageDigestSpi implements Cloneab
     }
 
     @Override
-    protected synchronized byte[] engineDigest() {
+    protected byte[] engineDigest() {
         ensureDigestInitializedInContext();
         final byte[] result = new byte[size];
         NativeCrypto.EVP_DigestFinal_ex(ctx, result, 0);
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
+import javax.crypto.MacSpi;
+import javax.crypto.SecretKey;
+
+/**
+ * The Poly1305 one-time authenticator (RFC 8439, section 2.5) with a 32-byte key. A key must
+ * only ever authenticate a single message, so unlike other {@link javax.crypto.Mac}s, finishing
+ * or resetting does not start a new message: the {@code Mac} throws {@link
+ * IllegalStateException} until it is initialized with a fresh key.
+ *
+ * <p>BoringSSL's Poly1305 state can't be copied, so this {@code Mac} can't be cloned.
+ */
+@Internal
+public final class OpenSSLPoly1305 extends MacSpi {
+    private static final int KEY_LENGTH = 32;
+    private static final int MAC_LENGTH = 16;
+
+    /**
+     * The native state, allocated on the first {@code engineInit} and kept for the lifetime of
+     * this instance.
+     */
+    private NativeRef.POLY1305_STATE state;
+
+    /**
+     * Whether the key passed to the last {@code engineInit} has been spent by a {@code doFinal}
+     * or {@code reset}.
+     */
+    private boolean keyUsed = true;
+
+    /**
+     * Holds a dummy buffer for writing single bytes to the MAC.
+     */
+    private final byte[] singleByte = new byte[1];
+
+    public OpenSSLPoly1305() {}
+
+    @Override
+    protected int engineGetMacLength() {
+        return MAC_LENGTH;
+    }
+
+    @Override
+    protected void engineInit(Key key, AlgorithmParameterSpec params) throws InvalidKeyException,
+            InvalidAlgorithmParameterException {
+        if (!(key instanceof SecretKey)) {
+            throw new InvalidKeyException("key must be a SecretKey");
+        }
+        if (params != null) {
+            throw new InvalidAlgorithmParameterException("unknown parameter type");
+        }
+        byte[] keyBytes = key.getEncoded();
+        if (keyBytes == null) {
+            throw new InvalidKeyException("key cannot be encoded");
+        }
+        if (keyBytes.length != KEY_LENGTH) {
+            throw new InvalidKeyException("Poly1305 keys must be " + KEY_LENGTH + " bytes");
+        }
+
+        if (state == null) {
+            state = new NativeRef.POLY1305_STATE(NativeCrypto.Poly1305_new());
+        }
+        try {
+            NativeCrypto.Poly1305_init(state, keyBytes);
+        } finally {
+            Arrays.fill(keyBytes, (byte) 0);
+        }
+        keyUsed = false;
+    }
+
+    private void checkKeyUnused() {
+        if (keyUsed) {
+            throw new IllegalStateException(
+                    "Poly1305 keys are single-use; initialize with a fresh key");
+        }
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        singleByte[0] = input;
+        engineUpdate(singleByte, 0, 1);
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        checkKeyUnused();
+        NativeCrypto.Poly1305_update(state, input, offset, len);
+    }
+
+    @Override
+    protected void engineUpdate(ByteBuffer input) {
+        // Optimization: Avoid copying/allocation for direct buffers because their contents are
+        // stored as a contiguous region in memory and thus can be efficiently accessed from native
+        // code.
+
+        checkKeyUnused();
+        if (!input.hasRemaining()) {
+            return;
+        }
+
+        if (!input.isDirect()) {
+            super.engineUpdate(input);
+            return;
+        }
+
+        long baseAddress = NativeCrypto.getDirectBufferAddress(input);
+        if (baseAddress == 0) {
+            // Direct buffer's contents can't be accessed from JNI  -- superclass's implementation
+            // is good enough to handle this.
+            super.engineUpdate(input);
+            return;
+        }
+
+        int position = input.position();
+        int len = input.remaining();
+        NativeCrypto.Poly1305_updateDirect(state, baseAddress + position, len);
+        input.position(position + len);
+    }
+
+    @Override
+    protected byte[] engineDoFinal() {
+        checkKeyUnused();
+        keyUsed = true;
+        return NativeCrypto.Poly1305_finish(state);
+    }
+
+    @Override
+    protected void engineReset() {
+        // The partial message is abandoned, but its key has already been applied to it.
+        keyUsed = true;
+    }
+}
@@ -191,6 +191,13 @@ public final class OpenSSLProvider extends Provider {
         put("SecretKeyFactory.DESEDE", PREFIX + "DESEDESecretKeyFactory");
         put("Alg.Alias.SecretKeyFactory.TDEA", "DESEDE");
 
+        put("SecretKeyFactory.PBKDF2WithHmacSHA1", PREFIX + "PBKDF2SecretKeyFactory$SHA1");
+        put("Alg.Alias.SecretKeyFactory.1.2.840.113549.1.5.12", "PBKDF2WithHmacSHA1");
+        put("SecretKeyFactory.PBKDF2WithHmacSHA224", PREFIX + "PBKDF2SecretKeyFactory$SHA224");
+        put("SecretKeyFactory.PBKDF2WithHmacSHA256", PREFIX + "PBKDF2SecretKeyFactory$SHA256");
+        put("SecretKeyFactory.PBKDF2WithHmacSHA384", PREFIX + "PBKDF2SecretKeyFactory$SHA384");
+        put("SecretKeyFactory.PBKDF2WithHmacSHA512", PREFIX + "PBKDF2SecretKeyFactory$SHA512");
+
         /* == KeyAgreement == */
         putECDHKeyAgreementImplClass("OpenSSLECDHKeyAgreement");
 
@@ -418,6 +425,28 @@ public final class OpenSSLProvider extends Provider {
         put("Alg.Alias.Cipher.2.16.840.1.101.3.4.1.6", "AES/GCM/NoPadding");
         put("Alg.Alias.Cipher.2.16.840.1.101.3.4.1.26", "AES/GCM/NoPadding");
         put("Alg.Alias.Cipher.2.16.840.1.101.3.4.1.46", "AES/GCM/NoPadding");
+        putSymmetricCipherImplClass("AES/GCM-STREAM/NoPadding", "OpenSSLCipherAesGcmStream");
+        putSymmetricCipherImplClass("AES/GCM-SIV/NoPadding", "OpenSSLCipher$EVP_AEAD$AES$GCM_SIV");
+        putSymmetricCipherImplClass("AES/KW/NoPadding", "OpenSSLCipherAesKeyWrap$KW");
+        put("Alg.Alias.Cipher.AESWrap", "AES/KW/NoPadding");
+        putSymmetricCipherImplClass("AES/KWP/NoPadding", "OpenSSLCipherAesKeyWrap$KWP");
+        put("Alg.Alias.Cipher.AESWrapPad", "AES/KWP/NoPadding");
+        // The key wrap OIDs each name a single key size.
+        putSymmetricCipherImplClass("AES_128/KW/NoPadding", "OpenSSLCipherAesKeyWrap$KW$AES_128");
+        put("Alg.Alias.Cipher.2.16.840.1.101.3.4.1.5", "AES_128/KW/NoPadding");
+        putSymmetricCipherImplClass("AES_192/KW/NoPadding", "OpenSSLCipherAesKeyWrap$KW$AES_192");
+        put("Alg.Alias.Cipher.2.16.840.1.101.3.4.1.25", "AES_192/KW/NoPadding");
+        putSymmetricCipherImplClass("AES_256/KW/NoPadding", "OpenSSLCipherAesKeyWrap$KW$AES_256");
+        put("Alg.Alias.Cipher.2.16.840.1.101.3.4.1.45", "AES_256/KW/NoPadding");
+        putSymmetricCipherImplClass(
+                "AES_128/KWP/NoPadding", "OpenSSLCipherAesKeyWrap$KWP$AES_128");
+        put("Alg.Alias.Cipher.2.16.840.1.101.3.4.1.8", "AES_128/KWP/NoPadding");
+        putSymmetricCipherImplClass(
+                "AES_192/KWP/NoPadding", "OpenSSLCipherAesKeyWrap$KWP$AES_192");
+        put("Alg.Alias.Cipher.2.16.840.1.101.3.4.1.28", "AES_192/KWP/NoPadding");
+        putSymmetricCipherImplClass(
+                "AES_256/KWP/NoPadding", "OpenSSLCipherAesKeyWrap$KWP$AES_256");
+        put("Alg.Alias.Cipher.2.16.840.1.101.3.4.1.48", "AES_256/KWP/NoPadding");
         putSymmetricCipherImplClass(
                 "AES_128/GCM/NoPadding", "OpenSSLCipher$EVP_AEAD$AES$GCM$AES_128");
         putSymmetricCipherImplClass(
@@ -428,6 +457,9 @@ public final class OpenSSLProvider extends Provider {
         putSymmetricCipherImplClass("ChaCha20/Poly1305/NoPadding",
                 "OpenSSLCipher$EVP_AEAD$ChaCha20");
         put("Alg.Alias.Cipher.ChaCha20-Poly1305", "ChaCha20/Poly1305/NoPadding");
+        putSymmetricCipherImplClass("XChaCha20/Poly1305/NoPadding",
+                "OpenSSLCipher$EVP_AEAD$XChaCha20");
+        put("Alg.Alias.Cipher.XChaCha20-Poly1305", "XChaCha20/Poly1305/NoPadding");
 
         /* === Mac === */
 
@@ -475,6 +507,11 @@ public final class OpenSSLProvider extends Provider {
         put("Alg.Alias.Mac.HMAC/SHA512", "HmacSHA512");
         put("Alg.Alias.Mac.PBEWITHHMACSHA512", "HmacSHA512");
 
+        putMacImplClass("AESCMAC", "OpenSSLAesCmac");
+        put("Alg.Alias.Mac.AES-CMAC", "AESCMAC");
+
+        putMacImplClass("Poly1305", "OpenSSLPoly1305");
+
         /* === Certificate === */
 
         put("CertificateFactory.X509", PREFIX + "OpenSSLX509CertificateFactory");
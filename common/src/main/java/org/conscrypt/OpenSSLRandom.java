@@ -37,6 +37,9 @@ public final class OpenSSLRandom extends SecureRandomSpi implements Serializable
 
     @Override
     protected void engineNextBytes(byte[] bytes) {
+        if (RandomBuffer.nextBytes(bytes)) {
+            return;
+        }
         NativeCrypto.RAND_bytes(bytes);
     }
 
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.KeySpec;
+import java.util.Arrays;
+import java.util.Locale;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactorySpi;
+import javax.crypto.interfaces.PBEKey;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * An implementation of {@link javax.crypto.SecretKeyFactory} for PBKDF2 (RFC 8018) with HMAC,
+ * which derives keys from {@link PBEKeySpec}s. The password is encoded as UTF-8, as the JDK's
+ * implementation does, so both produce the same keys.
+ */
+@Internal
+public abstract class PBKDF2SecretKeyFactory extends SecretKeyFactorySpi {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final String algorithm;
+    private final long evpMd;
+
+    PBKDF2SecretKeyFactory(String algorithm, long evpMd) {
+        this.algorithm = algorithm;
+        this.evpMd = evpMd;
+    }
+
+    public static final class SHA1 extends PBKDF2SecretKeyFactory {
+        public SHA1() {
+            super("PBKDF2WithHmacSHA1", EvpMdRef.SHA1.EVP_MD);
+        }
+    }
+
+    public static final class SHA224 extends PBKDF2SecretKeyFactory {
+        public SHA224() {
+            super("PBKDF2WithHmacSHA224", EvpMdRef.SHA224.EVP_MD);
+        }
+    }
+
+    public static final class SHA256 extends PBKDF2SecretKeyFactory {
+        public SHA256() {
+            super("PBKDF2WithHmacSHA256", EvpMdRef.SHA256.EVP_MD);
+        }
+    }
+
+    public static final class SHA384 extends PBKDF2SecretKeyFactory {
+        public SHA384() {
+            super("PBKDF2WithHmacSHA384", EvpMdRef.SHA384.EVP_MD);
+        }
+    }
+
+    public static final class SHA512 extends PBKDF2SecretKeyFactory {
+        public SHA512() {
+            super("PBKDF2WithHmacSHA512", EvpMdRef.SHA512.EVP_MD);
+        }
+    }
+
+    @Override
+    protected SecretKey engineGenerateSecret(KeySpec keySpec) throws InvalidKeySpecException {
+        if (keySpec == null) {
+            throw new InvalidKeySpecException("Null KeySpec");
+        }
+        if (!(keySpec instanceof PBEKeySpec)) {
+            throw new InvalidKeySpecException(
+                    "Unsupported KeySpec class: " + keySpec.getClass().getName());
+        }
+        PBEKeySpec pbeKeySpec = (PBEKeySpec) keySpec;
+        char[] password = pbeKeySpec.getPassword();
+        try {
+            return generateSecret(password, pbeKeySpec.getSalt(),
+                    pbeKeySpec.getIterationCount(), pbeKeySpec.getKeyLength());
+        } finally {
+            Arrays.fill(password, '\0');
+        }
+    }
+
+    private SecretKey generateSecret(char[] password, byte[] salt, int iterationCount,
+            int keyLength) throws InvalidKeySpecException {
+        if (salt == null || salt.length == 0) {
+            throw new InvalidKeySpecException("Salt not found");
+        }
+        if (iterationCount <= 0) {
+            throw new InvalidKeySpecException("Iteration count must be positive");
+        }
+        if (keyLength <= 0 || keyLength % 8 != 0) {
+            throw new InvalidKeySpecException(
+                    "Key length must be a positive multiple of 8 bits; was " + keyLength);
+        }
+        byte[] passwordBytes = encode(password);
+        try {
+            byte[] key = new byte[keyLength / 8];
+            NativeCrypto.PKCS5_PBKDF2_HMAC(evpMd, passwordBytes, salt, iterationCount, key);
+            return new PBKDF2Key(algorithm, password, salt, iterationCount, key);
+        } finally {
+            Arrays.fill(passwordBytes, (byte) 0);
+        }
+    }
+
+    private static byte[] encode(char[] password) {
+        ByteBuffer encoded = UTF_8.encode(CharBuffer.wrap(password));
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+        if (encoded.hasArray()) {
+            Arrays.fill(encoded.array(), (byte) 0);
+        }
+        return bytes;
+    }
+
+    @Override
+    protected KeySpec engineGetKeySpec(SecretKey secretKey,
+            @SuppressWarnings("rawtypes") Class aClass) throws InvalidKeySpecException {
+        if (secretKey == null) {
+            throw new InvalidKeySpecException("Null SecretKey");
+        }
+        if (!(secretKey instanceof PBEKey)) {
+            throw new InvalidKeySpecException("SecretKey is not a PBEKey");
+        }
+        if (aClass == null || !aClass.isAssignableFrom(PBEKeySpec.class)) {
+            throw new InvalidKeySpecException("Unsupported KeySpec class: " + aClass);
+        }
+        PBEKey pbeKey = (PBEKey) secretKey;
+        char[] password = pbeKey.getPassword();
+        try {
+            return new PBEKeySpec(password, pbeKey.getSalt(), pbeKey.getIterationCount(),
+                    pbeKey.getEncoded().length * 8);
+        } finally {
+            Arrays.fill(password, '\0');
+        }
+    }
+
+    @Override
+    protected SecretKey engineTranslateKey(SecretKey secretKey) throws InvalidKeyException {
+        if (secretKey == null) {
+            throw new InvalidKeyException("Null SecretKey");
+        }
+        if (!algorithm.equalsIgnoreCase(secretKey.getAlgorithm())
+                || !(secretKey instanceof PBEKey)) {
+            throw new InvalidKeyException("Unsupported key: " + secretKey.getAlgorithm());
+        }
+        if (secretKey instanceof PBKDF2Key) {
+            return secretKey;
+        }
+        PBEKey pbeKey = (PBEKey) secretKey;
+        char[] password = pbeKey.getPassword();
+        try {
+            return generateSecret(password, pbeKey.getSalt(), pbeKey.getIterationCount(),
+                    pbeKey.getEncoded().length * 8);
+        } catch (InvalidKeySpecException e) {
+            throw new InvalidKeyException(e);
+        } finally {
+            Arrays.fill(password, '\0');
+        }
+    }
+
+    /**
+     * A derived key that remembers the parameters it was derived from, like the JDK's.
+     */
+    private static final class PBKDF2Key implements PBEKey {
+        private static final long serialVersionUID = 1L;
+
+        private final String algorithm;
+        private final char[] password;
+        private final byte[] salt;
+        private final int iterationCount;
+        private final byte[] key;
+
+        PBKDF2Key(String algorithm, char[] password, byte[] salt, int iterationCount,
+                byte[] key) {
+            this.algorithm = algorithm;
+            this.password = password.clone();
+            this.salt = salt.clone();
+            this.iterationCount = iterationCount;
+            this.key = key;
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        @Override
+        public String getFormat() {
+            return "RAW";
+        }
+
+        @Override
+        public byte[] getEncoded() {
+            return key.clone();
+        }
+
+        @Override
+        public char[] getPassword() {
+            return password.clone();
+        }
+
+        @Override
+        public byte[] getSalt() {
+            return salt.clone();
+        }
+
+        @Override
+        public int getIterationCount() {
+            return iterationCount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof SecretKey)) {
+                return false;
+            }
+            SecretKey other = (SecretKey) o;
+            if (!algorithm.equalsIgnoreCase(other.getAlgorithm())) {
+                return false;
+            }
+            byte[] otherKey = other.getEncoded();
+            try {
+                return otherKey != null && MessageDigest.isEqual(key, otherKey);
+            } finally {
+                if (otherKey != null) {
+                    Arrays.fill(otherKey, (byte) 0);
+                }
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(key) ^ algorithm.toLowerCase(Locale.US).hashCode();
+        }
+    }
+}
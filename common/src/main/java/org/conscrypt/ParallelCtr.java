@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Encrypts or decrypts large block-aligned runs of CTR mode input on several threads. Since the
+ * keystream for block {@code n} only depends on the key and {@code IV + n}, each chunk gets its
+ * own cipher context started at the right counter value.
+ */
+final class ParallelCtr {
+    static final int BLOCK_SIZE = 16;
+
+    /** Smallest chunk worth handing to another thread. */
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    private static volatile Config config;
+
+    private static final class Config {
+        final ForkJoinPool pool;
+        final int minimumLength;
+
+        Config(ForkJoinPool pool, int minimumLength) {
+            this.pool = pool;
+            this.minimumLength = minimumLength;
+        }
+    }
+
+    private ParallelCtr() {}
+
+    /**
+     * Runs updates of at least {@code minimumLength} bytes on {@code pool}, or disables
+     * parallel processing if {@code pool} is {@code null}.
+     */
+    static void configure(ForkJoinPool pool, int minimumLength) {
+        if (minimumLength < 0) {
+            throw new IllegalArgumentException("minimumLength < 0");
+        }
+        config = pool == null ? null : new Config(pool, minimumLength);
+    }
+
+    /**
+     * Returns whether an update of {@code length} bytes should be processed in parallel.
+     */
+    static boolean shouldProcess(int length) {
+        Config c = config;
+        return c != null && length >= c.minimumLength && length >= 2 * MIN_CHUNK_SIZE;
+    }
+
+    /**
+     * Returns the counter block for block {@code block} of a message started with
+     * {@code iv}, treating the IV as a 128-bit big-endian counter as OpenSSL does.
+     */
+    static byte[] counterAt(byte[] iv, long block) {
+        byte[] counter = iv.clone();
+        long carry = block;
+        for (int i = counter.length - 1; i >= 0 && carry != 0; i--) {
+            long sum = (counter[i] & 0xff) + (carry & 0xff);
+            counter[i] = (byte) sum;
+            carry = (carry >>> 8) + (sum >>> 8);
+        }
+        return counter;
+    }
+
+    /**
+     * Processes {@code length} bytes, a multiple of {@link #BLOCK_SIZE}, of {@code in} into
+     * {@code out} starting at block {@code firstBlock} of the keystream for {@code key} and
+     * {@code iv}. The regions must either be the same or not overlap.
+     */
+    static void process(final long evpCipher, final byte[] key, final byte[] iv,
+            final long firstBlock, final boolean encrypting, final byte[] in, final int inOffset,
+            final byte[] out, final int outOffset, int length) {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        int chunkSize = chunkSize(length);
+        for (int start = 0; start < length; start += chunkSize) {
+            final int chunkStart = start;
+            final int chunkLength = Math.min(chunkSize, length - start);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    NativeRef.EVP_CIPHER_CTX ctx = newContext(evpCipher, key, iv,
+                            firstBlock + chunkStart / BLOCK_SIZE, encrypting);
+                    NativeCrypto.EVP_CipherUpdateRegion(ctx, out, outOffset + chunkStart, in,
+                            inOffset + chunkStart, chunkLength);
+                    return null;
+                }
+            });
+        }
+        invokeAll(tasks);
+    }
+
+    /**
+     * Like {@link #process}, but between native addresses.
+     */
+    static void processDirect(final long evpCipher, final byte[] key, final byte[] iv,
+            final long firstBlock, final boolean encrypting, final long inPtr, final long outPtr,
+            int length) {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        int chunkSize = chunkSize(length);
+        for (int start = 0; start < length; start += chunkSize) {
+            final int chunkStart = start;
+            final int chunkLength = Math.min(chunkSize, length - start);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    NativeRef.EVP_CIPHER_CTX ctx = newContext(evpCipher, key, iv,
+                            firstBlock + chunkStart / BLOCK_SIZE, encrypting);
+                    NativeCrypto.EVP_CipherUpdateDirect(
+                            ctx, outPtr + chunkStart, inPtr + chunkStart, chunkLength);
+                    return null;
+                }
+            });
+        }
+        invokeAll(tasks);
+    }
+
+    private static int chunkSize(int length) {
+        Config c = config;
+        int parallelism = c == null ? 1 : c.pool.getParallelism();
+        int chunks = Math.max(1, Math.min(parallelism, length / MIN_CHUNK_SIZE));
+        int chunkSize = (int) (((long) length + chunks - 1) / chunks);
+        return (chunkSize + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+    }
+
+    private static NativeRef.EVP_CIPHER_CTX newContext(
+            long evpCipher, byte[] key, byte[] iv, long block, boolean encrypting) {
+        NativeRef.EVP_CIPHER_CTX ctx =
+                new NativeRef.EVP_CIPHER_CTX(NativeCrypto.EVP_CIPHER_CTX_new());
+        NativeCrypto.EVP_CipherInit_ex(ctx, evpCipher, key, counterAt(iv, block), encrypting);
+        return ctx;
+    }
+
+    private static void invokeAll(List<Callable<Void>> tasks) {
+        Config c = config;
+        // Disabled concurrently if c is null.
+        ForkJoinTasks.invokeAll(c == null ? null : c.pool, tasks);
+    }
+}
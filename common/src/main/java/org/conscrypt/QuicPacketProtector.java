@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import javax.crypto.BadPaddingException;
+import javax.crypto.ShortBufferException;
+
+/**
+ * Applies and removes QUIC packet protection (RFC 9001, section 5) for one direction of a
+ * connection: the packet AEAD, with nonces derived from the packet number, and header
+ * protection. Native contexts for both keys are created once, and protecting or unprotecting
+ * a packet does not allocate.
+ *
+ * <p>Packets are protected in place. A packet occupies a region of a byte array starting at
+ * the first byte of its header; the header, whose length the caller knows once the packet
+ * number length is known, is the AEAD's additional data and the payload follows it.
+ *
+ * <p>Instances are not safe for use by multiple threads.
+ *
+ * @see Conscrypt#newQuicPacketProtector(String, byte[], byte[], byte[])
+ */
+@ExperimentalApi
+public final class QuicPacketProtector {
+    /** Length of the AEAD tag of every QUIC cipher suite. */
+    public static final int TAG_LENGTH = 16;
+
+    /** Length of the ciphertext sample used for header protection. */
+    public static final int SAMPLE_LENGTH = 16;
+
+    private static final int NONCE_LENGTH = 12;
+    private static final int MASK_LENGTH = 5;
+    private static final int MAX_PACKET_NUMBER_LENGTH = 4;
+    private static final byte[] ZEROS = new byte[MASK_LENGTH];
+
+    private final NativeRef.EVP_AEAD_CTX aeadCtx;
+    private final byte[] iv;
+    private final NativeRef.EVP_CIPHER_CTX headerCtx;
+    private final byte[] headerKey;
+
+    // Scratch space reused by every packet.
+    private final byte[] nonce = new byte[NONCE_LENGTH];
+    private final byte[] mask = new byte[SAMPLE_LENGTH];
+    private final byte[] chachaNonce = new byte[NONCE_LENGTH];
+
+    private QuicPacketProtector(long evpAead, byte[] key, byte[] iv, String headerCipher,
+            byte[] headerKey) {
+        this.aeadCtx = new NativeRef.EVP_AEAD_CTX(
+                NativeCrypto.EVP_AEAD_CTX_new(evpAead, key, TAG_LENGTH));
+        this.iv = iv.clone();
+        if (headerCipher != null) {
+            this.headerCtx = new NativeRef.EVP_CIPHER_CTX(NativeCrypto.EVP_CIPHER_CTX_new());
+            NativeCrypto.EVP_CipherInit_ex(headerCtx,
+                    NativeCrypto.EVP_get_cipherbyname(headerCipher), headerKey, null, true);
+            NativeCrypto.EVP_CIPHER_CTX_set_padding(headerCtx, false);
+            this.headerKey = null;
+        } else {
+            this.headerCtx = null;
+            this.headerKey = headerKey.clone();
+        }
+    }
+
+    /**
+     * Returns a protector for the TLS 1.3 cipher suite {@code cipherSuite}, one of
+     * {@code TLS_AES_128_GCM_SHA256}, {@code TLS_AES_256_GCM_SHA384} or
+     * {@code TLS_CHACHA20_POLY1305_SHA256}, with the given packet protection key and IV and
+     * header protection key.
+     */
+    static QuicPacketProtector getInstance(String cipherSuite, byte[] key, byte[] iv,
+            byte[] headerProtectionKey) throws NoSuchAlgorithmException, InvalidKeyException {
+        if (cipherSuite == null) {
+            throw new NullPointerException("cipherSuite == null");
+        }
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+        if (iv == null) {
+            throw new NullPointerException("iv == null");
+        }
+        if (headerProtectionKey == null) {
+            throw new NullPointerException("headerProtectionKey == null");
+        }
+        if (iv.length != NONCE_LENGTH) {
+            throw new IllegalArgumentException("iv.length != " + NONCE_LENGTH);
+        }
+        final long evpAead;
+        final String headerCipher;
+        final int keyLength;
+        if (cipherSuite.equals("TLS_AES_128_GCM_SHA256")) {
+            evpAead = NativeCrypto.EVP_aead_aes_128_gcm();
+            headerCipher = "aes-128-ecb";
+            keyLength = 16;
+        } else if (cipherSuite.equals("TLS_AES_256_GCM_SHA384")) {
+            evpAead = NativeCrypto.EVP_aead_aes_256_gcm();
+            headerCipher = "aes-256-ecb";
+            keyLength = 32;
+        } else if (cipherSuite.equals("TLS_CHACHA20_POLY1305_SHA256")) {
+            evpAead = NativeCrypto.EVP_aead_chacha20_poly1305();
+            headerCipher = null;
+            keyLength = 32;
+        } else {
+            throw new NoSuchAlgorithmException("Unsupported cipher suite: " + cipherSuite);
+        }
+        if (key.length != keyLength || headerProtectionKey.length != keyLength) {
+            throw new InvalidKeyException("Keys for " + cipherSuite + " must be " + keyLength
+                    + " bytes");
+        }
+        return new QuicPacketProtector(evpAead, key, iv, headerCipher, headerProtectionKey);
+    }
+
+    /**
+     * Encrypts the {@code payloadLength} bytes following the {@code headerLength}-byte header
+     * at {@code offset} of {@code packet} and appends the tag, so the array needs room for
+     * {@link #TAG_LENGTH} more bytes.
+     *
+     * @return the length of the protected payload, including the tag
+     */
+    public int seal(long packetNumber, byte[] packet, int offset, int headerLength,
+            int payloadLength) throws ShortBufferException {
+        checkPacket(packet, offset, headerLength, payloadLength);
+        if (packet.length - offset - headerLength - payloadLength < TAG_LENGTH) {
+            throw new ShortBufferException("No room for the tag");
+        }
+        int payloadOffset = offset + headerLength;
+        try {
+            return NativeCrypto.EVP_AEAD_CTX_seal_with_ctx(aeadCtx, packet, payloadOffset,
+                    nonce(packetNumber), packet, payloadOffset, payloadLength, packet, offset,
+                    headerLength);
+        } catch (BadPaddingException e) {
+            // Only opening checks tags.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decrypts and authenticates the {@code payloadLength} bytes, including the tag, following
+     * the {@code headerLength}-byte header at {@code offset} of {@code packet}, leaving the
+     * plaintext in their place.
+     *
+     * @return the length of the plaintext
+     * @throws BadPaddingException if the packet fails authentication; this is a
+     *     {@code javax.crypto.AEADBadTagException} where available
+     */
+    public int open(long packetNumber, byte[] packet, int offset, int headerLength,
+            int payloadLength) throws BadPaddingException {
+        checkPacket(packet, offset, headerLength, payloadLength);
+        if (payloadLength < TAG_LENGTH) {
+            throw new IllegalArgumentException("payloadLength < " + TAG_LENGTH);
+        }
+        int payloadOffset = offset + headerLength;
+        try {
+            return NativeCrypto.EVP_AEAD_CTX_open_with_ctx(aeadCtx, packet, payloadOffset,
+                    nonce(packetNumber), packet, payloadOffset, payloadLength, packet, offset,
+                    headerLength);
+        } catch (ShortBufferException e) {
+            // The plaintext is always shorter than the ciphertext it replaces.
+            throw new IllegalStateException(e);
+        } catch (BadPaddingException e) {
+            OpenSSLCipher.EVP_AEAD.throwAEADBadTagExceptionIfAvailable(
+                    e.getMessage(), e.getCause());
+            throw e;
+        }
+    }
+
+    /**
+     * Applies header protection to the packet at {@code offset} of {@code packet}, whose
+     * packet number starts at {@code packetNumberOffset} and whose payload has already been
+     * sealed. The packet number length is read from the unprotected first byte.
+     */
+    public void protectHeader(byte[] packet, int offset, int packetNumberOffset) {
+        int packetNumberLength = (packet[offset] & 0x03) + 1;
+        computeMask(packet, offset, packetNumberOffset);
+        packet[offset] ^= (byte) (mask[0] & firstByteMask(packet[offset]));
+        maskPacketNumber(packet, packetNumberOffset, packetNumberLength);
+    }
+
+    /**
+     * Removes header protection from the packet at {@code offset} of {@code packet}, whose
+     * packet number starts at {@code packetNumberOffset}.
+     *
+     * @return the length of the packet number, which is now readable
+     */
+    public int unprotectHeader(byte[] packet, int offset, int packetNumberOffset) {
+        computeMask(packet, offset, packetNumberOffset);
+        packet[offset] ^= (byte) (mask[0] & firstByteMask(packet[offset]));
+        int packetNumberLength = (packet[offset] & 0x03) + 1;
+        maskPacketNumber(packet, packetNumberOffset, packetNumberLength);
+        return packetNumberLength;
+    }
+
+    private void maskPacketNumber(byte[] packet, int packetNumberOffset,
+            int packetNumberLength) {
+        for (int i = 0; i < packetNumberLength; i++) {
+            packet[packetNumberOffset + i] ^= mask[1 + i];
+        }
+    }
+
+    private static int firstByteMask(byte firstByte) {
+        // Long headers protect the low four bits of the first byte, short headers five.
+        return (firstByte & 0x80) != 0 ? 0x0f : 0x1f;
+    }
+
+    /**
+     * Computes the header protection mask from the sample that starts four bytes after the
+     * start of the packet number.
+     */
+    private void computeMask(byte[] packet, int offset, int packetNumberOffset) {
+        int sampleOffset = packetNumberOffset + MAX_PACKET_NUMBER_LENGTH;
+        if (offset < 0 || packetNumberOffset <= offset || sampleOffset < 0
+                || sampleOffset > packet.length - SAMPLE_LENGTH) {
+            throw new ArrayIndexOutOfBoundsException("Packet too short to sample");
+        }
+        if (headerCtx != null) {
+            NativeCrypto.EVP_CipherUpdate(headerCtx, mask, 0, packet, sampleOffset,
+                    SAMPLE_LENGTH);
+        } else {
+            // The first four bytes of the sample are the little-endian block counter and the
+            // rest the nonce.
+            int counter = (packet[sampleOffset] & 0xff)
+                    | (packet[sampleOffset + 1] & 0xff) << 8
+                    | (packet[sampleOffset + 2] & 0xff) << 16
+                    | (packet[sampleOffset + 3] & 0xff) << 24;
+            System.arraycopy(packet, sampleOffset + 4, chachaNonce, 0, NONCE_LENGTH);
+            NativeCrypto.chacha20_encrypt_decrypt(
+                    ZEROS, 0, mask, 0, MASK_LENGTH, headerKey, chachaNonce, counter);
+        }
+    }
+
+    /**
+     * Returns the nonce for {@code packetNumber}: the IV with the packet number, left-padded
+     * to the IV length, XORed in.
+     */
+    private byte[] nonce(long packetNumber) {
+        if (packetNumber < 0) {
+            throw new IllegalArgumentException("packetNumber < 0");
+        }
+        System.arraycopy(iv, 0, nonce, 0, NONCE_LENGTH);
+        for (int i = 0; i < 8; i++) {
+            nonce[NONCE_LENGTH - 1 - i] ^= (byte) (packetNumber >>> (8 * i));
+        }
+        return nonce;
+    }
+
+    private static void checkPacket(byte[] packet, int offset, int headerLength,
+            int payloadLength) {
+        if (packet == null) {
+            throw new NullPointerException("packet == null");
+        }
+        if (headerLength < 0) {
+            throw new IllegalArgumentException("headerLength < 0");
+        }
+        ArrayUtils.checkOffsetAndCount(packet.length, offset, headerLength);
+        ArrayUtils.checkOffsetAndCount(packet.length, offset + headerLength, payloadLength);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Serves small random requests from a per-thread buffer that is refilled from
+ * {@code RAND_bytes} in bulk, so that they don't each cost a native call. Disabled by default.
+ *
+ * <p>Buffered bytes must never be handed out by two processes, so buffers live in native
+ * memory that the kernel zeroes in the child of a fork. The first byte of a buffer is set once
+ * it is filled, and finding it clear means the process has forked since. Where such memory
+ * isn't available every request goes to {@code RAND_bytes}. Bytes are zeroed in the buffer as
+ * they are handed out.
+ */
+final class RandomBuffer {
+    /** Requests longer than this are always filled by {@code RAND_bytes} directly. */
+    static final int MAX_BUFFERED_REQUEST = 64;
+
+    private static final int BUFFER_SIZE = 4096;
+
+    /** Bytes at the start of each buffer reserved for the filled marker. */
+    private static final int HEADER_SIZE = 8;
+
+    private static volatile boolean enabled;
+
+    /** Whether the kernel can zero buffers in the child of a fork. */
+    private static final boolean SUPPORTED = NativeCrypto.RAND_forkSafeBuffersSupported();
+
+    /**
+     * The calling thread's buffer, or {@code null} if it couldn't be allocated, in which case
+     * that thread goes to {@code RAND_bytes} for every request.
+     */
+    private static final ThreadLocal<RandomBuffer> BUFFERS = new ThreadLocal<RandomBuffer>() {
+        @Override
+        protected RandomBuffer initialValue() {
+            ByteBuffer buffer = NativeCrypto.RAND_newForkSafeBuffer(BUFFER_SIZE);
+            return buffer != null ? new RandomBuffer(buffer) : null;
+        }
+    };
+
+    private final ByteBuffer buffer;
+    private final long address;
+
+    /** Index of the next unused byte of {@link #buffer}. */
+    private int position = BUFFER_SIZE;
+
+    private RandomBuffer(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.address = NativeCrypto.getDirectBufferAddress(buffer);
+    }
+
+    /**
+     * Enables or disables buffering for all threads.
+     */
+    static void setEnabled(boolean enabled) {
+        RandomBuffer.enabled = enabled;
+    }
+
+    /**
+     * Fills {@code bytes} from the calling thread's buffer and returns {@code true}, or returns
+     * {@code false} if the caller should fill them from {@code RAND_bytes} itself.
+     */
+    static boolean nextBytes(byte[] bytes) {
+        if (!enabled || !SUPPORTED || bytes.length > MAX_BUFFERED_REQUEST) {
+            return false;
+        }
+        RandomBuffer randomBuffer = BUFFERS.get();
+        if (randomBuffer == null) {
+            return false;
+        }
+        randomBuffer.take(bytes);
+        return true;
+    }
+
+    private void take(byte[] bytes) {
+        int length = bytes.length;
+        if (buffer.get(0) == 0 || BUFFER_SIZE - position < length) {
+            refill();
+        }
+        buffer.position(position);
+        buffer.get(bytes);
+        for (int i = position; i < position + length; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        position += length;
+    }
+
+    private void refill() {
+        NativeCrypto.RAND_bytesDirect(address + HEADER_SIZE, BUFFER_SIZE - HEADER_SIZE);
+        buffer.put(0, (byte) 1);
+        position = HEADER_SIZE;
+    }
+
+    @Override
+    protected void finalize() throws Throwable {
+        try {
+            NativeCrypto.RAND_freeForkSafeBuffer(address, BUFFER_SIZE);
+        } finally {
+            super.finalize();
+        }
+    }
+}
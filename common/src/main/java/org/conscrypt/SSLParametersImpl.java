@@ -205,16 +205,31 @@ final class SSLParametersImpl implements Cloneable {
      * Returns the appropriate session context.
      */
     AbstractSessionContext getSessionContext() {
-        return client_mode ? clientSessionContext : serverSessionContext;
+        return client_mode ? getClientSessionContext() : getServerSessionContext();
     }
 
     /**
-     * @return client session context
+     * @return client session context, or the shared one it has been attached to
      */
     ClientSessionContext getClientSessionContext() {
+        SharedSessionCache sharedCache = clientSessionContext.sharedCache;
+        if (sharedCache != null) {
+            return sharedCache.getClientSessionContext(this);
+        }
         return clientSessionContext;
     }
 
+    /**
+     * @return server session context, or the shared one it has been attached to
+     */
+    private ServerSessionContext getServerSessionContext() {
+        SharedSessionCache sharedCache = serverSessionContext.sharedCache;
+        if (sharedCache != null) {
+            return sharedCache.getServerSessionContext(this);
+        }
+        return serverSessionContext;
+    }
+
     /**
      * @return X.509 key manager or {@code null} for none.
      */
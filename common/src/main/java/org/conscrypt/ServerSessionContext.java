@@ -16,6 +16,16 @@
 
 package org.conscrypt;
 
+import static org.conscrypt.NativeConstants.SSL_SESS_CACHE_BOTH;
+import static org.conscrypt.NativeConstants.SSL_SESS_CACHE_NO_INTERNAL;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.net.ssl.SSLContext;
 
 /**
@@ -24,8 +34,27 @@ import javax.net.ssl.SSLContext;
  */
 @Internal
 public final class ServerSessionContext extends AbstractSessionContext {
+    private static final Logger logger = Logger.getLogger(ServerSessionContext.class.getName());
+
+    /**
+     * Length of a session ticket key using AES-128-CBC: a 16-byte key name, a 16-byte
+     * HMAC-SHA256 secret and a 16-byte AES key.
+     */
+    public static final int TICKET_KEY_LENGTH_AES_128 = 48;
+
+    /**
+     * Length of a session ticket key using AES-256-CBC: a 16-byte key name, a 32-byte
+     * HMAC-SHA256 secret and a 32-byte AES key.
+     */
+    public static final int TICKET_KEY_LENGTH_AES_256 = 80;
+
     private SSLServerSessionCache persistentCache;
 
+    /**
+     * Off-heap store used instead of the in-memory cache, or {@code null}.
+     */
+    private volatile OffHeapSessionStore offHeapStore;
+
     ServerSessionContext() {
         super(100);
 
@@ -53,16 +82,180 @@ public final class ServerSessionContext extends AbstractSessionContext {
         this.persistentCache = persistentCache;
     }
 
+    /**
+     * Switches this context to keeping sessions serialized in off-heap memory instead of as
+     * Java objects, for caches too large to hold one object per session. Room is reserved up
+     * front for {@code capacity} sessions of up to {@code maxSessionSize} encoded bytes;
+     * larger sessions are not cached. Sessions are only materialized when a client asks to
+     * resume them. Sessions already in the in-memory cache are kept until they are evicted.
+     *
+     * <p>Applications should not use this method. Instead use {@link
+     * Conscrypt#setServerSessionCacheOffHeap(SSLContext, int, int)}.
+     */
+    public void setOffHeapCache(int capacity, int maxSessionSize) {
+        offHeapStore = new OffHeapSessionStore(capacity, maxSessionSize);
+        // Look up sessions through serverSessionRequested() rather than BoringSSL's own cache,
+        // which would otherwise hold a second copy of every session.
+        NativeCrypto.SSL_CTX_set_session_cache_mode(
+                sslCtxNativePointer, this, SSL_SESS_CACHE_BOTH | SSL_SESS_CACHE_NO_INTERNAL);
+    }
+
+    /**
+     * Called from BoringSSL's session lookup callback. Returns the address of the session with
+     * the given ID, with a new reference owned by the caller, or 0 if it is not cached. Only
+     * the off-heap cache is consulted; otherwise BoringSSL's internal cache serves lookups.
+     */
+    long getSessionForResumption(byte[] sessionId) {
+        if (offHeapStore == null) {
+            return 0;
+        }
+        NativeSslSession session = getSessionFromCache(sessionId);
+        return session != null ? session.upRef() : 0;
+    }
+
+    /**
+     * Installs the keys used to encrypt and decrypt session tickets, replacing BoringSSL's
+     * per-context random key. {@code keys[0]} encrypts new tickets; every key is accepted when
+     * decrypting, and tickets under any but the first key are renewed under the first. All keys
+     * must be {@link #TICKET_KEY_LENGTH_AES_128} or all {@link #TICKET_KEY_LENGTH_AES_256} bytes
+     * long and have distinct names (first 16 bytes).
+     *
+     * <p>Sharing the same keys across servers lets any of them resume sessions issued by the
+     * others. Tickets are only issued on connections that have session tickets enabled.
+     *
+     * <p>Applications should not use this method. Instead use {@link
+     * Conscrypt#setSessionTicketKeys(SSLContext, byte[][])}.
+     */
+    public void setTicketKeys(byte[][] keys) {
+        installTicketKeys(keys, false);
+    }
+
+    /**
+     * Makes {@code key} the key for new session tickets, keeping the previous current key for
+     * decryption only so that tickets issued before the rotation can still be resumed. Keys
+     * older than that are dropped. Does nothing if {@code key} is already the current key.
+     *
+     * <p>Applications should not use this method. Instead use {@link
+     * Conscrypt#rotateSessionTicketKey(SSLContext, byte[])}.
+     */
+    public void rotateTicketKey(byte[] key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+        installTicketKeys(new byte[][] {key}, true);
+    }
+
+    /**
+     * Validates {@code keys} and hands them to BoringSSL, which keeps the only copy; the
+     * encoded form passed across is zeroed afterwards.
+     */
+    private void installTicketKeys(byte[][] keys, boolean retainCurrent) {
+        if (keys == null) {
+            throw new NullPointerException("keys == null");
+        }
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("keys.length == 0");
+        }
+        int keyLength = keys[0] == null ? 0 : keys[0].length;
+        if (keyLength != TICKET_KEY_LENGTH_AES_128 && keyLength != TICKET_KEY_LENGTH_AES_256) {
+            throw new IllegalArgumentException("Invalid ticket key length: " + keyLength);
+        }
+        byte[] encoded = new byte[keys.length * keyLength];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null || keys[i].length != keyLength) {
+                throw new IllegalArgumentException("All ticket keys must be " + keyLength
+                        + " bytes long");
+            }
+            for (int j = 0; j < i; j++) {
+                if (regionMatches(keys[j], keys[i], 16)) {
+                    throw new IllegalArgumentException("Duplicate ticket key name at index " + i);
+                }
+            }
+            System.arraycopy(keys[i], 0, encoded, i * keyLength, keyLength);
+        }
+        try {
+            NativeCrypto.SSL_CTX_set_ticket_keys(
+                    sslCtxNativePointer, this, encoded, keyLength, retainCurrent);
+        } finally {
+            Arrays.fill(encoded, (byte) 0);
+        }
+    }
+
+    /**
+     * Periodically fetches the current ticket key from {@code keySource} and installs it with
+     * {@link #rotateTicketKey(byte[])}. The first fetch happens immediately. Failures are
+     * logged and leave the installed keys untouched until the next period.
+     *
+     * <p>Applications should not use this method. Instead use {@link
+     * Conscrypt#scheduleSessionTicketKeyRotation(SSLContext, ScheduledExecutorService, Callable,
+     * long, TimeUnit)}.
+     *
+     * @return a future that can be used to cancel the rotation
+     */
+    public ScheduledFuture<?> scheduleTicketKeyRotation(ScheduledExecutorService executor,
+            final Callable<byte[]> keySource, long period, TimeUnit unit) {
+        if (executor == null) {
+            throw new NullPointerException("executor == null");
+        }
+        if (keySource == null) {
+            throw new NullPointerException("keySource == null");
+        }
+        return executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    rotateTicketKey(keySource.call());
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Failed to rotate session ticket key", e);
+                }
+            }
+        }, 0, period, unit);
+    }
+
+    private static boolean regionMatches(byte[] a, byte[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    boolean retainsSessions() {
+        return offHeapStore == null;
+    }
+
     @Override
     NativeSslSession getSessionFromPersistentCache(byte[] sessionId) {
-        if (persistentCache != null) {
-            byte[] data = persistentCache.getSessionData(sessionId);
+        OffHeapSessionStore store = offHeapStore;
+        if (store != null) {
+            byte[] data = store.get(sessionId);
             if (data != null) {
-                NativeSslSession session = NativeSslSession.newInstance(this, data, null, -1);
+                NativeSslSession session = NativeSslSession.newServerInstance(this, data);
                 if (session != null && session.isValid()) {
-                    cacheSession(session);
+                    if (session.isSingleUse()) {
+                        store.remove(sessionId);
+                        metrics.recordSingleUseConsumed();
+                    }
                     return session;
                 }
+                store.remove(sessionId);
+            }
+        }
+
+        if (persistentCache != null) {
+            long start = System.nanoTime();
+            byte[] data = persistentCache.getSessionData(sessionId);
+            NativeSslSession session = null;
+            if (data != null) {
+                session = NativeSslSession.newInstance(this, data, null, -1);
+            }
+            boolean valid = session != null && session.isValid();
+            metrics.recordPersistentRead(start, valid);
+            if (valid) {
+                cacheSession(session);
+                return session;
             }
         }
 
@@ -71,11 +264,20 @@ public final class ServerSessionContext extends AbstractSessionContext {
 
     @Override
     void onBeforeAddSession(NativeSslSession session) {
+        OffHeapSessionStore store = offHeapStore;
+        if (store != null) {
+            byte[] data = session.toSslSessionBytes();
+            if (data != null) {
+                store.put(session.getId(), data);
+            }
+        }
         // TODO: Do this in background thread.
         if (persistentCache != null) {
             byte[] data = session.toBytes();
             if (data != null) {
+                long start = System.nanoTime();
                 persistentCache.putSessionData(session.toSSLSession(), data);
+                metrics.recordPersistentWrite(start);
             }
         }
     }
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live counters for an {@link AbstractSessionContext}. Every method is a single atomic
+ * increment so that recording never takes a lock on the handshake path. Use
+ * {@link #snapshot()} to read a consistent-enough copy.
+ */
+final class SessionCacheMetrics {
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong missesNotFound = new AtomicLong();
+    private final AtomicLong missesExpired = new AtomicLong();
+    private final AtomicLong missesProtocol = new AtomicLong();
+    private final AtomicLong missesCipherSuite = new AtomicLong();
+    private final AtomicLong singleUseConsumed = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong persistentReads = new AtomicLong();
+    private final AtomicLong persistentReadHits = new AtomicLong();
+    private final AtomicLong persistentReadNanos = new AtomicLong();
+    private final AtomicLong persistentWrites = new AtomicLong();
+    private final AtomicLong persistentWriteNanos = new AtomicLong();
+
+    void recordLookup() {
+        lookups.incrementAndGet();
+    }
+
+    void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    void recordMissNotFound() {
+        missesNotFound.incrementAndGet();
+    }
+
+    void recordMissExpired() {
+        missesExpired.incrementAndGet();
+    }
+
+    void recordMissProtocol() {
+        missesProtocol.incrementAndGet();
+    }
+
+    void recordMissCipherSuite() {
+        missesCipherSuite.incrementAndGet();
+    }
+
+    void recordSingleUseConsumed() {
+        singleUseConsumed.incrementAndGet();
+    }
+
+    void recordEviction() {
+        evictions.incrementAndGet();
+    }
+
+    void recordPersistentRead(long startNanos, boolean hit) {
+        persistentReadNanos.addAndGet(System.nanoTime() - startNanos);
+        persistentReads.incrementAndGet();
+        if (hit) {
+            persistentReadHits.incrementAndGet();
+        }
+    }
+
+    void recordPersistentWrite(long startNanos) {
+        persistentWriteNanos.addAndGet(System.nanoTime() - startNanos);
+        persistentWrites.incrementAndGet();
+    }
+
+    SessionCacheStats snapshot() {
+        return new SessionCacheStats(lookups.get(), hits.get(), missesNotFound.get(),
+                missesExpired.get(), missesProtocol.get(), missesCipherSuite.get(),
+                singleUseConsumed.get(), evictions.get(), persistentReads.get(),
+                persistentReadHits.get(), persistentReadNanos.get(), persistentWrites.get(),
+                persistentWriteNanos.get());
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import javax.net.ssl.SSLSessionContext;
+
+/**
+ * A point-in-time copy of the resumption counters of a Conscrypt {@link SSLSessionContext}.
+ * All counts are cumulative since the context was created, so rates are obtained by
+ * subtracting two snapshots.
+ *
+ * <p>The lookup, hit and miss counters are only kept by client contexts. Servers resume
+ * sessions from BoringSSL's internal cache or from session tickets without consulting Java, so
+ * a server context's counters for those stay at zero; its eviction, single-use and persistent
+ * cache counters are kept as for clients. Every client lookup ends in exactly one hit or one
+ * miss, so {@code getClientLookups()} equals {@code getClientHits()} plus the four miss
+ * counters.
+ *
+ * @see Conscrypt#getSessionCacheStats(SSLSessionContext)
+ */
+@ExperimentalApi
+public final class SessionCacheStats {
+    private final long lookups;
+    private final long hits;
+    private final long missesNotFound;
+    private final long missesExpired;
+    private final long missesProtocol;
+    private final long missesCipherSuite;
+    private final long singleUseConsumed;
+    private final long evictions;
+    private final long persistentReads;
+    private final long persistentReadHits;
+    private final long persistentReadNanos;
+    private final long persistentWrites;
+    private final long persistentWriteNanos;
+
+    SessionCacheStats(long lookups, long hits, long missesNotFound, long missesExpired,
+            long missesProtocol, long missesCipherSuite, long singleUseConsumed, long evictions,
+            long persistentReads, long persistentReadHits, long persistentReadNanos,
+            long persistentWrites, long persistentWriteNanos) {
+        this.lookups = lookups;
+        this.hits = hits;
+        this.missesNotFound = missesNotFound;
+        this.missesExpired = missesExpired;
+        this.missesProtocol = missesProtocol;
+        this.missesCipherSuite = missesCipherSuite;
+        this.singleUseConsumed = singleUseConsumed;
+        this.evictions = evictions;
+        this.persistentReads = persistentReads;
+        this.persistentReadHits = persistentReadHits;
+        this.persistentReadNanos = persistentReadNanos;
+        this.persistentWrites = persistentWrites;
+        this.persistentWriteNanos = persistentWriteNanos;
+    }
+
+    /** Number of times a client looked up a session for resumption. */
+    public long getClientLookups() {
+        return lookups;
+    }
+
+    /** Number of client lookups that found a session, in memory or in the persistent cache. */
+    public long getClientHits() {
+        return hits;
+    }
+
+    /** Number of client lookups for which no session was cached. */
+    public long getClientMissesNotFound() {
+        return missesNotFound;
+    }
+
+    /** Number of client lookups that only found sessions which had timed out. */
+    public long getClientMissesExpired() {
+        return missesExpired;
+    }
+
+    /** Number of client lookups whose session used a protocol that is no longer enabled. */
+    public long getClientMissesProtocol() {
+        return missesProtocol;
+    }
+
+    /** Number of client lookups whose session used a cipher suite that is no longer enabled. */
+    public long getClientMissesCipherSuite() {
+        return missesCipherSuite;
+    }
+
+    /** Number of single-use (TLS 1.3) sessions removed from the cache by a hit. */
+    public long getSingleUseConsumed() {
+        return singleUseConsumed;
+    }
+
+    /** Number of sessions dropped because the cache was full or the session timed out. */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /** Number of reads from the persistent cache. */
+    public long getPersistentReads() {
+        return persistentReads;
+    }
+
+    /** Number of persistent cache reads that produced a usable session. */
+    public long getPersistentReadHits() {
+        return persistentReadHits;
+    }
+
+    /** Total time spent in persistent cache reads, in nanoseconds. */
+    public long getPersistentReadNanos() {
+        return persistentReadNanos;
+    }
+
+    /** Number of writes to the persistent cache. */
+    public long getPersistentWrites() {
+        return persistentWrites;
+    }
+
+    /** Total time spent in persistent cache writes, in nanoseconds. */
+    public long getPersistentWriteNanos() {
+        return persistentWriteNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionCacheStats{clientLookups=" + lookups + ", clientHits=" + hits
+                + ", clientMissesNotFound=" + missesNotFound + ", clientMissesExpired="
+                + missesExpired + ", clientMissesProtocol=" + missesProtocol
+                + ", clientMissesCipherSuite=" + missesCipherSuite + ", singleUseConsumed="
+                + singleUseConsumed + ", evictions=" + evictions
+                + ", persistentReads=" + persistentReads + ", persistentReadHits="
+                + persistentReadHits + ", persistentReadNanos=" + persistentReadNanos
+                + ", persistentWrites=" + persistentWrites + ", persistentWriteNanos="
+                + persistentWriteNanos + "}";
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.X509KeyManager;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * A named session cache that several {@link SSLContext}s in the same process can use instead
+ * of their own, so that a session established through one context can be resumed through
+ * another.
+ *
+ * <p>Resuming a session skips certificate verification, so sessions are only shared between
+ * contexts that use the same trust and key manager instances. Contexts initialized with
+ * {@code null} managers all use the same default instances and therefore share. Contexts with
+ * different managers attached to the same cache keep their sessions apart. Only the sessions
+ * of a bounded number of the most recently used groups of managers are kept.
+ *
+ * @see Conscrypt#getSharedSessionCache(String)
+ * @see Conscrypt#setSharedSessionCache(SSLContext, SharedSessionCache)
+ */
+@ExperimentalApi
+public final class SharedSessionCache {
+    private static final Map<String, SharedSessionCache> caches =
+            new HashMap<String, SharedSessionCache>();
+
+    /**
+     * The number of groups of managers whose sessions are kept at once.
+     */
+    static final int MAXIMUM_PARTITIONS = 16;
+
+    private final String name;
+
+    /**
+     * The session contexts of each group of managers, least recently used first. Protected by
+     * itself.
+     */
+    @SuppressWarnings("serial")
+    private final Map<Partition, Contexts> partitions =
+            new LinkedHashMap<Partition, Contexts>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Partition, Contexts> eldest) {
+                    if (size() > MAXIMUM_PARTITIONS) {
+                        eldest.getValue().release();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+    private volatile int sessionCacheSize = -1;
+    private volatile int sessionTimeout = -1;
+
+    private SharedSessionCache(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the cache with the given name, creating it if necessary.
+     */
+    static synchronized SharedSessionCache named(String name) {
+        if (name == null) {
+            throw new NullPointerException("name == null");
+        }
+        SharedSessionCache cache = caches.get(name);
+        if (cache == null) {
+            cache = new SharedSessionCache(name);
+            caches.put(name, cache);
+        }
+        return cache;
+    }
+
+    /** For testing. */
+    static synchronized void reset() {
+        caches.clear();
+    }
+
+    /**
+     * Returns the name of this cache.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the maximum number of sessions in each of the client and server caches used by
+     * each group of compatible contexts.
+     *
+     * @see javax.net.ssl.SSLSessionContext#setSessionCacheSize(int)
+     */
+    public void setSessionCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size < 0");
+        }
+        synchronized (partitions) {
+            sessionCacheSize = size;
+            for (Contexts contexts : partitions.values()) {
+                contexts.client.setSessionCacheSize(size);
+                contexts.server.setSessionCacheSize(size);
+            }
+        }
+    }
+
+    /**
+     * Sets the timeout of sessions in this cache.
+     *
+     * @see javax.net.ssl.SSLSessionContext#setSessionTimeout(int)
+     */
+    public void setSessionTimeout(int seconds) {
+        if (seconds < 0) {
+            throw new IllegalArgumentException("seconds < 0");
+        }
+        synchronized (partitions) {
+            sessionTimeout = seconds;
+            for (Contexts contexts : partitions.values()) {
+                contexts.client.setSessionTimeout(seconds);
+                contexts.server.setSessionTimeout(seconds);
+            }
+        }
+    }
+
+    ClientSessionContext getClientSessionContext(SSLParametersImpl parameters) {
+        return contexts(parameters.getX509TrustManager(), parameters.getX509KeyManager(),
+                parameters.getPSKKeyManager()).client;
+    }
+
+    ServerSessionContext getServerSessionContext(SSLParametersImpl parameters) {
+        return contexts(parameters.getX509TrustManager(), parameters.getX509KeyManager(),
+                parameters.getPSKKeyManager()).server;
+    }
+
+    @SuppressWarnings("deprecation") // PSKKeyManager is deprecated, but in our own package
+    Contexts contexts(X509TrustManager trustManager, X509KeyManager keyManager,
+            PSKKeyManager pskKeyManager) {
+        Partition partition = new Partition(trustManager, keyManager, pskKeyManager);
+        synchronized (partitions) {
+            Contexts contexts = partitions.get(partition);
+            if (contexts == null) {
+                contexts = new Contexts();
+                if (sessionCacheSize >= 0) {
+                    contexts.client.setSessionCacheSize(sessionCacheSize);
+                    contexts.server.setSessionCacheSize(sessionCacheSize);
+                }
+                if (sessionTimeout >= 0) {
+                    contexts.client.setSessionTimeout(sessionTimeout);
+                    contexts.server.setSessionTimeout(sessionTimeout);
+                }
+                partitions.put(partition, contexts);
+            }
+            return contexts;
+        }
+    }
+
+    static final class Contexts {
+        final ClientSessionContext client = new ClientSessionContext();
+        final ServerSessionContext server = new ServerSessionContext();
+
+        /**
+         * Drops the cached sessions once this group is evicted. Connections that are still
+         * using the contexts keep working; their native contexts are freed when the last of
+         * them lets go, as for any other session context.
+         */
+        void release() {
+            client.removeAllSessions();
+            server.removeAllSessions();
+        }
+    }
+
+    /**
+     * Identifies contexts whose sessions may be resumed by each other. Compares the managers
+     * by identity since there is no general way to tell whether two of them make the same
+     * trust decisions.
+     */
+    @SuppressWarnings("deprecation") // PSKKeyManager is deprecated, but in our own package
+    private static final class Partition {
+        private final X509TrustManager trustManager;
+        private final X509KeyManager keyManager;
+        private final PSKKeyManager pskKeyManager;
+
+        Partition(X509TrustManager trustManager, X509KeyManager keyManager,
+                PSKKeyManager pskKeyManager) {
+            this.trustManager = trustManager;
+            this.keyManager = keyManager;
+            this.pskKeyManager = pskKeyManager;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(trustManager) * 31
+                    + System.identityHashCode(keyManager)) * 31
+                    + System.identityHashCode(pskKeyManager);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Partition)) {
+                return false;
+            }
+            Partition lhs = (Partition) o;
+            return trustManager == lhs.trustManager && keyManager == lhs.keyManager
+                    && pskKeyManager == lhs.pskKeyManager;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import javax.crypto.ShortBufferException;
+
+/**
+ * Computes a Merkle tree hash of large inputs on all the threads of a {@link ForkJoinPool}.
+ *
+ * <p>The input is split into leaves of {@link #getLeafSize()} bytes, the last of which may be
+ * shorter, and the result is the Merkle tree hash of RFC 6962, section 2.1, over those leaves:
+ * a leaf hashes to {@code H(0x00 || leaf)}, two adjacent subtrees combine to
+ * {@code H(0x01 || left || right)}, and a subtree left without a sibling moves up a level
+ * unchanged. An empty input hashes to {@code H()}. The result depends on the leaf size, so
+ * producers and verifiers must agree on it.
+ *
+ * <p>Leaves are hashed concurrently, many per task and each in a single native call, straight
+ * from direct buffers or memory-mapped files. The tree above the leaves is small in comparison
+ * and is combined on the calling thread.
+ *
+ * <p>Instances are safe for use by multiple threads.
+ *
+ * @see Conscrypt#newTreeHash(String, int, ForkJoinPool)
+ */
+@ExperimentalApi
+public final class TreeHash {
+    /** A leaf size that keeps per-leaf overhead negligible for very large inputs. */
+    public static final int DEFAULT_LEAF_SIZE = 1024 * 1024;
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+
+    /**
+     * Most input hashed by a single task, which is also the most mapped at once per task.
+     */
+    private static final long MAX_TASK_SIZE = MappedFileHasher.DEFAULT_WINDOW_SIZE;
+
+    private final String algorithm;
+    private final int digestLength;
+    private final int leafSize;
+    private final ForkJoinPool pool;
+
+    private TreeHash(String algorithm, int digestLength, int leafSize, ForkJoinPool pool) {
+        this.algorithm = algorithm;
+        this.digestLength = digestLength;
+        this.leafSize = leafSize;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns a tree hash over {@code leafSize}-byte leaves using {@code algorithm}, which must
+     * be {@code "SHA-256"} or {@code "SHA-512"}, running on {@code pool}.
+     */
+    static TreeHash getInstance(String algorithm, int leafSize, ForkJoinPool pool)
+            throws NoSuchAlgorithmException {
+        if (algorithm == null) {
+            throw new NullPointerException("algorithm == null");
+        }
+        if (pool == null) {
+            throw new NullPointerException("pool == null");
+        }
+        if (leafSize <= 0) {
+            throw new IllegalArgumentException("leafSize <= 0");
+        }
+        String jcaName = EvpMdRef.getJcaDigestAlgorithmStandardName(algorithm);
+        if (!"SHA-256".equals(jcaName) && !"SHA-512".equals(jcaName)) {
+            throw new NoSuchAlgorithmException("Unsupported algorithm: " + algorithm);
+        }
+        return new TreeHash(algorithm,
+                EvpMdRef.getDigestSizeBytesByJcaDigestAlgorithmStandardName(jcaName), leafSize,
+                pool);
+    }
+
+    /**
+     * Returns the digest algorithm this tree hash was created for.
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the length in bytes of the tree hash.
+     */
+    public int getDigestLength() {
+        return digestLength;
+    }
+
+    /**
+     * Returns the size in bytes of each leaf.
+     */
+    public int getLeafSize() {
+        return leafSize;
+    }
+
+    /**
+     * Returns the tree hash of the remaining bytes of {@code input} and advances its position
+     * to its limit. Direct buffers are hashed in place; the contents of heap buffers are
+     * copied, a task's worth at a time.
+     */
+    public byte[] hash(final ByteBuffer input) {
+        if (input == null) {
+            throw new NullPointerException("input == null");
+        }
+        final int position = input.position();
+        byte[] result;
+        try {
+            result = hash(input.remaining(), new Regions() {
+                @Override
+                public ByteBuffer region(long offset, int regionLength) {
+                    ByteBuffer region = input.duplicate();
+                    region.limit(position + (int) offset + regionLength);
+                    region.position(position + (int) offset);
+                    return region.slice();
+                }
+            });
+        } catch (IOException e) {
+            // Slicing a buffer does no I/O.
+            throw new IllegalStateException(e);
+        }
+        input.position(input.limit());
+        return result;
+    }
+
+    /**
+     * Returns the tree hash of the {@code length} bytes of {@code channel} starting at
+     * {@code position}, which are memory-mapped a task's worth at a time. The channel's
+     * position is not used or changed.
+     *
+     * @throws EOFException if the region extends past the end of the file
+     */
+    public byte[] hash(final FileChannel channel, final long position, long length)
+            throws IOException {
+        if (channel == null) {
+            throw new NullPointerException("channel == null");
+        }
+        if (position < 0) {
+            throw new IllegalArgumentException("position < 0");
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("length < 0");
+        }
+        if (position > channel.size() - length) {
+            throw new EOFException("Region ends after the end of the file");
+        }
+        return hash(length, new Regions() {
+            @Override
+            public ByteBuffer region(long offset, int regionLength) throws IOException {
+                return channel.map(
+                        FileChannel.MapMode.READ_ONLY, position + offset, regionLength);
+            }
+        });
+    }
+
+    /**
+     * Supplies the input a region at a time. Called only on the thread computing the hash.
+     */
+    private interface Regions {
+        ByteBuffer region(long offset, int length) throws IOException;
+    }
+
+    private byte[] hash(long length, Regions regions) throws IOException {
+        long leafCount = (length + leafSize - 1) / leafSize;
+        if (leafCount > Integer.MAX_VALUE / digestLength) {
+            throw new IllegalArgumentException("Too many leaves; use a larger leaf size");
+        }
+        if (leafCount == 0) {
+            return newState().digest();
+        }
+        int leaves = (int) leafCount;
+        int parallelism = pool.getParallelism();
+        int leavesPerTask = (int) Math.max(1,
+                Math.min(MAX_TASK_SIZE / leafSize, (leafCount + parallelism - 1) / parallelism));
+
+        // Tasks are submitted a few per thread at a time, so that regions are only mapped
+        // while they are being hashed and a failure to map one surfaces as an IOException.
+        byte[] leafHashes = new byte[leaves * digestLength];
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int first = 0; first < leaves; first += leavesPerTask) {
+            long offset = (long) first * leafSize;
+            int regionLength = (int) Math.min((long) leavesPerTask * leafSize, length - offset);
+            tasks.add(newLeafTask(regions.region(offset, regionLength), leafHashes, first));
+            if (tasks.size() == 2 * parallelism) {
+                ForkJoinTasks.invokeAll(pool, tasks);
+                tasks.clear();
+            }
+        }
+        if (!tasks.isEmpty()) {
+            ForkJoinTasks.invokeAll(pool, tasks);
+        }
+        return combine(leafHashes, leaves);
+    }
+
+    /**
+     * Returns a task that hashes the leaves of {@code region}, which start at leaf
+     * {@code first}, into their place in {@code leafHashes}.
+     */
+    private Callable<Void> newLeafTask(
+            final ByteBuffer region, final byte[] leafHashes, final int first) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() {
+                int count = (region.remaining() + leafSize - 1) / leafSize;
+                // Concurrent tasks may not share an output array: native code may write back
+                // a whole copy of it.
+                byte[] out = new byte[count * digestLength];
+                DigestState state = newState();
+                state.update(LEAF_PREFIX);
+                try {
+                    digestLeaves(state, region, count, out);
+                } catch (ShortBufferException e) {
+                    // This should not happen since we sized our own buffer.
+                    throw new IllegalStateException(e);
+                }
+                System.arraycopy(out, 0, leafHashes, first * digestLength, out.length);
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Hashes each of the {@code count} leaves of {@code region} after the contents of
+     * {@code state} into {@code out}.
+     */
+    private void digestLeaves(DigestState state, ByteBuffer region, int count, byte[] out)
+            throws ShortBufferException {
+        if (region.isDirect()) {
+            ByteBuffer[] inputs = new ByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                int start = i * leafSize;
+                ByteBuffer leaf = region.duplicate();
+                leaf.limit(Math.min(start + leafSize, region.limit()));
+                leaf.position(start);
+                inputs[i] = leaf;
+            }
+            state.digestEach(inputs, out, 0);
+        } else {
+            byte[] in = new byte[region.remaining()];
+            region.duplicate().get(in);
+            int[] inOffsets = new int[count];
+            int[] inLengths = new int[count];
+            for (int i = 0; i < count; i++) {
+                inOffsets[i] = i * leafSize;
+                inLengths[i] = Math.min(leafSize, in.length - inOffsets[i]);
+            }
+            state.digestEach(in, inOffsets, inLengths, out, 0);
+        }
+    }
+
+    /**
+     * Combines the {@code count} hashes in {@code level} a level at a time until only the root
+     * is left. Each level is hashed in a single native call, since the inputs of its nodes are
+     * adjacent pairs of the level below.
+     */
+    private byte[] combine(byte[] level, int count) {
+        DigestState state = newState();
+        state.update(NODE_PREFIX);
+        while (count > 1) {
+            int pairs = count / 2;
+            int[] inOffsets = new int[pairs];
+            int[] inLengths = new int[pairs];
+            for (int i = 0; i < pairs; i++) {
+                inOffsets[i] = 2 * i * digestLength;
+                inLengths[i] = 2 * digestLength;
+            }
+            int nextCount = count - pairs;
+            byte[] next = new byte[nextCount * digestLength];
+            try {
+                state.digestEach(level, inOffsets, inLengths, next, 0);
+            } catch (ShortBufferException e) {
+                // This should not happen since we sized our own buffer.
+                throw new IllegalStateException(e);
+            }
+            if (nextCount > pairs) {
+                System.arraycopy(level, (count - 1) * digestLength, next, pairs * digestLength,
+                        digestLength);
+            }
+            level = next;
+            count = nextCount;
+        }
+        return level.length == digestLength ? level : Arrays.copyOf(level, digestLength);
+    }
+
+    private DigestState newState() {
+        try {
+            return DigestState.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            // Checked by getInstance.
+            throw new IllegalStateException(e);
+        }
+    }
+}
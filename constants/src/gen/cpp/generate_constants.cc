@@ -73,6 +73,9 @@ int main(int argc, char **argv) {
   CONST(SSL_OP_CIPHER_SERVER_PREFERENCE);
   CONST(SSL_OP_NO_TICKET);
 
+  CONST(SSL_SESS_CACHE_BOTH);
+  CONST(SSL_SESS_CACHE_NO_INTERNAL);
+
   CONST(SSL_ERROR_NONE);
   CONST(SSL_ERROR_WANT_READ);
   CONST(SSL_ERROR_WANT_WRITE);
@@ -41,6 +41,8 @@ import org.conscrypt.java.security.cert.CertificateFactoryTest;
 import org.conscrypt.java.security.cert.X509CertificateTest;
 import org.conscrypt.javax.crypto.CipherBasicsTest;
 import org.conscrypt.javax.crypto.KeyGeneratorTest;
+import org.conscrypt.javax.crypto.MacTest;
+import org.conscrypt.javax.crypto.SecretKeyFactoryTest;
 import org.conscrypt.javax.net.ssl.HttpsURLConnectionTest;
 import org.conscrypt.javax.net.ssl.KeyManagerFactoryTest;
 import org.conscrypt.javax.net.ssl.KeyStoreBuilderParametersTest;
@@ -91,6 +93,8 @@ import org.junit.runners.Suite;
         // CipherTest.class,  // Lots of weird, broken behaviors in Sun* providers on OpenJDK 7
         // ECDHKeyAgreementTest.class,  // EC keys are broken on OpenJDK 7
         KeyGeneratorTest.class,
+        MacTest.class,
+        SecretKeyFactoryTest.class,
         // javax.net.ssl tests
         HttpsURLConnectionTest.class,
         KeyManagerFactoryTest.class,
@@ -43,6 +43,8 @@ import org.conscrypt.javax.crypto.CipherBasicsTest;
 import org.conscrypt.javax.crypto.CipherTest;
 import org.conscrypt.javax.crypto.ECDHKeyAgreementTest;
 import org.conscrypt.javax.crypto.KeyGeneratorTest;
+import org.conscrypt.javax.crypto.MacTest;
+import org.conscrypt.javax.crypto.SecretKeyFactoryTest;
 import org.conscrypt.javax.net.ssl.HttpsURLConnectionTest;
 import org.conscrypt.javax.net.ssl.KeyManagerFactoryTest;
 import org.conscrypt.javax.net.ssl.KeyStoreBuilderParametersTest;
@@ -93,6 +95,8 @@ import org.junit.runners.Suite;
         CipherTest.class,
         ECDHKeyAgreementTest.class,
         KeyGeneratorTest.class,
+        MacTest.class,
+        SecretKeyFactoryTest.class,
         // javax.net.ssl tests
         HttpsURLConnectionTest.class,
         KeyManagerFactoryTest.class,
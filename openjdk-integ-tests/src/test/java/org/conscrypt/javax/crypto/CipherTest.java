@@ -54,6 +54,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import javax.crypto.AEADBadTagException;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -158,7 +159,7 @@ public final class CipherTest {
     }
 
     private static boolean isSupportedForWrapping(String algorithm) {
-        if (isOnlyWrappingAlgorithm(algorithm)) {
+        if (isOnlyWrappingAlgorithm(algorithm) || isKeyWrapMode(algorithm)) {
             return true;
         }
         // http://b/9097343 RSA with NoPadding won't work since
@@ -194,13 +195,14 @@ public final class CipherTest {
         if (algorithm.startsWith("AES/")) {
             return "AES";
         }
-        if (algorithm.startsWith("AES_128/") || algorithm.startsWith("AES_256/")) {
+        if (algorithm.startsWith("AES_128/") || algorithm.startsWith("AES_192/")
+                || algorithm.startsWith("AES_256/")) {
             return "AES";
         }
         if (algorithm.equals("GCM")) {
             return "AES";
         }
-        if (algorithm.startsWith("CHACHA20/")) {
+        if (algorithm.startsWith("CHACHA20/") || algorithm.startsWith("XCHACHA20/")) {
             return "CHACHA20";
         }
         if (algorithm.startsWith("DESEDE/")) {
@@ -277,13 +279,20 @@ public final class CipherTest {
         return algorithm.endsWith("WRAP");
     }
 
+    private static boolean isKeyWrapMode(String algorithm) {
+        return algorithm.contains("/KW/") || algorithm.contains("/KWP/");
+    }
+
     private static boolean isPBE(String algorithm) {
         return algorithm.startsWith("PBE");
     }
 
     private static boolean isAEAD(String algorithm) {
         return "GCM".equals(algorithm) || algorithm.contains("/GCM/")
-                || algorithm.equals("CHACHA20/POLY1305/NOPADDING");
+                || algorithm.contains("/GCM-STREAM/")
+                || algorithm.contains("/GCM-SIV/")
+                || algorithm.equals("CHACHA20/POLY1305/NOPADDING")
+                || algorithm.equals("XCHACHA20/POLY1305/NOPADDING");
     }
 
     private static boolean isStreamMode(String algorithm) {
@@ -321,6 +330,10 @@ public final class CipherTest {
                     // This is the 256-bit constrained version, so we have to switch from the
                     // default of 128-bit keys.
                     kg.init(256);
+                } else if (algorithm.startsWith("AES_192/")) {
+                    kg.init(192);
+                } else if (algorithm.startsWith("AES_128/")) {
+                    kg.init(128);
                 }
                 key = kg.generateKey();
             }
@@ -379,6 +392,16 @@ public final class CipherTest {
         setExpectedBlockSize("AES/ECB/PKCS7PADDING", 16);
         setExpectedBlockSize("AES/ECB/NOPADDING", 16);
         setExpectedBlockSize("AES/GCM/NOPADDING", 16);
+        setExpectedBlockSize("AES/GCM-STREAM/NOPADDING", 16);
+        setExpectedBlockSize("AES/GCM-SIV/NOPADDING", 16);
+        setExpectedBlockSize("AES/KW/NOPADDING", 8);
+        setExpectedBlockSize("AES/KWP/NOPADDING", 8);
+        setExpectedBlockSize("AES_128/KW/NOPADDING", 8);
+        setExpectedBlockSize("AES_128/KWP/NOPADDING", 8);
+        setExpectedBlockSize("AES_192/KW/NOPADDING", 8);
+        setExpectedBlockSize("AES_192/KWP/NOPADDING", 8);
+        setExpectedBlockSize("AES_256/KW/NOPADDING", 8);
+        setExpectedBlockSize("AES_256/KWP/NOPADDING", 8);
         setExpectedBlockSize("AES/OFB/PKCS5PADDING", 16);
         setExpectedBlockSize("AES/OFB/PKCS7PADDING", 16);
         setExpectedBlockSize("AES/OFB/NOPADDING", 16);
@@ -416,6 +439,7 @@ public final class CipherTest {
         setExpectedBlockSize("ARCFOUR", 0);
         setExpectedBlockSize("CHACHA20", 0);
         setExpectedBlockSize("CHACHA20/POLY1305/NOPADDING", 0);
+        setExpectedBlockSize("XCHACHA20/POLY1305/NOPADDING", 0);
         setExpectedBlockSize("PBEWITHSHAAND40BITRC4", 0);
         setExpectedBlockSize("PBEWITHSHAAND128BITRC4", 0);
 
@@ -593,6 +617,10 @@ public final class CipherTest {
         setExpectedOutputSize("AES/ECB/PKCS5PADDING", Cipher.ENCRYPT_MODE, 16);
         setExpectedOutputSize("AES/ECB/PKCS7PADDING", Cipher.ENCRYPT_MODE, 16);
         setExpectedOutputSize("AES/GCM/NOPADDING", Cipher.ENCRYPT_MODE, GCM_TAG_SIZE_BITS / 8);
+        setExpectedOutputSize(
+                "AES/GCM-STREAM/NOPADDING", Cipher.ENCRYPT_MODE, GCM_TAG_SIZE_BITS / 8);
+        setExpectedOutputSize(
+                "AES/GCM-SIV/NOPADDING", Cipher.ENCRYPT_MODE, GCM_TAG_SIZE_BITS / 8);
         setExpectedOutputSize("AES/OFB/PKCS5PADDING", Cipher.ENCRYPT_MODE, 16);
         setExpectedOutputSize("AES/OFB/PKCS7PADDING", Cipher.ENCRYPT_MODE, 16);
         setExpectedOutputSize("AES_128/CBC/PKCS5PADDING", Cipher.ENCRYPT_MODE, 16);
@@ -636,6 +664,24 @@ public final class CipherTest {
         setExpectedOutputSize("AES/ECB/PKCS5PADDING", Cipher.DECRYPT_MODE, 0);
         setExpectedOutputSize("AES/ECB/PKCS7PADDING", Cipher.DECRYPT_MODE, 0);
         setExpectedOutputSize("AES/GCM/NOPADDING", Cipher.DECRYPT_MODE, 0);
+        setExpectedOutputSize("AES/GCM-STREAM/NOPADDING", Cipher.DECRYPT_MODE, 0);
+        setExpectedOutputSize("AES/GCM-SIV/NOPADDING", Cipher.DECRYPT_MODE, 0);
+        setExpectedOutputSize("AES/KW/NOPADDING", Cipher.ENCRYPT_MODE, 8);
+        setExpectedOutputSize("AES/KW/NOPADDING", Cipher.DECRYPT_MODE, 0);
+        setExpectedOutputSize("AES/KWP/NOPADDING", Cipher.ENCRYPT_MODE, 8);
+        setExpectedOutputSize("AES/KWP/NOPADDING", Cipher.DECRYPT_MODE, 0);
+        setExpectedOutputSize("AES_128/KW/NOPADDING", Cipher.ENCRYPT_MODE, 8);
+        setExpectedOutputSize("AES_128/KW/NOPADDING", Cipher.DECRYPT_MODE, 0);
+        setExpectedOutputSize("AES_128/KWP/NOPADDING", Cipher.ENCRYPT_MODE, 8);
+        setExpectedOutputSize("AES_128/KWP/NOPADDING", Cipher.DECRYPT_MODE, 0);
+        setExpectedOutputSize("AES_192/KW/NOPADDING", Cipher.ENCRYPT_MODE, 8);
+        setExpectedOutputSize("AES_192/KW/NOPADDING", Cipher.DECRYPT_MODE, 0);
+        setExpectedOutputSize("AES_192/KWP/NOPADDING", Cipher.ENCRYPT_MODE, 8);
+        setExpectedOutputSize("AES_192/KWP/NOPADDING", Cipher.DECRYPT_MODE, 0);
+        setExpectedOutputSize("AES_256/KW/NOPADDING", Cipher.ENCRYPT_MODE, 8);
+        setExpectedOutputSize("AES_256/KW/NOPADDING", Cipher.DECRYPT_MODE, 0);
+        setExpectedOutputSize("AES_256/KWP/NOPADDING", Cipher.ENCRYPT_MODE, 8);
+        setExpectedOutputSize("AES_256/KWP/NOPADDING", Cipher.DECRYPT_MODE, 0);
         setExpectedOutputSize("AES/OFB/PKCS5PADDING", Cipher.DECRYPT_MODE, 0);
         setExpectedOutputSize("AES/OFB/PKCS7PADDING", Cipher.DECRYPT_MODE, 0);
         setExpectedOutputSize("AES_128/CBC/PKCS5PADDING", Cipher.DECRYPT_MODE, 0);
@@ -671,6 +717,7 @@ public final class CipherTest {
         setExpectedOutputSize("ARCFOUR", 0);
         setExpectedOutputSize("CHACHA20", 0);
         setExpectedOutputSize("CHACHA20/POLY1305/NOPADDING", 0);
+        setExpectedOutputSize("XCHACHA20/POLY1305/NOPADDING", 0);
         setExpectedOutputSize("PBEWITHSHAAND40BITRC4", 0);
         setExpectedOutputSize("PBEWITHSHAAND128BITRC4", 0);
 
@@ -890,6 +937,10 @@ public final class CipherTest {
             || algorithm.equals("AES_256/ECB/NOPADDING")) {
             return SIXTEEN_BYTE_BLOCK_PLAIN_TEXT;
         }
+        // Key wrap without padding needs at least two eight-byte blocks
+        if (algorithm.contains("/KW/")) {
+            return SIXTEEN_BYTE_BLOCK_PLAIN_TEXT;
+        }
         if (algorithm.equals("DESEDE")
             || algorithm.equals("DESEDE/CBC/NOPADDING")
             || algorithm.equals("DESEDE/ECB/NOPADDING")) {
@@ -910,6 +961,10 @@ public final class CipherTest {
             || algorithm.equals("AES_256/ECB/NOPADDING")) {
             return SIXTEEN_BYTE_BLOCK_PLAIN_TEXT;
         }
+        // Key wrap without padding needs at least two eight-byte blocks
+        if (algorithm.contains("/KW/")) {
+            return SIXTEEN_BYTE_BLOCK_PLAIN_TEXT;
+        }
         if (algorithm.equals("DESEDE")
             || algorithm.equals("DESEDE/CBC/NOPADDING")
             || algorithm.equals("DESEDE/ECB/NOPADDING")) {
@@ -929,6 +984,8 @@ public final class CipherTest {
             return new PBEParameterSpec(salt, 1024);
         }
         if (algorithm.equals("AES/GCM/NOPADDING")
+            || algorithm.equals("AES/GCM-STREAM/NOPADDING")
+            || algorithm.equals("AES/GCM-SIV/NOPADDING")
             || algorithm.equals("AES_128/GCM/NOPADDING")
             || algorithm.equals("AES_256/GCM/NOPADDING")) {
             final byte[] iv = new byte[12];
@@ -969,6 +1026,11 @@ public final class CipherTest {
             new SecureRandom().nextBytes(iv);
             return new IvParameterSpec(iv);
         }
+        if (algorithm.equals("XCHACHA20/POLY1305/NOPADDING")) {
+            final byte[] iv = new byte[24];
+            new SecureRandom().nextBytes(iv);
+            return new IvParameterSpec(iv);
+        }
         return null;
     }
 
@@ -984,6 +1046,8 @@ public final class CipherTest {
         byte[] iv = encryptCipher.getIV();
         if (iv != null) {
             if ("AES/GCM/NOPADDING".equals(algorithm)
+                    || "AES/GCM-STREAM/NOPADDING".equals(algorithm)
+                    || "AES/GCM-SIV/NOPADDING".equals(algorithm)
                     || "AES_128/GCM/NOPADDING".equals(algorithm)
                     || "AES_256/GCM/NOPADDING".equals(algorithm)) {
                 return new GCMParameterSpec(GCM_TAG_SIZE_BITS, iv);
@@ -4940,6 +5004,567 @@ public final class CipherTest {
         }
     }
 
+    /*
+     * Check that re-initializing an AEAD cipher with a different key, IV or tag length gives the
+     * same output as a fresh instance.
+     */
+    @Test
+    public void test_AESGCMNoPadding_Reinit_MatchesFreshInstance() throws Exception {
+        byte[] key2bytes = new byte[16];
+        key2bytes[0] = 0x01;
+        SecretKeySpec[] keys = {
+                new SecretKeySpec(new byte[16], "AES"),
+                new SecretKeySpec(key2bytes, "AES"),
+                new SecretKeySpec(new byte[16], "AES"),
+        };
+        byte[] iv2 = new byte[12];
+        iv2[0] = 0x01;
+        GCMParameterSpec[] specs = {
+                new GCMParameterSpec(128, new byte[12]),
+                new GCMParameterSpec(128, new byte[12]),
+                new GCMParameterSpec(96, iv2),
+        };
+        byte[] plaintext = new byte[200];
+
+        Cipher reused = Cipher.getInstance("AES/GCM/NoPadding");
+        for (int i = 0; i < keys.length; i++) {
+            reused.init(Cipher.ENCRYPT_MODE, keys[i], specs[i]);
+            Cipher fresh = Cipher.getInstance("AES/GCM/NoPadding");
+            fresh.init(Cipher.ENCRYPT_MODE, keys[i], specs[i]);
+            byte[] ciphertext = reused.doFinal(plaintext);
+            assertEquals(Arrays.toString(fresh.doFinal(plaintext)), Arrays.toString(ciphertext));
+
+            reused.init(Cipher.DECRYPT_MODE, keys[i], specs[i]);
+            assertEquals(Arrays.toString(plaintext), Arrays.toString(reused.doFinal(ciphertext)));
+        }
+    }
+
+    /*
+     * Check that re-initializing block ciphers with the same key and a new IV, a new key, or
+     * the other direction gives the same results as a fresh instance.
+     */
+    @Test
+    public void test_EVP_CIPHER_Reinit_MatchesFreshInstance() throws Exception {
+        byte[] key2bytes = new byte[16];
+        key2bytes[0] = 0x01;
+        SecretKeySpec[] keys = {
+                new SecretKeySpec(new byte[16], "AES"),
+                new SecretKeySpec(new byte[16], "AES"),
+                new SecretKeySpec(key2bytes, "AES"),
+                new SecretKeySpec(key2bytes, "AES"),
+        };
+        byte[] plaintext = new byte[100];
+        for (String transformation : new String[] {
+                     "AES/CBC/PKCS5Padding", "AES/CTR/NoPadding", "AES/ECB/PKCS5Padding"}) {
+            Cipher reused = Cipher.getInstance(transformation, StandardNames.JSSE_PROVIDER_NAME);
+            for (int i = 0; i < keys.length; i++) {
+                AlgorithmParameterSpec spec = null;
+                if (!transformation.contains("/ECB/")) {
+                    byte[] iv = new byte[16];
+                    iv[0] = (byte) i;
+                    spec = new IvParameterSpec(iv);
+                }
+                Cipher fresh =
+                        Cipher.getInstance(transformation, StandardNames.JSSE_PROVIDER_NAME);
+                fresh.init(Cipher.ENCRYPT_MODE, keys[i], spec);
+                byte[] expected = fresh.doFinal(plaintext);
+
+                reused.init(Cipher.ENCRYPT_MODE, keys[i], spec);
+                assertEquals(transformation, Arrays.toString(expected),
+                        Arrays.toString(reused.doFinal(plaintext)));
+                // doFinal resets to the state after init.
+                assertEquals(transformation, Arrays.toString(expected),
+                        Arrays.toString(reused.doFinal(plaintext)));
+
+                reused.init(Cipher.DECRYPT_MODE, keys[i], spec);
+                assertEquals(transformation, Arrays.toString(plaintext),
+                        Arrays.toString(reused.doFinal(expected)));
+            }
+        }
+    }
+
+    /*
+     * Check that AAD supplied in several parts, from arrays and heap and direct buffers, is
+     * equivalent to supplying it in one piece, including when the Cipher is reused for
+     * messages with shorter AAD.
+     */
+    @Test
+    public void test_AESGCMNoPadding_MultipartAAD() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(new byte[16], "AES");
+        byte[] aad = new byte[100];
+        for (int i = 0; i < aad.length; i++) {
+            aad[i] = (byte) i;
+        }
+        byte[] plaintext = new byte[50];
+
+        Cipher reused = Cipher.getInstance("AES/GCM/NoPadding");
+        for (int aadLength : new int[] {100, 10, 0, 60}) {
+            byte[] iv = new byte[12];
+            iv[0] = (byte) aadLength;
+            GCMParameterSpec spec = new GCMParameterSpec(128, iv);
+            Cipher single = Cipher.getInstance("AES/GCM/NoPadding");
+            single.init(Cipher.ENCRYPT_MODE, key, spec);
+            single.updateAAD(aad, 0, aadLength);
+            byte[] expected = single.doFinal(plaintext);
+
+            reused.init(Cipher.ENCRYPT_MODE, key, spec);
+            int third = aadLength / 3;
+            reused.updateAAD(aad, 0, third);
+            reused.updateAAD(ByteBuffer.wrap(aad, third, third));
+            reused.updateAAD(directCopy(
+                    Arrays.copyOfRange(aad, 2 * third, aadLength), aadLength - 2 * third));
+            assertEquals(Arrays.toString(expected), Arrays.toString(reused.doFinal(plaintext)));
+
+            reused.init(Cipher.DECRYPT_MODE, key, spec);
+            for (int i = 0; i < aadLength; i++) {
+                reused.updateAAD(aad, i, 1);
+            }
+            assertEquals(Arrays.toString(plaintext), Arrays.toString(reused.doFinal(expected)));
+        }
+    }
+
+    /*
+     * AES-GCM-SIV must match RFC 8452 and, being nonce-misuse resistant, must allow encrypting
+     * again under the same key and IV.
+     */
+    @Test
+    public void test_AESGCMSIV() throws Exception {
+        byte[] keyBytes = new byte[16];
+        keyBytes[0] = 0x01;
+        byte[] iv = new byte[12];
+        iv[0] = 0x03;
+        SecretKeySpec key = new SecretKeySpec(keyBytes, "AES");
+        GCMParameterSpec spec = new GCMParameterSpec(128, iv);
+
+        Cipher c = Cipher.getInstance("AES/GCM-SIV/NoPadding");
+        c.init(Cipher.ENCRYPT_MODE, key, spec);
+        // RFC 8452, Appendix C.1: empty plaintext and AAD.
+        byte[] tag = c.doFinal();
+        assertEquals(Arrays.toString(TestUtils.decodeHex("dc20e2d83f25705bb49e439eca56de25")),
+                Arrays.toString(tag));
+
+        byte[] plaintext = new byte[100];
+        c.init(Cipher.ENCRYPT_MODE, key, spec);
+        byte[] ciphertext = c.doFinal(plaintext);
+        c.init(Cipher.ENCRYPT_MODE, key, spec);
+        assertEquals(Arrays.toString(ciphertext), Arrays.toString(c.doFinal(plaintext)));
+
+        c.init(Cipher.DECRYPT_MODE, key, spec);
+        assertEquals(Arrays.toString(plaintext), Arrays.toString(c.doFinal(ciphertext)));
+    }
+
+    /*
+     * AES-GCM-SIV only has a 128-bit tag, so other lengths must be rejected by init.
+     */
+    @Test
+    public void test_AESGCMSIV_rejectsShortTag() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(new byte[16], "AES");
+        Cipher c = Cipher.getInstance("AES/GCM-SIV/NoPadding");
+        for (int tagLenBits : new int[] {96, 112, 120}) {
+            for (int mode : new int[] {Cipher.ENCRYPT_MODE, Cipher.DECRYPT_MODE}) {
+                try {
+                    c.init(mode, key, new GCMParameterSpec(tagLenBits, new byte[12]));
+                    fail("Should have rejected a " + tagLenBits + "-bit tag");
+                } catch (InvalidAlgorithmParameterException expected) {
+                    // Expected.
+                }
+            }
+        }
+    }
+
+    /*
+     * XChaCha20-Poly1305 takes 24-byte nonces.
+     */
+    @Test
+    public void test_XChaCha20Poly1305() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(new byte[32], "ChaCha20");
+        Cipher c = Cipher.getInstance("XChaCha20/Poly1305/NoPadding");
+        try {
+            c.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(new byte[12]));
+            fail();
+        } catch (InvalidAlgorithmParameterException expected) {
+            // Expected.
+        }
+
+        byte[] iv = new byte[24];
+        new SecureRandom().nextBytes(iv);
+        byte[] plaintext = new byte[100];
+        c.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+        c.updateAAD(new byte[10]);
+        byte[] ciphertext = c.doFinal(plaintext);
+        assertEquals(plaintext.length + 16, ciphertext.length);
+
+        c.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(iv));
+        c.updateAAD(new byte[10]);
+        assertEquals(Arrays.toString(plaintext), Arrays.toString(c.doFinal(ciphertext)));
+
+        iv[0] ^= 1;
+        c.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(iv));
+        c.updateAAD(new byte[10]);
+        try {
+            c.doFinal(ciphertext);
+            fail();
+        } catch (AEADBadTagException expected) {
+            // Expected.
+        }
+    }
+
+    /*
+     * AES key wrap must match the examples in RFC 3394, section 4.1, and RFC 5649, section 6,
+     * and detect a modified wrapped key.
+     */
+    @Test
+    public void test_AESKeyWrap() throws Exception {
+        SecretKeySpec kek = new SecretKeySpec(
+                TestUtils.decodeHex("000102030405060708090a0b0c0d0e0f"), "AES");
+        SecretKeySpec keyData = new SecretKeySpec(
+                TestUtils.decodeHex("00112233445566778899aabbccddeeff"), "AES");
+        byte[] expected = TestUtils.decodeHex("1fa68b0a8112b447aef34bd8fb5a7b829d3e862371d2cfe5");
+
+        Cipher c = Cipher.getInstance("AES/KW/NoPadding");
+        c.init(Cipher.WRAP_MODE, kek);
+        byte[] wrapped = c.wrap(keyData);
+        assertEquals(Arrays.toString(expected), Arrays.toString(wrapped));
+
+        c.init(Cipher.UNWRAP_MODE, kek);
+        Key unwrapped = c.unwrap(wrapped, "AES", Cipher.SECRET_KEY);
+        assertEquals(Arrays.toString(keyData.getEncoded()),
+                Arrays.toString(unwrapped.getEncoded()));
+
+        // Input supplied in parts is buffered until doFinal.
+        c.init(Cipher.ENCRYPT_MODE, kek);
+        assertEquals(0, c.update(keyData.getEncoded(), 0, 5).length);
+        assertEquals(Arrays.toString(expected),
+                Arrays.toString(c.doFinal(keyData.getEncoded(), 5, 11)));
+
+        // doFinal() and doFinal(byte[], int) pass no input of their own.
+        c.init(Cipher.ENCRYPT_MODE, kek);
+        c.update(keyData.getEncoded());
+        assertEquals(Arrays.toString(expected), Arrays.toString(c.doFinal()));
+        c.update(keyData.getEncoded());
+        byte[] output = new byte[expected.length + 3];
+        assertEquals(expected.length, c.doFinal(output, 3));
+        assertEquals(Arrays.toString(expected),
+                Arrays.toString(Arrays.copyOfRange(output, 3, output.length)));
+        try {
+            c.doFinal();
+            fail();
+        } catch (IllegalBlockSizeException expectedException) {
+            // Expected.
+        }
+        try {
+            c.doFinal(output, 0);
+            fail();
+        } catch (IllegalBlockSizeException expectedException) {
+            // Expected.
+        }
+
+        wrapped[3] ^= 1;
+        c.init(Cipher.DECRYPT_MODE, kek);
+        try {
+            c.doFinal(wrapped);
+            fail();
+        } catch (BadPaddingException expectedException) {
+            // Expected.
+        }
+
+        c.init(Cipher.ENCRYPT_MODE, kek);
+        try {
+            c.doFinal(new byte[20]);
+            fail();
+        } catch (IllegalBlockSizeException expectedException) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void test_AESKeyWrapPad() throws Exception {
+        SecretKeySpec kek = new SecretKeySpec(
+                TestUtils.decodeHex("5840df6e29b02af1ab493b705bf16ea1ae8338f4dcc176a8"), "AES");
+        byte[][] plaintexts = {
+                TestUtils.decodeHex("c37b7e6492584340bed12207808941155068f738"),
+                TestUtils.decodeHex("466f7250617369"),
+        };
+        byte[][] ciphertexts = {
+                TestUtils.decodeHex("138bdeaa9b8fa7fc61f97742e72248ee5ae6ae5360d1ae6a"
+                        + "5f54f373fa543b6a"),
+                TestUtils.decodeHex("afbeb0f07dfbf5419200f2ccb50bb24f"),
+        };
+
+        Cipher c = Cipher.getInstance("AES/KWP/NoPadding");
+        for (int i = 0; i < plaintexts.length; i++) {
+            c.init(Cipher.ENCRYPT_MODE, kek);
+            assertEquals(Arrays.toString(ciphertexts[i]),
+                    Arrays.toString(c.doFinal(plaintexts[i])));
+
+            c.init(Cipher.DECRYPT_MODE, kek);
+            assertEquals(Arrays.toString(plaintexts[i]),
+                    Arrays.toString(c.doFinal(ciphertexts[i])));
+        }
+
+        byte[] modified = ciphertexts[1].clone();
+        modified[modified.length - 1] ^= 1;
+        c.init(Cipher.UNWRAP_MODE, kek);
+        try {
+            c.unwrap(modified, "AES", Cipher.SECRET_KEY);
+            fail();
+        } catch (InvalidKeyException expected) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void test_AESKeyWrap_OidsBindKeySize() throws Exception {
+        String[][] oidsBySize = {
+                {"2.16.840.1.101.3.4.1.5", "2.16.840.1.101.3.4.1.8"},
+                {"2.16.840.1.101.3.4.1.25", "2.16.840.1.101.3.4.1.28"},
+                {"2.16.840.1.101.3.4.1.45", "2.16.840.1.101.3.4.1.48"},
+        };
+        int[] keySizes = {16, 24, 32};
+        for (int i = 0; i < oidsBySize.length; i++) {
+            for (String oid : oidsBySize[i]) {
+                Cipher c = Cipher.getInstance(oid, StandardNames.JSSE_PROVIDER_NAME);
+                for (int keySize : keySizes) {
+                    SecretKeySpec kek = new SecretKeySpec(new byte[keySize], "AES");
+                    if (keySize == keySizes[i]) {
+                        c.init(Cipher.ENCRYPT_MODE, kek);
+                        continue;
+                    }
+                    try {
+                        c.init(Cipher.ENCRYPT_MODE, kek);
+                        fail(oid + " accepted a " + keySize + "-byte key");
+                    } catch (InvalidKeyException expected) {
+                        // Expected.
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Check that AES/CTR split across threads gives the same output as on one thread,
+     * including when updates start and end in the middle of a block.
+     */
+    @Test
+    public void test_AESCTR_Parallel_MatchesSequential() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(new byte[32], "AES");
+        byte[] iv = new byte[16];
+        Arrays.fill(iv, 8, 16, (byte) 0xff);
+        IvParameterSpec spec = new IvParameterSpec(iv);
+        byte[] plaintext = new byte[(1 << 20) + 37];
+        new SecureRandom().nextBytes(plaintext);
+
+        Cipher c = Cipher.getInstance("AES/CTR/NoPadding", StandardNames.JSSE_PROVIDER_NAME);
+        c.init(Cipher.ENCRYPT_MODE, key, spec);
+        byte[] expected = c.doFinal(plaintext);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Conscrypt.setParallelCtr(pool, 0);
+        try {
+            c.init(Cipher.ENCRYPT_MODE, key, spec);
+            byte[] actual = new byte[plaintext.length];
+            int written = c.update(plaintext, 0, 5, actual, 0);
+            written += c.update(plaintext, 5, 300000, actual, written);
+            written += c.doFinal(plaintext, 300005, plaintext.length - 300005, actual, written);
+            assertEquals(plaintext.length, written);
+            assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+
+            ByteBuffer input = directCopy(plaintext, plaintext.length);
+            ByteBuffer output = ByteBuffer.allocateDirect(plaintext.length);
+            c.init(Cipher.DECRYPT_MODE, key, spec);
+            c.doFinal(directCopy(expected, expected.length), output);
+            output.flip();
+            assertEquals(Arrays.toString(plaintext), Arrays.toString(remainingBytes(output)));
+
+            // In place.
+            byte[] buffer = plaintext.clone();
+            c.init(Cipher.ENCRYPT_MODE, key, spec);
+            c.doFinal(buffer, 0, buffer.length, buffer, 0);
+            assertEquals(Arrays.toString(expected), Arrays.toString(buffer));
+        } finally {
+            Conscrypt.setParallelCtr(null, 0);
+            pool.shutdown();
+        }
+    }
+
+    private static ByteBuffer directCopy(byte[] bytes, int capacity) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(capacity);
+        buffer.put(bytes);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] remainingBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /*
+     * Check that update and doFinal on direct buffers, including in place, give the same output
+     * as the byte array variants.
+     */
+    @Test
+    public void test_DirectByteBuffer_MatchesArrays() throws Exception {
+        String[] transformations = {
+                "AES/CBC/PKCS5Padding", "AES/CBC/NoPadding", "AES/CTR/NoPadding",
+                "AES/GCM/NoPadding", "ChaCha20/Poly1305/NoPadding",
+        };
+        byte[] plaintext = new byte[4096];
+        for (int i = 0; i < plaintext.length; i++) {
+            plaintext[i] = (byte) i;
+        }
+
+        for (String transformation : transformations) {
+            String algorithm = transformation.substring(0, transformation.indexOf('/'));
+            SecretKeySpec key = new SecretKeySpec(new byte[32], algorithm);
+            AlgorithmParameterSpec spec = transformation.contains("GCM")
+                    ? new GCMParameterSpec(128, new byte[12])
+                    : new IvParameterSpec(new byte[algorithm.equals("AES") ? 16 : 12]);
+
+            Cipher c = Cipher.getInstance(transformation);
+            c.init(Cipher.ENCRYPT_MODE, key, spec);
+            byte[] expected = c.doFinal(plaintext);
+
+            // Separate buffers, split across update and doFinal.
+            c = Cipher.getInstance(transformation);
+            c.init(Cipher.ENCRYPT_MODE, key, spec);
+            ByteBuffer input = directCopy(plaintext, plaintext.length);
+            ByteBuffer output = ByteBuffer.allocateDirect(expected.length);
+            input.limit(1000);
+            c.update(input, output);
+            input.limit(plaintext.length);
+            c.doFinal(input, output);
+            output.flip();
+            assertEquals(transformation, Arrays.toString(expected),
+                    Arrays.toString(remainingBytes(output)));
+
+            // In place.
+            c = Cipher.getInstance(transformation);
+            c.init(Cipher.DECRYPT_MODE, key, spec);
+            ByteBuffer buffer = directCopy(expected, expected.length);
+            int written = c.doFinal(buffer.duplicate(), buffer.duplicate());
+            buffer.limit(written);
+            assertEquals(transformation, Arrays.toString(plaintext),
+                    Arrays.toString(remainingBytes(buffer)));
+        }
+    }
+
+    @Test
+    public void test_AESGCMStream_Streaming() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(new byte[16], "AES");
+        GCMParameterSpec spec = new GCMParameterSpec(128, new byte[12]);
+        byte[] aad = new byte[] {0x01, 0x02, 0x03};
+        byte[] plaintext = new byte[1000];
+        for (int i = 0; i < plaintext.length; i++) {
+            plaintext[i] = (byte) i;
+        }
+
+        Cipher gcm = Cipher.getInstance("AES/GCM/NoPadding");
+        gcm.init(Cipher.ENCRYPT_MODE, key, spec);
+        gcm.updateAAD(aad);
+        byte[] expected = gcm.doFinal(plaintext);
+
+        // Encryption produces output on every update.
+        Cipher c = Cipher.getInstance("AES/GCM-STREAM/NoPadding");
+        c.init(Cipher.ENCRYPT_MODE, key, spec);
+        c.updateAAD(aad);
+        ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+        for (int i = 0; i < plaintext.length; i += 300) {
+            byte[] chunk = c.update(plaintext, i, Math.min(300, plaintext.length - i));
+            assertEquals(Math.min(300, plaintext.length - i), chunk.length);
+            ciphertext.write(chunk);
+        }
+        ciphertext.write(c.doFinal());
+        assertEquals(Arrays.toString(expected), Arrays.toString(ciphertext.toByteArray()));
+
+        try {
+            c.updateAAD(aad);
+            fail("Should not allow updateAAD without re-initialization");
+        } catch (IllegalStateException expected2) {
+        }
+
+        // Decryption holds back only the possible tag, in updates of any size.
+        c.init(Cipher.DECRYPT_MODE, key, spec);
+        c.updateAAD(aad);
+        ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+        for (int i = 0; i < expected.length; i += 7) {
+            decrypted.write(c.update(expected, i, Math.min(7, expected.length - i)));
+        }
+        assertEquals(plaintext.length, decrypted.size());
+        decrypted.write(c.doFinal());
+        assertEquals(Arrays.toString(plaintext), Arrays.toString(decrypted.toByteArray()));
+
+        // The cipher is ready for the same message again, and must see the AAD first.
+        c.updateAAD(aad);
+        assertEquals(Arrays.toString(plaintext), Arrays.toString(c.doFinal(expected)));
+        c.update(new byte[1]);
+        try {
+            c.updateAAD(aad);
+            fail("Should not allow updateAAD after input");
+        } catch (IllegalStateException expected2) {
+        }
+
+        // A corrupted tag is reported by doFinal.
+        byte[] corrupted = expected.clone();
+        corrupted[corrupted.length - 1] ^= 1;
+        c.init(Cipher.DECRYPT_MODE, key, spec);
+        c.updateAAD(aad);
+        c.update(corrupted);
+        try {
+            c.doFinal();
+            fail("Should have thrown AEADBadTagException");
+        } catch (AEADBadTagException expected2) {
+        }
+    }
+
+    @Test
+    public void test_AESGCMStream_DecryptInPlace() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(new byte[16], "AES");
+        GCMParameterSpec spec = new GCMParameterSpec(128, new byte[12]);
+        byte[] plaintext = new byte[1000];
+        for (int i = 0; i < plaintext.length; i++) {
+            plaintext[i] = (byte) i;
+        }
+        Cipher c = Cipher.getInstance("AES/GCM-STREAM/NoPadding");
+        c.init(Cipher.ENCRYPT_MODE, key, spec);
+        byte[] ciphertext = c.doFinal(plaintext);
+
+        for (int updateSize : new int[] {1, 7, 16, 17, 300, ciphertext.length}) {
+            // Updates write behind the input they consume, finishing with an in-place doFinal.
+            byte[] buf = new byte[ciphertext.length + 5];
+            System.arraycopy(ciphertext, 0, buf, 5, ciphertext.length);
+            c.init(Cipher.DECRYPT_MODE, key, spec);
+            int in = 5;
+            int out = 5;
+            int end = 5 + ciphertext.length;
+            while (end - in > updateSize) {
+                out += c.update(buf, in, updateSize, buf, out);
+                in += updateSize;
+            }
+            out += c.doFinal(buf, in, end - in, buf, out);
+            assertEquals(5 + plaintext.length, out);
+            assertEquals(String.valueOf(updateSize), Arrays.toString(plaintext),
+                    Arrays.toString(Arrays.copyOfRange(buf, 5, out)));
+
+            // Bytes held back by an earlier update, then doFinal in place at the same offset.
+            buf = ciphertext.clone();
+            int first = Math.min(updateSize, ciphertext.length - 1);
+            c.init(Cipher.DECRYPT_MODE, key, spec);
+            byte[] head = c.update(ciphertext, 0, first);
+            int written = c.doFinal(buf, first, buf.length - first, buf, first);
+            byte[] decrypted = new byte[plaintext.length];
+            int headLength = head == null ? 0 : head.length;
+            if (headLength > 0) {
+                System.arraycopy(head, 0, decrypted, 0, headLength);
+            }
+            System.arraycopy(buf, first, decrypted, headLength, written);
+            assertEquals(plaintext.length, headLength + written);
+            assertEquals(String.valueOf(updateSize), Arrays.toString(plaintext),
+                    Arrays.toString(decrypted));
+        }
+    }
+
     /**
      * http://b/27224566
      * http://b/27994930
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt.javax.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.conscrypt.TestUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MacTest {
+    // RFC 4231, test case 2.
+    private static final SecretKeySpec KEY =
+            new SecretKeySpec("Jefe".getBytes(TestUtils.UTF_8), "HmacSHA256");
+    private static final byte[] DATA = "what do ya want for nothing?".getBytes(TestUtils.UTF_8);
+    private static final String EXPECTED = Arrays.toString(TestUtils.decodeHex(
+            "5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843"));
+
+    private static Mac newMac() throws Exception {
+        return Mac.getInstance("HmacSHA256", TestUtils.getConscryptProvider());
+    }
+
+    @Test
+    public void test_doFinal_Reuse() throws Exception {
+        Mac mac = newMac();
+        mac.init(KEY);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(EXPECTED, Arrays.toString(mac.doFinal(DATA)));
+        }
+
+        // reset() discards a partial message.
+        mac.update(new byte[100]);
+        mac.reset();
+        mac.update(DATA, 0, 10);
+        mac.update(ByteBuffer.wrap(DATA, 10, DATA.length - 10));
+        assertEquals(EXPECTED, Arrays.toString(mac.doFinal()));
+    }
+
+    @Test
+    public void test_init_NewKey() throws Exception {
+        Mac mac = newMac();
+        mac.init(new SecretKeySpec(new byte[100], "HmacSHA256"));
+        mac.update(DATA);
+        mac.init(KEY);
+        assertEquals(EXPECTED, Arrays.toString(mac.doFinal(DATA)));
+    }
+
+    @Test
+    public void test_clone() throws Exception {
+        Mac mac = newMac();
+        mac.init(KEY);
+        mac.update(DATA, 0, 10);
+        Mac clone = (Mac) mac.clone();
+
+        mac.update(new byte[5]);
+        clone.update(DATA, 10, DATA.length - 10);
+        assertEquals(EXPECTED, Arrays.toString(clone.doFinal()));
+
+        // Both keep the key after finishing.
+        mac.reset();
+        assertEquals(EXPECTED, Arrays.toString(mac.doFinal(DATA)));
+        assertEquals(EXPECTED, Arrays.toString(clone.doFinal(DATA)));
+    }
+
+    @Test
+    public void test_AESCMAC() throws Exception {
+        // RFC 4493, section 4, examples 1 and 2.
+        Mac mac = Mac.getInstance("AESCMAC", TestUtils.getConscryptProvider());
+        mac.init(new SecretKeySpec(
+                TestUtils.decodeHex("2b7e151628aed2a6abf7158809cf4f3c"), "AES"));
+        assertEquals(Arrays.toString(TestUtils.decodeHex("bb1d6929e95937287fa37d129b756746")),
+                Arrays.toString(mac.doFinal()));
+
+        byte[] message = TestUtils.decodeHex("6bc1bee22e409f96e93d7e117393172a");
+        String expected =
+                Arrays.toString(TestUtils.decodeHex("070a16b46b4d4144f79bdd9dd04a287c"));
+        assertEquals(expected, Arrays.toString(mac.doFinal(message)));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(message.length);
+        direct.put(message);
+        direct.flip();
+        mac.update(direct);
+        assertEquals(0, direct.remaining());
+        assertEquals(expected, Arrays.toString(mac.doFinal()));
+
+        mac.update(message, 0, 5);
+        Mac clone = (Mac) mac.clone();
+        clone.update(message, 5, message.length - 5);
+        assertEquals(expected, Arrays.toString(clone.doFinal()));
+    }
+
+    @Test
+    public void test_Poly1305() throws Exception {
+        // RFC 8439, section 2.5.2.
+        Mac mac = Mac.getInstance("Poly1305", TestUtils.getConscryptProvider());
+        SecretKeySpec key = new SecretKeySpec(TestUtils.decodeHex(
+                "85d6be7857556d337f4452fe42d506a80103808afb0db2fd4abff6af4149f51b"),
+                "Poly1305");
+        mac.init(key);
+        byte[] message = "Cryptographic Forum Research Group".getBytes(TestUtils.UTF_8);
+        String expected =
+                Arrays.toString(TestUtils.decodeHex("a8061dc1305136c6c22b8baf0c0127a9"));
+        assertEquals(expected, Arrays.toString(mac.doFinal(message)));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(message.length);
+        direct.put(message);
+        direct.flip();
+        mac.init(key);
+        mac.update(direct);
+        assertEquals(expected, Arrays.toString(mac.doFinal()));
+    }
+
+    @Test
+    public void test_Poly1305_KeyNotReused() throws Exception {
+        Mac mac = Mac.getInstance("Poly1305", TestUtils.getConscryptProvider());
+        SecretKeySpec key = new SecretKeySpec(new byte[32], "Poly1305");
+        mac.init(key);
+        mac.doFinal(new byte[16]);
+        try {
+            mac.update(new byte[16]);
+            fail("update() should throw after doFinal() until a new key is supplied");
+        } catch (IllegalStateException expected) {
+            // Expected.
+        }
+        try {
+            mac.doFinal();
+            fail("doFinal() should throw after doFinal() until a new key is supplied");
+        } catch (IllegalStateException expected) {
+            // Expected.
+        }
+
+        mac.init(key);
+        mac.update(new byte[7]);
+        mac.reset();
+        try {
+            mac.update(ByteBuffer.allocateDirect(16));
+            fail("update() should throw after reset() until a new key is supplied");
+        } catch (IllegalStateException expected) {
+            // Expected.
+        }
+
+        mac.init(key);
+        assertEquals(16, mac.doFinal(new byte[16]).length);
+    }
+}
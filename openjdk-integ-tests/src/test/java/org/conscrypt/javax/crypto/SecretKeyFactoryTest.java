@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt.javax.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.security.Provider;
+import java.security.Security;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.interfaces.PBEKey;
+import javax.crypto.spec.PBEKeySpec;
+import org.conscrypt.TestUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SecretKeyFactoryTest {
+    private static final char[] PASSWORD = "password".toCharArray();
+    private static final byte[] SALT = "salt".getBytes(TestUtils.UTF_8);
+
+    private static SecretKeyFactory newFactory(String algorithm) throws Exception {
+        return SecretKeyFactory.getInstance(algorithm, TestUtils.getConscryptProvider());
+    }
+
+    private static String derive(String algorithm, int iterations, int keyLength)
+            throws Exception {
+        SecretKey key = newFactory(algorithm).generateSecret(
+                new PBEKeySpec(PASSWORD, SALT, iterations, keyLength));
+        return Arrays.toString(key.getEncoded());
+    }
+
+    private static String hex(String s) {
+        return Arrays.toString(TestUtils.decodeHex(s));
+    }
+
+    @Test
+    public void test_PBKDF2WithHmacSHA1_Rfc6070() throws Exception {
+        assertEquals(hex("0c60c80f961f0e71f3a9b524af6012062fe037a6"),
+                derive("PBKDF2WithHmacSHA1", 1, 160));
+        assertEquals(hex("4b007901b765489abead49d926f721d065a429c1"),
+                derive("PBKDF2WithHmacSHA1", 4096, 160));
+    }
+
+    @Test
+    public void test_PBKDF2WithHmacSHA256() throws Exception {
+        assertEquals(hex("120fb6cffcf8b32c43e7225256c4f837a86548c92ccc35480805987cb70be17b"),
+                derive("PBKDF2WithHmacSHA256", 1, 256));
+        assertEquals(hex("c5e478d59288c841aa530db6845c4c8d962893a001ce4e11a4963873aa98134a"),
+                derive("PBKDF2WithHmacSHA256", 4096, 256));
+    }
+
+    @Test
+    public void test_MatchesOtherProviders() throws Exception {
+        // Non-ASCII characters must be encoded the same way as elsewhere.
+        PBEKeySpec spec = new PBEKeySpec("p\u00e4ssw\u00f6rd\u20ac".toCharArray(), SALT, 1000, 384);
+        for (String algorithm : new String[] {"PBKDF2WithHmacSHA1", "PBKDF2WithHmacSHA224",
+                     "PBKDF2WithHmacSHA256", "PBKDF2WithHmacSHA384", "PBKDF2WithHmacSHA512"}) {
+            SecretKeyFactory conscrypt = newFactory(algorithm);
+            for (Provider p : Security.getProviders("SecretKeyFactory." + algorithm)) {
+                if (p.getName().equals(conscrypt.getProvider().getName())) {
+                    continue;
+                }
+                SecretKeyFactory other = SecretKeyFactory.getInstance(algorithm, p);
+                assertEquals(algorithm + " " + p.getName(),
+                        Arrays.toString(other.generateSecret(spec).getEncoded()),
+                        Arrays.toString(conscrypt.generateSecret(spec).getEncoded()));
+            }
+        }
+    }
+
+    @Test
+    public void test_KeyParameters() throws Exception {
+        SecretKeyFactory skf = newFactory("PBKDF2WithHmacSHA256");
+        SecretKey key = skf.generateSecret(new PBEKeySpec(PASSWORD, SALT, 10, 128));
+        assertEquals("PBKDF2WithHmacSHA256", key.getAlgorithm());
+        assertEquals("RAW", key.getFormat());
+        assertEquals(16, key.getEncoded().length);
+
+        PBEKey pbeKey = (PBEKey) key;
+        assertEquals(new String(PASSWORD), new String(pbeKey.getPassword()));
+        assertArrayEquals(SALT, pbeKey.getSalt());
+        assertEquals(10, pbeKey.getIterationCount());
+
+        PBEKeySpec spec = (PBEKeySpec) skf.getKeySpec(key, PBEKeySpec.class);
+        assertEquals(128, spec.getKeyLength());
+        assertEquals(key, skf.generateSecret(spec));
+        assertEquals(key, skf.translateKey(key));
+    }
+
+    @Test
+    public void test_InvalidSpecs() throws Exception {
+        SecretKeyFactory skf = newFactory("PBKDF2WithHmacSHA256");
+        PBEKeySpec[] specs = {
+                new PBEKeySpec(PASSWORD),
+                new PBEKeySpec(PASSWORD, SALT, 10),
+                new PBEKeySpec(PASSWORD, SALT, 10, 12),
+        };
+        for (PBEKeySpec spec : specs) {
+            try {
+                skf.generateSecret(spec);
+                fail();
+            } catch (InvalidKeySpecException expected) {
+            }
+        }
+    }
+}
@@ -118,6 +118,31 @@ public abstract class AbstractSessionContextTest<T extends AbstractSessionContex
         assertNull(getCachedSession(context, single));
     }
 
+    @Test
+    public void testStats() {
+        context.setSessionCacheSize(2);
+        NativeSslSession a = newSession("a");
+        NativeSslSession b = newSession("b");
+        NativeSslSession c = newSession("c");
+        NativeSslSession single = new MockSessionBuilder().host("single").singleUse(true).build();
+        NativeSslSession expired = new MockSessionBuilder().host("expired").valid(false).build();
+
+        context.cacheSession(a);
+        context.cacheSession(b);
+        context.cacheSession(c);
+        assertSame(c, getCachedSession(context, c));
+        assertNull(getCachedSession(context, a));
+
+        context.cacheSession(single);
+        assertSame(single, getCachedSession(context, single));
+        context.cacheSession(expired);
+        assertNull(getCachedSession(context, expired));
+
+        SessionCacheStats stats = context.getStats();
+        assertEquals(1, stats.getSingleUseConsumed());
+        assertEquals(2, stats.getEvictions());
+    }
+
     @Test
     public void testSerializeSession() throws Exception {
         Certificate mockCert = mock(Certificate.class);
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.security.Provider;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
+import javax.crypto.Cipher;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AeadBatchTest {
+    private static final int RECORDS = 5;
+
+    private final Provider provider = Conscrypt.newProvider();
+
+    private static byte[] bytes(int seed, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (seed * 31 + i);
+        }
+        return data;
+    }
+
+    private static AlgorithmParameterSpec spec(String algorithm, byte[] nonce) {
+        if (algorithm.startsWith("AES")) {
+            return new GCMParameterSpec(128, nonce);
+        }
+        return new IvParameterSpec(nonce);
+    }
+
+    private void checkSealMatchesCipher(String algorithm, String keyAlgorithm, int keyLength)
+            throws Exception {
+        SecretKeySpec key = new SecretKeySpec(bytes(7, keyLength), keyAlgorithm);
+        AeadBatch batch = Conscrypt.newAeadBatch(algorithm, key, 128);
+        int nonceLength = batch.getNonceLength();
+
+        // Records of varying lengths, including an empty one, laid out with gaps between them.
+        byte[] in = new byte[1024];
+        byte[] aad = bytes(3, 64);
+        byte[] nonces = new byte[RECORDS * nonceLength];
+        int[] inOffsets = new int[RECORDS];
+        int[] inLengths = new int[RECORDS];
+        int[] aadOffsets = new int[RECORDS];
+        int[] aadLengths = new int[RECORDS];
+        int pos = 0;
+        for (int i = 0; i < RECORDS; i++) {
+            byte[] record = bytes(i, i * 37);
+            System.arraycopy(record, 0, in, pos, record.length);
+            inOffsets[i] = pos;
+            inLengths[i] = record.length;
+            pos += record.length + 3;
+            aadOffsets[i] = i;
+            aadLengths[i] = i * 5;
+            System.arraycopy(bytes(100 + i, nonceLength), 0, nonces, i * nonceLength, nonceLength);
+        }
+
+        byte[] sealed = new byte[2048];
+        int[] sealedLengths = new int[RECORDS];
+        int sealedTotal = batch.seal(nonces, in, inOffsets, inLengths, aad, aadOffsets,
+                aadLengths, sealed, 10, sealedLengths);
+
+        int[] sealedOffsets = new int[RECORDS];
+        int outPos = 10;
+        for (int i = 0; i < RECORDS; i++) {
+            Cipher cipher = Cipher.getInstance(algorithm, provider);
+            cipher.init(Cipher.ENCRYPT_MODE, key,
+                    spec(algorithm, Arrays.copyOfRange(
+                            nonces, i * nonceLength, (i + 1) * nonceLength)));
+            cipher.updateAAD(aad, aadOffsets[i], aadLengths[i]);
+            byte[] expected = cipher.doFinal(in, inOffsets[i], inLengths[i]);
+            assertEquals(expected.length, sealedLengths[i]);
+            assertArrayEquals(expected,
+                    Arrays.copyOfRange(sealed, outPos, outPos + sealedLengths[i]));
+            sealedOffsets[i] = outPos;
+            outPos += sealedLengths[i];
+        }
+        assertEquals(outPos - 10, sealedTotal);
+
+        // Corrupt one record; the others must still open.
+        sealed[sealedOffsets[2]] ^= 1;
+        byte[] opened = new byte[2048];
+        int[] openedLengths = new int[RECORDS];
+        int openedTotal = batch.open(nonces, sealed, sealedOffsets, sealedLengths, aad,
+                aadOffsets, aadLengths, opened, 0, openedLengths);
+        assertEquals(-1, openedLengths[2]);
+        pos = 0;
+        for (int i = 0; i < RECORDS; i++) {
+            if (i == 2) {
+                continue;
+            }
+            assertArrayEquals(bytes(i, i * 37),
+                    Arrays.copyOfRange(opened, pos, pos + openedLengths[i]));
+            pos += openedLengths[i];
+        }
+        assertEquals(pos, openedTotal);
+    }
+
+    @Test
+    public void testAesGcm128() throws Exception {
+        checkSealMatchesCipher("AES/GCM/NoPadding", "AES", 16);
+    }
+
+    @Test
+    public void testAesGcm256() throws Exception {
+        checkSealMatchesCipher("AES/GCM/NoPadding", "AES", 32);
+    }
+
+    @Test
+    public void testChaCha20Poly1305() throws Exception {
+        checkSealMatchesCipher("ChaCha20/Poly1305/NoPadding", "ChaCha20", 32);
+    }
+
+    @Test
+    public void testNoAad() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(bytes(1, 16), "AES");
+        AeadBatch batch = Conscrypt.newAeadBatch("AES/GCM/NoPadding", key, 128);
+        byte[] nonces = bytes(2, 2 * batch.getNonceLength());
+        byte[] in = bytes(3, 40);
+        int[] offsets = {0, 20};
+        int[] lengths = {20, 20};
+        byte[] sealed = new byte[40 + 2 * batch.getTagLength()];
+        int[] sealedLengths = new int[2];
+        assertEquals(sealed.length, batch.seal(nonces, in, offsets, lengths, null, null, null,
+                sealed, 0, sealedLengths));
+
+        byte[] opened = new byte[40];
+        int[] openedLengths = new int[2];
+        assertEquals(40, batch.open(nonces, sealed, new int[] {0, sealedLengths[0]},
+                sealedLengths, null, null, null, opened, 0, openedLengths));
+        assertArrayEquals(in, opened);
+    }
+
+    @Test
+    public void testShortOutput() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(bytes(1, 16), "AES");
+        AeadBatch batch = Conscrypt.newAeadBatch("AES/GCM/NoPadding", key, 128);
+        byte[] nonces = bytes(2, batch.getNonceLength());
+        try {
+            batch.seal(nonces, new byte[10], new int[] {0}, new int[] {10}, null, null, null,
+                    new byte[10 + batch.getTagLength() - 1], 0, new int[1]);
+            fail();
+        } catch (ShortBufferException expected) {
+            // Expected.
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongNonceCount() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(bytes(1, 16), "AES");
+        AeadBatch batch = Conscrypt.newAeadBatch("AES/GCM/NoPadding", key, 128);
+        batch.seal(new byte[batch.getNonceLength()], new byte[10], new int[] {0, 5},
+                new int[] {5, 5}, null, null, null, new byte[100], 0, new int[2]);
+    }
+}
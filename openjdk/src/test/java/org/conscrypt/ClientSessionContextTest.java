@@ -113,4 +113,24 @@ public class ClientSessionContextTest extends AbstractSessionContextTest<ClientS
                 context.getCachedSession("host", DEFAULT_PORT, getDefaultSSLParameters()));
         assertEquals(0, size(context));
     }
+
+    @Test
+    public void testLookupStats() {
+        ClientSessionContext context = newContext();
+        NativeSslSession a = new MockSessionBuilder().host("a").build();
+        NativeSslSession expired = new MockSessionBuilder().host("expired").valid(false).build();
+        context.cacheSession(a);
+        context.cacheSession(expired);
+
+        assertSame(a, context.getCachedSession("a", DEFAULT_PORT, getDefaultSSLParameters()));
+        assertNull(context.getCachedSession("b", DEFAULT_PORT, getDefaultSSLParameters()));
+        assertNull(
+                context.getCachedSession("expired", DEFAULT_PORT, getDefaultSSLParameters()));
+
+        SessionCacheStats stats = context.getStats();
+        assertEquals(3, stats.getClientLookups());
+        assertEquals(1, stats.getClientHits());
+        assertEquals(1, stats.getClientMissesNotFound());
+        assertEquals(1, stats.getClientMissesExpired());
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.util.Arrays;
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DigestBatchTest {
+    private static final int INPUTS = 6;
+
+    private final Provider provider = Conscrypt.newProvider();
+
+    private static byte[] bytes(int seed, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (seed * 31 + i);
+        }
+        return data;
+    }
+
+    /** Inputs of lengths 0, 13, 26, ... packed with gaps between them. */
+    private static int pack(byte[] in, int[] offsets, int[] lengths) {
+        int pos = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            byte[] input = bytes(i, i * 13);
+            System.arraycopy(input, 0, in, pos, input.length);
+            offsets[i] = pos;
+            lengths[i] = input.length;
+            pos += input.length + 2;
+        }
+        return pos;
+    }
+
+    @Test
+    public void testDigestMatchesMessageDigest() throws Exception {
+        for (String algorithm : new String[] {"SHA-1", "SHA-256", "SHA-512"}) {
+            DigestBatch batch = Conscrypt.newDigestBatch(algorithm);
+            MessageDigest md = MessageDigest.getInstance(algorithm, provider);
+            assertEquals(md.getDigestLength(), batch.getOutputLength());
+
+            byte[] in = new byte[1024];
+            int[] offsets = new int[INPUTS];
+            int[] lengths = new int[INPUTS];
+            pack(in, offsets, lengths);
+            byte[] out = new byte[3 + INPUTS * batch.getOutputLength()];
+            assertEquals(INPUTS * batch.getOutputLength(),
+                    batch.process(in, offsets, lengths, out, 3));
+
+            for (int i = 0; i < INPUTS; i++) {
+                md.update(in, offsets[i], lengths[i]);
+                int start = 3 + i * batch.getOutputLength();
+                assertArrayEquals(algorithm, md.digest(),
+                        Arrays.copyOfRange(out, start, start + batch.getOutputLength()));
+            }
+        }
+    }
+
+    @Test
+    public void testHmacMatchesMac() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(bytes(9, 20), "HmacSHA256");
+        DigestBatch batch = Conscrypt.newMacBatch("HmacSHA256", key);
+        Mac mac = Mac.getInstance("HmacSHA256", provider);
+        mac.init(key);
+
+        byte[] in = new byte[1024];
+        int[] offsets = new int[INPUTS];
+        int[] lengths = new int[INPUTS];
+        pack(in, offsets, lengths);
+        byte[] out = new byte[INPUTS * batch.getOutputLength()];
+        batch.process(in, offsets, lengths, out, 0);
+        // Reusing the batch must not depend on the previous call.
+        byte[] again = new byte[out.length];
+        batch.process(in, offsets, lengths, again, 0);
+        assertArrayEquals(out, again);
+
+        for (int i = 0; i < INPUTS; i++) {
+            mac.update(in, offsets[i], lengths[i]);
+            int start = i * batch.getOutputLength();
+            assertArrayEquals(mac.doFinal(),
+                    Arrays.copyOfRange(out, start, start + batch.getOutputLength()));
+        }
+    }
+
+    @Test
+    public void testDirectBuffers() throws Exception {
+        DigestBatch batch = Conscrypt.newMacBatch(
+                "HmacSHA1", new SecretKeySpec(bytes(1, 16), "HmacSHA1"));
+        ByteBuffer[] inputs = new ByteBuffer[INPUTS];
+        byte[] in = new byte[1024];
+        int[] offsets = new int[INPUTS];
+        int[] lengths = new int[INPUTS];
+        pack(in, offsets, lengths);
+        for (int i = 0; i < INPUTS; i++) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(lengths[i] + 4);
+            buffer.position(2);
+            buffer.put(in, offsets[i], lengths[i]);
+            buffer.flip();
+            buffer.position(2);
+            inputs[i] = buffer;
+        }
+
+        byte[] direct = new byte[INPUTS * batch.getOutputLength()];
+        batch.process(inputs, direct, 0);
+        byte[] heap = new byte[direct.length];
+        batch.process(in, offsets, lengths, heap, 0);
+        assertArrayEquals(heap, direct);
+        for (ByteBuffer input : inputs) {
+            assertEquals(0, input.remaining());
+        }
+    }
+
+    @Test
+    public void testShortOutput() throws Exception {
+        DigestBatch batch = Conscrypt.newDigestBatch("SHA-256");
+        try {
+            batch.process(new byte[10], new int[] {0, 5}, new int[] {5, 5}, new byte[63], 0);
+            fail();
+        } catch (ShortBufferException expected) {
+            // Expected.
+        }
+    }
+
+    @Test(expected = NoSuchAlgorithmException.class)
+    public void testUnknownAlgorithm() throws Exception {
+        Conscrypt.newDigestBatch("SHA-3");
+    }
+}
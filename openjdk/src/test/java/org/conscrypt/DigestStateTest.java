@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import javax.crypto.ShortBufferException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DigestStateTest {
+    private static final byte[] PREFIX = {0x01};
+    private static final int LEAVES = 5;
+
+    private static byte[] sha256(byte[]... parts) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        for (byte[] part : parts) {
+            md.update(part);
+        }
+        return md.digest();
+    }
+
+    private static byte[] leaf(int i) {
+        byte[] leaf = new byte[i * 37];
+        Arrays.fill(leaf, (byte) i);
+        return leaf;
+    }
+
+    @Test
+    public void testUpdateAndDigest() throws Exception {
+        DigestState state = Conscrypt.newDigestState("SHA-256");
+        assertEquals(32, state.getDigestLength());
+        assertArrayEquals(sha256(), state.digest());
+
+        state.update((byte) 1);
+        state.update(leaf(3), 0, 111);
+        ByteBuffer direct = ByteBuffer.allocateDirect(74);
+        direct.put(leaf(2)).flip();
+        state.update(direct);
+        assertEquals(0, direct.remaining());
+        state.update(ByteBuffer.wrap(leaf(1)));
+        assertArrayEquals(sha256(PREFIX, leaf(3), leaf(2), leaf(1)), state.digest());
+
+        // Digesting leaves the state empty.
+        assertArrayEquals(sha256(), state.digest());
+    }
+
+    @Test
+    public void testCopyFrom() throws Exception {
+        DigestState prefix = Conscrypt.newDigestState("SHA-256");
+        prefix.update(PREFIX, 0, PREFIX.length);
+        DigestState node = Conscrypt.newDigestState("SHA-256");
+        for (int i = 0; i < LEAVES; i++) {
+            node.copyFrom(prefix);
+            byte[] leaf = leaf(i);
+            node.update(leaf, 0, leaf.length);
+            assertArrayEquals(sha256(PREFIX, leaf), node.digest());
+        }
+
+        // Copying an empty state.
+        node.update(PREFIX, 0, PREFIX.length);
+        node.copyFrom(Conscrypt.newDigestState("SHA-256"));
+        assertArrayEquals(sha256(), node.digest());
+
+        try {
+            node.copyFrom(Conscrypt.newDigestState("SHA-512"));
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testDigestEach() throws Exception {
+        DigestState prefix = Conscrypt.newDigestState("SHA-256");
+        prefix.update(PREFIX, 0, PREFIX.length);
+
+        byte[] in = new byte[0];
+        int[] offsets = new int[LEAVES];
+        int[] lengths = new int[LEAVES];
+        ByteBuffer[] buffers = new ByteBuffer[LEAVES];
+        byte[] expected = new byte[LEAVES * 32];
+        for (int i = 0; i < LEAVES; i++) {
+            byte[] leaf = leaf(i);
+            offsets[i] = in.length;
+            lengths[i] = leaf.length;
+            in = Arrays.copyOf(in, in.length + leaf.length);
+            System.arraycopy(leaf, 0, in, offsets[i], leaf.length);
+            buffers[i] = ByteBuffer.allocateDirect(leaf.length);
+            buffers[i].put(leaf).flip();
+            System.arraycopy(sha256(PREFIX, leaf), 0, expected, i * 32, 32);
+        }
+
+        byte[] out = new byte[expected.length + 1];
+        assertEquals(expected.length, prefix.digestEach(in, offsets, lengths, out, 1));
+        assertArrayEquals(expected, Arrays.copyOfRange(out, 1, out.length));
+
+        out = new byte[expected.length];
+        assertEquals(expected.length, prefix.digestEach(buffers, out, 0));
+        assertArrayEquals(expected, out);
+        for (ByteBuffer buffer : buffers) {
+            assertEquals(0, buffer.remaining());
+        }
+
+        // The prefix is unchanged.
+        assertArrayEquals(sha256(PREFIX), prefix.digest());
+
+        try {
+            prefix.digestEach(in, offsets, lengths, new byte[expected.length - 1], 0);
+            fail();
+        } catch (ShortBufferException expectedException) {
+        }
+    }
+}
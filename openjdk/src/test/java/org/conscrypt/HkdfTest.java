@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import static org.conscrypt.TestUtils.decodeHex;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import javax.crypto.SecretKey;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class HkdfTest {
+    // RFC 5869, test case 1.
+    private static final byte[] IKM = decodeHex("0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b");
+    private static final byte[] SALT = decodeHex("000102030405060708090a0b0c");
+    private static final byte[] INFO = decodeHex("f0f1f2f3f4f5f6f7f8f9");
+    private static final byte[] PRK = decodeHex(
+            "077709362c2e32df0ddc3f0dc47bba6390b6c73bb50f9c3122ec844ad7c2b3e5");
+    private static final byte[] OKM = decodeHex(
+            "3cb25f25faacd57a90434f64d0362f2a2d2d0a90cf1a5a4c5db02d56ecc4c5bf34007208d5b887185865");
+
+    // RFC 5869, test case 3: no salt and no info.
+    private static final byte[] PRK_NO_SALT = decodeHex(
+            "19ef24a32c717b167f33a91d6f648bdf96596776afdb6377ac434c1c293ccb04");
+    private static final byte[] OKM_NO_SALT = decodeHex(
+            "8da4e775a563c18f715f802a063c5a31b8a11f5c5ee1879ec3454e5f3c738d2d9d201395faa4b61a96c8");
+
+    @Test
+    public void testRfc5869() throws Exception {
+        Hkdf hkdf = Conscrypt.newHkdf("HmacSHA256");
+        assertEquals(32, hkdf.getMacLength());
+        assertArrayEquals(PRK, hkdf.extract(SALT, IKM));
+        assertArrayEquals(OKM, hkdf.expand(PRK, INFO, OKM.length));
+        assertArrayEquals(OKM, hkdf.derive(SALT, IKM, INFO, OKM.length));
+    }
+
+    @Test
+    public void testNullSaltAndInfo() throws Exception {
+        Hkdf hkdf = Conscrypt.newHkdf("HmacSHA256");
+        assertArrayEquals(PRK_NO_SALT, hkdf.extract(null, IKM));
+        assertArrayEquals(PRK_NO_SALT, hkdf.extract(new byte[0], IKM));
+        assertArrayEquals(OKM_NO_SALT, hkdf.expand(PRK_NO_SALT, null, OKM_NO_SALT.length));
+        assertArrayEquals(OKM_NO_SALT, hkdf.derive(null, IKM, null, OKM_NO_SALT.length));
+    }
+
+    @Test
+    public void testDeriveIntoArray() throws Exception {
+        Hkdf hkdf = Conscrypt.newHkdf("HmacSHA256");
+        byte[] out = new byte[OKM.length + 10];
+        hkdf.derive(SALT, IKM, INFO, out, 5, OKM.length);
+        assertArrayEquals(OKM, Arrays.copyOfRange(out, 5, 5 + OKM.length));
+        assertArrayEquals(new byte[5], Arrays.copyOfRange(out, 0, 5));
+        assertArrayEquals(new byte[5], Arrays.copyOfRange(out, 5 + OKM.length, out.length));
+    }
+
+    @Test
+    public void testDeriveKey() throws Exception {
+        SecretKey key = Conscrypt.newHkdf("HmacSHA256").deriveKey(SALT, IKM, INFO, 16, "AES");
+        assertEquals("AES", key.getAlgorithm());
+        assertArrayEquals(Arrays.copyOf(OKM, 16), key.getEncoded());
+    }
+
+    @Test
+    public void testLengthLimit() throws Exception {
+        Hkdf hkdf = Conscrypt.newHkdf("HmacSHA1");
+        assertEquals(255 * 20, hkdf.expand(PRK, INFO, 255 * 20).length);
+        try {
+            hkdf.expand(PRK, INFO, 255 * 20 + 1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            hkdf.derive(SALT, IKM, INFO, new byte[10], 0, 11);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test(expected = NoSuchAlgorithmException.class)
+    public void testUnsupportedAlgorithm() throws Exception {
+        Conscrypt.newHkdf("HmacMD5");
+    }
+}
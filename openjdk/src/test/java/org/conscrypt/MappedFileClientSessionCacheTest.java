@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.conscrypt.javax.net.ssl.FakeSSLSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MappedFileClientSessionCacheTest {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("sessions", ".cache");
+        file.delete();
+        MappedFileClientSessionCache.reset();
+    }
+
+    @After
+    public void tearDown() {
+        MappedFileClientSessionCache.reset();
+        file.delete();
+    }
+
+    private static byte[] data(int seed, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (seed + i);
+        }
+        return data;
+    }
+
+    @Test
+    public void testPutAndGet() throws IOException {
+        SSLClientSessionCache cache = MappedFileClientSessionCache.usingFile(file, 64, 512);
+        assertNull(cache.getSessionData("a", 443));
+
+        cache.putSessionData(new FakeSSLSession("a"), data(1, 100));
+        cache.putSessionData(new FakeSSLSession("b"), data(2, 200));
+        assertArrayEquals(data(1, 100), cache.getSessionData("a", 443));
+        assertArrayEquals(data(2, 200), cache.getSessionData("b", 443));
+        assertNull(cache.getSessionData("a", 8443));
+
+        // Replacing an entry reuses its slot.
+        cache.putSessionData(new FakeSSLSession("a"), data(3, 50));
+        assertArrayEquals(data(3, 50), cache.getSessionData("a", 443));
+        assertEquals(2, ((MappedFileClientSessionCache.Impl) cache).size());
+    }
+
+    @Test
+    public void testOversizedSessionNotCached() throws IOException {
+        SSLClientSessionCache cache = MappedFileClientSessionCache.usingFile(file, 64, 512);
+        cache.putSessionData(new FakeSSLSession("a"), new byte[513]);
+        assertNull(cache.getSessionData("a", 443));
+    }
+
+    @Test
+    public void testCapacity() throws IOException {
+        int capacity = 64;
+        MappedFileClientSessionCache.Impl cache = (MappedFileClientSessionCache.Impl)
+                MappedFileClientSessionCache.usingFile(file, capacity, 64);
+        for (int i = 0; i < capacity * 10; i++) {
+            cache.putSessionData(new FakeSSLSession("host" + i), data(i, 10));
+        }
+        assertTrue(cache.size() <= capacity);
+        // The most recently written entry always survives.
+        int last = capacity * 10 - 1;
+        assertArrayEquals(data(last, 10), cache.getSessionData("host" + last, 443));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvictedFirst() throws IOException {
+        // A single bucket, so every host competes for the same slots.
+        SSLClientSessionCache cache = MappedFileClientSessionCache.usingFile(
+                file, MappedFileClientSessionCache.WAYS, 64);
+        for (int i = 0; i < MappedFileClientSessionCache.WAYS; i++) {
+            cache.putSessionData(new FakeSSLSession("host" + i), data(i, 10));
+        }
+        // Touch host0 so that host1 becomes the least recently used.
+        cache.getSessionData("host0", 443);
+        cache.putSessionData(new FakeSSLSession("new"), data(99, 10));
+
+        assertArrayEquals(data(0, 10), cache.getSessionData("host0", 443));
+        assertNull(cache.getSessionData("host1", 443));
+        assertArrayEquals(data(99, 10), cache.getSessionData("new", 443));
+    }
+
+    @Test
+    public void testSurvivesReopen() throws IOException {
+        SSLClientSessionCache cache = MappedFileClientSessionCache.usingFile(file, 64, 512);
+        cache.putSessionData(new FakeSSLSession("a"), data(1, 100));
+        ((MappedFileClientSessionCache.Impl) cache).flush();
+
+        MappedFileClientSessionCache.reset();
+        cache = MappedFileClientSessionCache.usingFile(file, 64, 512);
+        assertArrayEquals(data(1, 100), cache.getSessionData("a", 443));
+    }
+
+    @Test
+    public void testLayoutChangeDiscardsContents() throws IOException {
+        SSLClientSessionCache cache = MappedFileClientSessionCache.usingFile(file, 64, 512);
+        cache.putSessionData(new FakeSSLSession("a"), data(1, 100));
+
+        MappedFileClientSessionCache.reset();
+        cache = MappedFileClientSessionCache.usingFile(file, 128, 512);
+        assertNull(cache.getSessionData("a", 443));
+    }
+
+    @Test
+    public void testCorruptEntryIgnored() throws IOException {
+        SSLClientSessionCache cache = MappedFileClientSessionCache.usingFile(file, 64, 512);
+        cache.putSessionData(new FakeSSLSession("a"), data(1, 100));
+        ((MappedFileClientSessionCache.Impl) cache).flush();
+        MappedFileClientSessionCache.reset();
+
+        // Flip every byte of the session data, wherever it landed.
+        byte[] contents = new byte[(int) file.length()];
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.readFully(contents);
+            byte[] needle = data(1, 100);
+            for (int i = 0; i + needle.length <= contents.length; i++) {
+                boolean match = true;
+                for (int j = 0; j < needle.length && match; j++) {
+                    match = contents[i + j] == needle[j];
+                }
+                if (match) {
+                    raf.seek(i);
+                    raf.write(data(2, 100));
+                    break;
+                }
+            }
+        } finally {
+            raf.close();
+        }
+
+        cache = MappedFileClientSessionCache.usingFile(file, 64, 512);
+        assertNull(cache.getSessionData("a", 443));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testConflictingParameters() throws IOException {
+        MappedFileClientSessionCache.usingFile(file, 64, 512);
+        MappedFileClientSessionCache.usingFile(file, 64, 1024);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MappedFileHasherTest {
+    private static final int FILE_SIZE = 100000;
+
+    private File file;
+    private byte[] contents;
+    private RandomAccessFile raf;
+    private FileChannel channel;
+
+    @Before
+    public void setUp() throws Exception {
+        contents = new byte[FILE_SIZE];
+        for (int i = 0; i < contents.length; i++) {
+            contents[i] = (byte) (i * 7);
+        }
+        file = File.createTempFile("MappedFileHasherTest", null);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(contents);
+        } finally {
+            out.close();
+        }
+        raf = new RandomAccessFile(file, "r");
+        channel = raf.getChannel();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        raf.close();
+        file.delete();
+    }
+
+    private static MessageDigest newDigest() throws Exception {
+        return MessageDigest.getInstance("SHA-256", TestUtils.getConscryptProvider());
+    }
+
+    @Test
+    public void testDigestAcrossWindows() throws Exception {
+        MessageDigest expected = newDigest();
+        expected.update(contents, 123, 77777);
+
+        // Windows that don't divide the region evenly.
+        for (long windowSize : new long[] {4096, 10000, MappedFileHasher.DEFAULT_WINDOW_SIZE}) {
+            MessageDigest md = newDigest();
+            MappedFileHasher.update(md, channel, 123, 77777, windowSize);
+            assertArrayEquals(((MessageDigest) expected.clone()).digest(), md.digest());
+        }
+        assertEquals(0, channel.position());
+    }
+
+    @Test
+    public void testConscryptMac() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(new byte[32], "HmacSHA256");
+        Mac mac = Mac.getInstance("HmacSHA256", TestUtils.getConscryptProvider());
+        mac.init(key);
+        Conscrypt.updateFromFile(mac, channel, 0, FILE_SIZE);
+        byte[] mapped = mac.doFinal();
+        assertArrayEquals(mac.doFinal(contents), mapped);
+    }
+
+    @Test
+    public void testEmptyRegion() throws Exception {
+        MessageDigest md = newDigest();
+        MappedFileHasher.update(md, channel, FILE_SIZE, 0, 4096);
+        assertArrayEquals(newDigest().digest(), md.digest());
+    }
+
+    @Test(expected = EOFException.class)
+    public void testRegionPastEnd() throws Exception {
+        MappedFileHasher.update(newDigest(), channel, 1, FILE_SIZE, 4096);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class OffHeapSessionStoreTest {
+    private static byte[] id(int i) {
+        return new byte[] {(byte) (i >> 24), (byte) (i >> 16), (byte) (i >> 8), (byte) i};
+    }
+
+    private static byte[] data(int seed, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (seed + i);
+        }
+        return data;
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        OffHeapSessionStore store = new OffHeapSessionStore(64, 256);
+        assertNull(store.get(id(1)));
+
+        assertTrue(store.put(id(1), data(1, 100)));
+        assertTrue(store.put(id(2), data(2, 256)));
+        assertArrayEquals(data(1, 100), store.get(id(1)));
+        assertArrayEquals(data(2, 256), store.get(id(2)));
+
+        assertTrue(store.put(id(1), data(3, 10)));
+        assertArrayEquals(data(3, 10), store.get(id(1)));
+        assertEquals(2, store.size());
+
+        store.remove(id(1));
+        assertNull(store.get(id(1)));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void testRejectsOversized() {
+        OffHeapSessionStore store = new OffHeapSessionStore(64, 256);
+        assertFalse(store.put(id(1), new byte[257]));
+        assertFalse(store.put(new byte[OffHeapSessionStore.MAX_ID_LENGTH + 1], new byte[1]));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testCapacity() {
+        OffHeapSessionStore store = new OffHeapSessionStore(100, 16);
+        assertEquals(104, store.capacity());
+        for (int i = 0; i < 10000; i++) {
+            store.put(id(i), data(i, 16));
+        }
+        assertTrue(store.size() <= store.capacity());
+        assertArrayEquals(data(9999, 16), store.get(id(9999)));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvictedFirst() {
+        OffHeapSessionStore store = new OffHeapSessionStore(OffHeapSessionStore.WAYS, 16);
+        for (int i = 0; i < OffHeapSessionStore.WAYS; i++) {
+            store.put(id(i), data(i, 16));
+        }
+        store.get(id(0));
+        store.put(id(100), data(100, 16));
+
+        assertArrayEquals(data(0, 16), store.get(id(0)));
+        assertNull(store.get(id(1)));
+        assertArrayEquals(data(100, 16), store.get(id(100)));
+    }
+}
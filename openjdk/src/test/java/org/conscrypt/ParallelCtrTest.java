@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ParallelCtrTest {
+    private static final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @AfterClass
+    public static void tearDownClass() {
+        pool.shutdown();
+    }
+
+    @After
+    public void tearDown() {
+        ParallelCtr.configure(null, 0);
+    }
+
+    @Test
+    public void testCounterAt() {
+        byte[] iv = new byte[16];
+        assertArrayEquals(iv, ParallelCtr.counterAt(iv, 0));
+
+        byte[] expected = new byte[16];
+        expected[15] = 1;
+        expected[14] = 2;
+        assertArrayEquals(expected, ParallelCtr.counterAt(iv, 0x201));
+
+        // Carries propagate across bytes.
+        iv[15] = (byte) 0xff;
+        iv[14] = (byte) 0xff;
+        expected = new byte[16];
+        expected[13] = 1;
+        expected[15] = 1;
+        assertArrayEquals(expected, ParallelCtr.counterAt(iv, 2));
+
+        // The counter wraps around at 2^128.
+        byte[] allOnes = new byte[16];
+        Arrays.fill(allOnes, (byte) 0xff);
+        assertArrayEquals(new byte[16], ParallelCtr.counterAt(allOnes, 1));
+    }
+
+    @Test
+    public void testShouldProcess() {
+        assertFalse(ParallelCtr.shouldProcess(1 << 20));
+
+        ParallelCtr.configure(pool, 1 << 20);
+        assertFalse(ParallelCtr.shouldProcess((1 << 20) - 1));
+        assertTrue(ParallelCtr.shouldProcess(1 << 20));
+
+        // Small updates are never worth splitting.
+        ParallelCtr.configure(pool, 0);
+        assertFalse(ParallelCtr.shouldProcess(1024));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeMinimumLength() {
+        ParallelCtr.configure(pool, -1);
+    }
+}
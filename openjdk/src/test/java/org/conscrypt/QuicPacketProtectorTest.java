@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import javax.crypto.BadPaddingException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class QuicPacketProtectorTest {
+    // RFC 9001, Appendix A.5.
+    private static final byte[] CHACHA_KEY = TestUtils.decodeHex(
+            "c6d98ff3441c3fe1b2182094f69caa2ed4b716b65488960a7a984979fb23e1c8");
+    private static final byte[] CHACHA_IV = TestUtils.decodeHex("e0459b3474bdd0e44a41c144");
+    private static final byte[] CHACHA_HP = TestUtils.decodeHex(
+            "25a282b9e82f06f21f488917a4fc8f1b73573685608597d0efcb076b0ab7a7a4");
+    private static final long CHACHA_PN = 654360564;
+    private static final byte[] CHACHA_UNPROTECTED = TestUtils.decodeHex("4200bff401");
+    private static final byte[] CHACHA_PROTECTED =
+            TestUtils.decodeHex("4cfe4189655e5cd55c41f69080575d7999c25a5bfb");
+
+    @Test
+    public void testChaCha20Poly1305Rfc9001() throws Exception {
+        QuicPacketProtector protector = Conscrypt.newQuicPacketProtector(
+                "TLS_CHACHA20_POLY1305_SHA256", CHACHA_KEY, CHACHA_IV, CHACHA_HP);
+
+        byte[] packet = new byte[CHACHA_PROTECTED.length];
+        System.arraycopy(CHACHA_UNPROTECTED, 0, packet, 0, CHACHA_UNPROTECTED.length);
+        assertEquals(17, protector.seal(CHACHA_PN, packet, 0, 4, 1));
+        protector.protectHeader(packet, 0, 1);
+        assertArrayEquals(CHACHA_PROTECTED, packet);
+
+        assertEquals(3, protector.unprotectHeader(packet, 0, 1));
+        assertEquals(1, protector.open(CHACHA_PN, packet, 0, 4, 17));
+        assertArrayEquals(CHACHA_UNPROTECTED, Arrays.copyOf(packet, CHACHA_UNPROTECTED.length));
+    }
+
+    private void checkRoundTrip(String cipherSuite, int keyLength) throws Exception {
+        byte[] key = new byte[keyLength];
+        byte[] hp = new byte[keyLength];
+        Arrays.fill(hp, (byte) 1);
+        byte[] iv = new byte[12];
+        QuicPacketProtector sender = Conscrypt.newQuicPacketProtector(cipherSuite, key, iv, hp);
+        QuicPacketProtector receiver =
+                Conscrypt.newQuicPacketProtector(cipherSuite, key, iv, hp);
+
+        // A long header packet with a 2-byte packet number at offset 18, placed after another
+        // packet in the same datagram.
+        int offset = 7;
+        int headerLength = 20;
+        int payloadLength = 100;
+        byte[] datagram = new byte[offset + headerLength + payloadLength + 16];
+        for (int i = 0; i < datagram.length; i++) {
+            datagram[i] = (byte) i;
+        }
+        datagram[offset] = (byte) 0xc1;
+        byte[] original = datagram.clone();
+
+        for (long pn = 0; pn < 3; pn++) {
+            sender.seal(pn, datagram, offset, headerLength, payloadLength);
+            sender.protectHeader(datagram, offset, offset + 18);
+
+            assertEquals(2, receiver.unprotectHeader(datagram, offset, offset + 18));
+            assertEquals(payloadLength, receiver.open(pn, datagram, offset, headerLength,
+                    payloadLength + 16));
+            assertArrayEquals(Arrays.copyOf(original, offset + headerLength + payloadLength),
+                    Arrays.copyOf(datagram, offset + headerLength + payloadLength));
+        }
+
+        sender.seal(5, datagram, offset, headerLength, payloadLength);
+        try {
+            receiver.open(6, datagram, offset, headerLength, payloadLength + 16);
+            fail();
+        } catch (BadPaddingException expected) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testAes128GcmRoundTrip() throws Exception {
+        checkRoundTrip("TLS_AES_128_GCM_SHA256", 16);
+    }
+
+    @Test
+    public void testAes256GcmRoundTrip() throws Exception {
+        checkRoundTrip("TLS_AES_256_GCM_SHA384", 32);
+    }
+
+    @Test
+    public void testChaCha20Poly1305RoundTrip() throws Exception {
+        checkRoundTrip("TLS_CHACHA20_POLY1305_SHA256", 32);
+    }
+}
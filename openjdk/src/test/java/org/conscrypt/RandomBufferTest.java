@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RandomBufferTest {
+    private SecureRandom random;
+
+    @Before
+    public void setUp() throws Exception {
+        random = SecureRandom.getInstance("SHA1PRNG", Conscrypt.newProvider());
+        Conscrypt.setRandomBuffering(true);
+    }
+
+    @After
+    public void tearDown() {
+        Conscrypt.setRandomBuffering(false);
+    }
+
+    @Test
+    public void testSmallRequestsAreDistinct() {
+        // Enough to refill the buffer several times.
+        Set<String> seen = new HashSet<String>();
+        for (int i = 0; i < 2000; i++) {
+            byte[] id = new byte[16];
+            random.nextBytes(id);
+            assertTrue(seen.add(Arrays.toString(id)));
+        }
+    }
+
+    @Test
+    public void testMixedSizes() {
+        byte[] zeros = new byte[RandomBuffer.MAX_BUFFERED_REQUEST + 1];
+        for (int i = 0; i < 500; i++) {
+            int length = 12 + i % (zeros.length - 11);
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            assertFalse(Arrays.equals(Arrays.copyOf(zeros, length), bytes));
+        }
+        random.nextBytes(new byte[0]);
+    }
+
+    @Test
+    public void testLargeRequest() {
+        byte[] bytes = new byte[10000];
+        random.nextBytes(bytes);
+        int zeros = 0;
+        for (byte b : bytes) {
+            if (b == 0) {
+                zeros++;
+            }
+        }
+        // About 39 expected.
+        assertTrue(zeros < 200);
+    }
+
+    @Test
+    public void testThreads() throws Exception {
+        final Set<String> seen = new HashSet<String>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 500; i++) {
+                        byte[] nonce = new byte[12];
+                        random.nextBytes(nonce);
+                        synchronized (seen) {
+                            seen.add(Arrays.toString(nonce));
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threads.length * 500, seen.size());
+    }
+}
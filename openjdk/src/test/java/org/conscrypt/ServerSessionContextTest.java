@@ -16,7 +16,10 @@
 
 package org.conscrypt;
 
+import static org.junit.Assert.assertArrayEquals;
+
 import java.util.Enumeration;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
@@ -43,4 +46,46 @@ public class ServerSessionContextTest extends AbstractSessionContextTest<ServerS
         }
         return count;
     }
+
+    private static byte[] ticketKey(int name, int length) {
+        byte[] key = new byte[length];
+        key[0] = (byte) name;
+        for (int i = 16; i < length; i++) {
+            key[i] = (byte) (name + i);
+        }
+        return key;
+    }
+
+    @Test
+    public void testSetTicketKeys() {
+        ServerSessionContext context = newContext();
+        byte[][] keys = new byte[][] {ticketKey(1, 80), ticketKey(2, 80)};
+        context.setTicketKeys(new byte[][] {ticketKey(1, 48)});
+        context.setTicketKeys(keys);
+        context.rotateTicketKey(ticketKey(3, 80));
+        context.rotateTicketKey(ticketKey(3, 80));
+        // The keys are copied into native memory; the caller's arrays are left alone.
+        assertArrayEquals(ticketKey(1, 80), keys[0]);
+        assertArrayEquals(ticketKey(2, 80), keys[1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetTicketKeys_badLength() {
+        newContext().setTicketKeys(new byte[][] {new byte[32]});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetTicketKeys_mixedLengths() {
+        newContext().setTicketKeys(new byte[][] {ticketKey(1, 48), ticketKey(2, 80)});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetTicketKeys_duplicateNames() {
+        newContext().setTicketKeys(new byte[][] {ticketKey(1, 48), ticketKey(1, 48)});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetTicketKeys_empty() {
+        newContext().setTicketKeys(new byte[0][]);
+    }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import static org.conscrypt.TestUtils.getConscryptProvider;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Resumes sessions through full handshakes between Conscrypt engines.
+ */
+@RunWith(JUnit4.class)
+public class SessionResumptionTest {
+    // TLS 1.2 resumes within the handshake, so no post-handshake messages need to be exchanged
+    // for the client to have a session to offer.
+    private static final String[] PROTOCOLS = new String[] {"TLSv1.2"};
+
+    @Test
+    public void testClientStatsCountResumption() throws Exception {
+        SSLContext clientContext = TestUtils.newClientSslContext(getConscryptProvider());
+        SSLContext serverContext = TestUtils.newServerSslContext(getConscryptProvider());
+
+        SSLSession first = handshake(clientContext, serverContext, false);
+        SSLSession second = handshake(clientContext, serverContext, false);
+        assertArrayEquals(first.getId(), second.getId());
+
+        SessionCacheStats stats =
+                Conscrypt.getSessionCacheStats(clientContext.getClientSessionContext());
+        assertEquals(2, stats.getClientLookups());
+        assertEquals(1, stats.getClientHits());
+        assertEquals(1, stats.getClientMissesNotFound());
+        assertEquals(stats.getClientLookups(),
+                stats.getClientHits() + stats.getClientMissesNotFound()
+                        + stats.getClientMissesExpired() + stats.getClientMissesProtocol()
+                        + stats.getClientMissesCipherSuite());
+
+        // Servers don't see lookups served by BoringSSL.
+        stats = Conscrypt.getSessionCacheStats(serverContext.getServerSessionContext());
+        assertEquals(0, stats.getClientLookups());
+    }
+
+    @Test
+    public void testTicketResumesOnContextWithSameKeys() throws Exception {
+        byte[] key = newTicketKey();
+        SSLContext clientContext = TestUtils.newClientSslContext(getConscryptProvider());
+        SSLContext issuer = TestUtils.newServerSslContext(getConscryptProvider());
+        SSLContext resumer = TestUtils.newServerSslContext(getConscryptProvider());
+        Conscrypt.setSessionTicketKeys(issuer, new byte[][] {key});
+        Conscrypt.setSessionTicketKeys(resumer, new byte[][] {newTicketKey(), key});
+
+        SSLSession first = handshake(clientContext, issuer, true);
+        SSLSession second = handshake(clientContext, resumer, true);
+        assertArrayEquals(first.getId(), second.getId());
+    }
+
+    @Test
+    public void testTicketRejectedOnContextWithOtherKeys() throws Exception {
+        SSLContext clientContext = TestUtils.newClientSslContext(getConscryptProvider());
+        SSLContext issuer = TestUtils.newServerSslContext(getConscryptProvider());
+        SSLContext other = TestUtils.newServerSslContext(getConscryptProvider());
+        Conscrypt.setSessionTicketKeys(issuer, new byte[][] {newTicketKey()});
+        Conscrypt.setSessionTicketKeys(other, new byte[][] {newTicketKey()});
+
+        SSLSession first = handshake(clientContext, issuer, true);
+        SSLSession second = handshake(clientContext, other, true);
+        assertFalse(Arrays.equals(first.getId(), second.getId()));
+    }
+
+    @Test
+    public void testTicketResumesAfterRotation() throws Exception {
+        byte[] oldKey = newTicketKey();
+        byte[] newKey = newTicketKey();
+        SSLContext clientContext = TestUtils.newClientSslContext(getConscryptProvider());
+        SSLContext issuer = TestUtils.newServerSslContext(getConscryptProvider());
+        SSLContext resumer = TestUtils.newServerSslContext(getConscryptProvider());
+        Conscrypt.setSessionTicketKeys(issuer, new byte[][] {oldKey});
+        Conscrypt.rotateSessionTicketKey(resumer, oldKey);
+        Conscrypt.rotateSessionTicketKey(resumer, newKey);
+        // Rotating to the current key again must not drop the previous one.
+        Conscrypt.rotateSessionTicketKey(resumer, newKey);
+
+        SSLSession first = handshake(clientContext, issuer, true);
+        SSLSession second = handshake(clientContext, resumer, true);
+        assertArrayEquals(first.getId(), second.getId());
+    }
+
+    @Test
+    public void testResumesAcrossContextsThroughSharedCache() throws Exception {
+        SharedSessionCache cache = Conscrypt.getSharedSessionCache(
+                SessionResumptionTest.class.getName());
+        SSLContext firstClient = TestUtils.newClientSslContext(getConscryptProvider());
+        SSLContext secondClient = TestUtils.newClientSslContext(getConscryptProvider());
+        SSLContext firstServer = TestUtils.newServerSslContext(getConscryptProvider());
+        SSLContext secondServer = TestUtils.newServerSslContext(getConscryptProvider());
+        for (SSLContext context : new SSLContext[] {
+                     firstClient, secondClient, firstServer, secondServer}) {
+            Conscrypt.setSharedSessionCache(context, cache);
+        }
+
+        SSLSession first = handshake(firstClient, firstServer, false);
+        SSLSession second = handshake(secondClient, secondServer, false);
+        assertArrayEquals(first.getId(), second.getId());
+
+        // Without the shared cache neither side knows the session.
+        Conscrypt.setSharedSessionCache(secondClient, null);
+        SSLSession third = handshake(secondClient, secondServer, false);
+        assertFalse(Arrays.equals(first.getId(), third.getId()));
+    }
+
+    private static byte[] newTicketKey() {
+        byte[] key = new byte[ServerSessionContext.TICKET_KEY_LENGTH_AES_128];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    /**
+     * Performs a TLS 1.2 handshake between new engines from the given contexts, using session
+     * tickets if {@code useSessionTickets} is set, and returns the client's session.
+     */
+    static SSLSession handshake(SSLContext clientContext, SSLContext serverContext,
+            boolean useSessionTickets) throws Exception {
+        SSLEngine client = clientContext.createSSLEngine("localhost", 443);
+        client.setUseClientMode(true);
+        client.setEnabledProtocols(PROTOCOLS);
+        Conscrypt.setUseSessionTickets(client, useSessionTickets);
+        SSLEngine server = serverContext.createSSLEngine();
+        server.setUseClientMode(false);
+        server.setEnabledProtocols(PROTOCOLS);
+        Conscrypt.setUseSessionTickets(server, useSessionTickets);
+
+        SSLSession session = client.getSession();
+        TestUtils.doEngineHandshake(client, server,
+                ByteBuffer.allocate(session.getApplicationBufferSize()),
+                ByteBuffer.allocate(session.getPacketBufferSize()),
+                ByteBuffer.allocate(session.getApplicationBufferSize()),
+                ByteBuffer.allocate(session.getPacketBufferSize()), true);
+        return client.getSession();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.security.cert.X509Certificate;
+import javax.net.ssl.X509TrustManager;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SharedSessionCacheTest {
+    @After
+    public void tearDown() {
+        SharedSessionCache.reset();
+    }
+
+    private static X509TrustManager newTrustManager() {
+        return new X509TrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {}
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {}
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        };
+    }
+
+    @Test
+    public void testNamed() {
+        SharedSessionCache cache = SharedSessionCache.named("a");
+        assertEquals("a", cache.getName());
+        assertSame(cache, SharedSessionCache.named("a"));
+        assertNotSame(cache, SharedSessionCache.named("b"));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNamed_null() {
+        SharedSessionCache.named(null);
+    }
+
+    @Test
+    public void testPartitionedByManagers() {
+        SharedSessionCache cache = SharedSessionCache.named("a");
+        X509TrustManager trustManager = newTrustManager();
+
+        SharedSessionCache.Contexts contexts = cache.contexts(trustManager, null, null);
+        assertSame(contexts, cache.contexts(trustManager, null, null));
+        assertNotSame(contexts.client, contexts.server);
+
+        SharedSessionCache.Contexts other = cache.contexts(newTrustManager(), null, null);
+        assertNotSame(contexts, other);
+        assertNotSame(contexts.client, other.client);
+        assertNotSame(contexts.server, other.server);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPartitionEvicted() {
+        SharedSessionCache cache = SharedSessionCache.named("a");
+        X509TrustManager first = newTrustManager();
+        X509TrustManager second = newTrustManager();
+        SharedSessionCache.Contexts firstContexts = cache.contexts(first, null, null);
+        SharedSessionCache.Contexts secondContexts = cache.contexts(second, null, null);
+        for (int i = 2; i < SharedSessionCache.MAXIMUM_PARTITIONS; i++) {
+            cache.contexts(newTrustManager(), null, null);
+        }
+        // Touch the first partition so that the second is the least recently used.
+        assertSame(firstContexts, cache.contexts(first, null, null));
+
+        cache.contexts(newTrustManager(), null, null);
+        assertSame(firstContexts, cache.contexts(first, null, null));
+        assertNotSame(secondContexts, cache.contexts(second, null, null));
+    }
+
+    @Test
+    public void testSettingsApplyToAllPartitions() {
+        SharedSessionCache cache = SharedSessionCache.named("a");
+        SharedSessionCache.Contexts before = cache.contexts(newTrustManager(), null, null);
+        cache.setSessionCacheSize(7);
+        cache.setSessionTimeout(60);
+        SharedSessionCache.Contexts after = cache.contexts(newTrustManager(), null, null);
+
+        assertEquals(7, before.client.getSessionCacheSize());
+        assertEquals(60, before.server.getSessionTimeout());
+        assertEquals(7, after.server.getSessionCacheSize());
+        assertEquals(60, after.client.getSessionTimeout());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.conscrypt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TreeHashTest {
+    private static final int LEAF_SIZE = 1000;
+
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testMatchesReference() throws Exception {
+        for (String algorithm : new String[] {"SHA-256", "SHA-512"}) {
+            TreeHash treeHash = TreeHash.getInstance(algorithm, LEAF_SIZE, pool);
+            // No leaves, a partial leaf, whole leaves and odd numbers of leaves.
+            for (int length : new int[] {0, 1, 999, 1000, 2000, 3000, 4500, 7000, 100001}) {
+                byte[] input = input(length);
+                byte[] expected = reference(algorithm, input);
+
+                assertArrayEquals(expected, treeHash.hash(ByteBuffer.wrap(input)));
+
+                ByteBuffer direct = ByteBuffer.allocateDirect(length + 10);
+                direct.position(10);
+                direct.put(input);
+                direct.position(10);
+                assertArrayEquals(expected, treeHash.hash(direct));
+                assertEquals(direct.limit(), direct.position());
+            }
+        }
+    }
+
+    @Test
+    public void testFile() throws Exception {
+        byte[] contents = input(50000);
+        File file = File.createTempFile("TreeHashTest", null);
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(contents);
+            } finally {
+                out.close();
+            }
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = raf.getChannel();
+                TreeHash treeHash = TreeHash.getInstance("SHA-256", LEAF_SIZE, pool);
+                byte[] region = new byte[33333];
+                System.arraycopy(contents, 123, region, 0, region.length);
+                assertArrayEquals(reference("SHA-256", region),
+                        treeHash.hash(channel, 123, region.length));
+                assertEquals(0, channel.position());
+
+                try {
+                    treeHash.hash(channel, 1, contents.length);
+                    fail();
+                } catch (EOFException expected) {
+                }
+            } finally {
+                raf.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testUnsupportedAlgorithm() throws Exception {
+        try {
+            TreeHash.getInstance("SHA-1", LEAF_SIZE, pool);
+            fail();
+        } catch (NoSuchAlgorithmException expected) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLeafSize() throws Exception {
+        TreeHash.getInstance("SHA-256", 0, pool);
+    }
+
+    private static byte[] input(int length) {
+        byte[] input = new byte[length];
+        for (int i = 0; i < length; i++) {
+            input[i] = (byte) (i * 31 + (i >> 8));
+        }
+        return input;
+    }
+
+    /**
+     * The Merkle tree hash as defined recursively by RFC 6962, section 2.1.
+     */
+    private static byte[] reference(String algorithm, byte[] input) throws Exception {
+        MessageDigest md = MessageDigest.getInstance(algorithm);
+        if (input.length == 0) {
+            return md.digest();
+        }
+        int leaves = (input.length + LEAF_SIZE - 1) / LEAF_SIZE;
+        return reference(md, input, 0, leaves);
+    }
+
+    private static byte[] reference(MessageDigest md, byte[] input, int first, int count) {
+        if (count == 1) {
+            int offset = first * LEAF_SIZE;
+            md.update((byte) 0x00);
+            md.update(input, offset, Math.min(LEAF_SIZE, input.length - offset));
+            return md.digest();
+        }
+        // The largest power of two smaller than count.
+        int k = Integer.highestOneBit(count - 1);
+        byte[] left = reference(md, input, first, k);
+        byte[] right = reference(md, input, first + k, count - k);
+        md.update((byte) 0x01);
+        md.update(left);
+        md.update(right);
+        return md.digest();
+    }
+}